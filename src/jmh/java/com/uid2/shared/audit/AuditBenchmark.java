@@ -0,0 +1,48 @@
+package com.uid2.shared.audit;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds and serializes an audit record for an admin request with query parameters and a JSON body,
+ * including the secret and SQL injection checks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditBenchmark {
+    private JsonObject actor;
+    private JsonObject queryParams;
+    private Buffer body;
+    private final Set<String> bodyParams = Set.of("site_id", "name", "contact", "roles", "details.reason");
+
+    @Setup
+    public void setup() {
+        actor = new JsonObject().put("email", "admin@example.com").put("sub", "user-1234");
+        queryParams = new JsonObject().put("site_id", "123").put("name", "example site");
+        body = new JsonObject()
+                .put("site_id", 123)
+                .put("name", "example client")
+                .put("contact", "ops@example.com")
+                .put("roles", "GENERATOR,MAPPER")
+                .put("secret", "not audited")
+                .put("details", new JsonObject().put("reason", "rotation").put("ticket", "T-1"))
+                .toBuffer();
+    }
+
+    @Benchmark
+    public JsonObject buildAndSerialize() {
+        return new Audit.AuditRecord.Builder(200, "admin", "POST", "/api/client/add", "trace-id", "uid-trace-id", actor, "instance-1")
+                .queryParams(queryParams)
+                .requestBody(body, bodyParams)
+                .build()
+                .toJson();
+    }
+}
@@ -0,0 +1,70 @@
+package com.uid2.shared.auth;
+
+import com.uid2.shared.secret.KeyHashResult;
+import com.uid2.shared.secret.KeyHasher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves client API keys as the auth middleware does on every request. {@code cachedHit} looks up keys whose
+ * hash is already cached, {@code miss} keys never seen before, which hash the key against every salt of its site.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthorizableStoreBenchmark {
+    @Param({"10000"})
+    public int clientCount;
+
+    @Param({"2000"})
+    public int siteCount;
+
+    private AuthorizableStore<ClientKey> store;
+    private String[] knownKeys;
+    private int index;
+    private long missCounter;
+
+    @Setup
+    public void setup() {
+        final KeyHasher keyHasher = new KeyHasher();
+        final List<ClientKey> clients = new ArrayList<>(clientCount);
+        knownKeys = new String[1024];
+        for (int i = 0; i < clientCount; i++) {
+            final int siteId = 1 + i % siteCount;
+            final String key = keyFor(siteId, i);
+            final KeyHashResult hash = keyHasher.hashKey(key);
+            clients.add(new ClientKey(hash.getHash(), hash.getSalt(), "", "client-" + i, "contact", 0, Set.of(), siteId, false, 0, "key-" + i));
+            if (i < knownKeys.length) {
+                knownKeys[i] = key;
+            }
+        }
+        store = new AuthorizableStore<>(ClientKey.class);
+        store.refresh(clients);
+        for (String key : knownKeys) {
+            store.getAuthorizableByKey(key);
+        }
+    }
+
+    private static String keyFor(int siteId, long n) {
+        final String suffix = Long.toString(1_000_000_000_000_000_000L + n);
+        return "UID2-C-L-" + siteId + "-abcdef." + "abcdefabcdefabcdefab".substring(0, 38 - suffix.length()) + suffix;
+    }
+
+    @Benchmark
+    public ClientKey cachedHit() {
+        index = (index + 1) & (knownKeys.length - 1);
+        return store.getAuthorizableByKey(knownKeys[index]);
+    }
+
+    @Benchmark
+    public ClientKey miss() {
+        return store.getAuthorizableByKey(keyFor(1 + (int) (missCounter % siteCount), clientCount + missCounter++));
+    }
+}
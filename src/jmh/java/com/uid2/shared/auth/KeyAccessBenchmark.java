@@ -0,0 +1,86 @@
+package com.uid2.shared.auth;
+
+import com.uid2.shared.model.KeysetKey;
+import com.uid2.shared.store.ACLMode.MissingAclMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers "which keys can site X see" over a production-sized keyset file, as the key sharing endpoint does.
+ * {@code boxedBaseline} measures the previous per-key boxed map lookup and {@code Set.contains} check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyAccessBenchmark {
+    @Param({"5000"})
+    public int siteCount;
+
+    @Param({"10000"})
+    public int keysetCount;
+
+    @Param({"100000"})
+    public int keyCount;
+
+    private Map<Integer, Keyset> keysets;
+    private KeysetSnapshot snapshot;
+    private List<KeysetKey> keys;
+    private int[] siteIds;
+    private int index;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        keysets = new HashMap<>();
+        for (int keysetId = 1; keysetId <= keysetCount; keysetId++) {
+            Set<Integer> allowedSites = null;
+            if (random.nextInt(10) != 0) {
+                allowedSites = new HashSet<>();
+                for (int i = 0; i < 20; i++) {
+                    allowedSites.add(random.nextInt(siteCount));
+                }
+            }
+            keysets.put(keysetId, new Keyset(keysetId, random.nextInt(siteCount), "keyset-" + keysetId, allowedSites, 0, true, false));
+        }
+        snapshot = new KeysetSnapshot(keysets);
+
+        keys = new ArrayList<>(keyCount);
+        for (int i = 0; i < keyCount; i++) {
+            keys.add(new KeysetKey(i, new byte[32], null, null, null, 1 + random.nextInt(keysetCount)));
+        }
+
+        siteIds = new int[64];
+        for (int i = 0; i < siteIds.length; i++) {
+            siteIds[i] = random.nextInt(siteCount);
+        }
+    }
+
+    private int nextSiteId() {
+        index = (index + 1) & (siteIds.length - 1);
+        return siteIds[index];
+    }
+
+    @Benchmark
+    public List<KeysetKey> filterAccessibleKeys() {
+        return snapshot.filterAccessibleKeys(nextSiteId(), keys, MissingAclMode.DENY_ALL);
+    }
+
+    @Benchmark
+    public List<KeysetKey> boxedBaseline() {
+        final Integer siteId = nextSiteId();
+        final List<KeysetKey> result = new ArrayList<>();
+        for (KeysetKey key : keys) {
+            final Keyset keyset = keysets.get(key.getKeysetId());
+            if (keyset == null || !keyset.isEnabled()) continue;
+            if (keyset.getSiteId() == siteId || keyset.canBeAccessedBySite(siteId)) {
+                result.add(key);
+            }
+        }
+        return result;
+    }
+}
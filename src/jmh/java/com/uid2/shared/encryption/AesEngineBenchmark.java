@@ -0,0 +1,101 @@
+package com.uid2.shared.encryption;
+
+import com.uid2.shared.model.KeysetKey;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encrypts and decrypts token-sized payloads through {@link AesEngine}.
+ * The {@code *Baseline} methods measure the previous per-call {@code SecretKeySpec}, output arrays and, for CBC,
+ * {@code Cipher.getInstance}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AesEngineBenchmark {
+    @Param({"32", "128", "1024"})
+    public int payloadSize;
+
+    private KeysetKey key;
+    private byte[] plaintext;
+    private byte[] gcmEncrypted;
+    private byte[] cbcEncrypted;
+    private ByteBuffer plaintextBuffer;
+    private ByteBuffer gcmOut;
+    private ByteBuffer decryptOut;
+    private Cipher baselineGcmCipher;
+
+    @Setup
+    public void setup() throws Exception {
+        key = new KeysetKey(1, Random.getRandomKeyBytes(), Instant.now(), Instant.now(), Instant.now().plusSeconds(3600), 1);
+        plaintext = Random.getBytes(payloadSize);
+        gcmEncrypted = AesGcm.encrypt(plaintext, key).getPayload();
+        cbcEncrypted = AesCbc.encrypt(plaintext, key).getPayload();
+        plaintextBuffer = ByteBuffer.wrap(plaintext);
+        gcmOut = ByteBuffer.allocate(AesEngine.gcmEncryptedLength(payloadSize));
+        decryptOut = ByteBuffer.allocate(gcmEncrypted.length);
+        baselineGcmCipher = Cipher.getInstance("AES/GCM/NoPadding");
+    }
+
+    @Benchmark
+    public int gcmEncryptIntoBuffer() {
+        plaintextBuffer.clear();
+        gcmOut.clear();
+        return AesEngine.encryptGcm(AesEngine.secretKey(key), plaintextBuffer, gcmOut);
+    }
+
+    @Benchmark
+    public int gcmDecryptIntoBuffer() {
+        decryptOut.clear();
+        return AesEngine.decryptGcm(AesEngine.secretKey(key), ByteBuffer.wrap(gcmEncrypted), decryptOut);
+    }
+
+    @Benchmark
+    public byte[] gcmEncrypt() {
+        return AesGcm.encrypt(plaintext, key).getPayload();
+    }
+
+    @Benchmark
+    public byte[] gcmDecrypt() {
+        return AesGcm.decrypt(gcmEncrypted, 0, key);
+    }
+
+    @Benchmark
+    public byte[] gcmEncryptBaseline() throws Exception {
+        final SecretKey k = new SecretKeySpec(key.getKeyBytes(), "AES");
+        final byte[] iv = Random.getBytes(AesGcm.GCM_IV_LENGTH);
+        baselineGcmCipher.init(Cipher.ENCRYPT_MODE, k, new GCMParameterSpec(AesGcm.GCM_AUTHTAG_LENGTH * 8, iv));
+        final byte[] result = new byte[AesGcm.GCM_IV_LENGTH + baselineGcmCipher.getOutputSize(plaintext.length)];
+        System.arraycopy(iv, 0, result, 0, AesGcm.GCM_IV_LENGTH);
+        baselineGcmCipher.doFinal(plaintext, 0, plaintext.length, result, AesGcm.GCM_IV_LENGTH);
+        return result;
+    }
+
+    @Benchmark
+    public byte[] cbcEncrypt() {
+        return AesCbc.encrypt(plaintext, key).getPayload();
+    }
+
+    @Benchmark
+    public byte[] cbcDecrypt() {
+        return AesCbc.decrypt(cbcEncrypted, key);
+    }
+
+    @Benchmark
+    public byte[] cbcDecryptBaseline() throws Exception {
+        final Cipher c = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        c.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key.getKeyBytes(), "AES"), new IvParameterSpec(cbcEncrypted, 0, 16));
+        return c.doFinal(cbcEncrypted, 16, cbcEncrypted.length - 16);
+    }
+}
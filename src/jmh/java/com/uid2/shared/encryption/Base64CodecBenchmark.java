@@ -0,0 +1,59 @@
+package com.uid2.shared.encryption;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes a client key hash as the authorizable store does on every cached lookup, and encodes a token in
+ * Base64URL without padding. The {@code *Baseline} methods measure the previous {@link Base64} calls, including
+ * the padding strip that {@code Uid2Base64UrlCoder.encode} used to do.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Base64CodecBenchmark {
+    private String keyHash;
+    private byte[] token;
+    private final byte[] hashBuffer = new byte[64];
+
+    @Setup
+    public void setup() {
+        keyHash = Base64.getEncoder().encodeToString(Random.getBytes(64));
+        token = Random.getBytes(145);
+    }
+
+    @Benchmark
+    public int decodeHashIntoBuffer() {
+        return Base64Codec.STANDARD.decode(keyHash, hashBuffer, 0);
+    }
+
+    @Benchmark
+    public byte[] decodeHash() {
+        return Base64Codec.STANDARD.decode(keyHash);
+    }
+
+    @Benchmark
+    public byte[] decodeHashBaseline() {
+        return Base64.getDecoder().decode(keyHash);
+    }
+
+    @Benchmark
+    public String encodeTokenNoPadding() {
+        return Uid2Base64UrlCoder.encode(token);
+    }
+
+    @Benchmark
+    public String encodeTokenBaseline() {
+        final String encoded = Base64.getUrlEncoder().encodeToString(token);
+        int end = encoded.length();
+        while (end > 0 && encoded.charAt(end - 1) == '=') {
+            end--;
+        }
+        return end == encoded.length() ? encoded : encoded.substring(0, end);
+    }
+}
@@ -0,0 +1,53 @@
+package com.uid2.shared.encryption;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Draws 12-byte GCM IVs from many threads at once, as the event loops do while encrypting tokens.
+ * {@code perCallBaseline} measures the previous allocation plus generator call per IV, and
+ * {@code newSecureRandomBaseline} the per-call {@code new SecureRandom()} that attestation tokens and key salts used.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class RandomBenchmark {
+    private final byte[] iv = new byte[AesGcm.GCM_IV_LENGTH];
+    private SecureRandom secureRandom;
+
+    @Setup
+    public void setup() throws Exception {
+        secureRandom = SecureRandom.getInstance("SHA1PRNG");
+    }
+
+    @Benchmark
+    public byte[] pooledIntoArray() {
+        Random.nextBytes(iv);
+        return iv;
+    }
+
+    @Benchmark
+    public byte[] pooledGetBytes() {
+        return Random.getBytes(AesGcm.GCM_IV_LENGTH);
+    }
+
+    @Benchmark
+    public byte[] perCallBaseline() {
+        final byte[] bytes = new byte[AesGcm.GCM_IV_LENGTH];
+        secureRandom.nextBytes(bytes);
+        return bytes;
+    }
+
+    @Benchmark
+    public byte[] newSecureRandomBaseline() {
+        final byte[] bytes = new byte[AesGcm.GCM_IV_LENGTH];
+        new SecureRandom().nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,60 @@
+package com.uid2.shared.optout;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks identities against an opt-out partition and a bloom filter, half of them opted out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OptOutBenchmark {
+    @Param({"1000000"})
+    public int entryCount;
+
+    private OptOutPartition partition;
+    private BloomFilter bloomFilter;
+    private byte[][] queries;
+    private int index;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        final OptOutHeap heap = new OptOutHeap(entryCount);
+        bloomFilter = new BloomFilter(BloomFilter.idealCapacity(entryCount));
+        queries = new byte[1024][];
+        for (int i = 0; i < entryCount; i++) {
+            final OptOutEntry entry = OptOutEntry.newTestEntry(random.nextLong(), 1_700_000_000L + i);
+            heap.add(entry);
+            bloomFilter.add(entry.identityHash);
+            if (i < queries.length / 2) {
+                queries[i * 2] = entry.identityHash;
+            }
+        }
+        for (int i = 1; i < queries.length; i += 2) {
+            queries[i] = OptOutEntry.idHashFromLong(random.nextLong());
+        }
+        partition = heap.toPartition(true);
+    }
+
+    private byte[] nextQuery() {
+        index = (index + 1) & (queries.length - 1);
+        return queries[index];
+    }
+
+    @Benchmark
+    public boolean partitionContains() {
+        return partition.contains(nextQuery());
+    }
+
+    @Benchmark
+    public boolean bloomFilterLikelyContains() {
+        return bloomFilter.likelyContains(nextQuery());
+    }
+}
@@ -0,0 +1,83 @@
+package com.uid2.shared.store;
+
+import com.uid2.shared.Utils;
+import com.uid2.shared.model.KeysetKey;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up the active key of a keyset as token encryption does on every request.
+ * {@code upperBoundBaseline} measures the previous boxed map lookup, {@code Utils.upperBound} search and expiry scan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ActiveKeyBenchmark {
+    @Param({"10000"})
+    public int keysetCount;
+
+    @Param({"10"})
+    public int keysPerKeyset;
+
+    private KeysetKeyStoreSnapshot snapshot;
+    private HashMap<Integer, List<KeysetKey>> keysetKeys;
+    private int[] keysetIds;
+    private Instant now;
+    private int index;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        now = Instant.now();
+        final HashMap<Integer, KeysetKey> byId = new HashMap<>();
+        keysetKeys = new HashMap<>();
+        int keyId = 0;
+        for (int keysetId = 1; keysetId <= keysetCount; keysetId++) {
+            final List<KeysetKey> keys = new ArrayList<>();
+            for (int i = 0; i < keysPerKeyset; i++) {
+                final Instant activates = now.minusSeconds(86400L * (keysPerKeyset - i));
+                final KeysetKey key = new KeysetKey(++keyId, new byte[32], activates, activates, activates.plusSeconds(86400L * 30), keysetId);
+                keys.add(key);
+                byId.put(key.getId(), key);
+            }
+            keys.sort(Comparator.comparing(KeysetKey::getActivates));
+            keysetKeys.put(keysetId, keys);
+        }
+        snapshot = new KeysetKeyStoreSnapshot(byId, new HashMap<>(keysetKeys));
+
+        keysetIds = new int[64];
+        for (int i = 0; i < keysetIds.length; i++) {
+            keysetIds[i] = 1 + random.nextInt(keysetCount);
+        }
+    }
+
+    private int nextKeysetId() {
+        index = (index + 1) & (keysetIds.length - 1);
+        return keysetIds[index];
+    }
+
+    @Benchmark
+    public KeysetKey getActiveKey() {
+        return snapshot.getActiveKey(nextKeysetId(), now);
+    }
+
+    @Benchmark
+    public KeysetKey upperBoundBaseline() {
+        final List<KeysetKey> keys = keysetKeys.get(nextKeysetId());
+        int it = Utils.upperBound(keys, now, (ts, k) -> ts.isBefore(k.getActivates()));
+        while (it > 0) {
+            final KeysetKey key = keys.get(it - 1);
+            if (!key.isExpired(now)) {
+                return key;
+            }
+            --it;
+        }
+        return null;
+    }
+}
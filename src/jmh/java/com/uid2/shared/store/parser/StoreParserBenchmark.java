@@ -0,0 +1,142 @@
+package com.uid2.shared.store.parser;
+
+import com.uid2.shared.Utils;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses synthetic store files sized like production ones.
+ * {@code treeBaseline} measures the previous approach of building a full vert.x JsonArray for the keyset key file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StoreParserBenchmark {
+    @Param({"100000"})
+    public int keysetKeyCount;
+
+    @Param({"5000"})
+    public int siteCount;
+
+    private byte[] keysetKeysJson;
+    private byte[] keysetsJson;
+    private byte[] keyAclsJson;
+    private byte[] servicesJson;
+    private byte[] clientSideKeypairsJson;
+
+    private final KeysetKeyParser keysetKeyParser = new KeysetKeyParser();
+    private final KeysetParser keysetParser = new KeysetParser();
+    private final KeyAclParser keyAclParser = new KeyAclParser();
+    private final ServiceParser serviceParser = new ServiceParser();
+    private final ClientSideKeypairParser clientSideKeypairParser = new ClientSideKeypairParser();
+
+    @Setup
+    public void setup() throws Exception {
+        final Random random = new Random(42);
+        final KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+        keyPairGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+        final KeyPair keyPair = keyPairGenerator.generateKeyPair();
+        final String publicKey = "UID2-X-L-" + Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded());
+        final String privateKey = "UID2-Y-L-" + Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded());
+        final long now = 1_700_000_000L;
+
+        final JsonArray keysetKeys = new JsonArray();
+        for (int i = 0; i < keysetKeyCount; i++) {
+            byte[] secret = new byte[32];
+            random.nextBytes(secret);
+            keysetKeys.add(new JsonObject()
+                    .put("id", i)
+                    .put("keyset_id", i % siteCount)
+                    .put("created", now)
+                    .put("activates", now + i)
+                    .put("expires", now + i + 86400)
+                    .put("secret", Base64.getEncoder().encodeToString(secret)));
+        }
+        keysetKeysJson = keysetKeys.encode().getBytes(StandardCharsets.UTF_8);
+
+        final JsonArray keysets = new JsonArray();
+        final JsonArray keyAcls = new JsonArray();
+        final JsonArray services = new JsonArray();
+        final JsonArray keypairs = new JsonArray();
+        for (int i = 0; i < siteCount; i++) {
+            final JsonArray allowedSites = new JsonArray();
+            for (int j = 0; j < 20; j++) {
+                allowedSites.add(random.nextInt(siteCount));
+            }
+            keysets.add(new JsonObject()
+                    .put("keyset_id", i)
+                    .put("site_id", i)
+                    .put("name", "keyset " + i)
+                    .put("allowed_sites", allowedSites)
+                    .put("created", now)
+                    .put("enabled", true)
+                    .put("default", true));
+            keyAcls.add(new JsonObject()
+                    .put("site_id", i)
+                    .put(i % 2 == 0 ? "whitelist" : "blacklist", allowedSites.copy()));
+            services.add(new JsonObject()
+                    .put("service_id", i)
+                    .put("site_id", i)
+                    .put("name", "service " + i)
+                    .put("roles", new JsonArray().add("GENERATOR").add("SHARER"))
+                    .put("link_id_regex", "[a-z]+")
+                    .put("disabled", false));
+            keypairs.add(new JsonObject()
+                    .put("subscription_id", "sub" + i)
+                    .put("public_key", publicKey)
+                    .put("private_key", privateKey)
+                    .put("site_id", i)
+                    .put("contact", "contact" + i + "@example.com")
+                    .put("created", now)
+                    .put("disabled", false)
+                    .put("name", "keypair " + i));
+        }
+        keysetsJson = keysets.encode().getBytes(StandardCharsets.UTF_8);
+        keyAclsJson = keyAcls.encode().getBytes(StandardCharsets.UTF_8);
+        servicesJson = services.encode().getBytes(StandardCharsets.UTF_8);
+        clientSideKeypairsJson = keypairs.encode().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Object treeBaseline() throws Exception {
+        return Utils.toJsonArray(new ByteArrayInputStream(keysetKeysJson));
+    }
+
+    @Benchmark
+    public Object keysetKeys() throws Exception {
+        return keysetKeyParser.deserialize(new ByteArrayInputStream(keysetKeysJson));
+    }
+
+    @Benchmark
+    public Object keysets() throws Exception {
+        return keysetParser.deserialize(new ByteArrayInputStream(keysetsJson));
+    }
+
+    @Benchmark
+    public Object keyAcls() throws Exception {
+        return keyAclParser.deserialize(new ByteArrayInputStream(keyAclsJson));
+    }
+
+    @Benchmark
+    public Object services() throws Exception {
+        return serviceParser.deserialize(new ByteArrayInputStream(servicesJson));
+    }
+
+    @Benchmark
+    public Object clientSideKeypairs() throws Exception {
+        return clientSideKeypairParser.deserialize(new ByteArrayInputStream(clientSideKeypairsJson));
+    }
+}
@@ -0,0 +1,99 @@
+package com.uid2.shared.store.salt;
+
+import com.uid2.shared.model.SaltEntry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a production-sized salt file and picks the rotating salt bucket for an identity, as every token
+ * generation does.
+ * <p>
+ * Parsed entries encode their hashed id on first use. The *AndReadHashedIds benchmarks read every one of them, which
+ * is the load time and allocation of the former eager parse; run with the gc profiler to compare gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SaltBenchmark {
+    @Param({"1048576"})
+    public int saltCount;
+
+    private String saltFile;
+    private ByteBuffer binarySaltFile;
+    private SaltFileParser parser;
+    private RotatingSaltProvider.SaltSnapshot snapshot;
+    private byte[][] identities;
+    private int index;
+
+    @Setup
+    public void setup() throws IOException {
+        final Random random = new Random(42);
+        final StringBuilder file = new StringBuilder(saltCount * 80);
+        for (int i = 0; i < saltCount; i++) {
+            file.append(i).append(',').append(1_700_000_000_000L).append(',')
+                    .append("salt").append(random.nextInt(1_000_000)).append(',')
+                    .append(1_700_000_000_000L + i).append(",,,,,,,\n");
+        }
+        saltFile = file.toString();
+        parser = new SaltFileParser(new IdHashingScheme("a", "secret"));
+
+        final SaltEntry[] entries = parser.parseFile(saltFile, saltCount);
+        final ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        BinarySaltFile.write(entries, binary);
+        binarySaltFile = ByteBuffer.wrap(binary.toByteArray());
+
+        snapshot = new RotatingSaltProvider.SaltSnapshot(Instant.EPOCH, Instant.MAX, entries, "first-level-salt");
+
+        identities = new byte[1024][];
+        for (int i = 0; i < identities.length; i++) {
+            identities[i] = new byte[32];
+            random.nextBytes(identities[i]);
+        }
+    }
+
+    @Benchmark
+    public SaltEntry getRotatingSalt() {
+        index = (index + 1) & (identities.length - 1);
+        return snapshot.getRotatingSalt(identities[index]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SaltEntry[] parseSaltFile() {
+        return parser.parseFile(saltFile, saltCount);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SaltEntry[] parseSaltFileAndReadHashedIds() {
+        return readHashedIds(parser.parseFile(saltFile, saltCount));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SaltEntry[] parseBinarySaltFile() throws IOException {
+        return parser.parseBinary(binarySaltFile, saltCount);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SaltEntry[] parseBinarySaltFileAndReadHashedIds() throws IOException {
+        return readHashedIds(parser.parseBinary(binarySaltFile, saltCount));
+    }
+
+    private static SaltEntry[] readHashedIds(SaltEntry[] entries) {
+        for (SaltEntry entry : entries) {
+            entry.hashedId();
+        }
+        return entries;
+    }
+}
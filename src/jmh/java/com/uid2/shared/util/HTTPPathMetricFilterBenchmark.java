@@ -0,0 +1,74 @@
+package com.uid2.shared.util;
+
+import com.uid2.shared.Utils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves metric path tags against a route set of a few hundred templates.
+ * {@code regexBaseline} measures the previous approach of compiling a regex per route on every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HTTPPathMetricFilterBenchmark {
+    @Param({"300"})
+    public int routeCount;
+
+    private static final int PATH_COUNT = 1024;
+
+    private Set<String> routes;
+    private String[] paths;
+    private int index;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        routes = new HashSet<>();
+        for (int i = 0; i < routeCount; i++) {
+            switch (i % 3) {
+                case 0 -> routes.add("/v" + (i % 4) + "/service" + i + "/action");
+                case 1 -> routes.add("/v" + (i % 4) + "/service" + i + "/:siteId");
+                default -> routes.add("/v" + (i % 4) + "/service" + i + "/:siteId/keys/:keyId");
+            }
+        }
+
+        paths = new String[PATH_COUNT];
+        for (int i = 0; i < PATH_COUNT; i++) {
+            final int route = random.nextInt(routeCount);
+            paths[i] = switch (route % 3) {
+                case 0 -> "/v" + (route % 4) + "/service" + route + "/action";
+                case 1 -> "/v" + (route % 4) + "/service" + route + "/" + random.nextInt(1000);
+                default -> "/v" + (route % 4) + "/service" + route + "/" + random.nextInt(1000) + "/keys/" + random.nextInt(100);
+            };
+        }
+    }
+
+    private String nextPath() {
+        index = (index + 1) & (PATH_COUNT - 1);
+        return paths[index];
+    }
+
+    @Benchmark
+    public String filterPath() {
+        return HTTPPathMetricFilter.filterPath(nextPath(), routes);
+    }
+
+    @Benchmark
+    public String regexBaseline() {
+        final String normalized = Utils.getNormalizedHttpPath(nextPath());
+        for (String path : routes) {
+            if (normalized.matches(path.replaceAll(":[^/]+", "[^/]+"))) {
+                return path;
+            }
+        }
+        return "/unknown";
+    }
+}
@@ -0,0 +1,91 @@
+package com.uid2.shared.vertx;
+
+import com.uid2.shared.model.Site;
+import com.uid2.shared.store.ISiteStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.http.HttpMethod;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of updating the request metrics in {@link RequestCapturingHandler}.
+ * {@code stringKeyBaseline} measures the previous approach of concatenating a string key and looking up the site name
+ * on every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestMetricsBenchmark {
+    private static final int SITE_COUNT = 200;
+    private static final int REQUEST_COUNT = 1024;
+    private static final String[] PATHS = {"/v2/token/generate", "/v2/token/refresh", "/v2/identity/map", "/v2/key/sharing"};
+
+    private RequestCapturingHandler handler;
+    private ISiteStore siteStore;
+    private final Map<String, Counter> baselineCounters = new HashMap<>();
+    private String[] contacts;
+    private int[] siteIds;
+    private int index;
+
+    @Setup
+    public void setup() {
+        Metrics.globalRegistry.add(new SimpleMeterRegistry());
+        final Map<Integer, Site> sites = new HashMap<>();
+        for (int i = 0; i < SITE_COUNT; i++) {
+            sites.put(i, new Site(i, "site-" + i, true));
+        }
+        siteStore = new ISiteStore() {
+            @Override
+            public Collection<Site> getAllSites() {
+                return sites.values();
+            }
+
+            @Override
+            public Site getSite(int siteId) {
+                return sites.get(siteId);
+            }
+        };
+        handler = new RequestCapturingHandler(siteStore);
+
+        contacts = new String[REQUEST_COUNT];
+        siteIds = new int[REQUEST_COUNT];
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            siteIds[i] = (i * 31) % SITE_COUNT;
+            contacts[i] = "contact-" + siteIds[i];
+        }
+    }
+
+    @Benchmark
+    public void incrementMetricCounter() {
+        index = (index + 1) & (REQUEST_COUNT - 1);
+        handler.incrementMetricCounter(contacts[index], siteIds[index], "localhost:8080", 200, HttpMethod.POST, PATHS[index & 3]);
+    }
+
+    @Benchmark
+    public void stringKeyBaseline() {
+        index = (index + 1) & (REQUEST_COUNT - 1);
+        final String apiContact = contacts[index];
+        final Integer siteId = siteIds[index];
+        final String path = PATHS[index & 3];
+        final Site site = siteStore.getSite(siteId);
+        final String siteName = site != null ? site.getName() : "unknown";
+        final String key = apiContact + "|" + siteId + "|" + siteName + "|localhost:8080|200|POST|" + path;
+        Counter counter = baselineCounters.get(key);
+        if (counter == null) {
+            counter = Counter.builder("uid2_http_requests_total_baseline")
+                    .tags("api_contact", apiContact, "site_id", String.valueOf(siteId), "site_name", siteName, "path", path)
+                    .register(Metrics.globalRegistry);
+            baselineCounters.put(key, counter);
+        }
+        counter.increment();
+    }
+}
@@ -20,6 +20,8 @@ public class Const {
         public static final String VERTX_DEFAULT_CONFIG_PATH_PROP = "vertx-default-config-path";
         // this is the system property name that vertx-config uses to read override config path
         public static final String VERTX_CONFIG_PATH_PROP = "vertx-config-path";
+        // this is the system property name that names the SecureRandom algorithm used for IVs, nonces and salts, e.g. DRBG
+        public static final String SECURE_RANDOM_ALGORITHM_PROP = "uid2.secureRandomAlgorithm";
 
         // this file stores default config values, can be overridden by env and sys variables
         public static final String DEFAULT_CONFIG_PATH = "conf" + File.separator + "default-config.json";
@@ -43,11 +45,16 @@ public class Const {
         public static final String CoreS3BucketProp = "core_s3_bucket";
         public static final String OptOutS3BucketProp = "optout_s3_bucket";
         public static final String S3VerboseLoggingProp = "aws_s3_verbose_logging";
+        public static final String S3PartSizeBytesProp = "aws_s3_part_size_bytes";
+        public static final String S3TransferConcurrencyProp = "aws_s3_transfer_concurrency";
+        public static final String S3TransparentCompressionProp = "aws_s3_transparent_compression";
 
         // Config stores
         public static final String CloudRefreshIntervalProp = "cloud_refresh_interval";
         public static final String CloudDownloadThreadsProp = "cloud_download_threads";
         public static final String CloudUploadThreadsProp = "cloud_upload_threads";
+        // run cloud transfers and store refreshes on virtual threads instead of worker pools
+        public static final String CloudVirtualThreadsProp = "cloud_virtual_threads";
         public static final String ClientsMetadataPathProp = "clients_metadata_path";
         public static final String KeysMetadataPathProp = "keys_metadata_path";
         public static final String KeysAclMetadataPathProp = "keys_acl_metadata_path";
@@ -77,6 +84,7 @@ public class Const {
         public static final String OptOutReplicaUris = "optout_replica_uris";
         public static final String OptOutSyntheticLogsEnabledProp = "optout_synthetic_logs_enabled";
         public static final String OptOutSyntheticLogsCountProp = "optout_synthetic_logs_count";
+        public static final String OptOutCompressionProp = "optout_compression";
         public static final String OptOutProducerReplicaIdProp = "optout_producer_replica_id";
         public static final String OptOutProducerReplicaIdOffsetProp = "optout_producer_replica_id_offset";
         public static final String OptOutProducerMaxReplicasProp = "optout_producer_max_replicas";
@@ -1,6 +1,7 @@
 package com.uid2.shared;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uid2.shared.encryption.Base64Codec;
 import com.uid2.shared.util.Mapper;
 import io.vertx.core.http.impl.HttpUtils;
 import io.vertx.core.json.Json;
@@ -131,7 +132,7 @@ public class Utils {
     }
 
     public static byte[] decodeBase64String(String base64String) {
-        return Base64.getDecoder().decode(base64String);
+        return Base64Codec.STANDARD.decode(base64String);
     }
 
     public static String maskPii(byte[] bytes) {
@@ -5,6 +5,7 @@ import com.uid2.shared.*;
 import com.uid2.shared.audit.Audit;
 import com.uid2.shared.audit.UidInstanceIdProvider;
 import com.uid2.shared.util.URLConnectionHttpClient;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.Json;
@@ -22,6 +23,8 @@ import java.nio.charset.StandardCharsets;
 import java.security.*;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
@@ -44,10 +47,14 @@ public class AttestationResponseHandler {
     private final Vertx vertx;
     private final URLConnectionHttpClient httpClient;
     private final UidInstanceIdProvider uidInstanceIdProvider;
-    private boolean isExpiryCheckScheduled;
-    private AtomicBoolean isAttesting;
+    private final AtomicBoolean isExpiryCheckScheduled;
+    private final AtomicBoolean isAttesting;
+    // Single-flight attestation: concurrent callers of attest() join the attestation that is already running
+    private final AtomicReference<CompletableFuture<Void>> inFlightAttestation;
+    // RSA key pair generated ahead of time on a worker thread so attest() does not pay for it inline
+    private final AtomicReference<KeyPair> preparedKeyPair;
     // Set this to be Instant.MAX so that if it's not set it won't trigger the re-attest
-    private Instant attestationTokenExpiresAt = Instant.MAX;
+    private volatile Instant attestationTokenExpiresAt = Instant.MAX;
     private final Lock lock;
     private final AttestationTokenDecryptor attestationTokenDecryptor;
     @Getter
@@ -95,6 +102,9 @@ public class AttestationResponseHandler {
         this.clock = clock;
         this.lock = new ReentrantLock();
         this.isAttesting = new AtomicBoolean(false);
+        this.isExpiryCheckScheduled = new AtomicBoolean(false);
+        this.inFlightAttestation = new AtomicReference<>(null);
+        this.preparedKeyPair = new AtomicReference<>(null);
         this.attestCheckMilliseconds = attestCheckMilliseconds;
         if (httpClient == null) {
             this.httpClient = new URLConnectionHttpClient(proxy);
@@ -116,6 +126,8 @@ public class AttestationResponseHandler {
         }
         this.appVersionHeader = builder.toString();
         this.uidInstanceIdProvider = uidInstanceIdProvider;
+
+        prepareNextKeyPair();
     }
 
     private void attestationExpirationCheck(long timerId) {
@@ -124,6 +136,9 @@ public class AttestationResponseHandler {
             LOGGER.warn("In the process of attesting. Skip re-attest.");
             return;
         }
+
+        // Cleared here unless the attestation was handed off, in which case its completion clears it.
+        boolean handedOff = false;
         try {
             Instant currentTime = clock.now();
             Instant tenMinutesBeforeExpire = attestationTokenExpiresAt.minusSeconds(600);
@@ -138,29 +153,89 @@ public class AttestationResponseHandler {
                 return;
             }
 
-            attest();
-        } catch (AttestationResponseHandlerException | IOException e) {
-            LOGGER.info("Re-attest failed: ", e);
+            // The periodic check runs on the event loop, so the attestation itself is handed off to a worker.
+            // Readers keep using the current token until the new one is swapped in.
+            attestAsync().onComplete(ar -> {
+                if (ar.failed()) {
+                    LOGGER.info("Re-attest failed: ", ar.cause());
+                }
+                this.isAttesting.set(false);
+            });
+            handedOff = true;
         } finally {
-            this.isAttesting.set(false);
+            if (!handedOff) {
+                this.isAttesting.set(false);
+            }
         }
     }
 
     private void scheduleAttestationExpirationCheck() {
-        if (!this.isExpiryCheckScheduled) {
+        if (this.isExpiryCheckScheduled.compareAndSet(false, true)) {
             // Schedule the task to run every minute
             this.vertx.setPeriodic(0, attestCheckMilliseconds, this::attestationExpirationCheck);
-            this.isExpiryCheckScheduled = true;
         }
     }
 
+    /**
+     * Runs attest() on a worker thread. Safe to call from the event loop.
+     */
+    public Future<Void> attestAsync() {
+        return this.vertx.executeBlocking(() -> {
+            attest();
+            return null;
+        }, false);
+    }
+
+    /**
+     * Attests with core and stores the returned token. If another attestation is already in progress,
+     * waits for that one to finish and reports its result instead of sending a second request.
+     */
     public void attest() throws IOException, AttestationResponseHandlerException {
+        CompletableFuture<Void> attestation = new CompletableFuture<>();
+        CompletableFuture<Void> existing = this.inFlightAttestation.compareAndExchange(null, attestation);
+        if (existing != null) {
+            LOGGER.info("Attestation already in progress. Waiting for it to complete.");
+            awaitAttestation(existing);
+            return;
+        }
+
+        try {
+            doAttest();
+            attestation.complete(null);
+        } catch (IOException | AttestationResponseHandlerException | RuntimeException e) {
+            attestation.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlightAttestation.set(null);
+        }
+    }
+
+    private static void awaitAttestation(CompletableFuture<Void> attestation) throws IOException, AttestationResponseHandlerException {
+        try {
+            attestation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AttestationResponseHandlerException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof AttestationResponseHandlerException) {
+                throw (AttestationResponseHandlerException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new AttestationResponseHandlerException(cause);
+        }
+    }
+
+    private void doAttest() throws IOException, AttestationResponseHandlerException {
         if (!attestationProvider.isReady()) {
             throw new AttestationResponseHandlerException("attestation provider is not ready");
         }
 
         try {
-            KeyPair keyPair = generateKeyPair();
+            KeyPair keyPair = takeKeyPair();
             byte[] publicKey = keyPair.getPublic().getEncoded();
             JsonObject requestJson = JsonObject.of(
                     "attestation_request", Base64.getEncoder().encodeToString(attestationProvider.getAttestationRequest(publicKey, this.encodedAttestationEndpoint)),
@@ -296,6 +371,25 @@ public class AttestationResponseHandler {
         return responseJson.getString("status") == null || !responseJson.getString("status").equals("success");
     }
 
+    private KeyPair takeKeyPair() throws NoSuchAlgorithmException {
+        // Each key pair is used for a single attestation; start preparing the next one straight away
+        KeyPair keyPair = this.preparedKeyPair.getAndSet(null);
+        if (keyPair == null) {
+            keyPair = generateKeyPair();
+        }
+        prepareNextKeyPair();
+        return keyPair;
+    }
+
+    private void prepareNextKeyPair() {
+        this.vertx.executeBlocking(() -> {
+            if (this.preparedKeyPair.get() == null) {
+                this.preparedKeyPair.compareAndSet(null, generateKeyPair());
+            }
+            return null;
+        }, false).onFailure(e -> LOGGER.warn("Failed to pre-generate attestation key pair", e));
+    }
+
     private static KeyPair generateKeyPair() throws NoSuchAlgorithmException {
         KeyPairGenerator gen = KeyPairGenerator.getInstance(Const.Name.AsymetricEncryptionKeyClass);
         gen.initialize(2048, new SecureRandom());
@@ -1,5 +1,6 @@
 package com.uid2.shared.attest;
 
+import com.uid2.shared.encryption.Random;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -11,12 +12,10 @@ import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.PBEKeySpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.KeySpec;
 import java.time.Instant;
 import java.util.Base64;
-import java.util.Random;
 
 public class AttestationToken {
     private static final Logger LOGGER = LoggerFactory.getLogger(AttestationToken.class);
@@ -111,19 +110,15 @@ public class AttestationToken {
     }
 
     private static long generateNonce() {
-        return new Random().nextLong();
+        return Random.nextLong();
     }
 
     private static IvParameterSpec generateIv() {
-        byte[] iv = new byte[16];
-        new SecureRandom().nextBytes(iv);
-        return new IvParameterSpec(iv);
+        return new IvParameterSpec(Random.getBytes(16));
     }
 
     private static GCMParameterSpec generateGcmParam() {
-        byte[] iv = new byte[GCM_IV_LENGTH];
-        new SecureRandom().nextBytes(iv);
-        return new GCMParameterSpec(128, iv);
+        return new GCMParameterSpec(128, Random.getBytes(GCM_IV_LENGTH));
     }
 
     private String getPlaintext() {
@@ -14,9 +14,13 @@ import java.io.InputStream;
 import java.net.*;
 import java.net.http.HttpResponse;
 import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
-public class UidCoreClient implements IUidCoreClient, DownloadCloudStorage {
+public class UidCoreClient implements IUidCoreClient, DownloadCloudStorage, AsyncDownloadCloudStorage {
     private static final Logger LOGGER = LoggerFactory.getLogger(UidCoreClient.class);
+    private static final String DOWNLOAD_HTTP_FAILURE_FORMAT =
+        "E12: Data Download Failure - HTTP response code %d. For troubleshooting information, refer to the applicable Private Operator guide: see https://unifiedid.com/docs/guides/integration-options-private-operator.";
     private final ICloudStorage contentStorage;
     private final Proxy proxy;
     private final URLConnectionHttpClient httpClient;
@@ -75,6 +79,37 @@ public class UidCoreClient implements IUidCoreClient, DownloadCloudStorage {
         return this.internalDownload(path);
     }
 
+    /**
+     * Sends the request without holding a thread while it is in flight. Attesting and reading local files still
+     * block, so those run on a virtual thread.
+     */
+    @Override
+    public CompletableFuture<InputStream> downloadAsync(String path) {
+        if ((allowContentFromLocalFileSystem && path.startsWith("file:/tmp/uid2")) || !attestationResponseHandler.attested()) {
+            return BlockingCloudStorageAdapter.supply(() -> internalDownload(path), BlockingCloudStorageAdapter.VIRTUAL_THREADS);
+        }
+
+        final URI uri;
+        final CompletableFuture<HttpResponse<String>> response;
+        try {
+            uri = URI.create(path);
+            response = httpClient.getAsync(path, buildHeaders(attestationResponseHandler.getAttestationToken()));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(downloadFailure(e));
+        }
+        return response.handle((r, t) -> {
+            if (t != null) {
+                final Throwable cause = t instanceof CompletionException ? t.getCause() : t;
+                LOGGER.error("Failed to send request to host: " + uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort() + " with error: ", cause);
+                throw new CompletionException(downloadFailure(cause));
+            }
+            if (r.statusCode() != 200) {
+                throw new CompletionException(new CloudStorageException(String.format(DOWNLOAD_HTTP_FAILURE_FORMAT, r.statusCode())));
+            }
+            return Utils.convertHttpResponseToInputStream(r);
+        });
+    }
+
     protected String getJWT() {
         return this.getAttestationResponseHandler().getCoreJWT();
     }
@@ -92,12 +127,16 @@ public class UidCoreClient implements IUidCoreClient, DownloadCloudStorage {
         } catch (CloudStorageException e) {
             throw e;
         } catch (Exception e) {
-            throw new CloudStorageException(
-                "E12: Data Download Failure - exception: " + e.getClass().getSimpleName() + 
-                ". For troubleshooting information, refer to the applicable Private Operator guide: see https://unifiedid.com/docs/guides/integration-options-private-operator.", e);
+            throw downloadFailure(e);
         }
     }
 
+    private static CloudStorageException downloadFailure(Throwable t) {
+        return new CloudStorageException(
+            "E12: Data Download Failure - exception: " + t.getClass().getSimpleName() +
+            ". For troubleshooting information, refer to the applicable Private Operator guide: see https://unifiedid.com/docs/guides/integration-options-private-operator.", t);
+    }
+
     private InputStream readContentFromLocalFileSystem(String path, Proxy proxy) throws IOException {
         return (proxy == null ? new URL(path).openConnection() : new URL(path).openConnection(proxy)).getInputStream();
     }
@@ -112,16 +151,26 @@ public class UidCoreClient implements IUidCoreClient, DownloadCloudStorage {
         HttpResponse<String> httpResponse;
         httpResponse = sendHttpRequest(path, attestationToken);
         if (httpResponse.statusCode() != 200) {
-            throw new CloudStorageException(String.format(
-                "E12: Data Download Failure - HTTP response code %d. For troubleshooting information, refer to the applicable Private Operator guide: see https://unifiedid.com/docs/guides/integration-options-private-operator.", 
-                httpResponse.statusCode()));
+            throw new CloudStorageException(String.format(DOWNLOAD_HTTP_FAILURE_FORMAT, httpResponse.statusCode()));
         }
         return Utils.convertHttpResponseToInputStream(httpResponse);
     }
 
     private HttpResponse<String> sendHttpRequest(String path, String attestationToken) throws IOException {
         URI uri = URI.create(path);
+        HashMap<String, String> headers = buildHeaders(attestationToken);
 
+        HttpResponse<String> httpResponse;
+        try {
+            httpResponse = httpClient.get(path, headers);
+        } catch (IOException e) {
+            LOGGER.error("Failed to send request to host: " + uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort() + " with error: ", e);
+            throw e;
+        }
+        return httpResponse;
+    }
+
+    private HashMap<String, String> buildHeaders(String attestationToken) {
         HashMap<String, String> headers = new HashMap<>();
         headers.put(Const.Http.AppVersionHeader, this.appVersionHeader);
         if (this.encryptionEnabled)
@@ -140,15 +189,7 @@ public class UidCoreClient implements IUidCoreClient, DownloadCloudStorage {
         } else {
             LOGGER.warn("getJWT returned an empty or null string for the JWT");
         }
-
-        HttpResponse<String> httpResponse;
-        try {
-            httpResponse = httpClient.get(path, headers);
-        } catch (IOException e) {
-            LOGGER.error("Failed to send request to host: " + uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort() + " with error: ", e);
-            throw e;
-        }
-        return httpResponse;
+        return headers;
     }
 
     protected AttestationResponseHandler getAttestationResponseHandler() {
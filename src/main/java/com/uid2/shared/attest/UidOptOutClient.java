@@ -10,6 +10,7 @@ import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.Proxy;
 import java.net.URL;
+import java.util.concurrent.CompletableFuture;
 
 public class UidOptOutClient extends UidCoreClient {
     private static final Logger LOGGER = LoggerFactory.getLogger(UidOptOutClient.class);
@@ -60,4 +61,30 @@ public class UidOptOutClient extends UidCoreClient {
 
         return InputStream.nullInputStream();
     }
+
+    @Override
+    public CompletableFuture<InputStream> downloadAsync(String path) {
+        if (path == null) {
+            path = "";
+        }
+
+        if (this.attestationResponseHandler.getOptOutUrl() == null) {
+            LOGGER.warn("UidOptOutClient attempting to download but OptOutUrl not available");
+            return CompletableFuture.completedFuture(InputStream.nullInputStream());
+        }
+
+        final URL fullUrl;
+        try {
+            fullUrl = new URL(new URL(this.attestationResponseHandler.getOptOutUrl()), path);
+        } catch (MalformedURLException e) {
+            LOGGER.error("Unable to parse OptOut URL", e);
+            return CompletableFuture.completedFuture(InputStream.nullInputStream());
+        }
+        return super.downloadAsync(fullUrl.toExternalForm())
+                .exceptionally(t -> {
+                    // Specifically not logging the exception as it might contain sensitive URLs
+                    LOGGER.error("Unexpected error in UidOptOutClient download");
+                    return InputStream.nullInputStream();
+                });
+    }
 }
@@ -1,11 +1,13 @@
 package com.uid2.shared.audit;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import io.vertx.core.MultiMap;
 import io.vertx.core.buffer.Buffer;
-import io.vertx.core.json.Json;
-import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RequestBody;
 import io.vertx.ext.web.RoutingContext;
@@ -14,13 +16,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.HttpServerResponse;
+import java.io.IOException;
+import java.io.StringWriter;
 import java.time.Instant;
 import java.util.*;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class Audit {
-
+    private static final Pattern UID2_KEY_PATTERN = Pattern.compile("(UID2|EUID)-[A-Za-z]-[A-Za-z]-[A-Za-z0-9_.-]{11,}");
+    private static final Pattern SQL_INJECTION_PATTERN = Pattern.compile(
+            "(?i)(\\bselect\\b\\s+.+\\s+\\bfrom\\b|\\bunion\\b\\s+\\bselect\\b|\\binsert\\b\\s+\\binto\\b|\\bdrop\\b\\s+\\btable\\b|--|#|\\bor\\b|\\band\\b|\\blike\\b|\\bin\\b\\s*\\(|;)"
+    );
+    private static final int PARAMETER_MAX_LENGTH = 1000;
+    private static final int REQUEST_BODY_MAX_LENGTH = 10000;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
 
     static class AuditRecord {
         private final Instant timestamp;
@@ -34,7 +43,8 @@ public class Audit {
         private final String uidTraceId;
         private final JsonObject queryParams;
         private String uidInstanceId;
-        private final String requestBody;
+        private final Buffer requestBody;
+        private final Set<String> requestBodyParams;
         private final StringBuilder toJsonValidationErrorMessageBuilder = new StringBuilder();
         @Getter
         private String toJsonValidationErrorMessage = "";
@@ -52,6 +62,7 @@ public class Audit {
             this.uidInstanceId = builder.uidInstanceId;
             this.queryParams = builder.queryParams;
             this.requestBody = builder.requestBody;
+            this.requestBodyParams = builder.requestBodyParams;
         }
 
         public JsonObject toJson() {
@@ -92,91 +103,180 @@ public class Audit {
             return json;
         }
 
-        private boolean validateJsonObjectParams(JsonObject jsonObject, String propertyName) {
-            Set<String> keysToRemove = new HashSet<>();
-
-            for (String key : jsonObject.fieldNames()) {
-                String val = jsonObject.getString(key);
-
-                boolean containsNoSecret = validateNoSecrets(val, String.format("%s.%s", propertyName, key));
-                boolean containsNoSQL = validateNoSQL(val, String.format("%s.%s", propertyName, key));
+        void write() {
+            String auditRecordString = this.toString();
+            if (!this.getToJsonValidationErrorMessage().isEmpty()) {
+                LOGGER.error(this.getToJsonValidationErrorMessage() + auditRecordString);
+            }
+            LOGGER.info(auditRecordString);
+        }
 
-                if (!(containsNoSecret && containsNoSQL)) {
-                    keysToRemove.add(key);
-                }
+        private boolean validateJsonObjectParams(JsonObject jsonObject, String propertyName) {
+            for (String key : new ArrayList<>(jsonObject.fieldNames())) {
+                sanitizeField(jsonObject, key, jsonObject.getValue(key), propertyName);
+            }
 
-                int parameter_max_length = 1000;
-                if (val != null && val.length() > parameter_max_length) {
-                    val = val.substring(0, parameter_max_length);
-                    toJsonValidationErrorMessageBuilder.append(String.format(
-                            "The %s is too long in the audit log: %s. ", propertyName, key));
-                }
+            return !jsonObject.isEmpty();
+        }
 
-                jsonObject.put(key, val);
+        // values are logged as strings; fields containing secrets or SQL are removed
+        private void sanitizeField(JsonObject jsonObject, String key, Object value, String propertyName) {
+            if (value == null) {
+                jsonObject.putNull(key);
+                return;
             }
 
-            for (String key : keysToRemove) {
+            String sanitized = sanitizeValue(value.toString(), propertyName, key);
+            if (sanitized == null) {
                 jsonObject.remove(key);
+            } else {
+                jsonObject.put(key, sanitized);
             }
+        }
 
-            return !jsonObject.isEmpty();
+        // returns null if the value must not be logged, otherwise the value truncated to the maximum parameter length
+        private String sanitizeValue(String val, String propertyName, String key) {
+            String propertyPath = propertyName + "." + key;
+            boolean containsNoSecret = validateNoSecrets(val, propertyPath);
+            boolean containsNoSQL = validateNoSQL(val, propertyPath);
+            if (!(containsNoSecret && containsNoSQL)) {
+                return null;
+            }
+
+            if (val.length() > PARAMETER_MAX_LENGTH) {
+                toJsonValidationErrorMessageBuilder.append(String.format(
+                        "The %s is too long in the audit log: %s. ", propertyName, key));
+                return val.substring(0, PARAMETER_MAX_LENGTH);
+            }
+            return val;
         }
 
-        private boolean validateJsonArrayParams(JsonArray jsonArray, String propertyName) {
-            JsonArray newJsonArray = new JsonArray();
+        // Filters the body down to the allowed dot-notation keys and sanitizes its top level values in one streaming
+        // pass, without decoding it into a JSON tree
+        private String sanitizeRequestBody(Buffer requestBody) {
+            String sanitizedRequestBody = "";
 
-            for (Object object : jsonArray) {
-                if (object instanceof JsonObject) {
-                    if (validateJsonObjectParams((JsonObject)object, propertyName)) {
-                        newJsonArray.add(object);
-                    }
+            try (JsonParser parser = JSON_FACTORY.createParser(requestBody.getBytes())) {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_OBJECT) {
+                    String object = sanitizeBodyObject(parser, "request_body");
+                    if (object != null) sanitizedRequestBody = object;
+                } else if (token == JsonToken.START_ARRAY) {
+                    sanitizedRequestBody = sanitizeBodyArray(parser, "request_body");
                 } else {
-                    toJsonValidationErrorMessageBuilder.append(String.format("The request body is a JSON array, but one of its elements is not a JSON object: %s. ", object.toString()));
+                    // the value itself is not logged, as it has not been checked for secrets
+                    toJsonValidationErrorMessageBuilder.append(String.format("The request body of audit log is not a JSON object or array: %s. ", token));
+                }
+                if (token != null && parser.nextToken() != null) {
+                    throw new JsonParseException(parser, "Unexpected content after the request body");
                 }
+            } catch (JsonProcessingException e) {
+                // the original message leaves out the source excerpt that the location would add
+                toJsonValidationErrorMessageBuilder.append("The request body of audit log is Invalid JSON: ").append(e.getOriginalMessage()).append(". ");
+                return "";
+            } catch (IOException e) {
+                toJsonValidationErrorMessageBuilder.append("The request body of audit log is Invalid JSON: ").append(e.getMessage()).append(". ");
+                return "";
             }
 
-            jsonArray.clear();
-            jsonArray.addAll(newJsonArray);
+            if (sanitizedRequestBody.length() > REQUEST_BODY_MAX_LENGTH) {
+                sanitizedRequestBody = sanitizedRequestBody.substring(0, REQUEST_BODY_MAX_LENGTH);
+                toJsonValidationErrorMessageBuilder.append("Request body is too long in the audit log. ");
+            }
+            return sanitizedRequestBody;
+        }
 
-            return !jsonArray.isEmpty();
+        private String sanitizeBodyArray(JsonParser parser, String propertyName) throws IOException {
+            StringJoiner elements = new StringJoiner(",", "[", "]");
+            boolean empty = true;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == JsonToken.START_OBJECT) {
+                    String element = sanitizeBodyObject(parser, propertyName);
+                    if (element != null) {
+                        elements.add(element);
+                        empty = false;
+                    }
+                } else {
+                    toJsonValidationErrorMessageBuilder.append(String.format("The request body is a JSON array, but one of its elements is not a JSON object: %s. ", token));
+                    parser.skipChildren();
+                }
+            }
+            return empty ? "" : elements.toString();
         }
 
-        private String sanitizeRequestBody(String requestBody) {
-            ObjectMapper mapper = new ObjectMapper();
-            String sanitizedRequestBody = "";
+        // returns the encoded object, or null if no field is left; top level values are logged as sanitized strings
+        private String sanitizeBodyObject(JsonParser parser, String propertyName) throws IOException {
+            StringWriter out = new StringWriter();
+            boolean empty = true;
+            try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+                generator.writeStartObject();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String key = parser.currentName();
+                    JsonToken token = parser.nextToken();
+                    String value;
+                    if (token == JsonToken.START_OBJECT) {
+                        value = encode(parser, key);
+                    } else if (!requestBodyParams.contains(key)) {
+                        parser.skipChildren();
+                        continue;
+                    } else if (token == JsonToken.VALUE_NULL) {
+                        generator.writeNullField(key);
+                        empty = false;
+                        continue;
+                    } else if (token.isStructStart()) {
+                        value = encode(parser, null);
+                    } else {
+                        value = parser.getText();
+                    }
 
-            try {
-                JsonNode root = mapper.readTree(requestBody);
+                    String sanitized = sanitizeValue(value, propertyName, key);
+                    if (sanitized != null) {
+                        generator.writeStringField(key, sanitized);
+                        empty = false;
+                    }
+                }
+                generator.writeEndObject();
+            }
+            return empty ? null : out.toString();
+        }
 
-                if (root.isObject()) {
-                    JsonObject jsonObject = new JsonObject(mapper.writeValueAsString(root));
-                    if (validateJsonObjectParams(jsonObject, "request_body")) sanitizedRequestBody = jsonObject.toString();
-                } else if (root.isArray()) {
-                    JsonArray jsonArray = new JsonArray(mapper.writeValueAsString(root));
-                    if (validateJsonArrayParams(jsonArray, "request_body")) sanitizedRequestBody = jsonArray.toString();
+        // encodes the structure at the current token; objects are filtered to the allowed keys below parentKey
+        private String encode(JsonParser parser, String parentKey) throws IOException {
+            StringWriter out = new StringWriter();
+            try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+                if (parentKey == null) {
+                    generator.copyCurrentStructure(parser);
                 } else {
-                    toJsonValidationErrorMessageBuilder.append(String.format("The request body of audit log is not a JSON object or array: %s. ", requestBody));
+                    copyBodyObject(parser, generator, parentKey);
                 }
-            } catch (Exception e) {
-                toJsonValidationErrorMessageBuilder.append("The request body of audit log is Invalid JSON: ").append(e.getMessage());
-
             }
+            return out.toString();
+        }
 
-            int request_body_max_length = 10000;
-            if (sanitizedRequestBody.length() > request_body_max_length) {
-                sanitizedRequestBody = sanitizedRequestBody.substring(0, request_body_max_length);
-                toJsonValidationErrorMessageBuilder.append("Request body is too long in the audit log: %s. ");
+        private void copyBodyObject(JsonParser parser, JsonGenerator generator, String parentKey) throws IOException {
+            generator.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String key = parser.currentName();
+                String fullKey = parentKey + "." + key;
+                if (parser.nextToken() == JsonToken.START_OBJECT) {
+                    generator.writeFieldName(key);
+                    copyBodyObject(parser, generator, fullKey);
+                } else if (requestBodyParams.contains(fullKey)) {
+                    generator.writeFieldName(key);
+                    generator.copyCurrentStructure(parser);
+                } else {
+                    parser.skipChildren();
+                }
             }
-            return sanitizedRequestBody;
+            generator.writeEndObject();
         }
 
         private boolean validateNoSecrets(String fieldValue, String propertyName) {
             if (fieldValue == null || fieldValue.isEmpty()) {
                 return true;
             }
-            Pattern uid2_key_pattern = Pattern.compile("(UID2|EUID)-[A-Za-z]-[A-Za-z]-[A-Za-z0-9_.-]{11,}");
-            Matcher matcher = uid2_key_pattern.matcher(fieldValue);
-            if(matcher.find()) {
+            if (UID2_KEY_PATTERN.matcher(fieldValue).find()) {
                 toJsonValidationErrorMessageBuilder.append(String.format("Secret found in the audit log: %s. ", propertyName));
                 return false;
             } else {
@@ -188,10 +288,7 @@ public class Audit {
             if (fieldValue == null || fieldValue.isEmpty()) {
                 return true;
             }
-            Pattern sql_injection_pattern = Pattern.compile(
-                    "(?i)(\\bselect\\b\\s+.+\\s+\\bfrom\\b|\\bunion\\b\\s+\\bselect\\b|\\binsert\\b\\s+\\binto\\b|\\bdrop\\b\\s+\\btable\\b|--|#|\\bor\\b|\\band\\b|\\blike\\b|\\bin\\b\\s*\\(|;)"
-            );
-            if(sql_injection_pattern.matcher(fieldValue).find()) {
+            if (SQL_INJECTION_PATTERN.matcher(fieldValue).find()) {
                 toJsonValidationErrorMessageBuilder.append(String.format("SQL injection found in the audit log: %s. ", propertyName));
                 return false;
             } else {
@@ -200,9 +297,6 @@ public class Audit {
         }
 
         private boolean validateId(String uidId, String propertyName) {
-
-            
-    
             if(!validateNoSecrets(uidId, propertyName)) {
                 toJsonValidationErrorMessageBuilder.append(String.format("Malformed %s found in the audit log: it contains secrets. ", propertyName));
                 return false;
@@ -239,7 +333,8 @@ public class Audit {
             private final String uidInstanceId;
 
             private JsonObject queryParams;
-            private String requestBody;
+            private Buffer requestBody;
+            private Set<String> requestBodyParams;
 
             public Builder(int status, String source, String method, String endpoint, String traceId, String uidTraceId, JsonObject actor, String uidInstanceId) {
                 this.status = status;
@@ -257,8 +352,13 @@ public class Audit {
                 return this;
             }
 
-            public Builder requestBody(String requestBody) {
+            /**
+             * The raw body is only decoded when the record is written; only keys in {@code bodyParams}
+             * (dot notation for nested objects) are kept.
+             */
+            public Builder requestBody(Buffer requestBody, Set<String> bodyParams) {
                 this.requestBody = requestBody;
+                this.requestBodyParams = bodyParams;
                 return this;
             }
 
@@ -269,9 +369,22 @@ public class Audit {
     }
 
     private final String source;
+    private final AuditLogWriter writer;
 
+    /**
+     * Creates an audit logger that sanitizes and writes records on the calling thread.
+     */
     public Audit (String source) {
+        this(source, null);
+    }
+
+    /**
+     * Creates an audit logger that only captures request details on the calling thread and hands the record to
+     * {@code writer} for sanitization and writing.
+     */
+    public Audit (String source, AuditLogWriter writer) {
         this.source = source;
+        this.writer = writer;
     }
 
     public static final String UID_TRACE_ID_HEADER = "UID-Trace-Id";
@@ -279,36 +392,6 @@ public class Audit {
     private static final Logger LOGGER = LoggerFactory.getLogger(Audit.class);
     private static final String UNKNOWN_ID = "unknown";
 
-    private static Set<String> flattenToDotNotation(JsonObject json, String parentKey) {
-        Set<String> keys = new HashSet<>();
-
-        for (Map.Entry<String, Object> entry : json) {
-            String fullKey = parentKey.isEmpty() ? entry.getKey() : parentKey + "." + entry.getKey();
-            Object value = entry.getValue();
-
-            if (value instanceof JsonObject jsonObject) {
-                keys.addAll(flattenToDotNotation(jsonObject, fullKey));
-            } else {
-                keys.add(fullKey);
-            }
-        }
-
-        return keys;
-    }
-
-    private static void removeByDotKey(JsonObject json, String dotKey) {
-        String[] parts = dotKey.split("\\.");
-        JsonObject current = json;
-        for (int i = 0; i < parts.length - 1; i++) {
-            Object next = current.getValue(parts[i]);
-            if (!(next instanceof JsonObject)) {
-                return;
-            }
-            current = (JsonObject) next;
-        }
-        current.remove(parts[parts.length - 1]);
-    }
-
     private JsonObject filterQueryParams(MultiMap queryParamsMap, List<String> queryParams) {
         JsonObject queryParamsJson = new JsonObject();
         if (queryParamsMap == null) return queryParamsJson;
@@ -320,71 +403,16 @@ public class Audit {
         return queryParamsJson;
     }
 
-    private String getBody(RequestBody requestBody, List<String> bodyParams) {
+    private static Buffer getBodyBuffer(RequestBody requestBody) {
         if (requestBody == null) {
-            return "";
+            return null;
         }
 
         Buffer bodyBuffer = requestBody.buffer();
         if (bodyBuffer == null || bodyBuffer.length() == 0) {
-            return "";
-        }
-
-        Set<String> allowedKeys = bodyParams != null
-                ? new HashSet<>(bodyParams): null;
-        if (allowedKeys == null) {
-            return "";
-        }
-
-        try {
-            Object genericJsonValue = Json.decodeValue(bodyBuffer);
-            if (genericJsonValue instanceof JsonObject) {
-                return filterBody((JsonObject) genericJsonValue, allowedKeys);
-            } else if (genericJsonValue instanceof JsonArray) {
-                return filterJsonArrayBody((JsonArray) genericJsonValue, allowedKeys);
-            } else {
-                return "";
-            }
-        } catch (Exception e) {
-            LOGGER.error("Failed to parse body param", e);
-            return "";
-        }
-    }
-
-    private String filterBody(JsonObject bodyJson, Set<String> allowedKeys) {
-        if (bodyJson == null) {
-            return "";
-        }
-
-        Set<String> dotKeys = flattenToDotNotation(bodyJson, "");
-        for (String key : dotKeys) {
-            if (!allowedKeys.contains(key)) {
-                removeByDotKey(bodyJson, key);
-            }
-        }
-        return bodyJson.toString();
-    }
-
-    private String filterJsonArrayBody(JsonArray bodyJson, Set<String> allowedKeys) {
-        if (bodyJson == null) {
-            return "";
+            return null;
         }
-
-        JsonArray newJsonArray = new JsonArray();
-        for (Object object : bodyJson) {
-            if (object instanceof JsonObject) {
-                JsonObject jsonObject = (JsonObject) object;
-
-                Set<String> dotKeys = flattenToDotNotation(jsonObject, "");
-                for (String key : dotKeys) {
-                    if (!allowedKeys.contains(key)) {
-                        removeByDotKey(jsonObject, key);
-                    }
-                }
-                newJsonArray.add(jsonObject);
-            }
-        }
-        return newJsonArray.toString();
+        return bodyBuffer;
     }
 
     private String defaultIfNull(String s) {
@@ -433,8 +461,6 @@ public class Audit {
                     uidInstanceId
             );
 
-            String bodyJson = getBody(ctx.body(), params.bodyParams());
-
             JsonObject queryParamsJson = null;
             if (ctx.request() != null && ctx.request().params() != null && params.queryParams() != null) {
                 queryParamsJson = filterQueryParams(ctx.request().params(), params.queryParams());
@@ -444,17 +470,20 @@ public class Audit {
                 builder.queryParams(queryParamsJson);
             }
 
-            if (bodyJson != null &&  !bodyJson.isEmpty()) {
-                builder.requestBody(bodyJson);
+            // with no allowed body params nothing from the body can be logged, so skip decoding it
+            if (!params.bodyParams().isEmpty()) {
+                Buffer bodyBuffer = getBodyBuffer(ctx.body());
+                if (bodyBuffer != null) {
+                    builder.requestBody(bodyBuffer, new HashSet<>(params.bodyParams()));
+                }
             }
 
             AuditRecord auditRecord = builder.build();
-            String auditRecordString = auditRecord.toString();
-            if (!auditRecord.getToJsonValidationErrorMessage().isEmpty()) {
-                LOGGER.error(auditRecord.getToJsonValidationErrorMessage() + auditRecordString);
+            if (this.writer != null) {
+                this.writer.submit(auditRecord);
+            } else {
+                auditRecord.write();
             }
-            LOGGER.info(auditRecordString);
-
         } catch (Exception e) {
             LOGGER.warn("Failed to log audit record", e);
         }
@@ -0,0 +1,188 @@
+package com.uid2.shared.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Moves audit record sanitization and emission off the calling thread.
+ * <p>
+ * Records are handed over through a bounded, lock-free queue and drained in batches by a single daemon thread.
+ * When the queue is full new records are dropped rather than blocking the caller (usually a Vert.x event loop);
+ * drops are counted in {@code uid2_audit_records_dropped_total}.
+ */
+public class AuditLogWriter implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuditLogWriter.class);
+    public static final int DEFAULT_CAPACITY = 10_000;
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long CLOSE_TIMEOUT_MS = 5_000;
+
+    private static volatile AuditLogWriter instance;
+
+    private final ConcurrentLinkedQueue<Audit.AuditRecord> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueSize = new AtomicInteger(0);
+    private final int capacity;
+    private final int batchSize;
+    private final Thread writerThread;
+    private final Counter counterDropped;
+    private final Counter counterWritten;
+    private final DistributionSummary batchSizeSummary;
+    private final Gauge gaugeQueueSize;
+    private volatile boolean running = true;
+    private volatile boolean writerIdle = false;
+
+    public AuditLogWriter() {
+        this(DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    public AuditLogWriter(int capacity, int batchSize) {
+        this(capacity, batchSize, Metrics.globalRegistry);
+    }
+
+    /**
+     * @param registry registry the writer's meters are registered on
+     */
+    public AuditLogWriter(int capacity, int batchSize, MeterRegistry registry) {
+        if (capacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("capacity and batchSize must be at least 1");
+        }
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.writerThread = new Thread(this::drainLoop, "audit-log-writer");
+        this.writerThread.setDaemon(true);
+
+        this.counterDropped = Counter
+            .builder("uid2_audit_records_dropped_total")
+            .description("counter for audit records dropped because the audit queue was full")
+            .register(registry);
+        this.counterWritten = Counter
+            .builder("uid2_audit_records_written_total")
+            .description("counter for audit records written by the background audit writer")
+            .register(registry);
+        this.batchSizeSummary = DistributionSummary
+            .builder("uid2_audit_write_batch_size")
+            .description("number of audit records written per batch")
+            .register(registry);
+        this.gaugeQueueSize = Gauge
+            .builder("uid2_audit_queue_size", this.queueSize::get)
+            .description("gauge for number of audit records waiting to be written")
+            .register(registry);
+    }
+
+    /**
+     * Returns the process-wide writer, starting it on first use. It is flushed by a shutdown hook.
+     */
+    public static AuditLogWriter getInstance() {
+        AuditLogWriter writer = instance;
+        if (writer == null) {
+            synchronized (AuditLogWriter.class) {
+                writer = instance;
+                if (writer == null) {
+                    writer = new AuditLogWriter();
+                    writer.start();
+                    final AuditLogWriter shutdownWriter = writer;
+                    Runtime.getRuntime().addShutdownHook(new Thread(shutdownWriter::close, "audit-log-writer-shutdown"));
+                    instance = writer;
+                }
+            }
+        }
+        return writer;
+    }
+
+    public AuditLogWriter start() {
+        this.writerThread.start();
+        return this;
+    }
+
+    /**
+     * Queues a record for writing. Never blocks; returns false if the record was dropped.
+     */
+    boolean submit(Audit.AuditRecord record) {
+        if (!this.running) {
+            this.counterDropped.increment();
+            return false;
+        }
+        if (this.queueSize.incrementAndGet() > this.capacity) {
+            this.queueSize.decrementAndGet();
+            this.counterDropped.increment();
+            return false;
+        }
+        this.queue.offer(record);
+        if (this.writerIdle) {
+            LockSupport.unpark(this.writerThread);
+        }
+        return true;
+    }
+
+    public int getQueueSize() {
+        return this.queueSize.get();
+    }
+
+    public double getDroppedCount() {
+        return this.counterDropped.count();
+    }
+
+    private void drainLoop() {
+        final List<Audit.AuditRecord> batch = new ArrayList<>(this.batchSize);
+        while (this.running || !this.queue.isEmpty()) {
+            Audit.AuditRecord record;
+            while (batch.size() < this.batchSize && (record = this.queue.poll()) != null) {
+                batch.add(record);
+            }
+
+            if (batch.isEmpty()) {
+                this.writerIdle = true;
+                // re-check after publishing the idle flag so a record offered in between is not missed
+                if (this.running && this.queue.isEmpty()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                this.writerIdle = false;
+                continue;
+            }
+
+            this.queueSize.addAndGet(-batch.size());
+            for (Audit.AuditRecord r : batch) {
+                try {
+                    r.write();
+                } catch (Exception e) {
+                    LOGGER.warn("Failed to write audit record", e);
+                }
+            }
+            this.counterWritten.increment(batch.size());
+            this.batchSizeSummary.record(batch.size());
+            batch.clear();
+        }
+    }
+
+    /**
+     * Stops accepting records and waits for the queued ones to be written.
+     */
+    @Override
+    public void close() {
+        this.running = false;
+        if (!this.writerThread.isAlive()) {
+            return;
+        }
+        LockSupport.unpark(this.writerThread);
+        try {
+            this.writerThread.join(CLOSE_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!this.queue.isEmpty()) {
+            LOGGER.warn("Audit log writer closed with {} records still queued", this.queue.size());
+        }
+    }
+}
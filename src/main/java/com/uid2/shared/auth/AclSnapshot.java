@@ -3,14 +3,35 @@ package com.uid2.shared.auth;
 import com.uid2.shared.model.EncryptionKey;
 import com.uid2.shared.store.ACLMode.MissingAclMode;
 import com.uid2.shared.store.IKeysAclSnapshot;
+import io.netty.util.collection.IntObjectHashMap;
 
+import java.util.Arrays;
 import java.util.Map;
 
 public class AclSnapshot implements IKeysAclSnapshot {
     private final Map<Integer, EncryptionKeyAcl> acls;
+    // per key site: whitelist flag and the sorted access list, so checks need no boxing
+    private final IntObjectHashMap<CompiledAcl> compiledAcls;
+
+    private record CompiledAcl(boolean isWhitelist, int[] sortedAccessList) {
+        boolean canBeAccessedBySite(int siteId) {
+            return isWhitelist == (Arrays.binarySearch(sortedAccessList, siteId) >= 0);
+        }
+    }
 
     public AclSnapshot(Map<Integer, EncryptionKeyAcl> acls) {
         this.acls = acls;
+        this.compiledAcls = new IntObjectHashMap<>(Math.max(8, acls.size()));
+        for (Map.Entry<Integer, EncryptionKeyAcl> entry : acls.entrySet()) {
+            if (entry.getKey() == null) {
+                continue;
+            }
+            final int[] accessList = entry.getValue().getAccessList().stream()
+                    .mapToInt(Integer::intValue)
+                    .sorted()
+                    .toArray();
+            this.compiledAcls.put(entry.getKey(), new CompiledAcl(entry.getValue().getIsWhitelist(), accessList));
+        }
     }
 
     public boolean canClientAccessKey(ClientKey clientKey, EncryptionKey key) {
@@ -20,19 +41,23 @@ public class AclSnapshot implements IKeysAclSnapshot {
 
     @Override
     public boolean canClientAccessKey(ClientKey clientKey, EncryptionKey key, MissingAclMode accessMethod) {
-        if(clientKey.getSiteId() == key.getSiteId()) return true;
+        return canSiteAccessKeysOfSite(clientKey.getSiteId(), key.getSiteId(), accessMethod);
+    }
+
+    public boolean canSiteAccessKeysOfSite(int clientSiteId, int keySiteId, MissingAclMode accessMethod) {
+        if(clientSiteId == keySiteId) return true;
 
-        EncryptionKeyAcl acl = acls.get(key.getSiteId());
+        CompiledAcl acl = compiledAcls.get(keySiteId);
 
         // No ACL: everyone has access to the site keys
         if(acl == null) {
             return accessMethod == MissingAclMode.ALLOW_ALL;
         }
 
-        return acl.canBeAccessedBySite(clientKey.getSiteId());
+        return acl.canBeAccessedBySite(clientSiteId);
     }
 
     public Map<Integer, EncryptionKeyAcl> getAllAcls() {
         return acls;
     }
-}
\ No newline at end of file
+}
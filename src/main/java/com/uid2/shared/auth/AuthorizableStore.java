@@ -2,7 +2,9 @@ package com.uid2.shared.auth;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.uid2.shared.encryption.Base64Codec;
 import com.uid2.shared.secret.KeyHasher;
+import com.uid2.shared.store.SnapshotDiff;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Metrics;
 import org.slf4j.Logger;
@@ -20,6 +22,8 @@ public class AuthorizableStore<T extends IAuthorizable> {
     private static final Pattern KEY_PATTERN = Pattern.compile("(?:UID2|EUID)-[CO]-[LTIP]-([0-9]+)-.{6}\\..{38}");
     private static final KeyHasher KEY_HASHER = new KeyHasher();
     private static final int CACHE_MAX_SIZE = 100_000;
+    // lookups decode cached hashes into a per-thread buffer; SHA-512 hashes are 64 bytes
+    private static final ThreadLocal<byte[]> HASH_LOOKUP_BUFFER = ThreadLocal.withInitial(() -> new byte[64]);
 
     private final AtomicReference<AuthorizableStoreSnapshot> authorizables;
     private final Cache<String, String> keyToHashCache;
@@ -46,6 +50,52 @@ public class AuthorizableStore<T extends IAuthorizable> {
         invalidateInvalidKeys();
     }
 
+    /**
+     * Applies only the given differences to the current snapshot instead of rebuilding it.
+     * Falls back to a full rebuild when most of the entries changed.
+     */
+    public void refresh(Collection<T> authorizablesToRefresh, SnapshotDiff<T> diff) {
+        if (diff.isEmpty()) {
+            return;
+        }
+
+        AuthorizableStoreSnapshot previous = authorizables.get();
+        if (diff.size() * 2 > authorizablesToRefresh.size()) {
+            authorizables.set(new AuthorizableStoreSnapshot(authorizablesToRefresh));
+        } else {
+            authorizables.set(new AuthorizableStoreSnapshot(previous, diff));
+        }
+
+        // Cached hashes of existing keys are resolved against the latest snapshot on every lookup, so they stay valid.
+        // Only cached misses can become stale, and only when a new key hash appeared.
+        Set<Integer> sitesWithNewKeys = new HashSet<>();
+        boolean hasSitelessNewKeys = false;
+        for (T a : diff.getAdded()) {
+            if (a.getSiteId() == null) {
+                hasSitelessNewKeys = true;
+            } else {
+                sitesWithNewKeys.add(a.getSiteId());
+            }
+        }
+        // the diff is keyed by key hash, so a changed entry keeps its hash; it can only match a previously unknown key
+        // if it moved to another site or salt
+        for (SnapshotDiff.Change<T> c : diff.getChanged()) {
+            if (!Objects.equals(c.previous().getSiteId(), c.current().getSiteId())
+                    || !Objects.equals(c.previous().getKeySalt(), c.current().getKeySalt())) {
+                if (c.current().getSiteId() == null) {
+                    hasSitelessNewKeys = true;
+                } else {
+                    sitesWithNewKeys.add(c.current().getSiteId());
+                }
+            }
+        }
+        if (hasSitelessNewKeys) {
+            invalidateInvalidKeys();
+        } else if (!sitesWithNewKeys.isEmpty()) {
+            invalidateInvalidKeys(sitesWithNewKeys);
+        }
+    }
+
     public T getAuthorizableByKey(String key) {
         if (key == null) {
             return null;
@@ -56,7 +106,7 @@ public class AuthorizableStore<T extends IAuthorizable> {
         String cachedHash = keyToHashCache.getIfPresent(key);
         keyToHashTotalCounter.increment();
         if (cachedHash != null) {
-            return cachedHash.isBlank() ? null : latest.getAuthorizableByHash(wrapHashToByteBuffer(cachedHash));
+            return cachedHash.isBlank() ? null : latest.getAuthorizableByHash(decodeHashForLookup(cachedHash));
         } else {
             keyToHashMissCounter.increment();
         }
@@ -75,7 +125,7 @@ public class AuthorizableStore<T extends IAuthorizable> {
             return null;
         }
 
-        ByteBuffer hashBytes = wrapHashToByteBuffer(hash);
+        ByteBuffer hashBytes = decodeHashForLookup(hash);
         if (hashBytes == null) {
             return null;
         }
@@ -111,14 +161,45 @@ public class AuthorizableStore<T extends IAuthorizable> {
         invalidKeys.forEach(keyToHashCache::invalidate);
     }
 
+    private void invalidateInvalidKeys(Set<Integer> siteIds) {
+        // keys without a parsable site id are looked up against all salts, so any new key may match them
+        List<String> invalidKeys = keyToHashCache.asMap()
+                .entrySet()
+                .stream()
+                .filter(entry -> entry.getValue().isBlank())
+                .map(Map.Entry::getKey)
+                .filter(key -> {
+                    Integer siteId = getSiteIdFromKey(key);
+                    return siteId == null || siteIds.contains(siteId);
+                })
+                .collect(Collectors.toList());
+        invalidKeys.forEach(keyToHashCache::invalidate);
+    }
+
     private ByteBuffer wrapHashToByteBuffer(String hash) {
         byte[] hashBytes = convertBase64StringToBytes(hash);
         return hashBytes == null ? null : ByteBuffer.wrap(hashBytes);
     }
 
+    // the returned buffer is only valid until the next lookup on this thread and must not be stored
+    private ByteBuffer decodeHashForLookup(String hash) {
+        try {
+            int length = Base64Codec.STANDARD.decodedLength(hash);
+            byte[] buffer = HASH_LOOKUP_BUFFER.get();
+            if (length > buffer.length) {
+                buffer = new byte[length];
+            }
+            Base64Codec.STANDARD.decode(hash, buffer, 0);
+            return ByteBuffer.wrap(buffer, 0, length);
+        } catch (IllegalArgumentException e) {
+            LOGGER.error("Invalid base64 string: {}", hash);
+            return null;
+        }
+    }
+
     private byte[] convertBase64StringToBytes(String str) {
         try {
-            return Base64.getDecoder().decode(str);
+            return Base64Codec.STANDARD.decode(str);
         } catch (IllegalArgumentException e) {
             LOGGER.error("Invalid base64 string: {}", str);
             return null;
@@ -140,22 +221,96 @@ public class AuthorizableStore<T extends IAuthorizable> {
         private final List<byte[]> salts;
 
         public AuthorizableStoreSnapshot(Collection<T> authorizables) {
-            this.hashToAuthorizableMap = authorizables.stream()
-                    .collect(Collectors.toMap(
-                            a -> wrapHashToByteBuffer(a.getKeyHash()),
-                            a -> a
-                    ));
+            // single pass so that each salt is decoded once
+            this.hashToAuthorizableMap = new HashMap<>(Math.max(16, authorizables.size() * 4 / 3));
+            this.siteIdToSaltsMap = new HashMap<>();
+            this.salts = new ArrayList<>(authorizables.size());
+            for (T a : authorizables) {
+                if (this.hashToAuthorizableMap.put(wrapHashToByteBuffer(a.getKeyHash()), a) != null) {
+                    throw new IllegalStateException("Duplicate key hash: " + a.getKeyHash());
+                }
+
+                byte[] salt = convertBase64StringToBytes(a.getKeySalt());
+                this.salts.add(salt);
+                if (a.getSiteId() != null) {
+                    this.siteIdToSaltsMap.computeIfAbsent(a.getSiteId(), siteId -> new ArrayList<>()).add(salt);
+                }
+            }
+        }
+
+        public AuthorizableStoreSnapshot(AuthorizableStoreSnapshot previous, SnapshotDiff<T> diff) {
+            List<T> removed = new ArrayList<>(diff.getRemoved());
+            List<T> added = new ArrayList<>(diff.getAdded());
+            for (SnapshotDiff.Change<T> c : diff.getChanged()) {
+                removed.add(c.previous());
+                added.add(c.current());
+            }
+
+            this.hashToAuthorizableMap = new HashMap<>(previous.hashToAuthorizableMap);
+            for (T a : removed) {
+                this.hashToAuthorizableMap.remove(wrapHashToByteBuffer(a.getKeyHash()));
+            }
+            for (T a : added) {
+                this.hashToAuthorizableMap.put(wrapHashToByteBuffer(a.getKeyHash()), a);
+            }
 
-            this.siteIdToSaltsMap = authorizables.stream()
+            Map<Integer, List<T>> removedBySite = groupBySiteId(removed);
+            Map<Integer, List<T>> addedBySite = groupBySiteId(added);
+            Set<Integer> affectedSites = new HashSet<>(removedBySite.keySet());
+            affectedSites.addAll(addedBySite.keySet());
+
+            // lists of unaffected sites are shared with the previous snapshot; they are never mutated
+            this.siteIdToSaltsMap = new HashMap<>(previous.siteIdToSaltsMap);
+            for (Integer siteId : affectedSites) {
+                List<byte[]> siteSalts = replaceSalts(previous.getSaltsBySiteId(siteId),
+                        removedBySite.getOrDefault(siteId, List.of()),
+                        addedBySite.getOrDefault(siteId, List.of()));
+                if (siteSalts.isEmpty()) {
+                    this.siteIdToSaltsMap.remove(siteId);
+                } else {
+                    this.siteIdToSaltsMap.put(siteId, siteSalts);
+                }
+            }
+
+            this.salts = replaceSalts(previous.salts, removed, added);
+        }
+
+        private Map<Integer, List<T>> groupBySiteId(List<T> authorizables) {
+            return authorizables.stream()
                     .filter(a -> a.getSiteId() != null)
-                    .collect(Collectors.groupingBy(
-                            IAuthorizable::getSiteId,
-                            Collectors.mapping(a -> convertBase64StringToBytes(a.getKeySalt()), Collectors.toList())
-                    ));
-
-            this.salts = authorizables.stream()
-                    .map(a -> convertBase64StringToBytes(a.getKeySalt()))
-                    .collect(Collectors.toList());
+                    .collect(Collectors.groupingBy(IAuthorizable::getSiteId));
+        }
+
+        private List<byte[]> replaceSalts(List<byte[]> previousSalts, List<T> removed, List<T> added) {
+            // count occurrences so that a salt shared by several keys is only dropped once per removed key
+            Map<ByteBuffer, Integer> toRemove = new HashMap<>();
+            for (T a : removed) {
+                byte[] salt = convertBase64StringToBytes(a.getKeySalt());
+                if (salt != null) {
+                    toRemove.merge(ByteBuffer.wrap(salt), 1, Integer::sum);
+                }
+            }
+
+            List<byte[]> result = new ArrayList<>(Math.max(0, previousSalts.size() - removed.size()) + added.size());
+            for (byte[] salt : previousSalts) {
+                if (salt != null && !toRemove.isEmpty()) {
+                    ByteBuffer wrapped = ByteBuffer.wrap(salt);
+                    Integer count = toRemove.get(wrapped);
+                    if (count != null) {
+                        if (count == 1) {
+                            toRemove.remove(wrapped);
+                        } else {
+                            toRemove.put(wrapped, count - 1);
+                        }
+                        continue;
+                    }
+                }
+                result.add(salt);
+            }
+            for (T a : added) {
+                result.add(convertBase64StringToBytes(a.getKeySalt()));
+            }
+            return result;
         }
 
         public T getAuthorizableByHash(ByteBuffer hashBytes) {
@@ -2,28 +2,151 @@ package com.uid2.shared.auth;
 
 import com.uid2.shared.model.KeysetKey;
 import com.uid2.shared.store.ACLMode.MissingAclMode;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 public class KeysetSnapshot {
+    private static final int[] NO_KEYSETS = new int[0];
+
     private final Map<Integer, Keyset> keysets;
+    private final IntObjectHashMap<Keyset> keysetsById;
+    // enabled keysets a site can access under either mode: its own plus those listing it in allowed_sites, sorted
+    private final IntObjectHashMap<int[]> explicitKeysetIdsBySiteId;
+    // enabled keysets without allowed_sites, which every site can access under MissingAclMode.ALLOW_ALL, sorted
+    private final int[] unrestrictedKeysetIds;
+
+    public KeysetSnapshot(Map<Integer, Keyset> keysets) {
+        this.keysets = keysets;
+        this.keysetsById = new IntObjectHashMap<>(Math.max(8, keysets.size()));
+
+        final IntObjectHashMap<IntList> explicit = new IntObjectHashMap<>();
+        final IntList unrestricted = new IntList();
+        for (Keyset keyset : keysets.values()) {
+            this.keysetsById.put(keyset.getKeysetId(), keyset);
+            if (!keyset.isEnabled()) {
+                continue;
+            }
 
-    public KeysetSnapshot(Map<Integer, Keyset> keysets) { this.keysets = keysets; }
+            addTo(explicit, keyset.getSiteId(), keyset.getKeysetId());
+            if (keyset.getAllowedSites() == null) {
+                unrestricted.add(keyset.getKeysetId());
+            } else {
+                for (Integer allowedSiteId : keyset.getAllowedSites()) {
+                    if (allowedSiteId != null && allowedSiteId != keyset.getSiteId()) {
+                        addTo(explicit, allowedSiteId, keyset.getKeysetId());
+                    }
+                }
+            }
+        }
+
+        this.explicitKeysetIdsBySiteId = new IntObjectHashMap<>(Math.max(8, explicit.size()));
+        for (IntObjectMap.PrimitiveEntry<IntList> entry : explicit.entries()) {
+            this.explicitKeysetIdsBySiteId.put(entry.key(), entry.value().toSortedArray());
+        }
+        this.unrestrictedKeysetIds = unrestricted.toSortedArray();
+    }
 
     public boolean canClientAccessKey(ClientKey clientKey, KeysetKey key, MissingAclMode accessMethod) {
-        Keyset keyset = keysets.get(key.getKeysetId());
+        if (clientKey == null) return false;
+        return canSiteAccessKeyset(clientKey.getSiteId(), key.getKeysetId(), accessMethod);
+    }
 
-        if (keyset == null || !keyset.isEnabled() || clientKey == null) return false;
+    public boolean canSiteAccessKeyset(int siteId, int keysetId, MissingAclMode accessMethod) {
+        Keyset keyset = keysetsById.get(keysetId);
 
-        if (keyset.getSiteId() == clientKey.getSiteId()) return true;
+        if (keyset == null || !keyset.isEnabled()) return false;
 
-        if (accessMethod == MissingAclMode.ALLOW_ALL
-            && keyset.getAllowedSites() == null) return true;
+        if (keyset.getSiteId() == siteId) return true;
+
+        if (keyset.getAllowedSites() == null) return accessMethod == MissingAclMode.ALLOW_ALL;
+
+        return Arrays.binarySearch(getExplicitKeysetIds(siteId), keysetId) >= 0;
+    }
+
+    /**
+     * Sorted ids of the enabled keysets the site can access.
+     */
+    public int[] getAccessibleKeysetIds(int siteId, MissingAclMode accessMethod) {
+        final int[] explicit = getExplicitKeysetIds(siteId);
+        if (accessMethod != MissingAclMode.ALLOW_ALL || unrestrictedKeysetIds.length == 0) {
+            return explicit.clone();
+        }
+        return mergeSorted(explicit, unrestrictedKeysetIds);
+    }
 
-        return keyset.canBeAccessedBySite(clientKey.getSiteId());
+    /**
+     * Returns the keys the site can access, in their original order, in one pass over the keys.
+     */
+    public List<KeysetKey> filterAccessibleKeys(int siteId, Collection<KeysetKey> keys, MissingAclMode accessMethod) {
+        final int[] explicit = getExplicitKeysetIds(siteId);
+        final int[] unrestricted = accessMethod == MissingAclMode.ALLOW_ALL ? unrestrictedKeysetIds : NO_KEYSETS;
+        final List<KeysetKey> result = new ArrayList<>();
+        for (KeysetKey key : keys) {
+            final int keysetId = key.getKeysetId();
+            if (Arrays.binarySearch(explicit, keysetId) >= 0 || Arrays.binarySearch(unrestricted, keysetId) >= 0) {
+                result.add(key);
+            }
+        }
+        return result;
     }
 
     public Map<Integer, Keyset> getAllKeysets() { return this.keysets; }
 
     public Keyset getKeyset(int keysetId) { return this.keysets.get(keysetId); }
+
+    private int[] getExplicitKeysetIds(int siteId) {
+        final int[] ids = explicitKeysetIdsBySiteId.get(siteId);
+        return ids == null ? NO_KEYSETS : ids;
+    }
+
+    private static void addTo(IntObjectHashMap<IntList> map, int siteId, int keysetId) {
+        IntList list = map.get(siteId);
+        if (list == null) {
+            list = new IntList();
+            map.put(siteId, list);
+        }
+        list.add(keysetId);
+    }
+
+    private static int[] mergeSorted(int[] a, int[] b) {
+        final int[] merged = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                merged[n++] = a[i++];
+            } else if (a[i] > b[j]) {
+                merged[n++] = b[j++];
+            } else {
+                merged[n++] = a[i++];
+                j++;
+            }
+        }
+        while (i < a.length) merged[n++] = a[i++];
+        while (j < b.length) merged[n++] = b[j++];
+        return n == merged.length ? merged : Arrays.copyOf(merged, n);
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toSortedArray() {
+            final int[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
 }
@@ -0,0 +1,43 @@
+package com.uid2.shared.cloud;
+
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Non-blocking counterpart of {@link ICloudStorage}, so transfers in flight do not each hold a thread.
+ * Failures complete the future exceptionally with a {@link CloudStorageException}.
+ * <p>
+ * This is provided for consumers of the library. {@link com.uid2.shared.vertx.CloudSyncVerticle} and
+ * {@link com.uid2.shared.vertx.RotatingStoreVerticle} still use the blocking {@link ICloudStorage} on their own
+ * runners: each of their transfers ends in a blocking write or parse of the content, which holds a thread anyway.
+ */
+public interface AsyncCloudStorage extends AsyncDownloadCloudStorage {
+    CompletableFuture<Void> uploadAsync(String localPath, String cloudPath);
+
+    CompletableFuture<Void> uploadAsync(InputStream input, String cloudPath);
+
+    CompletableFuture<Void> deleteAsync(String cloudPath);
+
+    CompletableFuture<Void> deleteAsync(Collection<String> cloudPaths);
+
+    CompletableFuture<List<String>> listAsync(String prefix);
+
+    String mask(String cloudPath);
+
+    /**
+     * Returns the storage itself if it is already non-blocking; otherwise runs its operations on virtual threads.
+     */
+    static AsyncCloudStorage of(ICloudStorage storage) {
+        return of(storage, BlockingCloudStorageAdapter.VIRTUAL_THREADS);
+    }
+
+    static AsyncCloudStorage of(ICloudStorage storage, Executor executor) {
+        if (storage instanceof AsyncCloudStorage async) {
+            return async;
+        }
+        return new BlockingCloudStorageAdapter(storage, executor);
+    }
+}
@@ -0,0 +1,28 @@
+package com.uid2.shared.cloud;
+
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Non-blocking counterpart of {@link DownloadCloudStorage}. Failures complete the future exceptionally with a
+ * {@link CloudStorageException}.
+ */
+@FunctionalInterface
+public interface AsyncDownloadCloudStorage {
+    CompletableFuture<InputStream> downloadAsync(String cloudPath);
+
+    /**
+     * Returns the storage itself if it is already non-blocking; otherwise runs its downloads on virtual threads.
+     */
+    static AsyncDownloadCloudStorage of(DownloadCloudStorage storage) {
+        return of(storage, BlockingCloudStorageAdapter.VIRTUAL_THREADS);
+    }
+
+    static AsyncDownloadCloudStorage of(DownloadCloudStorage storage, Executor executor) {
+        if (storage instanceof AsyncDownloadCloudStorage async) {
+            return async;
+        }
+        return cloudPath -> BlockingCloudStorageAdapter.supply(() -> storage.download(cloudPath), executor);
+    }
+}
@@ -0,0 +1,98 @@
+package com.uid2.shared.cloud;
+
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs a blocking {@link ICloudStorage} behind {@link AsyncCloudStorage}, one task on the executor per operation.
+ * Downloads go straight to the storage when it implements {@link AsyncDownloadCloudStorage} itself.
+ */
+public class BlockingCloudStorageAdapter implements AsyncCloudStorage {
+    // blocking calls park a virtual thread rather than hold a platform thread
+    public static final Executor VIRTUAL_THREADS = task -> Thread.ofVirtual().name("cloud-storage-io").start(task);
+
+    private final ICloudStorage storage;
+    private final Executor executor;
+
+    public BlockingCloudStorageAdapter(ICloudStorage storage, Executor executor) {
+        this.storage = storage;
+        this.executor = executor;
+    }
+
+    public ICloudStorage getStorage() {
+        return storage;
+    }
+
+    @Override
+    public CompletableFuture<InputStream> downloadAsync(String cloudPath) {
+        if (storage instanceof AsyncDownloadCloudStorage async) {
+            return async.downloadAsync(cloudPath);
+        }
+        return supply(() -> storage.download(cloudPath), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> uploadAsync(String localPath, String cloudPath) {
+        return supply(() -> {
+            storage.upload(localPath, cloudPath);
+            return null;
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> uploadAsync(InputStream input, String cloudPath) {
+        return supply(() -> {
+            storage.upload(input, cloudPath);
+            return null;
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAsync(String cloudPath) {
+        return supply(() -> {
+            storage.delete(cloudPath);
+            return null;
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAsync(Collection<String> cloudPaths) {
+        return supply(() -> {
+            storage.delete(cloudPaths);
+            return null;
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> listAsync(String prefix) {
+        return supply(() -> storage.list(prefix), executor);
+    }
+
+    @Override
+    public String mask(String cloudPath) {
+        return storage.mask(cloudPath);
+    }
+
+    /**
+     * Runs the call on the executor; the future fails with whatever the call throws, unwrapped.
+     */
+    public static <T> CompletableFuture<T> supply(Callable<T> call, Executor executor) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        }
+        return future;
+    }
+}
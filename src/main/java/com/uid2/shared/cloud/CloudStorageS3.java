@@ -2,14 +2,20 @@ package com.uid2.shared.cloud;
 
 import software.amazon.awssdk.core.exception.SdkClientException;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.multipart.MultipartConfiguration;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.core.ResponseInputStream;
 import java.time.Duration;
@@ -18,22 +24,63 @@ import java.nio.file.Paths;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
-public class CloudStorageS3 implements TaggableCloudStorage {
+public class CloudStorageS3 implements TaggableCloudStorage, AsyncCloudStorage {
     private static final Logger LOGGER = LoggerFactory.getLogger(CloudStorageS3.class);
 
     private final S3Client s3;
     private final S3Presigner s3Presigner;
+    // the async client starts its own event loop, so it is only built once an async operation is used
+    private final Supplier<S3AsyncClient> s3AsyncFactory;
+    private volatile S3AsyncClient s3Async;
     private final String bucket;
     private final boolean verbose;
     private long preSignedUrlExpiryInSeconds = 3600;
 
+    // objects larger than one part are uploaded with multipart and downloaded with parallel ranged gets
+    public static final int DEFAULT_PART_SIZE_BYTES = 16 * 1024 * 1024;
+    public static final int DEFAULT_TRANSFER_CONCURRENCY = 4;
+    // ranges downloaded ahead of the one being read are buffered on the heap: up to concurrency * part size per
+    // download (64 MiB with the defaults), capped at this much across all concurrent downloads of the storage
+    public static final long DEFAULT_MAX_BUFFERED_BYTES = 128L * 1024 * 1024;
+    // S3 rejects multipart uploads with smaller parts (other than the last)
+    public static final int MIN_PART_SIZE_BYTES = 5 * 1024 * 1024;
+    private static final int MAX_PART_ATTEMPTS = 3;
+    private static final long PART_RETRY_BACKOFF_MS = 200;
+    private static final long TRANSFER_THREAD_KEEP_ALIVE_SECONDS = 60;
+    private int partSizeBytes = DEFAULT_PART_SIZE_BYTES;
+    private int transferConcurrency = DEFAULT_TRANSFER_CONCURRENCY;
+    private long maxBufferedBytes = DEFAULT_MAX_BUFFERED_BYTES;
+    // one permit per part of maxBufferedBytes; replaced when the part size or the cap changes
+    private Semaphore transferBufferPermits;
+    // shared by all transfers of this storage; created on first use, idle threads exit on their own
+    private ExecutorService transferExecutor;
+    // when set, keys ending in .gz or .zst are compressed on upload and decompressed on download
+    private boolean transparentCompression = false;
+
     public CloudStorageS3(String accessKeyId, String secretAccessKey, String region, String bucket, String s3Endpoint, boolean verbose) {
         AwsBasicCredentials creds = AwsBasicCredentials.create(accessKeyId, secretAccessKey);
         StaticCredentialsProvider credentialsProvider = StaticCredentialsProvider.create(creds);
@@ -65,6 +112,16 @@ public class CloudStorageS3 implements TaggableCloudStorage {
                     .serviceConfiguration(s3Cfg)
                     .build();
         }
+        this.s3AsyncFactory = () -> buildAsyncClient(credentialsProvider, region, s3Endpoint);
+        this.bucket = bucket;
+        this.verbose = verbose;
+    }
+
+    // for tests against a stand-in S3 client
+    CloudStorageS3(S3Client s3, S3AsyncClient s3Async, S3Presigner s3Presigner, String bucket, boolean verbose) {
+        this.s3 = s3;
+        this.s3Presigner = s3Presigner;
+        this.s3AsyncFactory = () -> s3Async;
         this.bucket = bucket;
         this.verbose = verbose;
     }
@@ -105,87 +162,148 @@ public class CloudStorageS3 implements TaggableCloudStorage {
                     .serviceConfiguration(s3Cfg)
                     .build();
         }
+        this.s3AsyncFactory = () -> buildAsyncClient(credentialsProvider, region, s3Endpoint);
         this.bucket = bucket;
         this.verbose = false;
     }
 
     @Override
     public void upload(String localPath, String cloudPath) throws CloudStorageException {
-        try {
-            PutObjectRequest putRequest = PutObjectRequest.builder()
-                    .bucket(bucket)
-                    .key(cloudPath)
-                    .build();
-            var putResult = this.s3.putObject(putRequest, RequestBody.fromFile(Paths.get(localPath)));
-            this.checkVersioningEnabled(putResult);
-        } catch (Throwable t) {
-            throw new CloudStorageException("s3 put error: " + t.getMessage(), t);
-        }
+        uploadFile(localPath, cloudPath, null);
     }
 
     @Override
     public void upload(InputStream input, String cloudPath) throws CloudStorageException {
-        try {
-            PutObjectRequest putRequest = PutObjectRequest.builder()
-                    .bucket(bucket)
-                    .key(cloudPath)
-                    .build();
-            var putResult = this.s3.putObject(putRequest, RequestBody.fromInputStream(input, input.available()));
-            this.checkVersioningEnabled(putResult);
-        } catch (Throwable t) {
-            throw new CloudStorageException("s3 put error: " + t.getMessage(), t);
-        }
+        uploadStream(input, cloudPath, null);
     }
 
     @Override
     public void upload(String localPath, String cloudPath, Map<String, String> tags) throws CloudStorageException {
-        try {
-            PutObjectRequest putRequest = PutObjectRequest.builder()
-                    .bucket(bucket)
-                    .key(cloudPath)
-                    .tagging(createTagging(tags))
-                    .build();
-            var putResult = this.s3.putObject(putRequest, RequestBody.fromFile(Paths.get(localPath)));
-            this.checkVersioningEnabled(putResult);
-        } catch (Throwable t) {
-            throw new CloudStorageException("s3 put error: " + t.getMessage(), t);
-        }
+        uploadFile(localPath, cloudPath, tags);
     }
 
     @Override
     public void upload(InputStream input, String cloudPath, Map<String, String> tags) throws CloudStorageException {
-        try {
-            PutObjectRequest putRequest = PutObjectRequest.builder()
-                    .bucket(bucket)
-                    .key(cloudPath)
-                    .tagging(createTagging(tags))
-                    .build();
-            var putResult = this.s3.putObject(putRequest, RequestBody.fromInputStream(input, input.available()));
-            this.checkVersioningEnabled(putResult);
-        } catch (Throwable t) {
-            throw new CloudStorageException("s3 put error: " + t.getMessage(), t);
-        }
+        uploadStream(input, cloudPath, tags);
     }
 
     @Override
     public InputStream download(String cloudPath) throws CloudStorageException {
         try {
-            GetObjectRequest getRequest = GetObjectRequest.builder()
-                    .bucket(bucket)
-                    .key(cloudPath)
-                    .build();
-            ResponseInputStream<GetObjectResponse> obj = this.s3.getObject(getRequest);
-            return obj;
-        } catch (NoSuchKeyException e) {
-            throw new CloudStorageException("The specified key does not exist: " + e.getClass().getSimpleName() + ": " + bucket);
-        } catch (S3Exception e) {
-            throw new CloudStorageException("s3 get error: " + e.getClass().getSimpleName() + ": " + bucket + (verbose ? " - " + e.getMessage() : ""));
-        } catch (SdkClientException e) {
-            throw new CloudStorageException("s3 get error: " + e.getClass().getSimpleName() + ": " + bucket + (verbose ? " - " + e.getMessage() : ""));
+            final InputStream input = downloadRanged(cloudPath);
+            return compressionFor(cloudPath).decompress(input);
         } catch (Throwable t) {
-            // Do not log the message or the original exception as that may contain the pre-signed url
-            throw new CloudStorageException("s3 get error: " + t.getClass().getSimpleName() + ": " + bucket);
+            throw getError(t);
+        }
+    }
+
+    /**
+     * Streams the object from a single get; the body is read as it arrives, without a thread waiting on the request.
+     */
+    @Override
+    public CompletableFuture<InputStream> downloadAsync(String cloudPath) {
+        GetObjectRequest getRequest = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(cloudPath)
+                .build();
+        return this.async(() -> s3Async().getObject(getRequest, AsyncResponseTransformer.toBlockingInputStream()))
+                .handle((in, t) -> {
+                    if (t != null) {
+                        throw new CompletionException(getError(unwrap(t)));
+                    }
+                    return (InputStream) in;
+                })
+                .thenCompose(in -> compressionFor(cloudPath) == CompressionFormat.NONE
+                        ? CompletableFuture.completedFuture(in)
+                        // creating the decompressor reads the header from the body, which may block
+                        : BlockingCloudStorageAdapter.supply(() -> compressionFor(cloudPath).decompress(in), BlockingCloudStorageAdapter.VIRTUAL_THREADS));
+    }
+
+    @Override
+    public CompletableFuture<Void> uploadAsync(String localPath, String cloudPath) {
+        if (compressionFor(cloudPath) != CompressionFormat.NONE) {
+            // the compressed length is unknown up front, so this goes through the streaming upload
+            return BlockingCloudStorageAdapter.supply(() -> {
+                upload(localPath, cloudPath);
+                return null;
+            }, BlockingCloudStorageAdapter.VIRTUAL_THREADS);
         }
+        PutObjectRequest putRequest = PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(cloudPath)
+                .build();
+        return this.async(() -> s3Async().putObject(putRequest, AsyncRequestBody.fromFile(Paths.get(localPath))))
+                .handle((putResult, t) -> {
+                    if (t != null) {
+                        throw new CompletionException(new CloudStorageException("s3 put error: " + unwrap(t).getMessage(), unwrap(t)));
+                    }
+                    this.checkVersioningEnabled(putResult.versionId());
+                    return null;
+                });
+    }
+
+    // the length of a stream is only known once it is read, which blocks; this runs the multipart upload on a virtual thread
+    @Override
+    public CompletableFuture<Void> uploadAsync(InputStream input, String cloudPath) {
+        return BlockingCloudStorageAdapter.supply(() -> {
+            upload(input, cloudPath);
+            return null;
+        }, BlockingCloudStorageAdapter.VIRTUAL_THREADS);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAsync(String cloudPath) {
+        DeleteObjectRequest deleteRequest = DeleteObjectRequest.builder()
+                .bucket(bucket)
+                .key(cloudPath)
+                .build();
+        return this.async(() -> s3Async().deleteObject(deleteRequest))
+                .handle((r, t) -> {
+                    if (t != null) {
+                        throw new CompletionException(new CloudStorageException("s3 delete error: " + unwrap(t).getMessage(), unwrap(t)));
+                    }
+                    return null;
+                });
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAsync(Collection<String> cloudPaths) {
+        final List<CompletableFuture<DeleteObjectsResponse>> batches = new ArrayList<>();
+        final List<ObjectIdentifier> keys = new ArrayList<>();
+        for (String p : cloudPaths) {
+            keys.add(ObjectIdentifier.builder().key(p).build());
+            if (keys.size() == 1000) {
+                batches.add(deleteBatchAsync(List.copyOf(keys)));
+                keys.clear();
+            }
+        }
+        if (!keys.isEmpty()) {
+            batches.add(deleteBatchAsync(keys));
+        }
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture[0]))
+                .handle((r, t) -> {
+                    if (t != null) {
+                        throw new CompletionException(new CloudStorageException("s3 delete error: " + unwrap(t).getMessage(), unwrap(t)));
+                    }
+                    return null;
+                });
+    }
+
+    @Override
+    public CompletableFuture<List<String>> listAsync(String prefix) {
+        ListObjectsV2Request req = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .prefix(prefix)
+                .build();
+        // the publisher delivers objects one at a time, in order
+        final List<String> s3Paths = new ArrayList<>();
+        return this.async(() -> s3Async().listObjectsV2Paginator(req).contents().subscribe(obj -> s3Paths.add(obj.key())))
+                .handle((r, t) -> {
+                    if (t != null) {
+                        throw new CompletionException(new CloudStorageException("s3 list error: " + unwrap(t).getMessage(), unwrap(t)));
+                    }
+                    return s3Paths;
+                });
     }
 
     @Override
@@ -283,6 +401,50 @@ public class CloudStorageS3 implements TaggableCloudStorage {
         this.preSignedUrlExpiryInSeconds = expiryInSeconds;
     }
 
+    /**
+     * Sets the part size of multipart uploads and ranged downloads, and how many parts are transferred at a time,
+     * across all transfers of this storage. Objects no larger than one part use a single request.
+     */
+    public synchronized void setTransferOptions(int partSizeBytes, int transferConcurrency) {
+        setTransferOptions(partSizeBytes, transferConcurrency, this.maxBufferedBytes);
+    }
+
+    /**
+     * As {@link #setTransferOptions(int, int)}, also capping the bytes that concurrent downloads buffer ahead of what
+     * is being read. Each download can always fetch the part it needs next, so the cap only limits read-ahead.
+     */
+    public synchronized void setTransferOptions(int partSizeBytes, int transferConcurrency, long maxBufferedBytes) {
+        if (maxBufferedBytes < 0) {
+            throw new IllegalArgumentException("max buffered bytes must not be negative: " + maxBufferedBytes);
+        }
+        if (partSizeBytes < MIN_PART_SIZE_BYTES) {
+            throw new IllegalArgumentException("part size must be at least " + MIN_PART_SIZE_BYTES + " bytes: " + partSizeBytes);
+        }
+        if (transferConcurrency < 1) {
+            throw new IllegalArgumentException("transfer concurrency must be positive: " + transferConcurrency);
+        }
+        if (this.partSizeBytes != partSizeBytes || this.maxBufferedBytes != maxBufferedBytes) {
+            // downloads already running release their permits to the old semaphore
+            this.transferBufferPermits = null;
+        }
+        this.partSizeBytes = partSizeBytes;
+        this.maxBufferedBytes = maxBufferedBytes;
+        if (this.transferConcurrency != transferConcurrency && this.transferExecutor != null) {
+            // transfers already running finish on the old pool
+            this.transferExecutor.shutdown();
+            this.transferExecutor = null;
+        }
+        this.transferConcurrency = transferConcurrency;
+    }
+
+    /**
+     * When enabled, content uploaded to a key ending in {@code .gz} or {@code .zst} is compressed as it is streamed,
+     * unless it is already compressed, and content downloaded from such a key is decompressed as it is read.
+     */
+    public void setTransparentCompression(boolean transparentCompression) {
+        this.transparentCompression = transparentCompression;
+    }
+
     @Override
     public String mask(String cloudPath) {
         return cloudPath;
@@ -338,6 +500,352 @@ public class CloudStorageS3 implements TaggableCloudStorage {
         }
     }
 
+    private CloudStorageException getError(Throwable t) {
+        if (t instanceof NoSuchKeyException e) {
+            return new CloudStorageException("The specified key does not exist: " + e.getClass().getSimpleName() + ": " + bucket);
+        } else if (t instanceof S3Exception || t instanceof SdkClientException) {
+            return new CloudStorageException("s3 get error: " + t.getClass().getSimpleName() + ": " + bucket + (verbose ? " - " + t.getMessage() : ""));
+        }
+        // Do not log the message or the original exception as that may contain the pre-signed url
+        return new CloudStorageException("s3 get error: " + t.getClass().getSimpleName() + ": " + bucket);
+    }
+
+    private CompletableFuture<DeleteObjectsResponse> deleteBatchAsync(List<ObjectIdentifier> keys) {
+        DeleteObjectsRequest deleteRequest = DeleteObjectsRequest.builder()
+                .bucket(bucket)
+                .delete(Delete.builder().objects(keys).quiet(false).build())
+                .build();
+        return this.async(() -> s3Async().deleteObjects(deleteRequest));
+    }
+
+    // building a request or the client can throw; this reports that through the future like any other failure
+    private <T> CompletableFuture<T> async(Supplier<CompletableFuture<T>> call) {
+        try {
+            return call.get();
+        } catch (Throwable t) {
+            return CompletableFuture.failedFuture(t);
+        }
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        return t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+    }
+
+    private S3AsyncClient s3Async() {
+        S3AsyncClient client = this.s3Async;
+        if (client == null) {
+            synchronized (this) {
+                client = this.s3Async;
+                if (client == null) {
+                    client = s3AsyncFactory.get();
+                    if (client == null) {
+                        throw new IllegalStateException("no async s3 client configured");
+                    }
+                    this.s3Async = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    // multipart settings follow the sync client's part size as of the first async operation
+    private S3AsyncClient buildAsyncClient(AwsCredentialsProvider credentialsProvider, String region, String s3Endpoint) {
+        S3AsyncClientBuilder builder = S3AsyncClient.builder()
+                .credentialsProvider(credentialsProvider)
+                .region(Region.of(region))
+                .multipartEnabled(true)
+                .multipartConfiguration(MultipartConfiguration.builder()
+                        .thresholdInBytes((long) partSizeBytes)
+                        .minimumPartSizeInBytes((long) partSizeBytes)
+                        .build());
+        if (!s3Endpoint.isEmpty()) {
+            builder.endpointOverride(URI.create(s3Endpoint))
+                    .serviceConfiguration(S3Configuration.builder()
+                            .pathStyleAccessEnabled(true)
+                            .checksumValidationEnabled(false)
+                            .build());
+        }
+        return builder.build();
+    }
+
+    @Override
+    public CompressionFormat getTransparentCompression(String cloudPath) {
+        return compressionFor(cloudPath);
+    }
+
+    private CompressionFormat compressionFor(String cloudPath) {
+        return transparentCompression ? CompressionFormat.fromPath(cloudPath) : CompressionFormat.NONE;
+    }
+
+    private void uploadFile(String localPath, String cloudPath, Map<String, String> tags) throws CloudStorageException {
+        try {
+            final Path path = Paths.get(localPath);
+            if (compressionFor(cloudPath) != CompressionFormat.NONE || Files.size(path) > partSizeBytes) {
+                try (InputStream input = Files.newInputStream(path)) {
+                    uploadMultipart(input, cloudPath, tags);
+                }
+                return;
+            }
+            PutObjectRequest.Builder putRequest = PutObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(cloudPath);
+            if (tags != null) {
+                putRequest.tagging(createTagging(tags));
+            }
+            var putResult = this.s3.putObject(putRequest.build(), RequestBody.fromFile(path));
+            this.checkVersioningEnabled(putResult.versionId());
+        } catch (Throwable t) {
+            throw new CloudStorageException("s3 put error: " + t.getMessage(), t);
+        }
+    }
+
+    private void uploadStream(InputStream input, String cloudPath, Map<String, String> tags) throws CloudStorageException {
+        try {
+            uploadMultipart(input, cloudPath, tags);
+        } catch (Throwable t) {
+            throw new CloudStorageException("s3 put error: " + t.getMessage(), t);
+        }
+    }
+
+    // reads the first part before deciding, so content that fits in one part goes out as a single put
+    private void uploadMultipart(InputStream content, String cloudPath, Map<String, String> tags) throws Exception {
+        final InputStream input = compressionFor(cloudPath).compressing(content);
+        final byte[] firstPart = input.readNBytes(partSizeBytes);
+        if (firstPart.length < partSizeBytes) {
+            PutObjectRequest.Builder putRequest = PutObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(cloudPath);
+            if (tags != null) {
+                putRequest.tagging(createTagging(tags));
+            }
+            var putResult = this.s3.putObject(putRequest.build(), RequestBody.fromBytes(firstPart));
+            this.checkVersioningEnabled(putResult.versionId());
+            return;
+        }
+
+        CreateMultipartUploadRequest.Builder createRequest = CreateMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(cloudPath);
+        if (tags != null) {
+            createRequest.tagging(encodeTagging(tags));
+        }
+        final String uploadId = this.s3.createMultipartUpload(createRequest.build()).uploadId();
+
+        try {
+            final List<Future<CompletedPart>> parts = new ArrayList<>();
+            // bounds the parts held in memory to those in flight plus the one being read
+            final Semaphore inFlight = new Semaphore(transferConcurrency);
+            final ExecutorService executor = transferExecutor();
+            try {
+                byte[] part = firstPart;
+                while (part.length > 0 && !anyFailed(parts)) {
+                    inFlight.acquire();
+                    final byte[] body = part;
+                    final int partNumber = parts.size() + 1;
+                    parts.add(executor.submit(() -> {
+                        try {
+                            return uploadPart(cloudPath, uploadId, partNumber, body);
+                        } finally {
+                            inFlight.release();
+                        }
+                    }));
+                    part = input.readNBytes(partSizeBytes);
+                }
+            } finally {
+                // the upload is only completed or aborted once no part is still being sent
+                awaitQuietly(parts);
+            }
+
+            final List<CompletedPart> completedParts = new ArrayList<>(parts.size());
+            for (Future<CompletedPart> part : parts) {
+                try {
+                    completedParts.add(part.get());
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception cause ? cause : e;
+                }
+            }
+            CompleteMultipartUploadRequest completeRequest = CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(cloudPath)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                    .build();
+            var completeResult = this.s3.completeMultipartUpload(completeRequest);
+            this.checkVersioningEnabled(completeResult.versionId());
+        } catch (Throwable t) {
+            abortMultipartUpload(cloudPath, uploadId);
+            throw t;
+        }
+    }
+
+    private CompletedPart uploadPart(String cloudPath, String uploadId, int partNumber, byte[] body) throws Exception {
+        UploadPartRequest partRequest = UploadPartRequest.builder()
+                .bucket(bucket)
+                .key(cloudPath)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength((long) body.length)
+                .build();
+        var partResult = withRetries(() -> this.s3.uploadPart(partRequest, RequestBody.fromBytes(body)));
+        return CompletedPart.builder().partNumber(partNumber).eTag(partResult.eTag()).build();
+    }
+
+    private void abortMultipartUpload(String cloudPath, String uploadId) {
+        try {
+            this.s3.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(cloudPath)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (Throwable t) {
+            LOGGER.warn("Unable to abort multipart upload of {} in bucket: {}", cloudPath, this.bucket, t);
+        }
+    }
+
+    // the first part is requested as a range, so objects that fit in one part cost a single request
+    private InputStream downloadRanged(String cloudPath) throws Exception {
+        GetObjectRequest getRequest = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(cloudPath)
+                .range("bytes=0-" + (partSizeBytes - 1))
+                .build();
+        final ResponseInputStream<GetObjectResponse> first;
+        try {
+            first = withRetries(() -> this.s3.getObject(getRequest));
+        } catch (S3Exception e) {
+            if (e.statusCode() != 416) {
+                throw e;
+            }
+            // empty objects have no satisfiable range
+            return this.s3.getObject(getRequest.toBuilder().range(null).build());
+        }
+
+        final GetObjectResponse response = first.response();
+        final long totalLength = totalLength(response.contentRange());
+        if (totalLength < 0) {
+            return first;
+        }
+
+        // also wraps objects of a single part, so that a failure partway through the first range is resumed
+        final String eTag = response.eTag();
+        return new ParallelRangeInputStream(first, response.contentLength(), totalLength, partSizeBytes, transferConcurrency,
+                (start, end) -> getRange(cloudPath, eTag, start, end), transferExecutor(), transferBufferPermits());
+    }
+
+    private byte[] getRange(String cloudPath, String eTag, long start, long endInclusive) throws Exception {
+        GetObjectRequest getRequest = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(cloudPath)
+                .range("bytes=" + start + "-" + endInclusive)
+                // fails the download instead of mixing versions if the object is replaced meanwhile
+                .ifMatch(eTag)
+                .build();
+        return withRetries(() -> {
+            try (ResponseInputStream<GetObjectResponse> in = this.s3.getObject(getRequest)) {
+                final byte[] bytes = in.readAllBytes();
+                if (bytes.length != endInclusive - start + 1) {
+                    throw new IOException("expected " + (endInclusive - start + 1) + " bytes at " + start + ", got " + bytes.length);
+                }
+                return bytes;
+            }
+        });
+    }
+
+    // "bytes 0-99/1234" -> 1234; -1 if the server ignored the range or did not report the length
+    private static long totalLength(String contentRange) {
+        if (contentRange == null) {
+            return -1;
+        }
+        final int slash = contentRange.lastIndexOf('/');
+        if (slash < 0 || contentRange.endsWith("*")) {
+            return -1;
+        }
+        return Long.parseLong(contentRange.substring(slash + 1).trim());
+    }
+
+    private <T> T withRetries(Callable<T> call) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.call();
+            } catch (Exception e) {
+                if (attempt >= MAX_PART_ATTEMPTS || !isRetryable(e)) {
+                    throw e;
+                }
+                LOGGER.warn("s3 part transfer failed in bucket: {}, attempt {} of {}: {}", this.bucket, attempt, MAX_PART_ATTEMPTS, e.getClass().getSimpleName());
+                Thread.sleep(PART_RETRY_BACKOFF_MS << (attempt - 1));
+            }
+        }
+    }
+
+    // client errors such as a missing key or a changed object will not succeed on retry
+    private static boolean isRetryable(Exception e) {
+        if (e instanceof S3Exception s3e) {
+            return s3e.statusCode() >= 500 || s3e.statusCode() == 429;
+        }
+        return !(e instanceof InterruptedException);
+    }
+
+    private static boolean anyFailed(List<? extends Future<?>> futures) {
+        for (Future<?> f : futures) {
+            if (f.state() == Future.State.FAILED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void awaitQuietly(List<? extends Future<?>> futures) {
+        boolean interrupted = false;
+        for (Future<?> f : futures) {
+            while (!f.isDone()) {
+                try {
+                    f.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException | CancellationException e) {
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized Semaphore transferBufferPermits() {
+        if (this.transferBufferPermits == null) {
+            this.transferBufferPermits = new Semaphore((int) Math.min(Integer.MAX_VALUE, maxBufferedBytes / partSizeBytes));
+        }
+        return this.transferBufferPermits;
+    }
+
+    private synchronized ExecutorService transferExecutor() {
+        if (this.transferExecutor == null) {
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(transferConcurrency, transferConcurrency,
+                    TRANSFER_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    Thread.ofPlatform().name("s3-transfer-", 0).daemon().factory());
+            executor.allowCoreThreadTimeOut(true);
+            this.transferExecutor = executor;
+        }
+        return this.transferExecutor;
+    }
+
+    // createMultipartUpload takes tags in the query string form of the x-amz-tagging header
+    private static String encodeTagging(Map<String, String> tags) {
+        final StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> entry : tags.entrySet()) {
+            if (sb.length() > 0) {
+                sb.append('&');
+            }
+            sb.append(urlEncode(entry.getKey())).append('=').append(urlEncode(entry.getValue()));
+        }
+        return sb.toString();
+    }
+
+    private static String urlEncode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
     private Tagging createTagging(Map<String, String> tags) {
         List<Tag> tagList = new ArrayList<>();
         for (Map.Entry<String, String> entry : tags.entrySet()) {
@@ -346,9 +854,8 @@ public class CloudStorageS3 implements TaggableCloudStorage {
         return Tagging.builder().tagSet(tagList).build();
     }
 
-    private void checkVersioningEnabled(PutObjectResponse putObjectResponse) {
+    private void checkVersioningEnabled(String versionId) {
         try {
-            String versionId = putObjectResponse.versionId();
             String region = "unknown"; // S3Client doesn't expose region directly
             if (versionId == null || versionId.isEmpty()) {
                 LOGGER.warn(
@@ -23,12 +23,19 @@ public class CloudUtils {
         var s3Endpoint = jsonConfig.getString(Const.Config.S3EndpointProp, "");
         var verboseLogging = jsonConfig.getBoolean(Const.Config.S3VerboseLoggingProp, false);
 
+        final CloudStorageS3 storage;
         if (accessKeyId == null || secretAccessKey == null) {
             // IAM authentication
-            return new CloudStorageS3(region, cloudBucket, s3Endpoint);
+            storage = new CloudStorageS3(region, cloudBucket, s3Endpoint);
+        } else {
+            // User access key authentication
+            storage = new CloudStorageS3(accessKeyId, secretAccessKey, region, cloudBucket, s3Endpoint, verboseLogging);
         }
-        // User access key authentication
-        return new CloudStorageS3(accessKeyId, secretAccessKey, region, cloudBucket, s3Endpoint, verboseLogging);
+        storage.setTransferOptions(
+                jsonConfig.getInteger(Const.Config.S3PartSizeBytesProp, CloudStorageS3.DEFAULT_PART_SIZE_BYTES),
+                jsonConfig.getInteger(Const.Config.S3TransferConcurrencyProp, CloudStorageS3.DEFAULT_TRANSFER_CONCURRENCY));
+        storage.setTransparentCompression(jsonConfig.getBoolean(Const.Config.S3TransparentCompressionProp, false));
+        return storage;
     }
 
     // I think this is not used, Aleksandrs Ulme 26/07/2023
@@ -0,0 +1,196 @@
+package com.uid2.shared.cloud;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression applied to stored files. The format of a file is given by the extension of its path ({@code .gz} or
+ * {@code .zst}), never by its content: plain binary files, such as opt-out files, may start with any bytes.
+ */
+public enum CompressionFormat {
+    NONE("") {
+        @Override
+        public InputStream decompress(InputStream input) {
+            return input;
+        }
+
+        @Override
+        public OutputStream compress(OutputStream output) {
+            return output;
+        }
+    },
+    GZIP(".gz") {
+        @Override
+        public InputStream decompress(InputStream input) throws IOException {
+            return new GZIPInputStream(input, BUFFER_SIZE);
+        }
+
+        @Override
+        public OutputStream compress(OutputStream output) throws IOException {
+            return new GZIPOutputStream(output, BUFFER_SIZE);
+        }
+    },
+    ZSTD(".zst") {
+        @Override
+        public InputStream decompress(InputStream input) throws IOException {
+            return new ZstdInputStream(input);
+        }
+
+        @Override
+        public OutputStream compress(OutputStream output) throws IOException {
+            return new ZstdOutputStream(output, ZSTD_LEVEL);
+        }
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int ZSTD_LEVEL = 3;
+
+    private final String extension;
+
+    CompressionFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public abstract InputStream decompress(InputStream input) throws IOException;
+
+    public abstract OutputStream compress(OutputStream output) throws IOException;
+
+    /**
+     * Returns a stream of the compressed form of {@code input}, compressed as it is read. A stream already returned by
+     * {@code compressing} for this format is passed through unchanged.
+     */
+    public InputStream compressing(InputStream input) throws IOException {
+        if (this == NONE || input instanceof CompressingInputStream compressing && compressing.format == this) {
+            return input;
+        }
+        return new CompressingInputStream(input, this);
+    }
+
+    public String appendExtension(String path) {
+        return path.endsWith(extension) ? path : path + extension;
+    }
+
+    /**
+     * @param name config value: "gzip", "zstd", or null or "none" for no compression
+     */
+    public static CompressionFormat fromName(String name) {
+        if (name == null || name.isBlank() || name.equalsIgnoreCase("none")) {
+            return NONE;
+        } else if (name.equalsIgnoreCase("gzip")) {
+            return GZIP;
+        } else if (name.equalsIgnoreCase("zstd")) {
+            return ZSTD;
+        }
+        throw new IllegalArgumentException("unsupported compression format: " + name);
+    }
+
+    /**
+     * Returns the format given by the extension of a path or pre-signed URL.
+     */
+    public static CompressionFormat fromPath(String path) {
+        if (path == null) {
+            return NONE;
+        }
+        final int query = path.indexOf('?');
+        final String withoutQuery = query < 0 ? path : path.substring(0, query);
+        if (withoutQuery.endsWith(GZIP.extension)) {
+            return GZIP;
+        } else if (withoutQuery.endsWith(ZSTD.extension)) {
+            return ZSTD;
+        }
+        return NONE;
+    }
+
+    /**
+     * Returns {@code input}, downloaded from {@code path} in {@code storage}, decompressed as given by the extension of
+     * the path, unless the storage already decompressed it.
+     */
+    public static InputStream decompressing(InputStream input, String path, DownloadCloudStorage storage) throws IOException {
+        final CompressionFormat format = fromPath(path);
+        return storage.getTransparentCompression(path) == format ? input : format.decompress(input);
+    }
+
+    public static String stripExtension(String path) {
+        final CompressionFormat format = fromPath(path);
+        return format == NONE || path.indexOf('?') >= 0 ? path : path.substring(0, path.length() - format.extension.length());
+    }
+
+    // compresses a chunk of the source at a time, so memory stays bounded regardless of the content size
+    private static final class CompressingInputStream extends InputStream {
+        private final InputStream source;
+        private final CompressionFormat format;
+        private final ByteArrayOutputStream compressed = new ByteArrayOutputStream(BUFFER_SIZE);
+        private final OutputStream compressor;
+        private final byte[] chunk = new byte[BUFFER_SIZE];
+        private byte[] current = new byte[0];
+        private int position = 0;
+        private boolean finished = false;
+
+        CompressingInputStream(InputStream source, CompressionFormat format) throws IOException {
+            this.source = source;
+            this.format = format;
+            this.compressor = format.compress(compressed);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (position >= current.length) {
+                if (finished) {
+                    return -1;
+                }
+                fill();
+            }
+            final int n = Math.min(len, current.length - position);
+            System.arraycopy(current, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        // releases the compressor's native state even when the stream is closed before it was read to the end
+        @Override
+        public void close() throws IOException {
+            try {
+                source.close();
+            } finally {
+                if (!finished) {
+                    finished = true;
+                    compressor.close();
+                }
+            }
+        }
+
+        // hands out everything compressed so far, including the header written when the compressor was created
+        private void fill() throws IOException {
+            final int n = source.read(chunk);
+            if (n < 0) {
+                compressor.close();
+                finished = true;
+            } else {
+                compressor.write(chunk, 0, n);
+            }
+            current = compressed.toByteArray();
+            compressed.reset();
+            position = 0;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.uid2.shared.cloud;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Read-through cache that keeps downloaded content files in a local directory, so restarts serve
+ * versioned content from disk instead of downloading it again.
+ * <p>
+ * Only paths accepted by the cacheable predicate are cached. Those paths must be immutable; metadata files are
+ * rewritten in place and must go straight to the backend (see {@link #CONTENT_FILES}). For URLs the query string
+ * is ignored, so pre-signed URLs of the same file share an entry. Every entry is stored with its SHA-256 and is
+ * verified before being served; a corrupt entry is deleted and downloaded again. The least recently used entries
+ * are evicted once the directory holds more than the configured number of bytes.
+ */
+public class DiskCachedDownloadStorage implements DownloadCloudStorage {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DiskCachedDownloadStorage.class);
+    private static final String DATA_SUFFIX = ".data";
+    private static final String DIGEST_SUFFIX = ".sha256";
+    // after a failed fill, the path is downloaded directly for this long instead of being cached again
+    private static final long FAILED_FILL_RETRY_MS = 60_000;
+
+    // everything except the metadata files, which point at new versions of the content
+    public static final Predicate<String> CONTENT_FILES = path -> !stripQuery(path).endsWith("metadata.json");
+
+    private final DownloadCloudStorage backend;
+    private final Path cacheDir;
+    private final long maxBytes;
+    private final Predicate<String> isCacheable;
+
+    // entry name -> size, in access order; guarded by itself
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    // entry name -> lock held while the entry is read or filled; removed by its holder when done
+    private final ConcurrentHashMap<String, Object> fillLocks = new ConcurrentHashMap<>();
+    // entry name -> time its last fill failed
+    private final ConcurrentHashMap<String, Long> failedFills = new ConcurrentHashMap<>();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter bytesReadCounter;
+    private final Counter bytesWrittenCounter;
+    private final Counter integrityFailureCounter;
+    private final Counter evictionCounter;
+
+    public DiskCachedDownloadStorage(DownloadCloudStorage backend, Path cacheDir, long maxBytes) throws IOException {
+        this(backend, cacheDir, maxBytes, CONTENT_FILES);
+    }
+
+    public DiskCachedDownloadStorage(DownloadCloudStorage backend, Path cacheDir, long maxBytes, Predicate<String> isCacheable) throws IOException {
+        this.backend = backend;
+        this.cacheDir = cacheDir;
+        this.maxBytes = maxBytes;
+        this.isCacheable = isCacheable;
+        Files.createDirectories(cacheDir);
+
+        final String dir = cacheDir.toString();
+        this.hitCounter = Counter.builder("uid2_download_cache_hits_total")
+                .description("counter for downloads served from the local disk cache")
+                .tag("cache_dir", dir)
+                .register(Metrics.globalRegistry);
+        this.missCounter = Counter.builder("uid2_download_cache_misses_total")
+                .description("counter for downloads fetched from the backend and written to the local disk cache")
+                .tag("cache_dir", dir)
+                .register(Metrics.globalRegistry);
+        this.bytesReadCounter = Counter.builder("uid2_download_cache_read_bytes_total")
+                .description("bytes served from the local disk cache")
+                .tag("cache_dir", dir)
+                .register(Metrics.globalRegistry);
+        this.bytesWrittenCounter = Counter.builder("uid2_download_cache_written_bytes_total")
+                .description("bytes downloaded from the backend into the local disk cache")
+                .tag("cache_dir", dir)
+                .register(Metrics.globalRegistry);
+        this.integrityFailureCounter = Counter.builder("uid2_download_cache_integrity_failures_total")
+                .description("counter for cache entries that failed verification and were downloaded again")
+                .tag("cache_dir", dir)
+                .register(Metrics.globalRegistry);
+        this.evictionCounter = Counter.builder("uid2_download_cache_evictions_total")
+                .description("counter for cache entries evicted to stay within the size limit")
+                .tag("cache_dir", dir)
+                .register(Metrics.globalRegistry);
+        Gauge.builder("uid2_download_cache_size_bytes", this, DiskCachedDownloadStorage::getSizeBytes)
+                .description("bytes held in the local disk cache")
+                .tag("cache_dir", dir)
+                .register(Metrics.globalRegistry);
+
+        loadEntries();
+    }
+
+    @Override
+    public CompressionFormat getTransparentCompression(String cloudPath) {
+        return backend.getTransparentCompression(cloudPath);
+    }
+
+    @Override
+    public InputStream download(String cloudPath) throws CloudStorageException {
+        if (!isCacheable.test(cloudPath)) {
+            return backend.download(cloudPath);
+        }
+
+        final String name = entryName(cloudPath);
+        final Long failedAt = failedFills.get(name);
+        if (failedAt != null) {
+            if (System.currentTimeMillis() - failedAt < FAILED_FILL_RETRY_MS) {
+                return backend.download(cloudPath);
+            }
+            failedFills.remove(name, failedAt);
+        }
+
+        while (true) {
+            final Object lock = fillLocks.computeIfAbsent(name, n -> new Object());
+            synchronized (lock) {
+                // the previous holder removed this lock after we looked it up; another thread may hold its successor
+                if (fillLocks.get(name) != lock) {
+                    continue;
+                }
+                try {
+                    final InputStream cached = openVerified(name);
+                    if (cached != null) {
+                        return cached;
+                    }
+                    fill(name, cloudPath);
+                    return openData(name);
+                } catch (IOException e) {
+                    failedFills.put(name, System.currentTimeMillis());
+                    LOGGER.warn("Local download cache unavailable for {}, downloading directly: {}", backend instanceof ICloudStorage s ? s.mask(cloudPath) : name, e.getMessage());
+                } finally {
+                    fillLocks.remove(name, lock);
+                }
+            }
+            return backend.download(cloudPath);
+        }
+    }
+
+    public long getSizeBytes() {
+        synchronized (entries) {
+            return totalBytes;
+        }
+    }
+
+    public int getEntryCount() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private InputStream openVerified(String name) throws IOException {
+        final Long size;
+        synchronized (entries) {
+            size = entries.get(name);
+        }
+        if (size == null) {
+            return null;
+        }
+
+        final Path data = cacheDir.resolve(name + DATA_SUFFIX);
+        final Path digestFile = cacheDir.resolve(name + DIGEST_SUFFIX);
+        try {
+            final String expected = Files.readString(digestFile, StandardCharsets.US_ASCII).trim();
+            if (!expected.equals(digestOf(data))) {
+                throw new IOException("digest mismatch");
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Discarding corrupt download cache entry {}: {}", name, e.getMessage());
+            integrityFailureCounter.increment();
+            remove(name);
+            return null;
+        }
+
+        Files.setLastModifiedTime(data, FileTime.fromMillis(System.currentTimeMillis()));
+        hitCounter.increment();
+        bytesReadCounter.increment(size);
+        return openData(name);
+    }
+
+    // a FileInputStream, so readers such as the salt provider can memory-map the entry through its channel
+    private InputStream openData(String name) throws IOException {
+        return new FileInputStream(cacheDir.resolve(name + DATA_SUFFIX).toFile());
+    }
+
+    private void fill(String name, String cloudPath) throws CloudStorageException, IOException {
+        missCounter.increment();
+        final Path temp = Files.createTempFile(cacheDir, name, ".tmp");
+        try {
+            final MessageDigest digest = newDigest();
+            final long size;
+            try (InputStream in = new DigestInputStream(backend.download(cloudPath), digest);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                size = in.transferTo(out);
+            }
+            Files.writeString(cacheDir.resolve(name + DIGEST_SUFFIX), HexFormat.of().formatHex(digest.digest()), StandardCharsets.US_ASCII);
+            Files.move(temp, cacheDir.resolve(name + DATA_SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            bytesWrittenCounter.increment(size);
+            add(name, size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void add(String name, long size) {
+        final List<String> evicted = new ArrayList<>();
+        synchronized (entries) {
+            final Long previous = entries.put(name, size);
+            totalBytes += size - (previous == null ? 0 : previous);
+            final Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && it.hasNext()) {
+                final Map.Entry<String, Long> eldest = it.next();
+                if (eldest.getKey().equals(name)) {
+                    continue;
+                }
+                totalBytes -= eldest.getValue();
+                evicted.add(eldest.getKey());
+                it.remove();
+            }
+        }
+        for (String e : evicted) {
+            evictionCounter.increment();
+            deleteFiles(e);
+        }
+    }
+
+    private void remove(String name) {
+        synchronized (entries) {
+            final Long size = entries.remove(name);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        }
+        deleteFiles(name);
+    }
+
+    private void deleteFiles(String name) {
+        try {
+            Files.deleteIfExists(cacheDir.resolve(name + DATA_SUFFIX));
+            Files.deleteIfExists(cacheDir.resolve(name + DIGEST_SUFFIX));
+        } catch (IOException e) {
+            LOGGER.warn("Unable to delete download cache entry {}: {}", name, e.getMessage());
+        }
+    }
+
+    // rebuilds the index from a previous run, least recently used first; leftovers of interrupted fills are removed
+    private void loadEntries() throws IOException {
+        final List<Path> dataFiles = new ArrayList<>();
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                final String fileName = file.getFileName().toString();
+                if (fileName.endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                } else if (fileName.endsWith(DATA_SUFFIX)) {
+                    dataFiles.add(file);
+                }
+            }
+        }
+        dataFiles.sort(Comparator.comparing(file -> {
+            try {
+                return Files.getLastModifiedTime(file);
+            } catch (IOException e) {
+                return FileTime.fromMillis(0);
+            }
+        }));
+        for (Path file : dataFiles) {
+            final String fileName = file.getFileName().toString();
+            add(fileName.substring(0, fileName.length() - DATA_SUFFIX.length()), Files.size(file));
+        }
+    }
+
+    private static String entryName(String cloudPath) {
+        return HexFormat.of().formatHex(newDigest().digest(stripQuery(cloudPath).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String stripQuery(String path) {
+        final int query = path.indexOf('?');
+        return query < 0 ? path : path.substring(0, query);
+    }
+
+    private static String digestOf(Path file) throws IOException {
+        final MessageDigest digest = newDigest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
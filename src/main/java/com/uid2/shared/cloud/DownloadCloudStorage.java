@@ -4,4 +4,12 @@ import java.io.InputStream;
 
 public interface DownloadCloudStorage {
     InputStream download(String cloudPath) throws CloudStorageException;
+
+    /**
+     * Returns the format the storage itself compresses content in on upload and decompresses it from on download for
+     * the given path, so that callers pass and receive plain content.
+     */
+    default CompressionFormat getTransparentCompression(String cloudPath) {
+        return CompressionFormat.NONE;
+    }
 }
@@ -1,19 +1,42 @@
 package com.uid2.shared.cloud;
 
-import com.uid2.shared.Utils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentSkipListSet;
 
+/**
+ * In-memory storage bounded by the total size of its content, evicting by size-aware LRU/LFU (Caffeine)
+ * once full. Content is held off-heap and handed out as read-only {@link ByteBuffer} views, so readers do not
+ * copy it. Paths are kept in a sorted index, so listing by prefix only visits matching paths.
+ */
 public class MemCachedStorage implements ICloudStorage {
-    private final ConcurrentHashMap<String, byte[]> cache = new ConcurrentHashMap<>();
+    private static final int READ_CHUNK_SIZE = 64 * 1024;
+
+    private final Cache<String, ByteBuffer> cache;
+    private final ConcurrentSkipListSet<String> paths = new ConcurrentSkipListSet<>();
+
+    public MemCachedStorage() {
+        this(Long.MAX_VALUE);
+    }
+
+    public MemCachedStorage(long maxBytes) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String path, ByteBuffer content) -> content.capacity())
+                // called atomically with the eviction, so it is ordered with the compute() calls below for that path
+                .evictionListener((String path, ByteBuffer content, RemovalCause cause) -> paths.remove(path))
+                .executor(Runnable::run)
+                .build();
+    }
 
     @Override
     public void upload(String localPath, String cloudPath) throws CloudStorageException {
@@ -23,7 +46,13 @@ public class MemCachedStorage implements ICloudStorage {
     @Override
     public void upload(InputStream input, String cloudPath) throws CloudStorageException {
         try {
-            cache.put(cloudPath, Utils.streamToByteArray(input));
+            final ByteBuffer content = readOffHeap(input).asReadOnlyBuffer();
+            // the index is updated atomically with the entry, so an eviction of the path cannot interleave
+            cache.asMap().compute(cloudPath, (path, previous) -> {
+                paths.add(path);
+                return content;
+            });
+            cache.cleanUp();
         } catch (IOException e) {
             throw new CloudStorageException("MemCachedStorage::upload error: " + e.getMessage(), e);
         }
@@ -31,17 +60,44 @@ public class MemCachedStorage implements ICloudStorage {
 
     @Override
     public InputStream download(String cloudPath) throws CloudStorageException {
-        return new ByteArrayInputStream(cache.get(cloudPath));
+        final ByteBuffer content = cache.getIfPresent(cloudPath);
+        if (content == null) {
+            throw new CloudStorageException("MemCachedStorage::download error: no content at " + cloudPath);
+        }
+        return new ByteBufferInputStream(content);
+    }
+
+    /**
+     * Read-only view of the content at the path, or null; the view shares memory with the storage.
+     */
+    public ByteBuffer getByteBuffer(String cloudPath) {
+        final ByteBuffer content = cache.getIfPresent(cloudPath);
+        return content == null ? null : content.duplicate();
     }
 
-    // more effective way to return the cache byte[] array directly
+    /**
+     * Copies the content at the path into a new array; prefer {@link #getByteBuffer(String)}.
+     */
     public byte[] getBytes(String cloudPath) {
-        return cache.get(cloudPath);
+        final ByteBuffer content = cache.getIfPresent(cloudPath);
+        if (content == null) {
+            return null;
+        }
+        final byte[] bytes = new byte[content.capacity()];
+        content.duplicate().get(bytes);
+        return bytes;
+    }
+
+    public long getSizeBytes() {
+        return cache.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L);
     }
 
     @Override
     public void delete(String cloudPath) throws CloudStorageException {
-        cache.remove(cloudPath);
+        cache.asMap().compute(cloudPath, (path, previous) -> {
+            paths.remove(path);
+            return null;
+        });
     }
 
     @Override
@@ -51,9 +107,17 @@ public class MemCachedStorage implements ICloudStorage {
 
     @Override
     public List<String> list(String prefix) throws CloudStorageException {
-        return Collections.list(cache.keys()).stream()
-            .filter(f -> f.startsWith(prefix))
-            .collect(Collectors.toList());
+        final List<String> result = new ArrayList<>();
+        for (String path : paths.tailSet(prefix)) {
+            if (!path.startsWith(prefix)) {
+                break;
+            }
+            // the index can briefly hold a path whose upload is still in progress
+            if (cache.asMap().containsKey(path)) {
+                result.add(path);
+            }
+        }
+        return result;
     }
 
     @Override
@@ -69,4 +133,32 @@ public class MemCachedStorage implements ICloudStorage {
     public String mask(String cloudPath) {
         return cloudPath;
     }
+
+    // reads into heap chunks first since the length is not known up front, then copies once off-heap
+    private static ByteBuffer readOffHeap(InputStream input) throws IOException {
+        final List<byte[]> chunks = new ArrayList<>();
+        int lastChunkLength = READ_CHUNK_SIZE;
+        long total = 0;
+        while (true) {
+            if (lastChunkLength == READ_CHUNK_SIZE) {
+                chunks.add(new byte[READ_CHUNK_SIZE]);
+                lastChunkLength = 0;
+            }
+            final int n = input.read(chunks.get(chunks.size() - 1), lastChunkLength, READ_CHUNK_SIZE - lastChunkLength);
+            if (n < 0) {
+                break;
+            }
+            lastChunkLength += n;
+            total += n;
+        }
+        if (total > Integer.MAX_VALUE) {
+            throw new IOException("content of " + total + " bytes is too large");
+        }
+
+        final ByteBuffer content = ByteBuffer.allocateDirect((int) total);
+        for (int i = 0; i < chunks.size(); i++) {
+            content.put(chunks.get(i), 0, i == chunks.size() - 1 ? lastChunkLength : READ_CHUNK_SIZE);
+        }
+        return content.flip();
+    }
 }
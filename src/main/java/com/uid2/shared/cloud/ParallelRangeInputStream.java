@@ -0,0 +1,205 @@
+package com.uid2.shared.cloud;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Streams an object in order while the ranges after the one being read are fetched in parallel.
+ * The first range is read straight from {@code first}; if that read fails partway, the rest of the range is fetched
+ * again from the offset reached through {@code reader}, which retries like it does for every other range.
+ * <p>
+ * At most {@code window} further ranges are buffered or in flight at a time. Ranges fetched ahead of the one needed
+ * next also take a permit of {@code bufferPermits}, one per range, shared by all downloads of the storage, so their
+ * total memory stays bounded however many downloads run at once. The range needed next is fetched even without a
+ * permit, so a download never waits on others being read. The executor is shared and not owned by the stream; ranges
+ * still pending are cancelled once the stream fails or is closed.
+ */
+final class ParallelRangeInputStream extends InputStream {
+    interface RangeReader {
+        byte[] read(long start, long endInclusive) throws Exception;
+    }
+
+    private record Range(Future<byte[]> bytes, boolean permitted) {
+    }
+
+    private final long firstLength;
+    private final long totalLength;
+    private final int partSize;
+    private final int window;
+    private final RangeReader reader;
+    private final ExecutorService executor;
+    private final Semaphore bufferPermits;
+    private final InputStream first;
+    private final ArrayDeque<Range> pending = new ArrayDeque<>();
+    private long firstRead;
+    private long nextStart;
+    private long nextReadStart;
+    private InputStream current;
+    // whether the range being read from current holds a buffer permit
+    private boolean currentPermitted;
+    private boolean closed;
+
+    ParallelRangeInputStream(InputStream first, long firstLength, long totalLength, int partSize, int window,
+                             RangeReader reader, ExecutorService executor, Semaphore bufferPermits) {
+        this.first = first;
+        this.firstLength = firstLength;
+        this.totalLength = totalLength;
+        this.partSize = partSize;
+        this.window = window;
+        this.reader = reader;
+        this.executor = executor;
+        this.bufferPermits = bufferPermits;
+        this.current = first;
+        this.nextStart = firstLength;
+        this.nextReadStart = firstLength;
+        submitRanges();
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (true) {
+            final int n = current == first ? readFirst(b, off, len) : current.read(b, off, len);
+            if (n >= 0 || !advance()) {
+                return n;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        cancelPending();
+        releaseCurrent();
+        first.close();
+    }
+
+    private int readFirst(byte[] b, int off, int len) throws IOException {
+        final int n;
+        try {
+            n = first.read(b, off, len);
+        } catch (IOException e) {
+            resumeFirst(e);
+            return current.read(b, off, len);
+        }
+        if (n < 0 && firstRead < firstLength) {
+            resumeFirst(new IOException("first range ended after " + firstRead + " of " + firstLength + " bytes"));
+            return current.read(b, off, len);
+        }
+        if (n > 0) {
+            firstRead += n;
+        }
+        return n;
+    }
+
+    private void resumeFirst(IOException cause) throws IOException {
+        try {
+            first.close();
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+        if (firstRead >= firstLength) {
+            current = InputStream.nullInputStream();
+            return;
+        }
+        try {
+            current = new ByteArrayInputStream(reader.read(firstRead, firstLength - 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelPending();
+            throw new InterruptedIOException("interrupted while downloading range at " + firstRead);
+        } catch (Exception e) {
+            cancelPending();
+            e.addSuppressed(cause);
+            throw new IOException("failed to download range at " + firstRead + ": " + e.getClass().getSimpleName(), e);
+        }
+    }
+
+    private void cancelPending() {
+        for (Range range : pending) {
+            range.bytes().cancel(true);
+            if (range.permitted()) {
+                bufferPermits.release();
+            }
+        }
+        pending.clear();
+    }
+
+    private void releaseCurrent() {
+        if (currentPermitted) {
+            currentPermitted = false;
+            bufferPermits.release();
+        }
+    }
+
+    private void submitRanges() {
+        while (pending.size() < window && nextStart < totalLength && bufferPermits.tryAcquire()) {
+            submitRange(true);
+        }
+    }
+
+    private void submitRange(boolean permitted) {
+        final long start = nextStart;
+        final long end = Math.min(start + partSize, totalLength) - 1;
+        pending.add(new Range(executor.submit(() -> reader.read(start, end)), permitted));
+        nextStart = end + 1;
+    }
+
+    private boolean advance() throws IOException {
+        if (pending.isEmpty() && nextStart < totalLength) {
+            // other downloads hold every buffer permit; the range needed next is fetched regardless
+            submitRange(false);
+        }
+        final Range next = pending.poll();
+        if (next == null) {
+            return false;
+        }
+        if (current == first) {
+            first.close();
+        }
+
+        final byte[] bytes;
+        try {
+            bytes = next.bytes().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            releaseRange(next);
+            cancelPending();
+            throw new InterruptedIOException("interrupted while downloading range at " + nextReadStart);
+        } catch (ExecutionException e) {
+            releaseRange(next);
+            cancelPending();
+            throw new IOException("failed to download range at " + nextReadStart + ": " + e.getCause().getClass().getSimpleName(), e.getCause());
+        }
+        nextReadStart += bytes.length;
+        releaseCurrent();
+        current = new ByteArrayInputStream(bytes);
+        currentPermitted = next.permitted();
+        submitRanges();
+        return true;
+    }
+
+    private void releaseRange(Range range) {
+        if (range.permitted()) {
+            bufferPermits.release();
+        }
+    }
+}
@@ -1,16 +1,25 @@
 package com.uid2.shared.cloud;
 
+import com.uid2.shared.util.URLConnectionHttpClient;
+
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.Proxy;
 import java.net.URL;
+import java.net.http.HttpResponse;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
-public abstract class URLStorageWithMetadata implements ICloudStorage {
+public abstract class URLStorageWithMetadata implements ICloudStorage, AsyncDownloadCloudStorage {
+    private static final String DOWNLOAD_FAILURE_GUIDE = ". For troubleshooting information, refer to the applicable Private Operator guide: see https://unifiedid.com/docs/guides/integration-options-private-operator.";
+
     private final Proxy proxy;
+    private final URLConnectionHttpClient httpClient;
 
     public URLStorageWithMetadata() {
         this(null);
@@ -18,6 +27,7 @@ public abstract class URLStorageWithMetadata implements ICloudStorage {
 
     public URLStorageWithMetadata(Proxy proxy) {
         this.proxy = proxy;
+        this.httpClient = new URLConnectionHttpClient(proxy);
     }
 
     @Override
@@ -48,8 +58,7 @@ public abstract class URLStorageWithMetadata implements ICloudStorage {
             if (responseCode >= 200 && responseCode < 300) {
                 return httpConn.getInputStream();
             } else {
-                throw new CloudStorageException("E12: Data Download Failure - HTTP response code " + responseCode 
-                + ". For troubleshooting information, refer to the applicable Private Operator guide: see https://unifiedid.com/docs/guides/integration-options-private-operator.");
+                throw new CloudStorageException("E12: Data Download Failure - HTTP response code " + responseCode + DOWNLOAD_FAILURE_GUIDE);
             }
         }
         catch (CloudStorageException e) {
@@ -58,11 +67,38 @@ public abstract class URLStorageWithMetadata implements ICloudStorage {
         } 
         catch (Throwable t) {
             // Do not log the original exception as it may contain sensitive information such as the pre-signed URL
-            throw new CloudStorageException("E12: Data Download Failure - exception: " + t.getClass().getSimpleName() +
-                ". For troubleshooting information, refer to the applicable Private Operator guide: see https://unifiedid.com/docs/guides/integration-options-private-operator.");
+            throw new CloudStorageException("E12: Data Download Failure - exception: " + t.getClass().getSimpleName() + DOWNLOAD_FAILURE_GUIDE);
         }
     }
 
+    @Override
+    public CompletableFuture<InputStream> downloadAsync(String cloudPath) {
+        final CompletableFuture<HttpResponse<InputStream>> response;
+        try {
+            response = httpClient.getStreamAsync(cloudPath, null);
+        } catch (Throwable t) {
+            return CompletableFuture.failedFuture(downloadFailure(t));
+        }
+        return response.handle((r, t) -> {
+            if (t != null) {
+                throw new CompletionException(downloadFailure(t instanceof CompletionException ? t.getCause() : t));
+            }
+            if (r.statusCode() < 200 || r.statusCode() >= 300) {
+                try {
+                    r.body().close();
+                } catch (IOException ignored) {
+                }
+                throw new CompletionException(new CloudStorageException("E12: Data Download Failure - HTTP response code " + r.statusCode() + DOWNLOAD_FAILURE_GUIDE));
+            }
+            return r.body();
+        });
+    }
+
+    // Do not include the original exception as it may contain sensitive information such as the pre-signed URL
+    private static CloudStorageException downloadFailure(Throwable t) {
+        return new CloudStorageException("E12: Data Download Failure - exception: " + t.getClass().getSimpleName() + DOWNLOAD_FAILURE_GUIDE);
+    }
+
     @Override
     public void delete(String cloudPath) throws CloudStorageException {
         // this is a read-only cloud storage
@@ -0,0 +1,234 @@
+package com.uid2.shared.encryption;
+
+import com.uid2.shared.model.EncryptionKey;
+import com.uid2.shared.model.KeysetKey;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AES-GCM and AES-CBC over pooled per-thread ciphers and cached {@link SecretKey}s, writing into caller-supplied
+ * arrays or {@link ByteBuffer}s so tokens can be assembled without intermediate copies.
+ * <p>
+ * GCM output is IV (12 bytes) + ciphertext + tag (16 bytes); CBC output is IV (16 bytes) + padded ciphertext,
+ * the same layouts {@link AesGcm} and {@link AesCbc} produce.
+ */
+public final class AesEngine {
+    public static final int GCM_IV_LENGTH = AesGcm.GCM_IV_LENGTH;
+    public static final int GCM_AUTHTAG_LENGTH = AesGcm.GCM_AUTHTAG_LENGTH;
+    public static final int CBC_IV_LENGTH = 16;
+    private static final int AES_BLOCK_SIZE = 16;
+
+    // keys are cached by id and only reused while the entry still refers to the same key bytes,
+    // so a reloaded key store replaces entries as they are next used
+    static final int MAX_CACHED_KEYS = 1 << 17;
+    private static final ConcurrentHashMap<Integer, CachedKey> KEYSET_KEYS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Integer, CachedKey> ENCRYPTION_KEYS = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<Cipher> GCM_CIPHER = ThreadLocal.withInitial(() -> newCipher("AES/GCM/NoPadding"));
+    private static final ThreadLocal<Cipher> CBC_CIPHER = ThreadLocal.withInitial(() -> newCipher("AES/CBC/PKCS5Padding"));
+    private static final ThreadLocal<byte[]> GCM_IV = ThreadLocal.withInitial(() -> new byte[GCM_IV_LENGTH]);
+    private static final ThreadLocal<byte[]> CBC_IV = ThreadLocal.withInitial(() -> new byte[CBC_IV_LENGTH]);
+
+    private record CachedKey(byte[] keyBytes, SecretKey secretKey) {}
+
+    private AesEngine() {
+    }
+
+    public static SecretKey secretKey(KeysetKey key) {
+        return secretKey(KEYSET_KEYS, key.getId(), key.getKeyBytes());
+    }
+
+    public static SecretKey secretKey(EncryptionKey key) {
+        return secretKey(ENCRYPTION_KEYS, key.getId(), key.getKeyBytes());
+    }
+
+    private static SecretKey secretKey(ConcurrentHashMap<Integer, CachedKey> cache, int keyId, byte[] keyBytes) {
+        final CachedKey cached = cache.get(keyId);
+        if (cached != null && cached.keyBytes() == keyBytes) {
+            return cached.secretKey();
+        }
+        if (cache.size() >= MAX_CACHED_KEYS) {
+            cache.clear();
+        }
+        final SecretKey secretKey = new SecretKeySpec(keyBytes, "AES");
+        cache.put(keyId, new CachedKey(keyBytes, secretKey));
+        return secretKey;
+    }
+
+    public static int gcmEncryptedLength(int plaintextLength) {
+        return GCM_IV_LENGTH + plaintextLength + GCM_AUTHTAG_LENGTH;
+    }
+
+    public static int gcmDecryptedLength(int encryptedLength) {
+        return encryptedLength - GCM_IV_LENGTH - GCM_AUTHTAG_LENGTH;
+    }
+
+    /**
+     * Encrypts {@code length} bytes of {@code in} into {@code out} at {@code outOffset}, which needs
+     * {@link #gcmEncryptedLength(int)} bytes of room. Returns the number of bytes written.
+     */
+    public static int encryptGcm(SecretKey key, byte[] in, int offset, int length, byte[] out, int outOffset) {
+        try {
+            final Cipher c = initGcmEncrypt(key);
+            System.arraycopy(GCM_IV.get(), 0, out, outOffset, GCM_IV_LENGTH);
+            return GCM_IV_LENGTH + c.doFinal(in, offset, length, out, outOffset + GCM_IV_LENGTH);
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to Encrypt", e);
+        }
+    }
+
+    /**
+     * Encrypts the remaining bytes of {@code plaintext} into {@code out}, advancing both buffers.
+     * Returns the number of bytes written.
+     */
+    public static int encryptGcm(SecretKey key, ByteBuffer plaintext, ByteBuffer out) {
+        try {
+            final Cipher c = initGcmEncrypt(key);
+            out.put(GCM_IV.get());
+            return GCM_IV_LENGTH + c.doFinal(plaintext, out);
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to Encrypt", e);
+        }
+    }
+
+    /**
+     * Decrypts {@code length} bytes of IV + ciphertext + tag from {@code in} into {@code out} at {@code outOffset},
+     * which needs {@link #gcmDecryptedLength(int)} bytes of room. Returns the number of bytes written.
+     */
+    public static int decryptGcm(SecretKey key, byte[] in, int offset, int length, byte[] out, int outOffset) {
+        try {
+            final Cipher c = GCM_CIPHER.get();
+            c.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(GCM_AUTHTAG_LENGTH * 8, in, offset, GCM_IV_LENGTH));
+            return c.doFinal(in, offset + GCM_IV_LENGTH, length - GCM_IV_LENGTH, out, outOffset);
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to Decrypt", e);
+        }
+    }
+
+    /**
+     * Decrypts the remaining IV + ciphertext + tag of {@code encrypted} into {@code out}, advancing both buffers.
+     * Returns the number of bytes written.
+     */
+    public static int decryptGcm(SecretKey key, ByteBuffer encrypted, ByteBuffer out) {
+        try {
+            final Cipher c = GCM_CIPHER.get();
+            c.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(GCM_AUTHTAG_LENGTH * 8, readIv(encrypted, GCM_IV)));
+            return c.doFinal(encrypted, out);
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to Decrypt", e);
+        }
+    }
+
+    public static int cbcEncryptedLength(int plaintextLength) {
+        return CBC_IV_LENGTH + (plaintextLength / AES_BLOCK_SIZE + 1) * AES_BLOCK_SIZE;
+    }
+
+    /**
+     * Encrypts {@code length} bytes of {@code in} into {@code out} at {@code outOffset}, which needs
+     * {@link #cbcEncryptedLength(int)} bytes of room. Returns the number of bytes written.
+     */
+    public static int encryptCbc(SecretKey key, byte[] in, int offset, int length, byte[] out, int outOffset) {
+        try {
+            final Cipher c = initCbcEncrypt(key);
+            System.arraycopy(CBC_IV.get(), 0, out, outOffset, CBC_IV_LENGTH);
+            return CBC_IV_LENGTH + c.doFinal(in, offset, length, out, outOffset + CBC_IV_LENGTH);
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to Encrypt", e);
+        }
+    }
+
+    /**
+     * Encrypts the remaining bytes of {@code plaintext} into {@code out}, advancing both buffers.
+     * Returns the number of bytes written.
+     */
+    public static int encryptCbc(SecretKey key, ByteBuffer plaintext, ByteBuffer out) {
+        try {
+            final Cipher c = initCbcEncrypt(key);
+            out.put(CBC_IV.get());
+            return CBC_IV_LENGTH + c.doFinal(plaintext, out);
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to Encrypt", e);
+        }
+    }
+
+    public static byte[] decryptCbc(SecretKey key, byte[] in, int offset, int length) {
+        try {
+            final Cipher c = initCbcDecrypt(key, in, offset);
+            return c.doFinal(in, offset + CBC_IV_LENGTH, length - CBC_IV_LENGTH);
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to Decrypt", e);
+        }
+    }
+
+    /**
+     * Decrypts {@code length} bytes of IV + ciphertext from {@code in} into {@code out} at {@code outOffset}.
+     * The padding length is only known after decryption, so {@code out} needs room for the whole ciphertext.
+     * Returns the number of bytes written.
+     */
+    public static int decryptCbc(SecretKey key, byte[] in, int offset, int length, byte[] out, int outOffset) {
+        try {
+            final Cipher c = initCbcDecrypt(key, in, offset);
+            return c.doFinal(in, offset + CBC_IV_LENGTH, length - CBC_IV_LENGTH, out, outOffset);
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to Decrypt", e);
+        }
+    }
+
+    /**
+     * Decrypts the remaining IV + ciphertext of {@code encrypted} into {@code out}, advancing both buffers.
+     * {@code out} needs room for the whole ciphertext. Returns the number of bytes written.
+     */
+    public static int decryptCbc(SecretKey key, ByteBuffer encrypted, ByteBuffer out) {
+        try {
+            final Cipher c = CBC_CIPHER.get();
+            c.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(readIv(encrypted, CBC_IV)));
+            return c.doFinal(encrypted, out);
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to Decrypt", e);
+        }
+    }
+
+    // a fresh IV needs a cipher init per call; SunJCE skips the key expansion when the key is unchanged
+    private static Cipher initGcmEncrypt(SecretKey key) throws GeneralSecurityException {
+        final byte[] iv = GCM_IV.get();
+        Random.nextBytes(iv);
+        final Cipher c = GCM_CIPHER.get();
+        c.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(GCM_AUTHTAG_LENGTH * 8, iv));
+        return c;
+    }
+
+    private static Cipher initCbcEncrypt(SecretKey key) throws GeneralSecurityException {
+        final byte[] iv = CBC_IV.get();
+        Random.nextBytes(iv);
+        final Cipher c = CBC_CIPHER.get();
+        c.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
+        return c;
+    }
+
+    private static Cipher initCbcDecrypt(SecretKey key, byte[] in, int offset) throws GeneralSecurityException {
+        final Cipher c = CBC_CIPHER.get();
+        c.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(in, offset, CBC_IV_LENGTH));
+        return c;
+    }
+
+    private static byte[] readIv(ByteBuffer encrypted, ThreadLocal<byte[]> scratch) {
+        final byte[] iv = scratch.get();
+        encrypted.get(iv);
+        return iv;
+    }
+
+    private static Cipher newCipher(String scheme) {
+        try {
+            return Cipher.getInstance(scheme);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Unable to create cipher", e);
+        }
+    }
+}
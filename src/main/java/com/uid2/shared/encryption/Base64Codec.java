@@ -0,0 +1,212 @@
+package com.uid2.shared.encryption;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Base64 (RFC 4648 section 4) and Base64URL (section 5) encoding and decoding that writes into caller-supplied
+ * arrays and decodes straight from {@link CharSequence}s, so hot paths avoid the {@code String} to {@code byte[]}
+ * copies and padding strips of {@link Base64}. Decoding accepts input with or without padding and rejects
+ * the same malformed input as {@link Base64.Decoder}.
+ */
+public final class Base64Codec {
+    public static final Base64Codec STANDARD = new Base64Codec(
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/", Base64.getEncoder());
+    public static final Base64Codec URL = new Base64Codec(
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_", Base64.getUrlEncoder());
+
+    private static final byte PAD = '=';
+
+    private final byte[] alphabet;
+    private final int[] decodeTable;
+    private final Base64.Encoder encoder;
+    private final Base64.Encoder encoderNoPadding;
+
+    private Base64Codec(String alphabet, Base64.Encoder encoder) {
+        this.alphabet = alphabet.getBytes(StandardCharsets.US_ASCII);
+        this.decodeTable = new int[128];
+        Arrays.fill(this.decodeTable, -1);
+        for (int i = 0; i < this.alphabet.length; i++) {
+            this.decodeTable[this.alphabet[i]] = i;
+        }
+        this.encoder = encoder;
+        this.encoderNoPadding = encoder.withoutPadding();
+    }
+
+    // whole-array encoding stays on the JDK encoder, which has SIMD intrinsics on x86-64 and aarch64
+    public String encodeToString(byte[] src) {
+        return encoder.encodeToString(src);
+    }
+
+    public String encodeToStringNoPadding(byte[] src) {
+        return encoderNoPadding.encodeToString(src);
+    }
+
+    public static int encodedLength(int srcLength, boolean padding) {
+        return padding ? (srcLength + 2) / 3 * 4 : (srcLength * 4 + 2) / 3;
+    }
+
+    /**
+     * Encodes {@code length} bytes of {@code src} into {@code dst} at {@code dstOffset}, which needs
+     * {@link #encodedLength(int, boolean)} bytes of room. Returns the number of bytes written.
+     */
+    public int encode(byte[] src, int offset, int length, byte[] dst, int dstOffset, boolean padding) {
+        final int end = offset + length;
+        final int fullEnd = offset + length / 3 * 3;
+        int sp = offset;
+        int dp = dstOffset;
+        while (sp < fullEnd) {
+            final int bits = (src[sp++] & 0xff) << 16 | (src[sp++] & 0xff) << 8 | (src[sp++] & 0xff);
+            dst[dp++] = alphabet[(bits >>> 18) & 0x3f];
+            dst[dp++] = alphabet[(bits >>> 12) & 0x3f];
+            dst[dp++] = alphabet[(bits >>> 6) & 0x3f];
+            dst[dp++] = alphabet[bits & 0x3f];
+        }
+        if (sp < end) {
+            final int b0 = src[sp++] & 0xff;
+            dst[dp++] = alphabet[b0 >> 2];
+            if (sp == end) {
+                dst[dp++] = alphabet[(b0 << 4) & 0x3f];
+                if (padding) {
+                    dst[dp++] = PAD;
+                    dst[dp++] = PAD;
+                }
+            } else {
+                final int b1 = src[sp] & 0xff;
+                dst[dp++] = alphabet[(b0 << 4) & 0x3f | (b1 >> 4)];
+                dst[dp++] = alphabet[(b1 << 2) & 0x3f];
+                if (padding) {
+                    dst[dp++] = PAD;
+                }
+            }
+        }
+        return dp - dstOffset;
+    }
+
+    public int decodedLength(CharSequence src) {
+        final int length = src.length();
+        return decodedLength(length, unpaddedLength(length, length > 0 ? src.charAt(length - 1) : 0, length > 1 ? src.charAt(length - 2) : 0));
+    }
+
+    public int decodedLength(byte[] src, int offset, int length) {
+        final int end = offset + length;
+        return decodedLength(length, unpaddedLength(length, length > 0 ? src[end - 1] : 0, length > 1 ? src[end - 2] : 0));
+    }
+
+    public byte[] decode(CharSequence src) {
+        final byte[] dst = new byte[decodedLength(src)];
+        decode(src, dst, 0);
+        return dst;
+    }
+
+    public byte[] decode(byte[] src) {
+        final byte[] dst = new byte[decodedLength(src, 0, src.length)];
+        decode(src, 0, src.length, dst, 0);
+        return dst;
+    }
+
+    /**
+     * Decodes {@code src} into {@code dst} at {@code dstOffset}, which needs {@link #decodedLength(CharSequence)}
+     * bytes of room. Returns the number of bytes written.
+     */
+    public int decode(CharSequence src, byte[] dst, int dstOffset) {
+        final int length = src.length();
+        final int end = unpaddedLength(length, length > 0 ? src.charAt(length - 1) : 0, length > 1 ? src.charAt(length - 2) : 0);
+        checkLength(length, end);
+        final int fullEnd = end & ~3;
+        int sp = 0;
+        int dp = dstOffset;
+        while (sp < fullEnd) {
+            final int bits = value(src.charAt(sp++)) << 18 | value(src.charAt(sp++)) << 12
+                    | value(src.charAt(sp++)) << 6 | value(src.charAt(sp++));
+            dst[dp++] = (byte) (bits >> 16);
+            dst[dp++] = (byte) (bits >> 8);
+            dst[dp++] = (byte) bits;
+        }
+        final int remaining = end - fullEnd;
+        if (remaining == 2) {
+            dst[dp++] = (byte) ((value(src.charAt(sp)) << 18 | value(src.charAt(sp + 1)) << 12) >> 16);
+        } else if (remaining == 3) {
+            final int bits = value(src.charAt(sp)) << 18 | value(src.charAt(sp + 1)) << 12 | value(src.charAt(sp + 2)) << 6;
+            dst[dp++] = (byte) (bits >> 16);
+            dst[dp++] = (byte) (bits >> 8);
+        }
+        return dp - dstOffset;
+    }
+
+    /**
+     * Decodes {@code length} bytes of {@code src} into {@code dst} at {@code dstOffset}, which needs
+     * {@link #decodedLength(byte[], int, int)} bytes of room. Returns the number of bytes written.
+     */
+    public int decode(byte[] src, int offset, int length, byte[] dst, int dstOffset) {
+        final int end = offset + unpaddedLength(length, length > 0 ? src[offset + length - 1] : 0, length > 1 ? src[offset + length - 2] : 0);
+        checkLength(length, end - offset);
+        final int fullEnd = offset + ((end - offset) & ~3);
+        int sp = offset;
+        int dp = dstOffset;
+        while (sp < fullEnd) {
+            final int bits = value(src[sp++] & 0xff) << 18 | value(src[sp++] & 0xff) << 12 | value(src[sp++] & 0xff) << 6 | value(src[sp++] & 0xff);
+            dst[dp++] = (byte) (bits >> 16);
+            dst[dp++] = (byte) (bits >> 8);
+            dst[dp++] = (byte) bits;
+        }
+        final int remaining = end - fullEnd;
+        if (remaining == 2) {
+            dst[dp++] = (byte) ((value(src[sp] & 0xff) << 18 | value(src[sp + 1] & 0xff) << 12) >> 16);
+        } else if (remaining == 3) {
+            final int bits = value(src[sp] & 0xff) << 18 | value(src[sp + 1] & 0xff) << 12 | value(src[sp + 2] & 0xff) << 6;
+            dst[dp++] = (byte) (bits >> 16);
+            dst[dp++] = (byte) (bits >> 8);
+        }
+        return dp - dstOffset;
+    }
+
+    /**
+     * Decodes the remaining bytes of {@code src} into {@code dst}, advancing both buffers.
+     * Buffers without an accessible array are decoded through a temporary copy.
+     */
+    public int decode(ByteBuffer src, ByteBuffer dst) {
+        final int length = src.remaining();
+        if (src.hasArray() && dst.hasArray()) {
+            final int written = decode(src.array(), src.arrayOffset() + src.position(), length,
+                    dst.array(), dst.arrayOffset() + dst.position());
+            src.position(src.position() + length);
+            dst.position(dst.position() + written);
+            return written;
+        }
+        final byte[] in = new byte[length];
+        src.get(in);
+        final byte[] out = decode(in);
+        dst.put(out);
+        return out.length;
+    }
+
+    private int value(int c) {
+        final int v = c < 128 ? decodeTable[c] : -1;
+        if (v < 0) {
+            throw new IllegalArgumentException("Illegal base64 character " + Integer.toString(c, 16));
+        }
+        return v;
+    }
+
+    private static int unpaddedLength(int length, int last, int secondLast) {
+        if (last != PAD) return length;
+        return secondLast == PAD ? length - 2 : length - 1;
+    }
+
+    private static void checkLength(int length, int unpadded) {
+        if (unpadded != length && (length & 3) != 0) {
+            throw new IllegalArgumentException("Input byte array has wrong 4-byte ending unit");
+        }
+        if ((unpadded & 3) == 1) {
+            throw new IllegalArgumentException("Last unit does not have enough valid bits");
+        }
+    }
+
+    private static int decodedLength(int length, int unpadded) {
+        checkLength(length, unpadded);
+        return unpadded / 4 * 3 + Math.max(0, (unpadded & 3) - 1);
+    }
+}
@@ -1,24 +1,63 @@
 package com.uid2.shared.encryption;
 
+import com.uid2.shared.Const;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import javax.crypto.KeyGenerator;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.Arrays;
 
+/**
+ * Secure random bytes for IVs, nonces and salts, handed out from a per-thread buffer that is refilled in bulk.
+ * Bytes are zeroed in the buffer once handed out. The generator algorithm defaults to SHA1PRNG and can be set per
+ * deployment with the {@value Const.Config#SECURE_RANDOM_ALGORITHM_PROP} system property, e.g. {@code DRBG}.
+ */
 public class Random {
-    private static final ThreadLocal<SecureRandom> threadLocalSecureRandom = ThreadLocal.withInitial(() -> {
-        try {
-            return SecureRandom.getInstance("SHA1PRNG");
-        } catch (NoSuchAlgorithmException e) {
-            return null;
-        }
-    });
+    private static final Logger LOGGER = LoggerFactory.getLogger(Random.class);
+    static final int POOL_SIZE = 4096;
+    // larger requests go straight to the generator rather than draining the pool
+    private static final int MAX_POOLED_REQUEST = POOL_SIZE / 4;
+    private static final String ALGORITHM = System.getProperty(Const.Config.SECURE_RANDOM_ALGORITHM_PROP, "SHA1PRNG");
+
+    private static final ThreadLocal<SecureRandom> threadLocalSecureRandom = ThreadLocal.withInitial(Random::newSecureRandom);
+    private static final ThreadLocal<Pool> threadLocalPool = ThreadLocal.withInitial(() -> new Pool(threadLocalSecureRandom.get()));
 
     public static byte[] getBytes(int size) {
         final byte[] bytes = new byte[size];
-        threadLocalSecureRandom.get().nextBytes(bytes);
+        nextBytes(bytes, 0, size);
         return bytes;
     }
 
+    public static void nextBytes(byte[] bytes) {
+        nextBytes(bytes, 0, bytes.length);
+    }
+
+    public static void nextBytes(byte[] bytes, int offset, int length) {
+        if (length > MAX_POOLED_REQUEST) {
+            if (offset == 0 && length == bytes.length) {
+                threadLocalSecureRandom.get().nextBytes(bytes);
+            } else {
+                // SecureRandom has no ranged fill; a sub-range of a larger array needs a temporary copy
+                final byte[] direct = new byte[length];
+                threadLocalSecureRandom.get().nextBytes(direct);
+                System.arraycopy(direct, 0, bytes, offset, length);
+            }
+            return;
+        }
+        threadLocalPool.get().take(bytes, offset, length);
+    }
+
+    public static long nextLong() {
+        final Pool pool = threadLocalPool.get();
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (pool.takeByte() & 0xFF);
+        }
+        return value;
+    }
+
     public static byte[] getRandomKeyBytes() {
         try {
             final KeyGenerator keyGen = KeyGenerator.getInstance("AES");
@@ -28,4 +67,51 @@ public class Random {
             throw new RuntimeException("Trouble Generating Random Key Bytes", e);
         }
     }
+
+    private static SecureRandom newSecureRandom() {
+        try {
+            return SecureRandom.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            LOGGER.warn("SecureRandom algorithm {} is not available, using the platform default", ALGORITHM);
+            return new SecureRandom();
+        }
+    }
+
+    private static final class Pool {
+        private final SecureRandom random;
+        private final byte[] buffer = new byte[POOL_SIZE];
+        private int position = POOL_SIZE;
+
+        Pool(SecureRandom random) {
+            this.random = random;
+        }
+
+        void take(byte[] bytes, int offset, int length) {
+            while (length > 0) {
+                if (position == POOL_SIZE) {
+                    refill();
+                }
+                final int n = Math.min(length, POOL_SIZE - position);
+                System.arraycopy(buffer, position, bytes, offset, n);
+                Arrays.fill(buffer, position, position + n, (byte) 0);
+                position += n;
+                offset += n;
+                length -= n;
+            }
+        }
+
+        byte takeByte() {
+            if (position == POOL_SIZE) {
+                refill();
+            }
+            final byte value = buffer[position];
+            buffer[position++] = 0;
+            return value;
+        }
+
+        private void refill() {
+            random.nextBytes(buffer);
+            position = 0;
+        }
+    }
 }
@@ -9,13 +9,12 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 public class AdminApi implements AdminApiMBean {
     public final static AdminApi instance = new AdminApi();
@@ -25,7 +24,8 @@ public class AdminApi implements AdminApiMBean {
     private AtomicReference<Boolean> _captureFailureOnly = new AtomicReference<>(true);
     private AtomicReference<Integer> _maxCapturedRequests = new AtomicReference<>(100);
     private AtomicReference<Pattern> _apiContactPattern = new AtomicReference<>(Pattern.compile(".*", Pattern.CASE_INSENSITIVE));
-    private List<Queue<String>> _listOfQueues = new ArrayList<>();
+    private final AtomicReference<CapturedRequestRingBuffer> _capturedRequests = new AtomicReference<>(new CapturedRequestRingBuffer(100));
+    private final List<Queue<String>> _listOfQueues = new CopyOnWriteArrayList<>();
 
     @Override
     public boolean getPublishApiMetrics() {
@@ -65,6 +65,12 @@ public class AdminApi implements AdminApiMBean {
     @Override
     public void setMaxCapturedRequests(int maxRequests) {
         _maxCapturedRequests.set(maxRequests);
+        final CapturedRequestRingBuffer resized = new CapturedRequestRingBuffer(Math.max(1, maxRequests));
+        final CapturedRequestRingBuffer previous = _capturedRequests.getAndSet(resized);
+        // keep the most recent requests; requests captured while resizing may land in the old buffer and be lost
+        for (CapturedRequest request : previous.snapshot()) {
+            resized.add(request);
+        }
     }
 
     @Override
@@ -97,8 +103,14 @@ public class AdminApi implements AdminApiMBean {
     }
 
     @Override
-    public synchronized String[] getCapturedRequests() {
-        List<String> list = _listOfQueues.stream().flatMap(Collection::stream).collect(Collectors.toList());
+    public String[] getCapturedRequests() {
+        List<String> list = new ArrayList<>();
+        for (Queue<String> queue : _listOfQueues) {
+            list.addAll(queue);
+        }
+        for (CapturedRequest request : _capturedRequests.get().snapshot()) {
+            list.add(request.format());
+        }
         return list.toArray(new String[list.size()]);
     }
 
@@ -106,7 +118,16 @@ public class AdminApi implements AdminApiMBean {
         return _apiContactPattern.get();
     }
 
-    public synchronized Queue<String> allocateCapturedRequestQueue() {
+    public void captureRequest(CapturedRequest request) {
+        _capturedRequests.get().add(request);
+    }
+
+    /**
+     * @deprecated use {@link #captureRequest(CapturedRequest)}, which stores requests in a fixed-size ring buffer
+     * and formats them only when they are dumped
+     */
+    @Deprecated
+    public Queue<String> allocateCapturedRequestQueue() {
         Queue<String> queue = new ConcurrentLinkedDeque<>();
         _listOfQueues.add(queue);
         return queue;
@@ -0,0 +1,88 @@
+package com.uid2.shared.jmx;
+
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpVersion;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Raw details of a captured request. Formatting is deferred until the captured requests are dumped.
+ *
+ * @param requestHeaders  header names and values, alternating
+ * @param responseHeaders header names and values, alternating
+ */
+public record CapturedRequest(String apiContact,
+                              String remoteClient,
+                              long timestamp,
+                              HttpMethod method,
+                              String uri,
+                              HttpVersion version,
+                              int status,
+                              long contentLength,
+                              long durationMs,
+                              String[] requestHeaders,
+                              String[] responseHeaders) {
+    private static final ZoneId ZONE_GMT = ZoneId.of("GMT");
+
+    public String format() {
+        String versionFormatted = "-";
+        if (version != null) {
+            switch (version) {
+                case HTTP_1_0 -> versionFormatted = "HTTP/1.0";
+                case HTTP_1_1 -> versionFormatted = "HTTP/1.1";
+                case HTTP_2 -> versionFormatted = "HTTP/2.0";
+            }
+        }
+
+        // as per RFC1945 the header is referer but it is not mandatory some implementations use referrer
+        String referrer = getHeader(requestHeaders, "referrer");
+        if (referrer == null) {
+            referrer = getHeader(requestHeaders, "referer");
+        }
+        String userAgent = getHeader(requestHeaders, "user-agent");
+        referrer = referrer == null ? "-" : referrer;
+        userAgent = userAgent == null ? "-" : userAgent;
+
+        String summary = String.format(
+                "-->[%s] %s - - [%s] \"%s %s %s\" %d %d %s \"%s\" \"%s\"",
+                apiContact,
+                remoteClient,
+                DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(timestamp).atZone(ZONE_GMT)),
+                method,
+                uri,
+                versionFormatted,
+                status,
+                contentLength,
+                durationMs,
+                referrer,
+                userAgent);
+
+        StringBuilder messageBuilder = new StringBuilder();
+        messageBuilder.append(summary);
+        messageBuilder.append("\n");
+        appendHeaders(messageBuilder, requestHeaders);
+        messageBuilder.append("<--\n");
+        appendHeaders(messageBuilder, responseHeaders);
+        return messageBuilder.toString();
+    }
+
+    private static String getHeader(String[] headers, String name) {
+        for (int i = 0; i + 1 < headers.length; i += 2) {
+            if (headers[i].equalsIgnoreCase(name)) {
+                return headers[i + 1];
+            }
+        }
+        return null;
+    }
+
+    private static void appendHeaders(StringBuilder messageBuilder, String[] headers) {
+        for (int i = 0; i + 1 < headers.length; i += 2) {
+            messageBuilder.append(headers[i]);
+            messageBuilder.append(": ");
+            messageBuilder.append(headers[i + 1]);
+            messageBuilder.append("\n");
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.uid2.shared.jmx;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size ring buffer of captured requests that any number of threads can write to without locking.
+ * Once full, each new request overwrites the oldest one.
+ */
+public class CapturedRequestRingBuffer {
+    private record Slot(long sequence, CapturedRequest request) {
+    }
+
+    private final AtomicReferenceArray<Slot> slots;
+    private final AtomicLong nextSequence = new AtomicLong(0);
+
+    public CapturedRequestRingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    public void add(CapturedRequest request) {
+        final long sequence = nextSequence.getAndIncrement();
+        final int index = (int) (sequence % slots.length());
+        final Slot slot = new Slot(sequence, request);
+        // a writer that stalled after taking its sequence must not overwrite a newer request in the same slot
+        Slot current;
+        do {
+            current = slots.get(index);
+            if (current != null && current.sequence() > sequence) {
+                return;
+            }
+        } while (!slots.compareAndSet(index, current, slot));
+    }
+
+    /**
+     * Returns the buffered requests, oldest first. Writes that race with the snapshot may or may not be included.
+     */
+    public List<CapturedRequest> snapshot() {
+        final List<Slot> taken = new ArrayList<>(slots.length());
+        for (int i = 0; i < slots.length(); i++) {
+            final Slot slot = slots.get(i);
+            if (slot != null) {
+                taken.add(slot);
+            }
+        }
+        taken.sort(Comparator.comparingLong(Slot::sequence));
+
+        final List<CapturedRequest> requests = new ArrayList<>(taken.size());
+        for (Slot slot : taken) {
+            requests.add(slot.request());
+        }
+        return requests;
+    }
+}
@@ -2,6 +2,7 @@ package com.uid2.shared.middleware;
 
 import com.uid2.shared.Const;
 import com.uid2.shared.audit.Audit;
+import com.uid2.shared.audit.AuditLogWriter;
 import com.uid2.shared.audit.AuditParams;
 import com.uid2.shared.auth.*;
 import io.vertx.core.Handler;
@@ -33,8 +34,12 @@ public class AuthMiddleware {
     }
 
     public AuthMiddleware(IAuthorizableProvider authKeyStore, String auditSource) {
+        this(authKeyStore, auditSource, AuditLogWriter.getInstance());
+    }
+
+    public AuthMiddleware(IAuthorizableProvider authKeyStore, String auditSource, AuditLogWriter auditLogWriter) {
         this.authKeyStore = authKeyStore;
-        this.audit = new Audit(auditSource);
+        this.audit = new Audit(auditSource, auditLogWriter);
     }
 
     public static String getAuthToken(RoutingContext rc) {
@@ -1,5 +1,15 @@
 package com.uid2.shared.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Objects;
+import java.util.function.LongFunction;
+
+/**
+ * A rotating salt bucket. The hashed id can be encoded from the id on first use instead of up front: encoding costs a
+ * Hashids encode per entry, and most entries of a snapshot never have it read. The hashed id is a function of the id,
+ * so it is left out of equals, hashCode and toString, which never encode it.
+ */
 public record SaltEntry(
         long id,
         String hashedId,
@@ -10,13 +20,53 @@ public record SaltEntry(
         String previousSalt,
 
         KeyMaterial currentKeySalt,
-        KeyMaterial previousKeySalt
+        KeyMaterial previousKeySalt,
+
+        // null when the hashed id was given up front
+        @JsonIgnore LazyHashedId lazyHashedId
 ) {
+    public SaltEntry(long id, String hashedId, long lastUpdated, String currentSalt, long refreshFrom,
+                     String previousSalt, KeyMaterial currentKeySalt, KeyMaterial previousKeySalt) {
+        this(id, hashedId, lastUpdated, currentSalt, refreshFrom, previousSalt, currentKeySalt, previousKeySalt, null);
+    }
+
+    /**
+     * Creates an entry whose hashed id is encoded from its id on first use, then cached.
+     */
+    public static SaltEntry withLazyHashedId(long id, LongFunction<String> hashedIdEncoder, long lastUpdated,
+                                             String currentSalt, long refreshFrom, String previousSalt,
+                                             KeyMaterial currentKeySalt, KeyMaterial previousKeySalt) {
+        return new SaltEntry(id, null, lastUpdated, currentSalt, refreshFrom, previousSalt, currentKeySalt,
+                previousKeySalt, new LazyHashedId(Objects.requireNonNull(hashedIdEncoder)));
+    }
+
+    @Override
+    public String hashedId() {
+        return hashedId != null || lazyHashedId == null ? hashedId : lazyHashedId.get(id);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SaltEntry that)) return false;
+        return id == that.id
+                && lastUpdated == that.lastUpdated
+                && refreshFrom == that.refreshFrom
+                && Objects.equals(currentSalt, that.currentSalt)
+                && Objects.equals(previousSalt, that.previousSalt)
+                && Objects.equals(currentKeySalt, that.currentKeySalt)
+                && Objects.equals(previousKeySalt, that.previousKeySalt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, lastUpdated, currentSalt, refreshFrom, previousSalt, currentKeySalt, previousKeySalt);
+    }
+
     @Override
     public String toString() {
         return "SaltEntry{" +
                 "id=" + id +
-                ", hashedId='" + hashedId + '\'' +
                 ", lastUpdated=" + lastUpdated +
                 ", currentSalt=" + (currentSalt == null ? "null" : "<REDACTED>") +
                 ", refreshFrom=" + refreshFrom +
@@ -40,4 +90,26 @@ public record SaltEntry(
                     '}';
         }
     }
+
+    /**
+     * Encodes the hashed id of an entry on first use and keeps it.
+     */
+    public static final class LazyHashedId {
+        private final LongFunction<String> encoder;
+        // racy single-check: String is immutable, so a value computed twice is equal and safely published
+        private String value;
+
+        LazyHashedId(LongFunction<String> encoder) {
+            this.encoder = encoder;
+        }
+
+        String get(long id) {
+            String v = value;
+            if (v == null) {
+                v = encoder.apply(id);
+                value = v;
+            }
+            return v;
+        }
+    }
 }
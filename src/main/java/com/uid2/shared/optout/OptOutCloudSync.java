@@ -4,6 +4,7 @@ import com.uid2.shared.Const;
 import com.uid2.shared.Utils;
 import com.uid2.shared.cloud.CloudStorageException;
 import com.uid2.shared.cloud.CloudUtils;
+import com.uid2.shared.cloud.CompressionFormat;
 import com.uid2.shared.cloud.ICloudStorage;
 import com.uid2.shared.vertx.ICloudSync;
 import io.vertx.core.Vertx;
@@ -42,6 +43,8 @@ public class OptOutCloudSync implements ICloudSync {
 
     private final boolean syntheticLogsEnabled;
     private final int syntheticLogsCount;
+    // applied to uploaded deltas and partitions; local files are always kept uncompressed
+    private final CompressionFormat compression;
 
     private Vertx vertx = null;
     private String eventMergeDelta = null;
@@ -64,6 +67,7 @@ public class OptOutCloudSync implements ICloudSync {
         this.cloudDeltaRootFolder = this.cloudFolder + "delta/";
 
         this.fileUtils = new FileUtils(jsonConfig);
+        this.compression = CompressionFormat.fromName(jsonConfig.getString(Const.Config.OptOutCompressionProp));
 
         this.deltaBacktrackInDays = jsonConfig.getInteger(Const.Config.OptOutDeltaBacktrackInDaysProp);
         assert this.deltaBacktrackInDays > 0;
@@ -106,14 +110,19 @@ public class OptOutCloudSync implements ICloudSync {
     @Override
     public String toCloudPath(String path) {
         if (OptOutUtils.isDeltaFile(path)) {
-            return newCloudPathForDelta(path);
+            return this.compression.appendExtension(newCloudPathForDelta(path));
         } else if (OptOutUtils.isPartitionFile(path)) {
-            return newCloudPathForPartition(path);
+            return this.compression.appendExtension(newCloudPathForPartition(path));
         } else {
             return null;
         }
     }
 
+    @Override
+    public Instant getCloudFileTimestamp(String cloudPath) {
+        return OptOutUtils.getFileTimestamp(cloudPath);
+    }
+
     @Override
     public String toLocalPath(String path) {
         if (path.startsWith("http")) {
@@ -125,6 +134,8 @@ public class OptOutCloudSync implements ICloudSync {
                 LOGGER.error("Unable to parse preSignedUrl (" + path + "): " + e.getMessage(), e);
             }
         }
+        // compressed cloud files are decompressed on download
+        path = CompressionFormat.stripExtension(path);
 
         if (OptOutUtils.isDeltaFile(path)) {
             return newLocalPathForDelta(path);
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.uid2.shared.Const;
 import com.uid2.shared.Utils;
 import com.uid2.shared.cloud.CloudUtils;
+import com.uid2.shared.encryption.Base64Codec;
 import com.uid2.shared.util.Mapper;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
@@ -113,7 +114,7 @@ public class OptOutUtils {
 
     public static byte[] base64StringTobyteArray(String b64) {
         try {
-            return base64Decoder.decode(b64);
+            return Base64Codec.STANDARD.decode(b64);
         } catch (IllegalArgumentException ex) {
             // base64 decoder throws if input is invalid, returning null for such case
             return null;
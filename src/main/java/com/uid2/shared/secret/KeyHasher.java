@@ -1,10 +1,10 @@
 package com.uid2.shared.secret;
 
 import com.uid2.shared.Utils;
+import com.uid2.shared.encryption.Random;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
-import java.security.SecureRandom;
 
 public class KeyHasher {
     private static final int SALT_BYTES = 32;
@@ -26,9 +26,6 @@ public class KeyHasher {
     }
 
     private static byte[] generateSaltBytes() {
-        SecureRandom random = new SecureRandom();
-        byte[] bytes = new byte[SALT_BYTES];
-        random.nextBytes(bytes);
-        return bytes;
+        return Random.getBytes(SALT_BYTES);
     }
 }
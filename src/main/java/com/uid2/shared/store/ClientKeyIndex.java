@@ -0,0 +1,106 @@
+package com.uid2.shared.store;
+
+import com.uid2.shared.auth.ClientKey;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable lookups over one client key snapshot, built once per load.
+ * <p>
+ * Site and service lookups use primitive int keyed maps. Keys of a site are sorted by creation time, oldest first;
+ * keys created at the same time keep their order in the snapshot.
+ */
+public final class ClientKeyIndex {
+    public static final ClientKeyIndex EMPTY = build(List.of());
+
+    private static final Comparator<ClientKey> BY_CREATED = Comparator.comparingLong(ClientKey::getCreated);
+
+    private final IntObjectHashMap<List<ClientKey>> keysBySiteId;
+    private final IntObjectHashMap<List<ClientKey>> keysByServiceId;
+    private final Map<String, ClientKey> keysByKeyId;
+    private final int size;
+
+    private ClientKeyIndex(IntObjectHashMap<List<ClientKey>> keysBySiteId,
+                           IntObjectHashMap<List<ClientKey>> keysByServiceId,
+                           Map<String, ClientKey> keysByKeyId,
+                           int size) {
+        this.keysBySiteId = keysBySiteId;
+        this.keysByServiceId = keysByServiceId;
+        this.keysByKeyId = keysByKeyId;
+        this.size = size;
+    }
+
+    public static ClientKeyIndex build(Collection<ClientKey> clientKeys) {
+        final IntObjectHashMap<List<ClientKey>> bySiteId = new IntObjectHashMap<>();
+        final IntObjectHashMap<List<ClientKey>> byServiceId = new IntObjectHashMap<>();
+        final Map<String, ClientKey> byKeyId = new HashMap<>(Math.max(16, clientKeys.size() * 4 / 3));
+
+        for (ClientKey clientKey : clientKeys) {
+            final Integer siteId = clientKey.getSiteId();
+            if (siteId != null) {
+                addTo(bySiteId, siteId, clientKey);
+            }
+            addTo(byServiceId, clientKey.getServiceId(), clientKey);
+            if (clientKey.getKeyId() != null) {
+                byKeyId.putIfAbsent(clientKey.getKeyId(), clientKey);
+            }
+        }
+
+        for (List<ClientKey> siteKeys : bySiteId.values()) {
+            siteKeys.sort(BY_CREATED);
+        }
+        seal(bySiteId);
+        seal(byServiceId);
+
+        return new ClientKeyIndex(bySiteId, byServiceId, Collections.unmodifiableMap(byKeyId), clientKeys.size());
+    }
+
+    private static void addTo(IntObjectHashMap<List<ClientKey>> map, int id, ClientKey clientKey) {
+        List<ClientKey> keys = map.get(id);
+        if (keys == null) {
+            keys = new ArrayList<>();
+            map.put(id, keys);
+        }
+        keys.add(clientKey);
+    }
+
+    private static void seal(IntObjectHashMap<List<ClientKey>> map) {
+        for (IntObjectMap.PrimitiveEntry<List<ClientKey>> entry : map.entries()) {
+            entry.setValue(Collections.unmodifiableList(entry.value()));
+        }
+    }
+
+    /**
+     * Keys of the site, oldest first.
+     */
+    public List<ClientKey> getKeysBySiteId(int siteId) {
+        final List<ClientKey> keys = keysBySiteId.get(siteId);
+        return keys == null ? List.of() : keys;
+    }
+
+    public ClientKey getOldestKeyBySiteId(int siteId) {
+        final List<ClientKey> keys = keysBySiteId.get(siteId);
+        return keys == null ? null : keys.get(0);
+    }
+
+    public List<ClientKey> getKeysByServiceId(int serviceId) {
+        final List<ClientKey> keys = keysByServiceId.get(serviceId);
+        return keys == null ? List.of() : keys;
+    }
+
+    public ClientKey getKeyByKeyId(String keyId) {
+        return keysByKeyId.get(keyId);
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -10,4 +10,12 @@ public interface IClientKeyProvider extends IAuthorizableProvider {
     ClientKey getClientKeyFromHash(String hash);
     Collection<ClientKey> getAll();
     ClientKey getOldestClientKey(int siteId);
+
+    /**
+     * Index over the current snapshot. Implementations should build it once per load; this default builds it
+     * on every call.
+     */
+    default ClientKeyIndex getClientKeyIndex() {
+        return ClientKeyIndex.build(getAll());
+    }
 }
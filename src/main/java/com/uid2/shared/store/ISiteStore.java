@@ -7,4 +7,12 @@ import java.util.Collection;
 public interface ISiteStore {
     Collection<Site> getAllSites();
     Site getSite(int siteId);
+
+    /**
+     * Returns an object that is replaced whenever the sites are reloaded, so that callers keeping data derived from
+     * sites can tell when to look it up again by comparing identity. Stores whose sites never change keep the default.
+     */
+    default Object getSnapshotId() {
+        return this;
+    }
 }
@@ -0,0 +1,9 @@
+package com.uid2.shared.store;
+
+/**
+ * Notified after a rotating store has loaded a new snapshot, with the entries that were added, removed or changed.
+ * Called on the thread that loaded the snapshot, so implementations should not block.
+ */
+public interface ISnapshotChangeListener<V> {
+    void onSnapshotChanged(SnapshotDiff<V> diff);
+}
@@ -1,25 +1,27 @@
 package com.uid2.shared.store;
 
 import com.uid2.shared.Const;
-import com.uid2.shared.Utils;
 import com.uid2.shared.model.EncryptionKey;
+import io.netty.util.collection.IntObjectHashMap;
 
 import java.time.Instant;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class KeyStoreSnapshot implements IKeyStore.IKeyStoreSnapshot {
-    private final HashMap<Integer, EncryptionKey> keyMap;
-    private final HashMap<Integer, List<EncryptionKey>> siteKeyMap;
+    private final IntObjectHashMap<EncryptionKey> keyMap;
+    private final IntObjectHashMap<KeyTimeline<EncryptionKey>> siteTimelines;
     private final List<EncryptionKey> activeKeySet;
 
     public KeyStoreSnapshot(HashMap<Integer, EncryptionKey> keyMap, HashMap<Integer, List<EncryptionKey>> siteKeyMap) {
-        this.keyMap = keyMap;
-        this.siteKeyMap = siteKeyMap;
+        this.keyMap = new IntObjectHashMap<>(Math.max(8, keyMap.size()));
+        for (Map.Entry<Integer, EncryptionKey> entry : keyMap.entrySet()) {
+            this.keyMap.put(entry.getKey(), entry.getValue());
+        }
         this.activeKeySet = new ArrayList<>(keyMap.values());
 
-        for(Map.Entry<Integer, List<EncryptionKey>> entry : siteKeyMap.entrySet()) {
-            entry.getValue().sort(Comparator.comparing(EncryptionKey::getActivates));
+        this.siteTimelines = new IntObjectHashMap<>(Math.max(8, siteKeyMap.size()));
+        for (Map.Entry<Integer, List<EncryptionKey>> entry : siteKeyMap.entrySet()) {
+            this.siteTimelines.put(entry.getKey(), new KeyTimeline<>(entry.getValue(), EncryptionKey::getActivates, EncryptionKey::getExpires));
         }
     }
 
@@ -40,25 +42,12 @@ public class KeyStoreSnapshot implements IKeyStore.IKeyStoreSnapshot {
 
     @Override
     public EncryptionKey getActiveSiteKey(int siteId, Instant now) {
-        List<EncryptionKey> siteKeys = siteKeyMap.get(siteId);
-        if(siteKeys == null || siteKeys.isEmpty()) return null;
-        int it = Utils.upperBound(siteKeys, now, (ts, k) -> ts.isBefore(k.getActivates()));
-        while(it > 0) {
-            EncryptionKey key = siteKeys.get(it-1);
-            if(!key.isExpired(now)) {
-                return key;
-            }
-            --it;
-        }
-        return null;
+        KeyTimeline<EncryptionKey> timeline = siteTimelines.get(siteId);
+        return timeline == null ? null : timeline.getActiveKey(now);
     }
 
     @Override
     public EncryptionKey getKey(int keyId) {
-        try {
-            return this.keyMap.get(keyId);
-        } catch (Exception ex) {
-            throw new IllegalArgumentException("Key ID " + keyId + " not supported");
-        }
+        return this.keyMap.get(keyId);
     }
-}
\ No newline at end of file
+}
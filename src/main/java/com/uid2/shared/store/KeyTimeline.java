@@ -0,0 +1,93 @@
+package com.uid2.shared.store;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The keys of one site or keyset sorted by activation time, with activation and expiry held as epoch nanos.
+ * The active key is cached together with the time window it stays active for, so repeated lookups within
+ * the window are a range check; crossing an activation or expiry boundary recomputes the window.
+ */
+final class KeyTimeline<K> {
+    private final Object[] keys;
+    private final long[] activates;
+    private final long[] expires;
+    private volatile ActiveWindow<K> window;
+
+    // the key (possibly null) that is active for every time in [from, until)
+    private record ActiveWindow<K>(K key, long from, long until) {
+        boolean contains(long now) {
+            return from <= now && now < until;
+        }
+    }
+
+    KeyTimeline(Collection<K> keys, Function<K, Instant> activatesOf, Function<K, Instant> expiresOf) {
+        final List<K> sorted = new ArrayList<>(keys);
+        // stable, so keys activating at the same time keep their order and the last one wins as before
+        sorted.sort(Comparator.comparing(activatesOf));
+
+        this.keys = sorted.toArray();
+        this.activates = new long[this.keys.length];
+        this.expires = new long[this.keys.length];
+        for (int i = 0; i < this.keys.length; i++) {
+            this.activates[i] = toEpochNanos(activatesOf.apply(sorted.get(i)));
+            this.expires[i] = toEpochNanos(expiresOf.apply(sorted.get(i)));
+        }
+    }
+
+    K getActiveKey(Instant now) {
+        return getActiveKey(toEpochNanos(now));
+    }
+
+    K getActiveKey(long now) {
+        final ActiveWindow<K> current = window;
+        if (current != null && current.contains(now)) {
+            return current.key();
+        }
+        final ActiveWindow<K> computed = computeWindow(now);
+        window = computed;
+        return computed.key();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ActiveWindow<K> computeWindow(long now) {
+        // keys [0, activated) have activated by now
+        final int activated = upperBound(now);
+        long from = activated > 0 ? activates[activated - 1] : Long.MIN_VALUE;
+        long until = activated < keys.length ? activates[activated] : Long.MAX_VALUE;
+
+        // the latest activated key that has not expired; the keys after it stay expired from their expiry on
+        for (int i = activated - 1; i >= 0; i--) {
+            if (expires[i] > now) {
+                return new ActiveWindow<>((K) keys[i], from, Math.min(until, expires[i]));
+            }
+            from = Math.max(from, expires[i]);
+        }
+        return new ActiveWindow<>(null, from, until);
+    }
+
+    private int upperBound(long now) {
+        int low = 0;
+        int high = activates.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (activates[mid] <= now) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    static long toEpochNanos(Instant instant) {
+        final long seconds = instant.getEpochSecond();
+        if (seconds >= Long.MAX_VALUE / 1_000_000_000L) return Long.MAX_VALUE;
+        if (seconds <= Long.MIN_VALUE / 1_000_000_000L) return Long.MIN_VALUE;
+        return seconds * 1_000_000_000L + instant.getNano();
+    }
+}
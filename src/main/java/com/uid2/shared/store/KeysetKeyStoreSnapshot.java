@@ -1,23 +1,26 @@
 package com.uid2.shared.store;
 
 import com.uid2.shared.model.KeysetKey;
-import com.uid2.shared.Utils;
+import io.netty.util.collection.IntObjectHashMap;
 
 import java.time.Instant;
 import java.util.*;
 
 public class KeysetKeyStoreSnapshot {
-    private final HashMap<Integer, KeysetKey> keyIdToKeysetKey;
-    private final HashMap<Integer, List<KeysetKey>> keysetIdToKeysetKeyList;
+    private final IntObjectHashMap<KeysetKey> keyIdToKeysetKey;
+    private final IntObjectHashMap<KeyTimeline<KeysetKey>> keysetIdToTimeline;
     private final List<KeysetKey> allKeys;
 
     public KeysetKeyStoreSnapshot(HashMap<Integer, KeysetKey> keyIdToKeysetKey, HashMap<Integer, List<KeysetKey>> keysetIdToKeysetKeyList) {
-        this.keyIdToKeysetKey = keyIdToKeysetKey;
-        this.keysetIdToKeysetKeyList = keysetIdToKeysetKeyList;
+        this.keyIdToKeysetKey = new IntObjectHashMap<>(Math.max(8, keyIdToKeysetKey.size()));
+        for (Map.Entry<Integer, KeysetKey> entry : keyIdToKeysetKey.entrySet()) {
+            this.keyIdToKeysetKey.put(entry.getKey(), entry.getValue());
+        }
         this.allKeys = new ArrayList<>(keyIdToKeysetKey.values());
 
-        for(Map.Entry<Integer, List<KeysetKey>> entry : keysetIdToKeysetKeyList.entrySet()) {
-            entry.getValue().sort(Comparator.comparing(KeysetKey::getActivates));
+        this.keysetIdToTimeline = new IntObjectHashMap<>(Math.max(8, keysetIdToKeysetKeyList.size()));
+        for (Map.Entry<Integer, List<KeysetKey>> entry : keysetIdToKeysetKeyList.entrySet()) {
+            this.keysetIdToTimeline.put(entry.getKey(), new KeyTimeline<>(entry.getValue(), KeysetKey::getActivates, KeysetKey::getExpires));
         }
     }
 
@@ -26,24 +29,11 @@ public class KeysetKeyStoreSnapshot {
     }
 
     public KeysetKey getActiveKey(int keysetId, Instant now) {
-        List<KeysetKey> keysetKeys = keysetIdToKeysetKeyList.get(keysetId);
-        if(keysetKeys == null || keysetKeys.isEmpty()) return null;
-        int keysetKeysIndex = Utils.upperBound(keysetKeys, now, (ts, k) -> ts.isBefore(k.getActivates()));
-        while(keysetKeysIndex > 0) {
-            KeysetKey key = keysetKeys.get(keysetKeysIndex-1);
-            if(!key.isExpired(now)) {
-                return key;
-            }
-            --keysetKeysIndex;
-        }
-        return null;
+        KeyTimeline<KeysetKey> timeline = keysetIdToTimeline.get(keysetId);
+        return timeline == null ? null : timeline.getActiveKey(now);
     }
 
     public KeysetKey getKey(int keyId) {
-        try {
-            return this.keyIdToKeysetKey.get(keyId);
-        } catch (Exception ex) {
-            throw new IllegalArgumentException("Key ID " + keyId + " not supported");
-        }
+        return this.keyIdToKeysetKey.get(keyId);
     }
 }
@@ -2,6 +2,7 @@ package com.uid2.shared.store;
 
 import com.uid2.shared.Utils;
 import com.uid2.shared.attest.UidCoreClient;
+import com.uid2.shared.cloud.CompressionFormat;
 import com.uid2.shared.cloud.DownloadCloudStorage;
 import com.uid2.shared.store.parser.Parser;
 import com.uid2.shared.store.parser.ParsingResult;
@@ -62,7 +63,8 @@ public class ScopedStoreReader<T> {
 
     protected long loadContent(String path) throws Exception {
         try (InputStream inputStream = this.contentStreamProvider.download(path)) {
-            ParsingResult<T> parsed = parser.deserialize(inputStream);
+            // store files may be stored gzip or zstd compressed, as given by the extension of their location
+            ParsingResult<T> parsed = parser.deserialize(CompressionFormat.decompressing(inputStream, path, this.contentStreamProvider));
             latestSnapshot.set(parsed.getData());
 
             final int count = parsed.getCount();
@@ -0,0 +1,70 @@
+package com.uid2.shared.store;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Differences between two versions of a store snapshot, matched by id.
+ * Entries whose id exists in both snapshots but which are not {@code equals} are reported as changed.
+ */
+public final class SnapshotDiff<V> {
+    public record Change<V>(V previous, V current) {
+    }
+
+    private final List<V> added;
+    private final List<V> removed;
+    private final List<Change<V>> changed;
+
+    private SnapshotDiff(List<V> added, List<V> removed, List<Change<V>> changed) {
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.changed = Collections.unmodifiableList(changed);
+    }
+
+    public static <K, V> SnapshotDiff<V> compute(Collection<V> previous, Collection<V> current, Function<V, K> idFunction) {
+        if (previous == null || previous.isEmpty()) {
+            return new SnapshotDiff<>(current == null ? List.of() : new ArrayList<>(current), List.of(), List.of());
+        }
+
+        final Map<K, V> previousById = new HashMap<>(previous.size() * 4 / 3 + 1);
+        for (V v : previous) {
+            previousById.put(idFunction.apply(v), v);
+        }
+
+        final List<V> added = new ArrayList<>();
+        final List<Change<V>> changed = new ArrayList<>();
+        if (current != null) {
+            for (V v : current) {
+                final V old = previousById.remove(idFunction.apply(v));
+                if (old == null) {
+                    added.add(v);
+                } else if (!old.equals(v)) {
+                    changed.add(new Change<>(old, v));
+                }
+            }
+        }
+
+        // whatever is left in the previous map no longer exists in the current snapshot
+        return new SnapshotDiff<>(added, new ArrayList<>(previousById.values()), changed);
+    }
+
+    public List<V> getAdded() {
+        return added;
+    }
+
+    public List<V> getRemoved() {
+        return removed;
+    }
+
+    public List<Change<V>> getChanged() {
+        return changed;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+
+    public int size() {
+        return added.size() + removed.size() + changed.size();
+    }
+}
@@ -1,50 +1,62 @@
 package com.uid2.shared.store.parser;
 
-import com.uid2.shared.Utils;
 import com.uid2.shared.model.ClientSideKeypair;
 import com.uid2.shared.store.ClientSideKeypairStoreSnapshot;
 import com.uid2.shared.store.IClientSideKeypairStore;
-import io.vertx.core.json.JsonArray;
-import io.vertx.core.json.JsonObject;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.Instant;
 import java.util.*;
 
+import static com.uid2.shared.store.parser.JsonArrayStreamReader.*;
+
 public class ClientSideKeypairParser implements Parser<IClientSideKeypairStore.IClientSideKeypairStoreSnapshot> {
     @Override
     public ParsingResult<IClientSideKeypairStore.IClientSideKeypairStoreSnapshot> deserialize(InputStream inputStream) throws IOException {
-        JsonArray keypairsSpec = Utils.toJsonArray(inputStream);
-
         final HashMap<String, ClientSideKeypair> keypairMap = new HashMap<>();
         final HashMap<Integer, List<ClientSideKeypair>> siteKeypairMap = new HashMap<>();
 
-        for (int i = 0; i < keypairsSpec.size(); i++) {
-            JsonObject pairSpec = keypairsSpec.getJsonObject(i);
-            String subscriptionId = pairSpec.getString("subscription_id");
-            int siteId = pairSpec.getInteger("site_id");
-            String contact = pairSpec.getString("contact");
-            boolean disabled = pairSpec.getBoolean("disabled");
-            String name = pairSpec.getString("name", "");
-            Instant created = Instant.ofEpochSecond(pairSpec.getLong("created"));
+        final int count = readObjects(inputStream, parser -> {
+            String subscriptionId = null;
+            String publicKey = null;
+            String privateKey = null;
+            Integer siteId = null;
+            String contact = null;
+            Boolean disabled = null;
+            String name = null;
+            Long created = null;
+
+            for (String field; (field = nextField(parser)) != null; ) {
+                switch (field) {
+                    case "subscription_id" -> subscriptionId = readNullableString(parser);
+                    case "public_key" -> publicKey = readNullableString(parser);
+                    case "private_key" -> privateKey = readNullableString(parser);
+                    case "site_id" -> siteId = readNullableInt(parser);
+                    case "contact" -> contact = readNullableString(parser);
+                    case "disabled" -> disabled = readNullableBoolean(parser);
+                    case "name" -> name = readNullableString(parser);
+                    case "created" -> created = readNullableLong(parser);
+                    default -> parser.skipChildren();
+                }
+            }
 
             ClientSideKeypair keypair = new ClientSideKeypair(
                     subscriptionId,
-                    pairSpec.getString("public_key"),
-                    pairSpec.getString("private_key"),
-                    siteId,
+                    publicKey,
+                    privateKey,
+                    required(parser, siteId, "site_id"),
                     contact,
-                    created,
-                    disabled,
-                    name
+                    Instant.ofEpochSecond(required(parser, created, "created")),
+                    required(parser, disabled, "disabled"),
+                    name == null ? "" : name
             );
 
             keypairMap.put(subscriptionId, keypair);
-            siteKeypairMap.computeIfAbsent(siteId, id -> new ArrayList<>()).add(keypair);
-        }
+            siteKeypairMap.computeIfAbsent(keypair.getSiteId(), id -> new ArrayList<>()).add(keypair);
+        });
 
         ClientSideKeypairStoreSnapshot snapshot = new ClientSideKeypairStoreSnapshot(keypairMap, siteKeypairMap);
-        return new ParsingResult<>(snapshot, keypairsSpec.size());
+        return new ParsingResult<>(snapshot, count);
     }
 }
@@ -0,0 +1,104 @@
+package com.uid2.shared.store.parser;
+
+import com.fasterxml.jackson.core.*;
+import com.uid2.shared.util.Mapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+
+/**
+ * Shared streaming reader for store files that are a top-level JSON array of objects.
+ * Elements are handed to the caller one at a time, so no intermediate JSON tree is built for the whole file.
+ */
+final class JsonArrayStreamReader {
+    private static final JsonFactory JSON_FACTORY = Mapper.getInstance().getFactory();
+    // java.util.Base64.getDecoder() does not require padding, keep the same behaviour
+    private static final Base64Variant BASE64 = Base64Variants.MIME_NO_LINEFEEDS.withReadPadding(Base64Variant.PaddingReadBehaviour.PADDING_ALLOWED);
+
+    @FunctionalInterface
+    interface ObjectHandler {
+        // called with the parser positioned on START_OBJECT; must consume the object up to its END_OBJECT
+        void handle(JsonParser parser) throws IOException;
+    }
+
+    private JsonArrayStreamReader() {
+    }
+
+    /**
+     * @return the number of elements in the array
+     */
+    static int readObjects(InputStream inputStream, ObjectHandler handler) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected a JSON array");
+            }
+
+            int count = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new JsonParseException(parser, "Expected a JSON object in array, got " + token);
+                }
+                handler.handle(parser);
+                count++;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Advances to the value of the next field of the current object.
+     *
+     * @return the field name, or null once the end of the object is reached
+     */
+    static String nextField(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.FIELD_NAME) {
+            return null;
+        }
+        final String name = parser.currentName();
+        parser.nextToken();
+        return name;
+    }
+
+    static Integer readNullableInt(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getIntValue();
+    }
+
+    static Long readNullableLong(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getLongValue();
+    }
+
+    static Boolean readNullableBoolean(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getBooleanValue();
+    }
+
+    static String readNullableString(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getText();
+    }
+
+    static byte[] readBase64(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getBinaryValue(BASE64);
+    }
+
+    static HashSet<Integer> readNullableIntSet(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "Expected a JSON array of integers");
+        }
+        final HashSet<Integer> result = new HashSet<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            result.add(parser.getIntValue());
+        }
+        return result;
+    }
+
+    static <T> T required(JsonParser parser, T value, String field) throws JsonParseException {
+        if (value == null) {
+            throw new JsonParseException(parser, "Missing required field " + field);
+        }
+        return value;
+    }
+}
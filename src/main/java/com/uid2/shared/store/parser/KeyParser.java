@@ -1,46 +1,57 @@
 package com.uid2.shared.store.parser;
 
-import com.uid2.shared.Utils;
 import com.uid2.shared.model.EncryptionKey;
 import com.uid2.shared.store.KeyStoreSnapshot;
-import io.vertx.core.json.JsonArray;
-import io.vertx.core.json.JsonObject;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 
 import static com.uid2.shared.store.IKeyStore.*;
+import static com.uid2.shared.store.parser.JsonArrayStreamReader.*;
 
 public class KeyParser implements Parser<IKeyStoreSnapshot> {
     @Override
     public ParsingResult<IKeyStoreSnapshot> deserialize(InputStream inputStream) throws IOException {
-        final JsonArray keysSpec = Utils.toJsonArray(inputStream);
-
         final HashMap<Integer, EncryptionKey> keyMap = new HashMap<>();
         final HashMap<Integer, List<EncryptionKey>> siteKeyMap = new HashMap<>();
 
-        for (int i = 0; i < keysSpec.size(); ++i) {
-            JsonObject keySpec = keysSpec.getJsonObject(i);
-            int siteId = keySpec.getInteger("site_id");
-            Instant created = Instant.ofEpochSecond(keySpec.getLong("created"));
-            Instant activates = Instant.ofEpochSecond(keySpec.getLong("activates"));
-            Instant expires = Instant.ofEpochSecond(keySpec.getLong("expires"));
+        final int count = readObjects(inputStream, parser -> {
+            Integer id = null;
+            Integer siteId = null;
+            byte[] secret = null;
+            Long created = null;
+            Long activates = null;
+            Long expires = null;
+
+            for (String field; (field = nextField(parser)) != null; ) {
+                switch (field) {
+                    case "id" -> id = readNullableInt(parser);
+                    case "site_id" -> siteId = readNullableInt(parser);
+                    case "secret" -> secret = readBase64(parser);
+                    case "created" -> created = readNullableLong(parser);
+                    case "activates" -> activates = readNullableLong(parser);
+                    case "expires" -> expires = readNullableLong(parser);
+                    default -> parser.skipChildren();
+                }
+            }
 
             EncryptionKey key = new EncryptionKey(
-                    keySpec.getInteger("id"),
-                    Base64.getDecoder().decode(keySpec.getString("secret")),
-                    created, activates, expires, siteId);
+                    required(parser, id, "id"),
+                    required(parser, secret, "secret"),
+                    Instant.ofEpochSecond(required(parser, created, "created")),
+                    Instant.ofEpochSecond(required(parser, activates, "activates")),
+                    Instant.ofEpochSecond(required(parser, expires, "expires")),
+                    required(parser, siteId, "site_id"));
 
             keyMap.put(key.getId(), key);
-            siteKeyMap.computeIfAbsent(siteId, k -> new ArrayList<>()).add(key);
-        }
+            siteKeyMap.computeIfAbsent(key.getSiteId(), k -> new ArrayList<>()).add(key);
+        });
 
         KeyStoreSnapshot snapshot = new KeyStoreSnapshot(keyMap, siteKeyMap);
-        return new ParsingResult<>(snapshot, keysSpec.size());
+        return new ParsingResult<>(snapshot, count);
     }
 }
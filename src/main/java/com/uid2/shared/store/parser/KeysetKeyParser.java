@@ -1,45 +1,57 @@
 package com.uid2.shared.store.parser;
 
-import com.uid2.shared.Utils;
 import com.uid2.shared.model.KeysetKey;
 import com.uid2.shared.store.KeysetKeyStoreSnapshot;
-import io.vertx.core.json.JsonArray;
-import io.vertx.core.json.JsonObject;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 
+import static com.uid2.shared.store.parser.JsonArrayStreamReader.*;
+
 public class KeysetKeyParser implements Parser<KeysetKeyStoreSnapshot> {
     @Override
     public ParsingResult<KeysetKeyStoreSnapshot> deserialize(InputStream inputStream) throws IOException {
-        JsonArray keysSpec = Utils.toJsonArray(inputStream);
-
         final HashMap<Integer, KeysetKey> keyIdToKeysetKey = new HashMap<>();
         final HashMap<Integer, List<KeysetKey>> keysetIdToKeysetKeyList = new HashMap<>();
 
-        for (int i = 0; i < keysSpec.size(); i++) {
-            JsonObject keySpec = keysSpec.getJsonObject(i);
-            int keysetId = keySpec.getInteger("keyset_id");
-            Instant created = Instant.ofEpochSecond(keySpec.getLong("created"));
-            Instant activates = Instant.ofEpochSecond(keySpec.getLong("activates"));
-            Instant expires = Instant.ofEpochSecond(keySpec.getLong("expires"));
+        final int count = readObjects(inputStream, parser -> {
+            Integer id = null;
+            Integer keysetId = null;
+            byte[] secret = null;
+            Long created = null;
+            Long activates = null;
+            Long expires = null;
+
+            for (String field; (field = nextField(parser)) != null; ) {
+                switch (field) {
+                    case "id" -> id = readNullableInt(parser);
+                    case "keyset_id" -> keysetId = readNullableInt(parser);
+                    case "secret" -> secret = readBase64(parser);
+                    case "created" -> created = readNullableLong(parser);
+                    case "activates" -> activates = readNullableLong(parser);
+                    case "expires" -> expires = readNullableLong(parser);
+                    default -> parser.skipChildren();
+                }
+            }
 
             KeysetKey keysetKey = new KeysetKey(
-                    keySpec.getInteger("id"),
-                    Base64.getDecoder().decode(keySpec.getString("secret")),
-                    created, activates, expires, keysetId
+                    required(parser, id, "id"),
+                    required(parser, secret, "secret"),
+                    Instant.ofEpochSecond(required(parser, created, "created")),
+                    Instant.ofEpochSecond(required(parser, activates, "activates")),
+                    Instant.ofEpochSecond(required(parser, expires, "expires")),
+                    required(parser, keysetId, "keyset_id")
             );
 
             keyIdToKeysetKey.put(keysetKey.getId(), keysetKey);
-            keysetIdToKeysetKeyList.computeIfAbsent(keysetId, k -> new ArrayList<>()).add(keysetKey);
-        }
+            keysetIdToKeysetKeyList.computeIfAbsent(keysetKey.getKeysetId(), k -> new ArrayList<>()).add(keysetKey);
+        });
 
         KeysetKeyStoreSnapshot snapshot = new KeysetKeyStoreSnapshot(keyIdToKeysetKey, keysetIdToKeysetKeyList);
-        return new ParsingResult<>(snapshot, keysSpec.size());
+        return new ParsingResult<>(snapshot, count);
     }
 }
@@ -1,49 +1,54 @@
 package com.uid2.shared.store.parser;
 
-import com.uid2.shared.Utils;
 import com.uid2.shared.auth.Keyset;
 import com.uid2.shared.auth.KeysetSnapshot;
-import io.vertx.core.json.JsonArray;
-import io.vertx.core.json.JsonObject;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.time.Instant;
 import java.util.HashMap;
 import java.util.HashSet;
 
+import static com.uid2.shared.store.parser.JsonArrayStreamReader.*;
+
 public class KeysetParser implements Parser<KeysetSnapshot> {
     @Override
     public ParsingResult<KeysetSnapshot> deserialize(InputStream inputStream) throws IOException {
-        final JsonArray keysetsSpec = Utils.toJsonArray(inputStream);
-
         final HashMap<Integer, Keyset> keysetMap = new HashMap<>();
 
-        for(int i = 0; i < keysetsSpec.size(); i++) {
-            final JsonObject keysetSpec = keysetsSpec.getJsonObject(i);
-            final Integer keysetId = keysetSpec.getInteger("keyset_id");
-            final Integer siteId = keysetSpec.getInteger("site_id");
-            final String name = keysetSpec.getString("name");
-
-            final JsonArray allowedSitesSpec = keysetSpec.getJsonArray("allowed_sites");
-            HashSet<Integer> allowedSites = new HashSet<>();
-            if (allowedSitesSpec == null) {
-                allowedSites = null;
-            } else {
-                for (int j = 0; j < allowedSitesSpec.size(); j++) {
-                    allowedSites.add(allowedSitesSpec.getInteger(j));
+        final int count = readObjects(inputStream, parser -> {
+            Integer keysetId = null;
+            Integer siteId = null;
+            String name = null;
+            HashSet<Integer> allowedSites = null;
+            Long created = null;
+            Boolean enabled = null;
+            Boolean isDefault = null;
+
+            for (String field; (field = nextField(parser)) != null; ) {
+                switch (field) {
+                    case "keyset_id" -> keysetId = readNullableInt(parser);
+                    case "site_id" -> siteId = readNullableInt(parser);
+                    case "name" -> name = readNullableString(parser);
+                    case "allowed_sites" -> allowedSites = readNullableIntSet(parser);
+                    case "created" -> created = readNullableLong(parser);
+                    case "enabled" -> enabled = readNullableBoolean(parser);
+                    case "default" -> isDefault = readNullableBoolean(parser);
+                    default -> parser.skipChildren();
                 }
             }
 
-            final long created = keysetSpec.getLong("created");
-            final boolean enabled = keysetSpec.getBoolean("enabled");
-            final boolean isDefault = keysetSpec.getBoolean("default");
-
-            Keyset keyset = new Keyset(keysetId, siteId, name, allowedSites, created, enabled, isDefault);
+            Keyset keyset = new Keyset(
+                    required(parser, keysetId, "keyset_id"),
+                    required(parser, siteId, "site_id"),
+                    name,
+                    allowedSites,
+                    required(parser, created, "created"),
+                    required(parser, enabled, "enabled"),
+                    required(parser, isDefault, "default"));
 
-            keysetMap.put(keysetId, keyset);
-        }
+            keysetMap.put(keyset.getKeysetId(), keyset);
+        });
 
-        return new ParsingResult<>(new KeysetSnapshot(keysetMap), keysetsSpec.size());
+        return new ParsingResult<>(new KeysetSnapshot(keysetMap), count);
     }
 }
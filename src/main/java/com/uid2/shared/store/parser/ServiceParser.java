@@ -1,40 +1,59 @@
 package com.uid2.shared.store.parser;
 
-import com.uid2.shared.Utils;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.uid2.shared.auth.Role;
 import com.uid2.shared.model.Service;
-import io.vertx.core.json.JsonArray;
-import io.vertx.core.json.JsonObject;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
 
+import static com.uid2.shared.store.parser.JsonArrayStreamReader.*;
+
 public class ServiceParser implements Parser<Map<Integer, Service>> {
     @Override
     public ParsingResult<Map<Integer, Service>> deserialize(InputStream inputStream) throws IOException {
-        JsonArray spec = Utils.toJsonArray(inputStream);
-
         final HashMap<Integer, Service> serviceMap = new HashMap<>();
 
-        for (int i = 0; i < spec.size(); i++) {
-            JsonObject serviceSpec = spec.getJsonObject(i);
-            int serviceId = serviceSpec.getInteger("service_id");
-            int siteId = serviceSpec.getInteger("site_id");
-            String name = serviceSpec.getString("name");
-            String linkIdRegex = serviceSpec.getString("link_id_regex");
-            boolean disabled = serviceSpec.getBoolean("disabled", false);
-
-            JsonArray rolesSpec = serviceSpec.getJsonArray("roles");
-            HashSet<Role> roles = new HashSet<>();
-            for (int j = 0; j < rolesSpec.size(); j++) {
-                roles.add(Enum.valueOf(Role.class, rolesSpec.getString(j)));
+        readObjects(inputStream, parser -> {
+            Integer serviceId = null;
+            Integer siteId = null;
+            String name = null;
+            String linkIdRegex = null;
+            Boolean disabled = null;
+            HashSet<Role> roles = null;
+
+            for (String field; (field = nextField(parser)) != null; ) {
+                switch (field) {
+                    case "service_id" -> serviceId = readNullableInt(parser);
+                    case "site_id" -> siteId = readNullableInt(parser);
+                    case "name" -> name = readNullableString(parser);
+                    case "link_id_regex" -> linkIdRegex = readNullableString(parser);
+                    case "disabled" -> disabled = readNullableBoolean(parser);
+                    case "roles" -> {
+                        if (parser.currentToken() != JsonToken.START_ARRAY) {
+                            throw new JsonParseException(parser, "Expected roles to be an array");
+                        }
+                        roles = new HashSet<>();
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            roles.add(Enum.valueOf(Role.class, parser.getText()));
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
             }
 
-            Service service = new Service(serviceId, siteId, name, roles, linkIdRegex, disabled);
+            Service service = new Service(
+                    required(parser, serviceId, "service_id"),
+                    required(parser, siteId, "site_id"),
+                    name,
+                    required(parser, roles, "roles"),
+                    linkIdRegex,
+                    disabled != null && disabled);
 
-            serviceMap.put(serviceId, service);
-        }
+            serviceMap.put(service.getServiceId(), service);
+        });
 
         return new ParsingResult<>(serviceMap, serviceMap.size());
     }
@@ -4,18 +4,20 @@ import com.uid2.shared.auth.AuthorizableStore;
 import com.uid2.shared.auth.ClientKey;
 import com.uid2.shared.auth.IAuthorizable;
 import com.uid2.shared.cloud.DownloadCloudStorage;
+import com.uid2.shared.store.ClientKeyIndex;
 import com.uid2.shared.store.CloudPath;
 import com.uid2.shared.store.EncryptedScopedStoreReader;
 import com.uid2.shared.store.IClientKeyProvider;
+import com.uid2.shared.store.ISnapshotChangeListener;
 import com.uid2.shared.store.ScopedStoreReader;
+import com.uid2.shared.store.SnapshotDiff;
 import com.uid2.shared.store.parser.ClientParser;
 import com.uid2.shared.store.scope.StoreScope;
 import io.vertx.core.json.JsonObject;
 
 import java.util.Collection;
-import java.util.Comparator;
-import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /*
   1. metadata.json format
@@ -44,10 +46,8 @@ import java.util.concurrent.ConcurrentHashMap;
 public class RotatingClientKeyProvider implements IClientKeyProvider, StoreReader<Collection<ClientKey>> {
     private final ScopedStoreReader<Collection<ClientKey>> reader;
     private final AuthorizableStore<ClientKey> authorizableStore;
-    private final ConcurrentHashMap<Integer, VersionedValue> oldestClientKeyBySiteIdCache = new ConcurrentHashMap<>();
-    private volatile long snapshotVersion = 0;
-
-    private record VersionedValue(long version, Optional<ClientKey> value) {}
+    private final List<ISnapshotChangeListener<ClientKey>> changeListeners = new CopyOnWriteArrayList<>();
+    private volatile ClientKeyIndex clientKeyIndex = ClientKeyIndex.EMPTY;
 
     public RotatingClientKeyProvider(DownloadCloudStorage fileStreamProvider, StoreScope scope) {
         this.reader = new ScopedStoreReader<>(fileStreamProvider, scope, new ClientParser(), "auth keys");
@@ -70,16 +70,30 @@ public class RotatingClientKeyProvider implements IClientKeyProvider, StoreReade
     }
 
     @Override
-    public long loadContent(JsonObject metadata) throws Exception {        
+    public long loadContent(JsonObject metadata) throws Exception {
+        Collection<ClientKey> previous = getAll();
         long version = reader.loadContent(metadata, "client_keys");
-        authorizableStore.refresh(getAll());
-        
-        // Versioning to prevent race conditions when reading the oldest client key
-        oldestClientKeyBySiteIdCache.clear();
-        snapshotVersion = getVersion(metadata);
+        Collection<ClientKey> current = getAll();
+
+        SnapshotDiff<ClientKey> diff = SnapshotDiff.compute(previous, current, ClientKey::getKeyHash);
+        if (previous == null) {
+            authorizableStore.refresh(current);
+        } else {
+            authorizableStore.refresh(current, diff);
+        }
+
+        clientKeyIndex = ClientKeyIndex.build(current);
+
+        for (ISnapshotChangeListener<ClientKey> listener : changeListeners) {
+            listener.onSnapshotChanged(diff);
+        }
         return version;
     }
 
+    public void addChangeListener(ISnapshotChangeListener<ClientKey> listener) {
+        changeListeners.add(listener);
+    }
+
     @Override
     public ClientKey getClientKey(String key) {
         return authorizableStore.getAuthorizableByKey(key);
@@ -112,18 +126,11 @@ public class RotatingClientKeyProvider implements IClientKeyProvider, StoreReade
 
     @Override
     public ClientKey getOldestClientKey(int siteId) {
-        long currentVersion = snapshotVersion;
-        VersionedValue cached = oldestClientKeyBySiteIdCache.get(siteId);
-
-        if (cached != null && cached.version() == currentVersion) {
-            return cached.value().orElse(null);
-        }
-
-        Optional<ClientKey> computed = this.reader.getSnapshot().stream()
-                .filter(k -> k.getSiteId() == siteId)
-                .min(Comparator.comparingLong(ClientKey::getCreated));
+        return clientKeyIndex.getOldestKeyBySiteId(siteId);
+    }
 
-        oldestClientKeyBySiteIdCache.put(siteId, new VersionedValue(currentVersion, computed));
-        return computed.orElse(null);
+    @Override
+    public ClientKeyIndex getClientKeyIndex() {
+        return clientKeyIndex;
     }
 }
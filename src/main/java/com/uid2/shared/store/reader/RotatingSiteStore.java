@@ -44,6 +44,11 @@ public class RotatingSiteStore implements ISiteStore, StoreReader<Collection<Sit
         return reader.getSnapshot().get(siteId);
     }
 
+    @Override
+    public Object getSnapshotId() {
+        return reader.getSnapshot();
+    }
+
     public JsonObject getMetadata() throws Exception {
         return reader.getMetadata();
     }
@@ -0,0 +1,231 @@
+package com.uid2.shared.store.salt;
+
+import com.uid2.shared.model.SaltEntry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+import java.util.zip.CRC32C;
+
+/*
+  Binary salt file format, version 1. All integers are big-endian.
+
+  header (32 bytes):
+    magic          4 bytes  "UIDS"
+    version        u16      1
+    field width    u16      W, bytes available to each string field
+    entry count    i32
+    record size    i32      RECORD_FIXED_BYTES + 6 * (1 + W)
+    checksum       i32      CRC32C of all records
+    reserved       12 bytes zero
+
+  one fixed-size record per salt bucket, record i at HEADER_BYTES + i * record size:
+    id                  i64
+    last updated        i64
+    refresh from        i64
+    current key id      i32
+    previous key id     i32
+    flags               u8   bit 0: current key material present, bit 1: previous key material present
+    current salt, previous salt, current key, current key salt, previous key, previous key salt:
+                        u8 length (0 for null) + W bytes of UTF-8, zero padded
+ */
+public final class BinarySaltFile {
+    public static final int MAGIC = 0x55494453;
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 32;
+    private static final int RECORD_FIXED_BYTES = 3 * Long.BYTES + 2 * Integer.BYTES + 1;
+    private static final int STRING_FIELDS = 6;
+    private static final int MAX_FIELD_WIDTH = 255;
+    private static final int FLAG_CURRENT_KEY = 1;
+    private static final int FLAG_PREVIOUS_KEY = 2;
+    // records decoded per parallel task
+    private static final int DECODE_CHUNK = 16 * 1024;
+    private static final int DECODER_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+    private static final long DECODER_THREAD_KEEP_ALIVE_SECONDS = 60;
+    // dedicated to decoding, so a salt load neither waits behind nor starves work on the common pool; idle threads
+    // exit between loads
+    private static final ExecutorService DECODER = newDecoder();
+
+    private BinarySaltFile() {
+    }
+
+    private static ExecutorService newDecoder() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(DECODER_THREADS, DECODER_THREADS,
+                DECODER_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                Thread.ofPlatform().name("salt-decoder-", 0).daemon().factory());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public static boolean isBinary(ByteBuffer header) {
+        return header.remaining() >= Integer.BYTES && header.getInt(header.position()) == MAGIC;
+    }
+
+    public static boolean isBinary(FileChannel channel) throws IOException {
+        // a positional read, so the channel is left where it was for a fallback reader
+        final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        channel.read(header, 0);
+        return isBinary(header.flip());
+    }
+
+    /**
+     * Decodes all entries of a binary salt file. Records are independent, so they are decoded in parallel on a small
+     * dedicated pool, straight from their position in the buffer.
+     *
+     * @param expectedSize entry count given by the salt metadata, or null to skip the check
+     */
+    public static SaltEntry[] read(ByteBuffer buffer, LongFunction<String> hashedIdEncoder, Integer expectedSize) throws IOException {
+        final ByteBuffer file = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+        if (file.remaining() < HEADER_BYTES || file.getInt(0) != MAGIC) {
+            throw new IOException("not a binary salt file");
+        }
+        final int version = Short.toUnsignedInt(file.getShort(4));
+        if (version != VERSION) {
+            throw new IOException("unsupported binary salt file version " + version);
+        }
+        final int fieldWidth = Short.toUnsignedInt(file.getShort(6));
+        final int count = file.getInt(8);
+        final int recordSize = file.getInt(12);
+        final int checksum = file.getInt(16);
+        if (recordSize != recordSize(fieldWidth) || count < 0 || file.remaining() != HEADER_BYTES + (long) count * recordSize) {
+            throw new IOException("binary salt file is truncated or has an invalid header");
+        }
+        if (expectedSize != null && expectedSize != count) {
+            throw new IOException("binary salt file has " + count + " entries, metadata expects " + expectedSize);
+        }
+
+        final CRC32C crc = new CRC32C();
+        crc.update(file.duplicate().position(HEADER_BYTES));
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("binary salt file checksum mismatch");
+        }
+
+        final SaltEntry[] entries = new SaltEntry[count];
+        final CompletableFuture<?>[] chunks = new CompletableFuture<?>[(count + DECODE_CHUNK - 1) / DECODE_CHUNK];
+        for (int c = 0; c < chunks.length; c++) {
+            final int start = c * DECODE_CHUNK;
+            chunks[c] = CompletableFuture.runAsync(() -> {
+                final ByteBuffer view = file.duplicate();
+                final byte[] field = new byte[fieldWidth];
+                final int end = Math.min(count, start + DECODE_CHUNK);
+                for (int i = start; i < end; i++) {
+                    entries[i] = readEntry(view, HEADER_BYTES + i * recordSize, fieldWidth, field, hashedIdEncoder);
+                }
+            }, DECODER);
+        }
+        try {
+            CompletableFuture.allOf(chunks).join();
+        } catch (CompletionException e) {
+            throw new IOException("failed to decode binary salt file", e.getCause());
+        }
+        return entries;
+    }
+
+    /**
+     * Writes entries as a binary salt file. Records are encoded twice, once for the checksum in the header and once
+     * for output, so memory stays bounded by a single record.
+     */
+    public static void write(SaltEntry[] entries, OutputStream out) throws IOException {
+        int fieldWidth = 0;
+        for (SaltEntry entry : entries) {
+            for (String s : stringFields(entry)) {
+                fieldWidth = Math.max(fieldWidth, s == null ? 0 : s.getBytes(StandardCharsets.UTF_8).length);
+            }
+        }
+        if (fieldWidth > MAX_FIELD_WIDTH) {
+            throw new IllegalArgumentException("salt entry field longer than " + MAX_FIELD_WIDTH + " bytes");
+        }
+
+        final int recordSize = recordSize(fieldWidth);
+        final ByteBuffer record = ByteBuffer.allocate(recordSize);
+        final CRC32C crc = new CRC32C();
+        for (SaltEntry entry : entries) {
+            writeEntry(record.clear(), entry, fieldWidth);
+            crc.update(record.array(), 0, recordSize);
+        }
+
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                .putInt(MAGIC)
+                .putShort((short) VERSION)
+                .putShort((short) fieldWidth)
+                .putInt(entries.length)
+                .putInt(recordSize)
+                .putInt((int) crc.getValue());
+        out.write(header.array());
+        for (SaltEntry entry : entries) {
+            writeEntry(record.clear(), entry, fieldWidth);
+            out.write(record.array(), 0, recordSize);
+        }
+    }
+
+    private static int recordSize(int fieldWidth) {
+        return RECORD_FIXED_BYTES + STRING_FIELDS * (1 + fieldWidth);
+    }
+
+    private static String[] stringFields(SaltEntry entry) {
+        final SaltEntry.KeyMaterial current = entry.currentKeySalt();
+        final SaltEntry.KeyMaterial previous = entry.previousKeySalt();
+        return new String[]{
+                entry.currentSalt(),
+                entry.previousSalt(),
+                current == null ? null : current.key(),
+                current == null ? null : current.salt(),
+                previous == null ? null : previous.key(),
+                previous == null ? null : previous.salt()
+        };
+    }
+
+    private static void writeEntry(ByteBuffer record, SaltEntry entry, int fieldWidth) {
+        final SaltEntry.KeyMaterial current = entry.currentKeySalt();
+        final SaltEntry.KeyMaterial previous = entry.previousKeySalt();
+        record.putLong(entry.id())
+                .putLong(entry.lastUpdated())
+                .putLong(entry.refreshFrom())
+                .putInt(current == null ? 0 : current.id())
+                .putInt(previous == null ? 0 : previous.id())
+                .put((byte) ((current == null ? 0 : FLAG_CURRENT_KEY) | (previous == null ? 0 : FLAG_PREVIOUS_KEY)));
+        for (String s : stringFields(entry)) {
+            final byte[] bytes = s == null ? new byte[0] : s.getBytes(StandardCharsets.UTF_8);
+            record.put((byte) bytes.length).put(bytes).put(new byte[fieldWidth - bytes.length]);
+        }
+    }
+
+    private static SaltEntry readEntry(ByteBuffer file, int offset, int fieldWidth, byte[] field, LongFunction<String> hashedIdEncoder) {
+        final long id = file.getLong(offset);
+        final long lastUpdated = file.getLong(offset + 8);
+        final long refreshFrom = file.getLong(offset + 16);
+        final int currentKeyId = file.getInt(offset + 24);
+        final int previousKeyId = file.getInt(offset + 28);
+        final int flags = file.get(offset + 32);
+
+        int fieldOffset = offset + RECORD_FIXED_BYTES;
+        final String[] strings = new String[STRING_FIELDS];
+        for (int i = 0; i < STRING_FIELDS; i++) {
+            final int length = Byte.toUnsignedInt(file.get(fieldOffset));
+            if (length > 0) {
+                file.get(fieldOffset + 1, field, 0, length);
+                strings[i] = new String(field, 0, length, StandardCharsets.UTF_8);
+            }
+            fieldOffset += 1 + fieldWidth;
+        }
+
+        final SaltEntry.KeyMaterial currentKeySalt = (flags & FLAG_CURRENT_KEY) != 0
+                ? new SaltEntry.KeyMaterial(currentKeyId, strings[2], strings[3])
+                : null;
+        final SaltEntry.KeyMaterial previousKeySalt = (flags & FLAG_PREVIOUS_KEY) != 0
+                ? new SaltEntry.KeyMaterial(previousKeyId, strings[4], strings[5])
+                : null;
+        return SaltEntry.withLazyHashedId(id, hashedIdEncoder, lastUpdated, strings[0], refreshFrom, strings[1],
+                currentKeySalt, previousKeySalt);
+    }
+}
@@ -2,6 +2,7 @@ package com.uid2.shared.store.salt;
 
 import com.uid2.shared.Utils;
 import com.uid2.shared.attest.UidCoreClient;
+import com.uid2.shared.cloud.CompressionFormat;
 import com.uid2.shared.cloud.DownloadCloudStorage;
 import com.uid2.shared.model.SaltEntry;
 import com.uid2.shared.store.reader.IMetadataVersionedStore;
@@ -11,11 +12,10 @@ import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
@@ -40,7 +40,7 @@ import java.util.stream.Collectors;
        ]
     }
 
-  2. currentSalt file format
+  2. currentSalt file format, either the binary format described in BinarySaltFile or CSV:
   <id>,<hash_id>,<currentSalt>,<refreshFrom>,<previousSalt>,<currentKey.id>,<currentKey.key>,<currentKey.salt>,<previousKey.id>,<previousKey.key>,<previousKey.salt>
   9000099,1614556800000,currentSalt,1756252800000,previousSalt,100,currentKeyKey,currentKeySalt,1,previousKeyKey,previousKeySalt
  */
@@ -131,7 +131,9 @@ public class RotatingSaltProvider implements ISaltProvider, IMetadataVersionedSt
         Integer size = spec.getInteger("size");
 
         final long downloadStart = System.currentTimeMillis();
-        SaltEntry[] entries = readInputStream(this.contentStreamProvider.download(path), saltFileParser, size);
+        // salt files may be stored gzip or zstd compressed, as given by the extension of their location
+        final InputStream content = CompressionFormat.decompressing(this.contentStreamProvider.download(path), path, this.contentStreamProvider);
+        SaltEntry[] entries = readInputStream(content, saltFileParser, size);
         final long downloadEnd = System.currentTimeMillis();
         LOGGER.info("Salt file downloaded in {} ms", downloadEnd - downloadStart);
 
@@ -140,10 +142,19 @@ public class RotatingSaltProvider implements ISaltProvider, IMetadataVersionedSt
     }
 
     protected SaltEntry[] readInputStream(InputStream inputStream, SaltFileParser saltFileParser, Integer size) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
-            String[] saltFileLines = reader.lines().toArray(String[]::new);
-            return saltFileParser.parseFileLines(saltFileLines, size);
+        // binary salt files backed by a local file, either local storage or an entry of the download cache, are
+        // memory-mapped and decoded in place rather than read through the stream; compressed files arrive wrapped in
+        // their decompressor and are read through it
+        if (inputStream instanceof FileInputStream fileInput) {
+            try (fileInput) {
+                final FileChannel channel = fileInput.getChannel();
+                if (BinarySaltFile.isBinary(channel)) {
+                    return saltFileParser.parseBinary(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), size);
+                }
+                return saltFileParser.parseStream(fileInput, size);
+            }
         }
+        return saltFileParser.parseStream(inputStream, size);
     }
 
     public static class SaltSnapshot implements ISaltSnapshot {
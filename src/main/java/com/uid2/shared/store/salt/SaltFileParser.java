@@ -2,11 +2,23 @@ package com.uid2.shared.store.salt;
 
 import com.uid2.shared.model.SaltEntry;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.LongFunction;
+
 public class SaltFileParser {
     private final IdHashingScheme idHashingScheme;
+    // shared by all entries parsed, which encode their hashed id on first use
+    private final LongFunction<String> hashedIdEncoder;
 
     public SaltFileParser(IdHashingScheme idHashingScheme) {
         this.idHashingScheme = idHashingScheme;
+        this.hashedIdEncoder = idHashingScheme::encode;
     }
 
     public SaltEntry[] parseFile(String saltFileContent, Integer size) {
@@ -14,6 +26,41 @@ public class SaltFileParser {
         return parseFileLines(lines, size);
     }
 
+    /**
+     * Parses a salt file in the binary format, or line by line as CSV otherwise. Compressed salt files are decompressed
+     * by the caller, as given by the extension of their location.
+     */
+    public SaltEntry[] parseStream(InputStream inputStream, Integer size) throws IOException {
+        // decompressing streams do not support mark, so the magic is peeked through a buffer that is then parsed
+        final InputStream input = inputStream.markSupported() ? inputStream : new BufferedInputStream(inputStream);
+        input.mark(Integer.BYTES);
+        final boolean binary = BinarySaltFile.isBinary(ByteBuffer.wrap(input.readNBytes(Integer.BYTES)));
+        input.reset();
+        if (binary) {
+            try (input) {
+                return parseBinary(ByteBuffer.wrap(input.readAllBytes()), size);
+            }
+        }
+
+        var entries = new SaltEntry[size];
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            int lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                entries[lineNumber] = parseLine(line, lineNumber);
+                lineNumber++;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Parses a salt file in the binary format, e.g. a memory-mapped local file.
+     */
+    public SaltEntry[] parseBinary(ByteBuffer saltFile, Integer size) throws IOException {
+        return BinarySaltFile.read(saltFile, this.hashedIdEncoder, size);
+    }
+
     public SaltEntry[] parseFileLines(String[] saltFileLines, Integer size) {
         var entries = new SaltEntry[size];
         int lineNumber = 0;
@@ -29,7 +76,6 @@ public class SaltFileParser {
         try {
             final String[] fields = line.split(",", -1);
             final long id = Integer.parseInt(fields[0]);
-            final String hashedId = this.idHashingScheme.encode(id);
             final long lastUpdated = Long.parseLong(fields[1]);
             final String salt = trimToNull(fields[2]);
             final long refreshFrom = Long.parseLong(fields[3]);
@@ -47,7 +93,7 @@ public class SaltFileParser {
                 previousKeySalt = new SaltEntry.KeyMaterial(Integer.parseInt(fields[8]), trimToNull(fields[9]), trimToNull(fields[10]));
             }
 
-            return new SaltEntry(id, hashedId, lastUpdated, salt, refreshFrom, previousSalt, currentKeySalt, previousKeySalt);
+            return SaltEntry.withLazyHashedId(id, this.hashedIdEncoder, lastUpdated, salt, refreshFrom, previousSalt, currentKeySalt, previousKeySalt);
         } catch (Exception e) {
             throw new RuntimeException("Trouble parsing Salt Entry, line number: " + lineNumber, e);
         }
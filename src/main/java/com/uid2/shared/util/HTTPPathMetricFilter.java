@@ -1,22 +1,47 @@
 package com.uid2.shared.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.uid2.shared.Utils;
 import java.util.Set;
 
 public class HTTPPathMetricFilter {
+    private static final int NORMALIZED_PATH_CACHE_SIZE = 10_000;
+    private static final int TEMPLATE_CACHE_SIZE = 10_000;
+
+    // raw request path -> normalized path, so repeated requests skip URI normalization
+    private static final Cache<String, String> NORMALIZED_PATHS = Caffeine.newBuilder()
+            .maximumSize(NORMALIZED_PATH_CACHE_SIZE)
+            .build();
+
+    // keyed by identity (weak keys), as callers pass the same route set on every request; a route set is compiled
+    // from a snapshot on first use, so changing routes means passing a new set
+    private static final Cache<Set<String>, CompiledRoutes> MATCHERS = Caffeine.newBuilder()
+            .weakKeys()
+            .build();
+
+    // normalized path -> matched template, so repeated requests skip matching
+    private record CompiledRoutes(RouteTemplateMatcher matcher, Cache<String, String> templates) {
+        static CompiledRoutes compile(Set<String> pathSet) {
+            return new CompiledRoutes(RouteTemplateMatcher.compile(Set.copyOf(pathSet)),
+                    Caffeine.newBuilder().maximumSize(TEMPLATE_CACHE_SIZE).build());
+        }
+
+        String filter(String normalized) {
+            return templates.get(normalized, path -> {
+                String template = matcher.match(path);
+                return template != null ? template : "/unknown";
+            });
+        }
+    }
+
     public static String filterPath(String actualPath, Set<String> pathSet) {
         try {
-            String normalized = Utils.getNormalizedHttpPath(actualPath);
+            String normalized = normalize(actualPath);
 
             if (pathSet == null || pathSet.isEmpty()) { return normalized; }
 
-            for (String path : pathSet) {
-                String pathRegex = path.replaceAll(":[^/]+", "[^/]+");
-                if (normalized.matches(pathRegex)) {
-                    return path;
-                }
-            }
-            return "/unknown";
+            return MATCHERS.get(pathSet, CompiledRoutes::compile).filter(normalized);
         } catch (IllegalArgumentException e) {
             return "/parsing_error";
         }
@@ -24,7 +49,7 @@ public class HTTPPathMetricFilter {
 
     public static String filterPathWithoutPathParameters(String actualPath, Set<String> pathSet) {
         try {
-            String normalized = Utils.getNormalizedHttpPath(actualPath);
+            String normalized = normalize(actualPath);
 
             if (pathSet == null || pathSet.isEmpty()) { return normalized; }
 
@@ -35,4 +60,18 @@ public class HTTPPathMetricFilter {
             return "/parsing_error";
         }
     }
+
+    private static String normalize(String actualPath) {
+        if (actualPath == null) {
+            return Utils.getNormalizedHttpPath(null);
+        }
+
+        String normalized = NORMALIZED_PATHS.getIfPresent(actualPath);
+        if (normalized == null) {
+            // paths that fail to parse are not cached and throw every time
+            normalized = Utils.getNormalizedHttpPath(actualPath);
+            NORMALIZED_PATHS.put(actualPath, normalized);
+        }
+        return normalized;
+    }
 }
@@ -0,0 +1,144 @@
+package com.uid2.shared.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matches normalized request paths against a fixed set of route templates such as {@code /list/:siteId/:keyId}.
+ * <p>
+ * Templates are compiled once into a trie with one node per path segment. A segment starting with {@code :} matches
+ * any single non-empty segment. A segment such as {@code key-:id} matches any segment starting with {@code key-}.
+ * Matching walks the path one segment at a time without regular expressions. Literal segments are tried before
+ * parameters, so the most specific template wins when several templates match.
+ */
+public final class RouteTemplateMatcher {
+    private static final class Node {
+        private final Map<String, Node> literals = new HashMap<>();
+        private final List<PrefixEdge> prefixParams = new ArrayList<>();
+        private Node param;
+        private String template;
+
+        private Node literal(String segment) {
+            return literals.computeIfAbsent(segment, s -> new Node());
+        }
+
+        private Node prefixParam(String prefix) {
+            for (PrefixEdge edge : prefixParams) {
+                if (edge.prefix.equals(prefix)) {
+                    return edge.node;
+                }
+            }
+            final PrefixEdge edge = new PrefixEdge(prefix, new Node());
+            prefixParams.add(edge);
+            return edge.node;
+        }
+
+        private Node param() {
+            if (param == null) {
+                param = new Node();
+            }
+            return param;
+        }
+    }
+
+    private record PrefixEdge(String prefix, Node node) {
+    }
+
+    private final Node root = new Node();
+    private final int size;
+
+    private RouteTemplateMatcher(Collection<String> templates) {
+        for (String template : templates) {
+            add(template);
+        }
+        this.size = templates.size();
+    }
+
+    public static RouteTemplateMatcher compile(Collection<String> templates) {
+        return new RouteTemplateMatcher(templates);
+    }
+
+    /**
+     * Number of templates this matcher was compiled from.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the template matching {@code normalizedPath}, or null if none matches.
+     */
+    public String match(String normalizedPath) {
+        return match(root, normalizedPath, skipSlashes(normalizedPath, 0));
+    }
+
+    private void add(String template) {
+        Node node = root;
+        int start = skipSlashes(template, 0);
+        while (start < template.length()) {
+            int end = segmentEnd(template, start);
+            final String segment = template.substring(start, end);
+            final int paramStart = segment.indexOf(':');
+            if (paramStart == 0) {
+                node = node.param();
+            } else if (paramStart > 0) {
+                node = node.prefixParam(segment.substring(0, paramStart));
+            } else {
+                node = node.literal(segment);
+            }
+            start = skipSlashes(template, end);
+        }
+        if (node.template == null) {
+            node.template = template;
+        }
+    }
+
+    private static String match(Node node, String path, int start) {
+        if (start >= path.length()) {
+            return node.template;
+        }
+
+        final int end = segmentEnd(path, start);
+        final int next = skipSlashes(path, end);
+
+        if (!node.literals.isEmpty()) {
+            final Node literal = node.literals.get(path.substring(start, end));
+            if (literal != null) {
+                final String result = match(literal, path, next);
+                if (result != null) {
+                    return result;
+                }
+            }
+        }
+
+        for (PrefixEdge edge : node.prefixParams) {
+            final int prefixLength = edge.prefix.length();
+            if (end - start > prefixLength && path.startsWith(edge.prefix, start)) {
+                final String result = match(edge.node, path, next);
+                if (result != null) {
+                    return result;
+                }
+            }
+        }
+
+        if (node.param != null) {
+            return match(node.param, path, next);
+        }
+        return null;
+    }
+
+    private static int segmentEnd(String path, int start) {
+        final int slash = path.indexOf('/', start);
+        return slash == -1 ? path.length() : slash;
+    }
+
+    private static int skipSlashes(String path, int index) {
+        while (index < path.length() && path.charAt(index) == '/') {
+            index++;
+        }
+        return index;
+    }
+}
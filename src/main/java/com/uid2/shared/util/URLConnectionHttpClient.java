@@ -4,6 +4,7 @@ import com.uid2.shared.Utils;
 
 import javax.net.ssl.SSLSession;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.*;
 import java.net.http.HttpClient;
 import java.net.http.HttpHeaders;
@@ -11,6 +12,7 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public class URLConnectionHttpClient {
     private static class URLConnectionHttpResponse<T> implements HttpResponse<T> {
@@ -64,6 +66,9 @@ public class URLConnectionHttpClient {
     }
 
     private final Proxy proxy;
+    // built on first async request; null when the proxy type is not supported by java.net.http
+    private volatile HttpClient asyncClient;
+    private volatile boolean asyncClientBuilt;
 
     public URLConnectionHttpClient(Proxy proxy) {
         this.proxy = proxy;
@@ -102,6 +107,92 @@ public class URLConnectionHttpClient {
         return new URLConnectionHttpResponse<>(responseCode, responseBody);
     }
 
+    /**
+     * Non-blocking {@link #get(String, Map)}. The body is read whatever the status code.
+     */
+    public CompletableFuture<HttpResponse<String>> getAsync(String url, Map<String, String> headers) {
+        final HttpClient client = asyncClient();
+        if (client == null) {
+            return runBlocking(() -> get(url, headers));
+        }
+        return client.sendAsync(newGetRequest(url, headers), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Non-blocking GET that completes once the response headers arrive; the caller must close the body stream.
+     */
+    public CompletableFuture<HttpResponse<InputStream>> getStreamAsync(String url, Map<String, String> headers) {
+        final HttpClient client = asyncClient();
+        if (client == null) {
+            return runBlocking(() -> getStream(url, headers));
+        }
+        return client.sendAsync(newGetRequest(url, headers), HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    private HttpResponse<InputStream> getStream(String url, Map<String, String> headers) throws IOException {
+        HttpURLConnection connection = openConnection(url);
+        connection.setRequestMethod("GET");
+        if (headers != null) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                connection.setRequestProperty(header.getKey(), header.getValue());
+            }
+        }
+
+        int responseCode = connection.getResponseCode();
+        InputStream body = responseCode >= 200 && responseCode < 300 ? connection.getInputStream() : connection.getErrorStream();
+        return new URLConnectionHttpResponse<>(responseCode, body == null ? InputStream.nullInputStream() : body);
+    }
+
+    private static HttpRequest newGetRequest(String url, Map<String, String> headers) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url)).GET();
+        if (headers != null) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                request.header(header.getKey(), header.getValue());
+            }
+        }
+        return request.build();
+    }
+
+    private HttpClient asyncClient() {
+        if (!asyncClientBuilt) {
+            synchronized (this) {
+                if (!asyncClientBuilt) {
+                    asyncClient = buildAsyncClient(proxy);
+                    asyncClientBuilt = true;
+                }
+            }
+        }
+        return asyncClient;
+    }
+
+    // java.net.http only speaks HTTP proxies; SOCKS proxies keep using URLConnection
+    private static HttpClient buildAsyncClient(Proxy proxy) {
+        HttpClient.Builder builder = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL);
+        if (proxy != null && proxy.type() != Proxy.Type.DIRECT) {
+            if (proxy.type() != Proxy.Type.HTTP || !(proxy.address() instanceof InetSocketAddress address)) {
+                return null;
+            }
+            builder.proxy(ProxySelector.of(address));
+        }
+        return builder.build();
+    }
+
+    private interface BlockingRequest<T> {
+        HttpResponse<T> send() throws IOException;
+    }
+
+    private static <T> CompletableFuture<HttpResponse<T>> runBlocking(BlockingRequest<T> request) {
+        final CompletableFuture<HttpResponse<T>> future = new CompletableFuture<>();
+        Thread.ofVirtual().name("http-client-io").start(() -> {
+            try {
+                future.complete(request.send());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
     private HttpURLConnection openConnection(String url) throws IOException {
         if (proxy == null) {
             return (HttpURLConnection) new URL(url).openConnection();
@@ -0,0 +1,100 @@
+package com.uid2.shared.vertx;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Refresh schedule that
+ * <ul>
+ *     <li>delays the first background refresh by a random phase offset of up to one interval, drawn once per instance,
+ *     so pods started together settle on different phases instead of polling in lockstep,</li>
+ *     <li>adds random jitter to every delay so those phases keep drifting apart,</li>
+ *     <li>backs off exponentially on consecutive failures, up to {@code maxBackoffMs},</li>
+ *     <li>halves the interval (down to {@code minIntervalMs}) when the store version changed and grows it by half
+ *     (up to {@code maxIntervalMs}) when it did not.</li>
+ * </ul>
+ * With {@code minIntervalMs == maxIntervalMs} the interval is fixed and only jitter and backoff apply; with a
+ * {@code jitterRatio} of 0 neither the phase offset nor jitter is applied.
+ */
+public class AdaptiveRefreshSchedulePolicy implements IRefreshSchedulePolicy {
+    public static final double DEFAULT_JITTER_RATIO = 0.1;
+    public static final int DEFAULT_MAX_BACKOFF_MULTIPLIER = 8;
+    public static final int DEFAULT_INTERVAL_BOUND_FACTOR = 2;
+
+    private final long minIntervalMs;
+    private final long maxIntervalMs;
+    private final long maxBackoffMs;
+    private final double jitterRatio;
+    private final long phaseOffsetMs;
+    private long currentIntervalMs;
+    private int consecutiveFailures;
+
+    /**
+     * Adapts the interval between {@code refreshIntervalMs / 2} and {@code refreshIntervalMs * 2}.
+     */
+    public AdaptiveRefreshSchedulePolicy(long refreshIntervalMs) {
+        this(refreshIntervalMs,
+                Math.max(1, refreshIntervalMs / DEFAULT_INTERVAL_BOUND_FACTOR),
+                refreshIntervalMs * DEFAULT_INTERVAL_BOUND_FACTOR,
+                refreshIntervalMs * DEFAULT_MAX_BACKOFF_MULTIPLIER,
+                DEFAULT_JITTER_RATIO);
+    }
+
+    public AdaptiveRefreshSchedulePolicy(long refreshIntervalMs, long minIntervalMs, long maxIntervalMs, long maxBackoffMs, double jitterRatio) {
+        if (minIntervalMs <= 0 || minIntervalMs > refreshIntervalMs || refreshIntervalMs > maxIntervalMs) {
+            throw new IllegalArgumentException("Refresh intervals must satisfy 0 < minIntervalMs <= refreshIntervalMs <= maxIntervalMs");
+        }
+        if (jitterRatio < 0 || jitterRatio >= 1) {
+            throw new IllegalArgumentException("jitterRatio must be in [0, 1)");
+        }
+        this.minIntervalMs = minIntervalMs;
+        this.maxIntervalMs = maxIntervalMs;
+        this.maxBackoffMs = Math.max(maxBackoffMs, maxIntervalMs);
+        this.jitterRatio = jitterRatio;
+        this.currentIntervalMs = refreshIntervalMs;
+        this.phaseOffsetMs = jitterRatio == 0 ? 0 : ThreadLocalRandom.current().nextLong(refreshIntervalMs);
+    }
+
+    @Override
+    public long initialDelayMs() {
+        this.consecutiveFailures = 0;
+        return jitter(this.currentIntervalMs) + this.phaseOffsetMs;
+    }
+
+    @Override
+    public long nextDelayMs(RefreshOutcome outcome) {
+        switch (outcome) {
+            case FAILED:
+                this.consecutiveFailures++;
+                return jitter(backoffMs());
+            case CHANGED:
+                this.consecutiveFailures = 0;
+                this.currentIntervalMs = Math.max(this.minIntervalMs, this.currentIntervalMs / 2);
+                break;
+            case UNCHANGED:
+                this.consecutiveFailures = 0;
+                this.currentIntervalMs = Math.min(this.maxIntervalMs, this.currentIntervalMs + this.currentIntervalMs / 2);
+                break;
+        }
+        return jitter(this.currentIntervalMs);
+    }
+
+    @Override
+    public long currentIntervalMs() {
+        return this.currentIntervalMs;
+    }
+
+    private long backoffMs() {
+        // cap the shift so the multiplication cannot overflow
+        final int shift = Math.min(this.consecutiveFailures, 30);
+        final long delay = this.currentIntervalMs << shift;
+        return delay <= 0 || delay > this.maxBackoffMs ? this.maxBackoffMs : delay;
+    }
+
+    private long jitter(long delayMs) {
+        if (this.jitterRatio == 0) {
+            return delayMs;
+        }
+        final double factor = 1 + ThreadLocalRandom.current().nextDouble(-this.jitterRatio, this.jitterRatio);
+        return Math.max(1, Math.round(delayMs * factor));
+    }
+}
@@ -0,0 +1,155 @@
+package com.uid2.shared.vertx;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs blocking work for a verticle either on a Vert.x worker pool or on virtual threads. Results are delivered on
+ * the context the runner was created on in both modes, including for tasks submitted from another thread, so
+ * create it from the verticle's {@code start}.
+ * <p>
+ * Reports tasks running ({@code uid2_blocking_tasks_in_flight}), tasks waiting for a thread or permit
+ * ({@code uid2_blocking_tasks_queued}) and the wait itself ({@code uid2_blocking_task_queue_wait}), tagged by pool
+ * and mode, so worker-pool saturation can be compared with virtual threads.
+ */
+public class BlockingTaskRunner {
+    private final Vertx vertx;
+    private final Context context;
+    private final String name;
+    private final boolean virtualThreads;
+    // worker mode: a dedicated pool, or null for the default Vert.x worker pool
+    private final WorkerExecutor workerExecutor;
+    // virtual-thread mode: caps concurrent tasks, or null when unbounded
+    private final Semaphore permits;
+    // virtual-thread mode: serializes ordered tasks, as ordered executeBlocking calls are on a worker pool
+    private final ReentrantLock orderedLock = new ReentrantLock(true);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Timer queueWaitTimer;
+
+    /**
+     * @param maxConcurrency worker pool size, or the cap on concurrent virtual threads; 0 uses the default Vert.x
+     *                       worker pool, or leaves virtual threads unbounded
+     */
+    public BlockingTaskRunner(Vertx vertx, String name, int maxConcurrency, boolean virtualThreads) {
+        this.vertx = vertx;
+        this.context = vertx.getOrCreateContext();
+        this.name = name;
+        this.virtualThreads = virtualThreads;
+        this.workerExecutor = !virtualThreads && maxConcurrency > 0 ? vertx.createSharedWorkerExecutor(name, maxConcurrency) : null;
+        this.permits = virtualThreads && maxConcurrency > 0 ? new Semaphore(maxConcurrency, true) : null;
+
+        final String mode = virtualThreads ? "virtual" : "worker";
+        Gauge.builder("uid2_blocking_tasks_in_flight", this.inFlight, AtomicInteger::get)
+                .tag("pool", name)
+                .tag("mode", mode)
+                .description("gauge for blocking tasks currently running")
+                .register(Metrics.globalRegistry);
+        Gauge.builder("uid2_blocking_tasks_queued", this.queued, AtomicInteger::get)
+                .tag("pool", name)
+                .tag("mode", mode)
+                .description("gauge for blocking tasks waiting for a thread")
+                .register(Metrics.globalRegistry);
+        this.queueWaitTimer = Timer.builder("uid2_blocking_task_queue_wait")
+                .tag("pool", name)
+                .tag("mode", mode)
+                .description("time blocking tasks waited for a thread before starting")
+                .register(Metrics.globalRegistry);
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public <T> Future<T> execute(Callable<T> task, boolean ordered) {
+        final long submitted = System.nanoTime();
+        this.queued.incrementAndGet();
+        if (!virtualThreads) {
+            final Callable<T> tracked = () -> runTracked(task, submitted);
+            final Future<T> result = workerExecutor != null ? workerExecutor.executeBlocking(tracked, ordered) : context.executeBlocking(tracked, ordered);
+            return onContext(result);
+        }
+
+        final Promise<T> promise = Promise.promise();
+        Thread.ofVirtual().name(name).start(() -> {
+            T result = null;
+            Throwable failure = null;
+            boolean acquired = false;
+            try {
+                if (permits != null) {
+                    permits.acquire();
+                }
+                acquired = true;
+                if (ordered) {
+                    orderedLock.lock();
+                }
+                try {
+                    result = runTracked(task, submitted);
+                } finally {
+                    if (ordered) {
+                        orderedLock.unlock();
+                    }
+                }
+            } catch (Throwable t) {
+                failure = t;
+                if (!acquired) {
+                    this.queued.decrementAndGet();
+                }
+            } finally {
+                if (acquired && permits != null) {
+                    permits.release();
+                }
+            }
+
+            final T finalResult = result;
+            final Throwable finalFailure = failure;
+            context.runOnContext(v -> {
+                if (finalFailure == null) {
+                    promise.complete(finalResult);
+                } else {
+                    promise.fail(finalFailure);
+                }
+            });
+        });
+        return promise.future();
+    }
+
+    // executeBlocking completes on the submitter's context, which is a new one when submitted from outside Vert.x
+    private <T> Future<T> onContext(Future<T> result) {
+        if (Vertx.currentContext() == context) {
+            return result;
+        }
+        final Promise<T> promise = Promise.promise();
+        result.onComplete(ar -> context.runOnContext(v -> promise.handle(ar)));
+        return promise.future();
+    }
+
+    public void close() {
+        if (workerExecutor != null) {
+            workerExecutor.close();
+        }
+    }
+
+    private <T> T runTracked(Callable<T> task, long submitted) throws Exception {
+        this.queued.decrementAndGet();
+        this.queueWaitTimer.record(Duration.ofNanos(System.nanoTime() - submitted));
+        this.inFlight.incrementAndGet();
+        try {
+            return task.call();
+        } finally {
+            this.inFlight.decrementAndGet();
+        }
+    }
+}
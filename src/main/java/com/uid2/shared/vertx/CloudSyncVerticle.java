@@ -2,6 +2,7 @@ package com.uid2.shared.vertx;
 
 import com.uid2.shared.Const;
 import com.uid2.shared.cloud.CloudStorageException;
+import com.uid2.shared.cloud.CompressionFormat;
 import com.uid2.shared.cloud.ICloudStorage;
 import com.uid2.shared.health.HealthComponent;
 import com.uid2.shared.health.HealthManager;
@@ -18,8 +19,10 @@ import org.slf4j.LoggerFactory;
 import java.io.InputStream;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 //
@@ -35,6 +38,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 //
 public class CloudSyncVerticle extends AbstractVerticle {
     private static final Logger LOGGER = LoggerFactory.getLogger(CloudSyncVerticle.class);
+    private static final int MAX_REFRESH_ITERATIONS = 20;
     private final HealthComponent healthComponent;
 
     private final Counter counterRefreshed;
@@ -54,6 +58,7 @@ public class CloudSyncVerticle extends AbstractVerticle {
     private final ICloudSync cloudSync;
     private final int downloadThreads;
     private final int uploadThreads;
+    private final boolean virtualThreads;
     private final AtomicInteger storeRefreshIsFailing = new AtomicInteger(0);
 
     private final String eventRefresh;
@@ -61,23 +66,34 @@ public class CloudSyncVerticle extends AbstractVerticle {
     private final String eventUpload;
     private final String eventDownloaded;
 
-    private final HashSet<String> pendingUpload = new HashSet<>();
-    private final HashSet<String> pendingDownload = new HashSet<>();
+    private final Set<String> pendingUpload = ConcurrentHashMap.newKeySet();
 
-    private WorkerExecutor downloadExecutor = null;
-    private WorkerExecutor uploadExecutor = null;
+    private BlockingTaskRunner refreshRunner = null;
+    private BlockingTaskRunner downloadRunner = null;
+    private BlockingTaskRunner uploadRunner = null;
+    private TransferScheduler downloadScheduler = null;
 
-    private boolean isRefreshing = false;
+    private final AtomicBoolean isRefreshing = new AtomicBoolean(false);
 
     public CloudSyncVerticle(String name, ICloudStorage cloudStorage, ICloudStorage localStorage,
                              ICloudSync cloudSync, JsonObject jsonConfig) {
         this(name, cloudStorage, localStorage, cloudSync,
             jsonConfig.getInteger(Const.Config.CloudDownloadThreadsProp),
-            jsonConfig.getInteger(Const.Config.CloudUploadThreadsProp));
+            jsonConfig.getInteger(Const.Config.CloudUploadThreadsProp),
+            jsonConfig.getBoolean(Const.Config.CloudVirtualThreadsProp, false));
     }
 
     public CloudSyncVerticle(String name, ICloudStorage cloudStorage, ICloudStorage localStorage,
                              ICloudSync cloudSync, int downloadThreads, int uploadThreads) {
+        this(name, cloudStorage, localStorage, cloudSync, downloadThreads, uploadThreads, false);
+    }
+
+    /**
+     * @param virtualThreads run transfers on virtual threads instead of worker pools; {@code downloadThreads} and
+     *                       {@code uploadThreads} then cap concurrent transfers without holding a platform thread each
+     */
+    public CloudSyncVerticle(String name, ICloudStorage cloudStorage, ICloudStorage localStorage,
+                             ICloudSync cloudSync, int downloadThreads, int uploadThreads, boolean virtualThreads) {
         this.healthComponent = HealthManager.instance.registerComponent("cloudsync-" + name);
         this.healthComponent.setHealthStatus(false, "not started");
 
@@ -87,6 +103,7 @@ public class CloudSyncVerticle extends AbstractVerticle {
         this.cloudSync = cloudSync;
         this.downloadThreads = downloadThreads;
         this.uploadThreads = uploadThreads;
+        this.virtualThreads = virtualThreads;
 
         String eventPrefix = "cloudsync." + this.name + ".";
         this.eventUpload = eventPrefix + "upload";
@@ -94,7 +111,7 @@ public class CloudSyncVerticle extends AbstractVerticle {
         this.eventRefresh = eventPrefix + "refresh";
         this.eventRefreshed = eventPrefix + "refreshed";
 
-        Gauge.builder("uid2_cloud_downloading", () -> this.pendingDownload.size())
+        Gauge.builder("uid2_cloud_downloading", () -> this.downloadScheduler == null ? 0 : this.downloadScheduler.pendingCount())
             .tag("store", name)
             .description("gauge for how many s3 files are pending download")
             .register(Metrics.globalRegistry);
@@ -162,10 +179,16 @@ public class CloudSyncVerticle extends AbstractVerticle {
         LOGGER.info("starting CloudSyncVerticle." + name);
         this.healthComponent.setHealthStatus(false, "still starting");
 
-        this.downloadExecutor = vertx.createSharedWorkerExecutor("cloudsync-" + name + "-download-pool",
-            this.downloadThreads);
-        this.uploadExecutor = vertx.createSharedWorkerExecutor("cloudsync-" + name + "-upload-pool",
-            this.uploadThreads);
+        // in worker mode the refresh keeps running on the default worker pool
+        this.refreshRunner = new BlockingTaskRunner(vertx, "cloudsync-" + name + "-refresh", 0, this.virtualThreads);
+        this.downloadRunner = new BlockingTaskRunner(vertx, "cloudsync-" + name + "-download-pool",
+            this.downloadThreads, this.virtualThreads);
+        this.uploadRunner = new BlockingTaskRunner(vertx, "cloudsync-" + name + "-upload-pool",
+            this.uploadThreads, this.virtualThreads);
+        // the scheduler holds back queued downloads itself so that they start newest first
+        this.downloadScheduler = new TransferScheduler(vertx, this.downloadRunner, this.downloadThreads,
+            TransferScheduler.DEFAULT_MAX_ATTEMPTS, TransferScheduler.DEFAULT_RETRY_BACKOFF_MS,
+            this.cloudSync::getCloudFileTimestamp, this::cloudDownloadBlocking, this::handleDownloadResult);
 
         // handle refresh event (skip if upload-only)
         if (!cloudSync.isUploadOnly()) {
@@ -205,6 +228,12 @@ public class CloudSyncVerticle extends AbstractVerticle {
     @Override
     public void stop() {
         LOGGER.info("shutting down CloudSyncVerticle" + name);
+        if (this.downloadRunner != null) {
+            this.downloadRunner.close();
+        }
+        if (this.uploadRunner != null) {
+            this.uploadRunner.close();
+        }
     }
 
     public String eventRefresh() {
@@ -238,31 +267,23 @@ public class CloudSyncVerticle extends AbstractVerticle {
     }
 
     private Future<Void> cloudRefresh() {
-        if (this.isRefreshing) {
+        if (!this.isRefreshing.compareAndSet(false, true)) {
             LOGGER.debug("existing s3 refresh in-progress, skipping this one");
             counterRefreshSkipped.increment();
             return Future.succeededFuture();
         }
 
-        Promise<Void> refreshPromise = Promise.promise();
-        this.isRefreshing = true;
-        vertx.executeBlocking(() -> {
-            this.cloudRefreshEnsureInSync(refreshPromise, 0);
-            return null;
-        });
-
-        return refreshPromise.future()
+        return this.cloudRefreshEnsureInSync(0)
             .onComplete(v -> {
-                this.isRefreshing = false;
+                this.isRefreshing.set(false);
                 emitRefreshedEvent();
             });
     }
 
-    // this is a blocking function
-    private void cloudRefreshEnsureInSync(Promise<Void> refreshPromise, int iteration) {
-        try {
-            final List<Future> fs = new ArrayList<>();
-            final boolean inSync = this.cloudSync.refresh(
+    // each iteration lists and diffs on the refresh runner, then waits for its downloads and deletes on the context
+    private Future<Void> cloudRefreshEnsureInSync(int iteration) {
+        final List<Future<Void>> fs = new ArrayList<>();
+        return this.refreshRunner.execute(() -> this.cloudSync.refresh(
                 Instant.now(),
                 this.cloudStorage,
                 this.localStorage,
@@ -275,29 +296,22 @@ public class CloudSyncVerticle extends AbstractVerticle {
                     for (String d : deletes) {
                         fs.add(this.localDelete(d));
                     }
-                });
-
-            CompositeFuture.all(fs)
-                .onFailure(e -> refreshPromise.fail(new Exception(e)))
-                .onSuccess(v -> {
-                    if (inSync) {
-                        refreshPromise.complete();
-                    }
-                    else if (iteration >= 19) {
-                        refreshPromise.fail(new Exception("Cannot full sync in 20 refresh iterations"));
-                    } else {
-                        if (iteration > 1) {
-                            LOGGER.warn("Not synced in " + (iteration + 1) + " iterations, " + "" +
-                                "last iteration contains " + fs.size() + " download/delete jobs");
-                        }
-                        cloudRefreshEnsureInSync(refreshPromise, iteration + 1);
-                    }
-                });
-        } catch (CloudStorageException e) {
-            refreshPromise.fail(new Exception(e));
-        } catch (Exception e) {
-            refreshPromise.fail(new Exception("unexpected error in cloudRefresh(): " + e.getMessage(), e));
-        }
+                }), true)
+            .recover(e -> Future.failedFuture(e instanceof CloudStorageException
+                ? new Exception(e)
+                : new Exception("unexpected error in cloudRefresh(): " + e.getMessage(), e)))
+            .compose(inSync -> Future.all(fs).compose(v -> {
+                if (inSync) {
+                    return Future.succeededFuture();
+                } else if (iteration >= MAX_REFRESH_ITERATIONS - 1) {
+                    return Future.failedFuture(new Exception("Cannot full sync in " + MAX_REFRESH_ITERATIONS + " refresh iterations"));
+                }
+                if (iteration > 1) {
+                    LOGGER.warn("Not synced in " + (iteration + 1) + " iterations, " +
+                        "last iteration contains " + fs.size() + " download/delete jobs");
+                }
+                return this.cloudRefreshEnsureInSync(iteration + 1);
+            }, e -> Future.failedFuture(new Exception(e))));
     }
 
     private Future<Void> localDelete(String fileToDelete) {
@@ -325,19 +339,18 @@ public class CloudSyncVerticle extends AbstractVerticle {
             LOGGER.warn("Received null filename for s3 upload, likely snapshot/log produce failed");
             msg.reply(false);
             return;
-        } else if (this.pendingUpload.contains(fileToUpload)) {
+        } else if (!this.pendingUpload.add(fileToUpload)) {
             LOGGER.warn("Skip due to upload pending: " + fileToUpload);
             msg.reply(false);
             return;
         } else {
             LOGGER.info("Uploading: " + fileToUpload);
-            this.pendingUpload.add(fileToUpload);
         }
 
-        this.uploadExecutor.executeBlocking(() -> {
+        this.uploadRunner.execute(() -> {
             this.cloudUploadBlocking(msg.body());
             return null;
-        }).onComplete(ar -> {
+        }, true).onComplete(ar -> {
             this.pendingUpload.remove(fileToUpload);
             this.handleAsyncResult(ar);
             msg.reply(ar.succeeded());
@@ -356,45 +369,52 @@ public class CloudSyncVerticle extends AbstractVerticle {
     private void cloudUploadBlocking(String fileToUpload) throws Exception {
         String cloudPath = this.cloudSync.toCloudPath(fileToUpload);
         try (InputStream localInput = this.localStorage.download(fileToUpload)) {
-            this.cloudStorage.upload(localInput, cloudPath);
+            this.cloudStorage.upload(compressForCloud(localInput, fileToUpload, cloudPath), cloudPath);
         }
     }
 
+    // compressed as it is streamed when the cloud path asks for a format the local path does not have,
+    // unless the cloud storage compresses that path itself
+    private InputStream compressForCloud(InputStream localInput, String localPath, String cloudPath) throws Exception {
+        final CompressionFormat format = CompressionFormat.fromPath(cloudPath);
+        return CompressionFormat.fromPath(localPath) == format || this.cloudStorage.getTransparentCompression(cloudPath) == format
+            ? localInput
+            : format.compressing(localInput);
+    }
+
+    private InputStream decompressForLocal(InputStream cloudInput, String cloudPath, String localPath) throws Exception {
+        return CompressionFormat.fromPath(localPath) == CompressionFormat.fromPath(cloudPath)
+            ? cloudInput
+            : CompressionFormat.decompressing(cloudInput, cloudPath, this.cloudStorage);
+    }
+
+    // safe to call from the refresh thread; a path already pending shares the transfer in flight
     private Future<Void> cloudDownloadFile(String s3Path) {
         if (s3Path == null) {
             LOGGER.warn("Received null path for s3 download");
             return Future.succeededFuture();
-        } else if (this.pendingDownload.contains(s3Path)) {
-            LOGGER.warn("Skip due to download pending: " + cloudStorage.mask(s3Path));
-            return Future.succeededFuture();
-        } else {
-            LOGGER.trace("Downloading: " + cloudStorage.mask(s3Path));
-            this.pendingDownload.add(s3Path);
         }
 
-        Promise<Void> promise = Promise.promise();
-        this.downloadExecutor.executeBlocking(() -> {
-            this.cloudDownloadBlocking(s3Path);
-            return null;
-        }, false).onComplete(ar -> {
-                this.pendingDownload.remove(s3Path);
-                this.handleAsyncResult(ar);
-                promise.complete();
+        LOGGER.trace("Downloading: " + cloudStorage.mask(s3Path));
+        // a failed download is counted and left for the next refresh iteration to pick up again
+        return this.downloadScheduler.submit(s3Path).otherwiseEmpty();
+    }
 
-                // increase counter, send event
-                if (ar.succeeded()) {
-                    vertx.eventBus().publish(this.eventDownloaded, this.cloudSync.toLocalPath(s3Path));
-                    this.counterDownloaded.increment();
-                } else {
-                    this.counterDownloadFailures.increment();
-                }
+    private void handleDownloadResult(String s3Path, AsyncResult<Void> ar) {
+        this.handleAsyncResult(ar);
 
-                LOGGER.trace("Download result: " + ar.succeeded() + ", " + cloudStorage.mask(s3Path));
-            });
+        // increase counter, send event
+        if (ar.succeeded()) {
+            vertx.eventBus().publish(this.eventDownloaded, this.cloudSync.toLocalPath(s3Path));
+            this.counterDownloaded.increment();
+        } else {
+            this.counterDownloadFailures.increment();
+        }
 
-        return promise.future();
+        LOGGER.trace("Download result: " + ar.succeeded() + ", " + cloudStorage.mask(s3Path));
     }
 
+    // stays on the blocking API: the write to local storage needs the thread for the whole transfer regardless
     private void cloudDownloadBlocking(String s3Path) throws Exception {
         final long cloudDownloadStart = System.nanoTime();
         try {
@@ -403,7 +423,7 @@ public class CloudSyncVerticle extends AbstractVerticle {
                 final long cloudDownloadEnd = System.nanoTime();
                 final long cloudDownloadTimeMs = (cloudDownloadEnd - cloudDownloadStart) / 1_000_000;
                 
-                this.localStorage.upload(cloudInput, localPath);
+                this.localStorage.upload(decompressForLocal(cloudInput, s3Path, localPath), localPath);
                 
                 downloadSuccessTimer.record(java.time.Duration.ofMillis(cloudDownloadTimeMs));
                 LOGGER.info("S3 download completed: {} in {} ms", cloudStorage.mask(s3Path), cloudDownloadTimeMs);
@@ -16,6 +16,14 @@ public interface ICloudSync {
                     Consumer<Set<String>> handleDownloads, Consumer<Set<String>> handleDeletes)
         throws CloudStorageException;
 
+    /**
+     * Returns the timestamp carried by a cloud path, or null if it has none.
+     * Pending downloads with a timestamp are fetched newest first.
+     */
+    default Instant getCloudFileTimestamp(String cloudPath) {
+        return null;
+    }
+
     /**
      * Returns true if this CloudSync instance only supports upload operations.
      * When true, download/refresh operations will be skipped.
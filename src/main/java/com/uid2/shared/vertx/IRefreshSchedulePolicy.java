@@ -0,0 +1,21 @@
+package com.uid2.shared.vertx;
+
+/**
+ * Decides how long {@link RotatingStoreVerticle} waits before its next refresh attempt.
+ * Implementations are called from the verticle's event loop only and do not need to be thread-safe.
+ */
+public interface IRefreshSchedulePolicy {
+    enum RefreshOutcome {
+        // refresh succeeded and a new version was loaded
+        CHANGED,
+        // refresh succeeded but the version was unchanged
+        UNCHANGED,
+        FAILED
+    }
+
+    long initialDelayMs();
+
+    long nextDelayMs(RefreshOutcome outcome);
+
+    long currentIntervalMs();
+}
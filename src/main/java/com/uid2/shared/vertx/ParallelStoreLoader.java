@@ -0,0 +1,179 @@
+package com.uid2.shared.vertx;
+
+import com.uid2.shared.store.reader.IMetadataVersionedStore;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads a set of stores at startup in parallel instead of one verticle at a time.
+ * <p>
+ * Metadata for every store is fetched concurrently. Content for a store is loaded as soon as its own metadata
+ * and the content of every store it depends on (e.g. cloud encryption keys for encrypted stores) are available.
+ * Blocking work runs on a dedicated worker pool so that at most {@code maxConcurrency} downloads are in flight.
+ * <p>
+ * The results can be handed to {@link RotatingStoreVerticle#markLoaded(long, long)} so the verticles do not
+ * download the same content again when they are deployed.
+ */
+public class ParallelStoreLoader {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelStoreLoader.class);
+    // shared worker executors are looked up by name, so each load gets a pool nobody else can close
+    private static final AtomicInteger EXECUTOR_ID = new AtomicInteger();
+
+    private final Vertx vertx;
+    private final int maxConcurrency;
+    private final Map<String, StoreNode> stores = new LinkedHashMap<>();
+
+    public record StoreLoadResult(String storeName, long version, long entryCount, long metadataTimeMs, long contentTimeMs) {
+    }
+
+    private record StoreNode(String name, IMetadataVersionedStore store, List<String> dependencies) {
+    }
+
+    public ParallelStoreLoader(Vertx vertx, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+        this.vertx = vertx;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public ParallelStoreLoader addStore(String name, IMetadataVersionedStore store, String... dependsOn) {
+        if (this.stores.containsKey(name)) {
+            throw new IllegalArgumentException("Store already added: " + name);
+        }
+        this.stores.put(name, new StoreNode(name, store, List.of(dependsOn)));
+        return this;
+    }
+
+    public Future<Map<String, StoreLoadResult>> loadAll() {
+        try {
+            validateDependencies();
+        } catch (IllegalStateException e) {
+            return Future.failedFuture(e);
+        }
+
+        final WorkerExecutor executor = vertx.createSharedWorkerExecutor("store-loader-" + EXECUTOR_ID.incrementAndGet(), this.maxConcurrency);
+        final long loadStart = System.nanoTime();
+
+        final Map<String, Future<JsonObject>> metadataFutures = new HashMap<>();
+        final Map<String, Long> metadataTimesMs = new HashMap<>();
+        for (StoreNode node : this.stores.values()) {
+            metadataFutures.put(node.name(), executor.executeBlocking(() -> {
+                final long start = System.nanoTime();
+                final JsonObject metadata = node.store().getMetadata();
+                final long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+                recordTime(node.name(), "metadata", elapsedMs);
+                synchronized (metadataTimesMs) {
+                    metadataTimesMs.put(node.name(), elapsedMs);
+                }
+                return metadata;
+            }, false));
+        }
+
+        final Map<String, Future<StoreLoadResult>> contentFutures = new HashMap<>();
+        for (StoreNode node : this.stores.values()) {
+            scheduleContentLoad(node, executor, metadataFutures, metadataTimesMs, contentFutures);
+        }
+
+        // join rather than all: on failure, wait for every load still running on the executor before closing it
+        final List<Future<?>> all = new ArrayList<>(metadataFutures.values());
+        all.addAll(contentFutures.values());
+        return Future.join(all)
+                .map(v -> {
+                    final Map<String, StoreLoadResult> results = new LinkedHashMap<>();
+                    for (String name : this.stores.keySet()) {
+                        results.put(name, contentFutures.get(name).result());
+                    }
+                    return results;
+                })
+                .onComplete(ar -> {
+                    final long elapsedMs = (System.nanoTime() - loadStart) / 1_000_000;
+                    executor.close();
+                    if (ar.succeeded()) {
+                        LOGGER.info("Loaded {} stores in {} ms", this.stores.size(), elapsedMs);
+                    } else {
+                        LOGGER.error("Failed to load stores after " + elapsedMs + " ms", ar.cause());
+                    }
+                });
+    }
+
+    private Future<StoreLoadResult> scheduleContentLoad(StoreNode node,
+                                                        WorkerExecutor executor,
+                                                        Map<String, Future<JsonObject>> metadataFutures,
+                                                        Map<String, Long> metadataTimesMs,
+                                                        Map<String, Future<StoreLoadResult>> contentFutures) {
+        final Future<StoreLoadResult> existing = contentFutures.get(node.name());
+        if (existing != null) {
+            return existing;
+        }
+
+        final List<Future<?>> prerequisites = new ArrayList<>();
+        prerequisites.add(metadataFutures.get(node.name()));
+        for (String dependency : node.dependencies()) {
+            prerequisites.add(scheduleContentLoad(this.stores.get(dependency), executor, metadataFutures, metadataTimesMs, contentFutures));
+        }
+
+        final Future<StoreLoadResult> contentFuture = Future.all(prerequisites)
+                .compose(v -> executor.executeBlocking(() -> {
+                    final JsonObject metadata = metadataFutures.get(node.name()).result();
+                    final long start = System.nanoTime();
+                    final long version = node.store().getVersion(metadata);
+                    final long entryCount = node.store().loadContent(metadata);
+                    final long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+                    recordTime(node.name(), "content", elapsedMs);
+
+                    final long metadataTimeMs;
+                    synchronized (metadataTimesMs) {
+                        metadataTimeMs = metadataTimesMs.getOrDefault(node.name(), 0L);
+                    }
+                    LOGGER.info("Loaded {} version {} ({} entries): metadata {} ms, content {} ms", node.name(), version, entryCount, metadataTimeMs, elapsedMs);
+                    return new StoreLoadResult(node.name(), version, entryCount, metadataTimeMs, elapsedMs);
+                }, false));
+        contentFutures.put(node.name(), contentFuture);
+        return contentFuture;
+    }
+
+    private void validateDependencies() {
+        final Set<String> visited = new HashSet<>();
+        final Set<String> visiting = new HashSet<>();
+        for (String name : this.stores.keySet()) {
+            visit(name, visited, visiting);
+        }
+    }
+
+    private void visit(String name, Set<String> visited, Set<String> visiting) {
+        if (visited.contains(name)) {
+            return;
+        }
+        if (!visiting.add(name)) {
+            throw new IllegalStateException("Store dependency cycle detected at " + name);
+        }
+        for (String dependency : this.stores.get(name).dependencies()) {
+            if (!this.stores.containsKey(dependency)) {
+                throw new IllegalStateException("Store " + name + " depends on unknown store " + dependency);
+            }
+            visit(dependency, visited, visiting);
+        }
+        visiting.remove(name);
+        visited.add(name);
+    }
+
+    private static void recordTime(String storeName, String phase, long elapsedMs) {
+        Timer.builder("uid2_store_initial_load_duration")
+                .tag("store_name", storeName)
+                .tag("phase", phase)
+                .description("time spent loading " + phase + " for a store at startup")
+                .register(Metrics.globalRegistry)
+                .record(Duration.ofMillis(elapsedMs));
+    }
+}
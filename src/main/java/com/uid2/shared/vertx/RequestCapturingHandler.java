@@ -3,6 +3,7 @@ package com.uid2.shared.vertx;
 import com.uid2.shared.Const;
 import com.uid2.shared.auth.IAuthorizable;
 import com.uid2.shared.jmx.AdminApi;
+import com.uid2.shared.jmx.CapturedRequest;
 import com.uid2.shared.middleware.AuthMiddleware;
 import com.uid2.shared.model.Site;
 import com.uid2.shared.store.ISiteStore;
@@ -20,34 +21,49 @@ import io.vertx.ext.web.RoutingContext;
 
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.time.Instant;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 
 public class RequestCapturingHandler implements Handler<RoutingContext> {
     private static final Logger LOGGER = LoggerFactory.getLogger(RequestCapturingHandler.class);
-    private static final ZoneId ZONE_GMT = ZoneId.of("GMT");
-    private Queue<String> _capturedRequests = null;
-    private final Map<String, Counter> _apiMetricCounters = new HashMap<>();
-    private final Map<String, Counter> _clientAppVersionCounters = new HashMap<>();
+    // upper bound on distinct tag combinations per metric; further combinations are counted under "overflow" tags
+    public static final int DEFAULT_MAX_METRIC_SERIES = 10_000;
+    private static final String OVERFLOW_TAG = "overflow";
+    private static final String UNKNOWN_SITE_NAME = "unknown";
+    private final ConcurrentHashMap<ApiMetricKey, Counter> _apiMetricCounters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<AppVersionKey, Counter> _clientAppVersionCounters = new ConcurrentHashMap<>();
+    private final int maxMetricSeries;
+    private volatile Counter _apiMetricOverflowCounter;
+    private volatile Counter _clientAppVersionOverflowCounter;
     private ISiteStore siteStore;
+    // the site store snapshot the counters' site names were looked up in
+    private volatile Object siteSnapshotId;
 
-    private static String formatRFC1123DateTime(long time) {
-        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(time).atZone(ZONE_GMT));
+    // site names are looked up when a counter is registered, and again for counters used after the site store reloads
+    private record ApiMetricKey(String apiContact, Integer siteId, String host, int status, HttpMethod method, String path) {
+    }
+
+    private record AppVersionKey(String apiContact, String clientName, String clientVersion) {
     }
 
     @Deprecated
     public RequestCapturingHandler()
     {
+        this(null);
     }
 
     public RequestCapturingHandler(ISiteStore siteStore)
+    {
+        this(siteStore, DEFAULT_MAX_METRIC_SERIES);
+    }
+
+    public RequestCapturingHandler(ISiteStore siteStore, int maxMetricSeries)
     {
         this.siteStore = siteStore;
+        this.maxMetricSeries = maxMetricSeries;
+        this.siteSnapshotId = siteStore == null ? null : siteStore.getSnapshotId();
     }
 
     @Override
@@ -57,10 +73,6 @@ public class RequestCapturingHandler implements Handler<RoutingContext> {
             return;
         }
 
-        if (_capturedRequests == null) {
-            _capturedRequests = AdminApi.instance.allocateCapturedRequestQueue();
-        }
-
         long timestamp = System.currentTimeMillis();
         String remoteClient = null;
         try {
@@ -119,27 +131,25 @@ public class RequestCapturingHandler implements Handler<RoutingContext> {
             apiContact = "error: " + ex.getMessage();
         }
 
-        String host = request.headers().contains("host") ? request.headers().get("host") : "NotSpecified";
-        if (host.startsWith("10.")) {
+        String host = request.headers().get("host");
+        if (host == null) {
+            host = "NotSpecified";
+        } else if (host.startsWith("10.")) {
             // mask ip address form of host to reduce the metrics tag pollution
             host = "10.x.x.x:xx";
         }
 
         final Integer siteId = getSiteId(context);
 
-        String siteName = "unknown";
-        if (siteId != null && siteStore != null) {
-            Site site = siteStore.getSite(siteId);
-            if (site != null)
-            {
-                siteName = site.getName();
-            }
-        }
+        incrementMetricCounter(apiContact, siteId, host, status, method, path);
 
-        incrementMetricCounter(apiContact, siteId, siteName, host, status, method, path);
+        final String appVersions = request.headers().get(Const.Http.AppVersionHeader);
+        if (appVersions != null) {
+            incrementAppVersionCounter(apiContact, appVersions);
+        }
 
-        if (request.headers().contains(Const.Http.AppVersionHeader)) {
-            incrementAppVersionCounter(apiContact, request.headers().get(Const.Http.AppVersionHeader));
+        if (!AdminApi.instance.getCaptureRequests()) {
+            return;
         }
 
         if (AdminApi.instance.getCaptureFailureOnly() && status < 400) {
@@ -151,66 +161,29 @@ public class RequestCapturingHandler implements Handler<RoutingContext> {
             return;
         }
 
-        while (_capturedRequests.size() >= AdminApi.instance.getMaxCapturedRequests()) {
-            _capturedRequests.remove();
-        }
-
-        long contentLength = request.response().bytesWritten();
-        String versionFormatted = "-";
-        switch (version) {
-            case HTTP_1_0:
-                versionFormatted = "HTTP/1.0";
-                break;
-            case HTTP_1_1:
-                versionFormatted = "HTTP/1.1";
-                break;
-            case HTTP_2:
-                versionFormatted = "HTTP/2.0";
-                break;
-        }
-
-        final MultiMap headers = request.headers();
-
-        // as per RFC1945 the header is referer but it is not mandatory some implementations use referrer
-        String referrer = headers.contains("referrer") ? headers.get("referrer") : headers.get("referer");
-        String userAgent = request.headers().get("user-agent");
-        referrer = referrer == null ? "-" : referrer;
-        userAgent = userAgent == null ? "-" : userAgent;
-
-        String summary = String.format(
-                "-->[%s] %s - - [%s] \"%s %s %s\" %d %d %s \"%s\" \"%s\"",
+        AdminApi.instance.captureRequest(new CapturedRequest(
                 apiContact,
                 remoteClient,
-                formatRFC1123DateTime(timestamp),
+                timestamp,
                 method,
                 uri,
-                versionFormatted,
+                version,
                 status,
-                contentLength,
-                (System.currentTimeMillis() - timestamp),
-                referrer,
-                userAgent);
-
-        StringBuilder messageBuilder = new StringBuilder();
-        messageBuilder.append(summary);
-        messageBuilder.append("\n");
-
-        for (Map.Entry<String, String> h : headers) {
-            messageBuilder.append(h.getKey());
-            messageBuilder.append(": ");
-            messageBuilder.append(h.getValue());
-            messageBuilder.append("\n");
-        }
+                request.response().bytesWritten(),
+                System.currentTimeMillis() - timestamp,
+                toArray(request.headers()),
+                toArray(request.response().headers())));
+    }
 
-        messageBuilder.append("<--\n");
-        for (Map.Entry<String, String> h : request.response().headers()) {
-            messageBuilder.append(h.getKey());
-            messageBuilder.append(": ");
-            messageBuilder.append(h.getValue());
-            messageBuilder.append("\n");
+    private static String[] toArray(MultiMap headers) {
+        final List<Map.Entry<String, String>> entries = headers.entries();
+        final String[] array = new String[entries.size() * 2];
+        int i = 0;
+        for (Map.Entry<String, String> h : entries) {
+            array[i++] = h.getKey();
+            array[i++] = h.getValue();
         }
-
-        _capturedRequests.add(messageBuilder.toString());
+        return array;
     }
 
     private static Integer getSiteId(RoutingContext context) {
@@ -227,22 +200,60 @@ public class RequestCapturingHandler implements Handler<RoutingContext> {
         return null;
     }
 
-    private void incrementMetricCounter(String apiContact, Integer siteId, String siteName, String host, int status, HttpMethod method, String path) {
+    void incrementMetricCounter(String apiContact, Integer siteId, String host, int status, HttpMethod method, String path) {
         assert apiContact != null;
-        String key = apiContact + "|" + siteId + "|" + siteName + "|" + host + "|" + status + "|" + method.name() + "|" + path;
-        if (!_apiMetricCounters.containsKey(key)) {
-            Counter counter = Counter
-                    .builder("uid2_http_requests_total")
-                    .description("counter for how many http requests are processed per each api contact and status code")
-                    .tags("api_contact", apiContact, "site_id", String.valueOf(siteId), "site_name", siteName, "host", host, "status", String.valueOf(status), "method", method.name(), "path", path)
-                    .register(Metrics.globalRegistry);
-            _apiMetricCounters.put(key, counter);
+        refreshSiteNames();
+        final ApiMetricKey key = new ApiMetricKey(apiContact, siteId, host, status, method, path);
+        Counter counter = _apiMetricCounters.get(key);
+        if (counter == null) {
+            counter = _apiMetricCounters.size() < maxMetricSeries
+                    ? _apiMetricCounters.computeIfAbsent(key, this::registerApiMetricCounter)
+                    : getApiMetricOverflowCounter();
         }
 
-        _apiMetricCounters.get(key).increment();
+        counter.increment();
     }
 
-    private void incrementAppVersionCounter(String apiContact, String appVersions) {
+    private Counter getApiMetricOverflowCounter() {
+        if (_apiMetricOverflowCounter == null) {
+            _apiMetricOverflowCounter = registerApiMetricCounter(new ApiMetricKey(OVERFLOW_TAG, null, OVERFLOW_TAG, 0, HttpMethod.valueOf(OVERFLOW_TAG), OVERFLOW_TAG));
+        }
+        return _apiMetricOverflowCounter;
+    }
+
+    // counters dropped here are registered again with the site names of the new snapshot; Micrometer hands back the
+    // existing meter when a name did not change
+    private void refreshSiteNames() {
+        if (siteStore == null) {
+            return;
+        }
+        final Object snapshotId = siteStore.getSnapshotId();
+        if (snapshotId != siteSnapshotId) {
+            siteSnapshotId = snapshotId;
+            _apiMetricCounters.clear();
+        }
+    }
+
+    private String getSiteName(Integer siteId) {
+        if (siteId != null && siteStore != null) {
+            Site site = siteStore.getSite(siteId);
+            if (site != null)
+            {
+                return site.getName();
+            }
+        }
+        return UNKNOWN_SITE_NAME;
+    }
+
+    private Counter registerApiMetricCounter(ApiMetricKey key) {
+        return Counter
+                .builder("uid2_http_requests_total")
+                .description("counter for how many http requests are processed per each api contact and status code")
+                .tags("api_contact", key.apiContact(), "site_id", String.valueOf(key.siteId()), "site_name", getSiteName(key.siteId()), "host", key.host(), "status", String.valueOf(key.status()), "method", key.method().name(), "path", key.path())
+                .register(Metrics.globalRegistry);
+    }
+
+    void incrementAppVersionCounter(String apiContact, String appVersions) {
         assert apiContact != null;
         assert appVersions != null;
 
@@ -251,16 +262,30 @@ public class RequestCapturingHandler implements Handler<RoutingContext> {
             return;
         }
 
-        final String key = apiContact + "|" + client.getKey() + "|" + client.getValue();
-        if (!_clientAppVersionCounters.containsKey(key)) {
-            Counter counter = Counter
-                    .builder("uid2_client_versions_total")
-                    .description("counter for how many http requests are processed per each api contact and status code")
-                    .tags("api_contact", apiContact, "client_name", client.getKey(), "client_version", client.getValue())
-                    .register(Metrics.globalRegistry);
-            _clientAppVersionCounters.put(key, counter);
+        // keyed on the parsed client and version, so header variations of the same pair share a series
+        final AppVersionKey key = new AppVersionKey(apiContact, client.getKey(), client.getValue());
+        Counter counter = _clientAppVersionCounters.get(key);
+        if (counter == null) {
+            counter = _clientAppVersionCounters.size() < maxMetricSeries
+                    ? _clientAppVersionCounters.computeIfAbsent(key, k -> registerAppVersionCounter(k.apiContact(), k.clientName(), k.clientVersion()))
+                    : getClientAppVersionOverflowCounter();
         }
 
-        _clientAppVersionCounters.get(key).increment();
+        counter.increment();
+    }
+
+    private Counter getClientAppVersionOverflowCounter() {
+        if (_clientAppVersionOverflowCounter == null) {
+            _clientAppVersionOverflowCounter = registerAppVersionCounter(OVERFLOW_TAG, OVERFLOW_TAG, OVERFLOW_TAG);
+        }
+        return _clientAppVersionOverflowCounter;
+    }
+
+    private static Counter registerAppVersionCounter(String apiContact, String clientName, String clientVersion) {
+        return Counter
+                .builder("uid2_client_versions_total")
+                .description("counter for how many http requests are processed per each api contact and status code")
+                .tags("api_contact", apiContact, "client_name", clientName, "client_version", clientVersion)
+                .register(Metrics.globalRegistry);
     }
 }
@@ -1,5 +1,6 @@
 package com.uid2.shared.vertx;
 
+import com.uid2.shared.Const;
 import com.uid2.shared.health.HealthComponent;
 import com.uid2.shared.health.HealthManager;
 import com.uid2.shared.store.reader.IMetadataVersionedStore;
@@ -13,8 +14,11 @@ import io.vertx.core.json.JsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class RotatingStoreVerticle extends AbstractVerticle {
     private static final Logger LOGGER = LoggerFactory.getLogger(RotatingStoreVerticle.class);
@@ -27,13 +31,20 @@ public class RotatingStoreVerticle extends AbstractVerticle {
     private final Gauge gaugeStoreEntryCount;
     private final Gauge gaugeConsecutiveRefreshFailures;
     private final Counter counterStoreRefreshFailures;
+    private final Counter counterStoreRefreshSkipped;
+    private final Timer storeRefreshLagTimer;
+    private final Gauge gaugeRefreshIntervalMs;
     private final IMetadataVersionedStore versionedStore;
     private final AtomicLong latestVersion = new AtomicLong(-1L);
     private final AtomicLong latestEntryCount = new AtomicLong(-1L);
     private final AtomicInteger storeRefreshIsFailing = new AtomicInteger(0);
+    private final AtomicBoolean refreshInProgress = new AtomicBoolean(false);
     private final Runnable refreshCallback;
-
-    private final long refreshIntervalMs;
+    private final IRefreshSchedulePolicy schedulePolicy;
+    // a lock rather than synchronized, which would pin the carrier thread of a virtual thread during the download
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private boolean virtualThreads = false;
+    private BlockingTaskRunner refreshRunner;
 
     public RotatingStoreVerticle(String storeName, long refreshIntervalMs, IMetadataVersionedStore versionedStore) {
         this(storeName, refreshIntervalMs, versionedStore, null);
@@ -41,6 +52,11 @@ public class RotatingStoreVerticle extends AbstractVerticle {
 
     public RotatingStoreVerticle(String storeName, long refreshIntervalMs, IMetadataVersionedStore versionedStore,
             Runnable refreshCallback) {
+        this(storeName, new AdaptiveRefreshSchedulePolicy(refreshIntervalMs), versionedStore, refreshCallback);
+    }
+
+    public RotatingStoreVerticle(String storeName, IRefreshSchedulePolicy schedulePolicy, IMetadataVersionedStore versionedStore,
+            Runnable refreshCallback) {
         this.healthComponent = HealthManager.instance.registerComponent(storeName + "-rotator");
         this.healthComponent.setHealthStatus(false, "not started");
 
@@ -75,25 +91,49 @@ public class RotatingStoreVerticle extends AbstractVerticle {
             .tag("store", storeName)
             .description("gauge for number of consecutive " + storeName + " store refresh failures")
             .register(Metrics.globalRegistry);
+        this.counterStoreRefreshSkipped = Counter
+            .builder("uid2_config_store_refresh_skipped_total")
+            .tag("store", storeName)
+            .description("counter for number of " + storeName + " store refreshes skipped because a previous refresh was still running")
+            .register(Metrics.globalRegistry);
+        this.storeRefreshLagTimer = Timer
+            .builder("uid2_config_store_refresh_lag")
+            .tag("store", storeName)
+            .description("delay between when a " + storeName + " store refresh was scheduled and when it started")
+            .register(Metrics.globalRegistry);
+        this.gaugeRefreshIntervalMs = Gauge
+            .builder("uid2_config_store_refresh_interval_ms", () -> schedulePolicy.currentIntervalMs())
+            .tag("store", storeName)
+            .description("gauge for the current " + storeName + " store refresh interval")
+            .register(Metrics.globalRegistry);
         this.versionedStore = versionedStore;
-        this.refreshIntervalMs = refreshIntervalMs;
+        this.schedulePolicy = schedulePolicy;
         this.storeRefreshTimer = Metrics.timer("uid2_store_refresh_duration", "store_name", storeName);
         this.refreshCallback = refreshCallback;
     }
 
+    /**
+     * Runs refreshes on virtual threads instead of the default worker pool (see {@link Const.Config#CloudVirtualThreadsProp}).
+     * Takes effect when the verticle is deployed.
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
     @Override
     public void start(Promise<Void> startPromise) throws Exception {
         this.healthComponent.setHealthStatus(false, "still starting");
+        this.refreshRunner = new BlockingTaskRunner(vertx, "store-refresh-" + this.storeName, 0, this.virtualThreads);
         this.startRefresh(startPromise);
     }
 
     private void startRefresh(Promise<Void> promise) {
         LOGGER.info("Starting " + this.storeName + " loading");
         final long startupRefreshStart = System.nanoTime();
-        vertx.executeBlocking(() -> {
+        this.refreshRunner.execute(() -> {
             this.refresh();
             return null;
-        }).onComplete(ar -> {
+        }, true).onComplete(ar -> {
             final long startupRefreshEnd = System.nanoTime();
             final long startupRefreshTimeMs = (startupRefreshEnd - startupRefreshStart) / 1000000;
 
@@ -105,51 +145,92 @@ public class RotatingStoreVerticle extends AbstractVerticle {
                 if (this.refreshCallback != null) {
                     this.refreshCallback.run();
                 }
-                this.startBackgroundRefresh();
+                this.scheduleBackgroundRefresh(this.schedulePolicy.initialDelayMs());
             } else {
+                final long retryDelayMs = this.schedulePolicy.nextDelayMs(IRefreshSchedulePolicy.RefreshOutcome.FAILED);
                 this.healthComponent.setHealthStatus(false, ar.cause().getMessage());
-                LOGGER.error("Failed " + this.storeName + " loading. Trying again in " + refreshIntervalMs + "ms", ar.cause());
-                vertx.setTimer(refreshIntervalMs, id -> this.startRefresh(promise));
+                LOGGER.error("Failed " + this.storeName + " loading. Trying again in " + retryDelayMs + "ms", ar.cause());
+                vertx.setTimer(retryDelayMs, id -> this.startRefresh(promise));
             }
         });
     }
 
-    private void startBackgroundRefresh() {
-        vertx.setPeriodic(this.refreshIntervalMs, (id) -> {
-            final long start = System.nanoTime();
-
-            vertx.executeBlocking(() -> {
-                    this.refresh();
-                    return null;
-                }).onComplete(asyncResult -> {
-                    final long end = System.nanoTime();
-                    final long elapsed = ((end - start) / 1000000);
-                    this.counterStoreRefreshTimeMs.increment(elapsed);
-                    if (asyncResult.failed()) {
-                        this.counterStoreRefreshFailures.increment();
-                        this.storeRefreshIsFailing.set(1);
-                        LOGGER.error("Failed to load " + this.storeName + ", " + elapsed + " ms", asyncResult.cause());
-                    } else {
-                        this.counterStoreRefreshed.increment();
-                        this.storeRefreshIsFailing.set(0);
-                        LOGGER.trace("Successfully refreshed " + this.storeName + ", " + elapsed + " ms");
-                        if (this.refreshCallback != null) {
-                            this.refreshCallback.run();
-                        }
+    private void scheduleBackgroundRefresh(long delayMs) {
+        final long scheduledAt = System.nanoTime() + delayMs * 1_000_000;
+        vertx.setTimer(delayMs, id -> this.backgroundRefresh(scheduledAt));
+    }
+
+    private void backgroundRefresh(long scheduledAt) {
+        final long start = System.nanoTime();
+        this.storeRefreshLagTimer.record(Duration.ofNanos(Math.max(0, start - scheduledAt)));
+
+        if (this.refreshInProgress.get()) {
+            this.counterStoreRefreshSkipped.increment();
+            LOGGER.warn("Previous " + this.storeName + " refresh still running, skipping this one");
+            this.scheduleBackgroundRefresh(this.schedulePolicy.currentIntervalMs());
+            return;
+        }
+
+        this.refreshRunner.execute(this::refreshIfChanged, true).onComplete(asyncResult -> {
+                final long end = System.nanoTime();
+                final long elapsed = ((end - start) / 1000000);
+                this.counterStoreRefreshTimeMs.increment(elapsed);
+                final IRefreshSchedulePolicy.RefreshOutcome outcome;
+                if (asyncResult.failed()) {
+                    outcome = IRefreshSchedulePolicy.RefreshOutcome.FAILED;
+                    this.counterStoreRefreshFailures.increment();
+                    this.storeRefreshIsFailing.set(1);
+                    LOGGER.error("Failed to load " + this.storeName + ", " + elapsed + " ms", asyncResult.cause());
+                } else {
+                    outcome = asyncResult.result() ? IRefreshSchedulePolicy.RefreshOutcome.CHANGED : IRefreshSchedulePolicy.RefreshOutcome.UNCHANGED;
+                    this.counterStoreRefreshed.increment();
+                    this.storeRefreshIsFailing.set(0);
+                    LOGGER.trace("Successfully refreshed " + this.storeName + ", " + elapsed + " ms");
+                    if (this.refreshCallback != null) {
+                        this.refreshCallback.run();
                     }
                 }
-            );
-        });
+                this.scheduleBackgroundRefresh(this.schedulePolicy.nextDelayMs(outcome));
+            }
+        );
     }
 
-    public synchronized void refresh() throws Exception {
-        final JsonObject metadata = this.versionedStore.getMetadata();
-        final long version = this.versionedStore.getVersion(metadata);
-        if (version > this.latestVersion.get()) {
-            long entryCount = this.versionedStore.loadContent(metadata);
+    /**
+     * Records a version that was already loaded before this verticle was deployed (see {@link ParallelStoreLoader}),
+     * so the startup refresh only checks metadata instead of downloading the same content again.
+     */
+    public void markLoaded(long version, long entryCount) {
+        this.refreshLock.lock();
+        try {
             this.latestVersion.set(version);
             this.latestEntryCount.set(entryCount);
-            LOGGER.info("Successfully loaded " + this.storeName + " version " + version);
+        } finally {
+            this.refreshLock.unlock();
+        }
+    }
+
+    public void refresh() throws Exception {
+        this.refreshIfChanged();
+    }
+
+    // returns true if a new version was loaded
+    private boolean refreshIfChanged() throws Exception {
+        this.refreshLock.lock();
+        this.refreshInProgress.set(true);
+        try {
+            final JsonObject metadata = this.versionedStore.getMetadata();
+            final long version = this.versionedStore.getVersion(metadata);
+            if (version > this.latestVersion.get()) {
+                long entryCount = this.versionedStore.loadContent(metadata);
+                this.latestVersion.set(version);
+                this.latestEntryCount.set(entryCount);
+                LOGGER.info("Successfully loaded " + this.storeName + " version " + version);
+                return true;
+            }
+            return false;
+        } finally {
+            this.refreshInProgress.set(false);
+            this.refreshLock.unlock();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,158 @@
+package com.uid2.shared.vertx;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Schedules cloud transfers for {@link CloudSyncVerticle}.
+ * <p>
+ * Queued transfers start newest first, by the timestamp read from their path, with at most {@code maxInFlight}
+ * running at a time. Paths without a timestamp follow in submission order. A failed transfer is retried with
+ * exponential backoff up to {@code maxAttempts} times. Requests for a path that is queued, running or waiting for a
+ * retry share the same future.
+ * <p>
+ * {@link #submit(String)} and {@link #pendingCount()} are safe to call from any thread. The queue is only touched on
+ * the context the scheduler was created on.
+ */
+final class TransferScheduler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransferScheduler.class);
+
+    static final int DEFAULT_MAX_ATTEMPTS = 3;
+    static final long DEFAULT_RETRY_BACKOFF_MS = 500;
+
+    interface Transfer {
+        void run(String path) throws Exception;
+    }
+
+    private record Entry(String path, Instant timestamp, int attempt, long sequence) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            if (timestamp != null && other.timestamp != null) {
+                final int byTimestamp = other.timestamp.compareTo(timestamp);
+                if (byTimestamp != 0) {
+                    return byTimestamp;
+                }
+            } else if (timestamp != null) {
+                return -1;
+            } else if (other.timestamp != null) {
+                return 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final Vertx vertx;
+    private final Context context;
+    private final BlockingTaskRunner runner;
+    private final int maxInFlight;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final Function<String, Instant> timestampOf;
+    private final Transfer transfer;
+    private final BiConsumer<String, AsyncResult<Void>> completionHandler;
+
+    private final ConcurrentHashMap<String, Promise<Void>> pending = new ConcurrentHashMap<>();
+    // only accessed on context
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+    private int inFlight = 0;
+    private long sequence = 0;
+
+    /**
+     * @param maxInFlight       cap on running transfers; 0 or less leaves them bounded only by {@code runner}
+     * @param timestampOf       reads the timestamp used for ordering from a path, or returns null
+     * @param completionHandler called once per transfer on the scheduler context, after the last attempt
+     */
+    TransferScheduler(Vertx vertx, BlockingTaskRunner runner, int maxInFlight, int maxAttempts, long retryBackoffMs,
+                      Function<String, Instant> timestampOf, Transfer transfer,
+                      BiConsumer<String, AsyncResult<Void>> completionHandler) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1: " + maxAttempts);
+        }
+        this.vertx = vertx;
+        this.context = vertx.getOrCreateContext();
+        this.runner = runner;
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : Integer.MAX_VALUE;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMs = retryBackoffMs;
+        this.timestampOf = timestampOf;
+        this.transfer = transfer;
+        this.completionHandler = completionHandler;
+    }
+
+    Future<Void> submit(String path) {
+        final Promise<Void> promise = Promise.promise();
+        final Promise<Void> existing = pending.putIfAbsent(path, promise);
+        if (existing != null) {
+            return existing.future();
+        }
+
+        final Instant timestamp = timestampOf(path);
+        context.runOnContext(v -> enqueue(new Entry(path, timestamp, 1, 0)));
+        return promise.future();
+    }
+
+    /**
+     * @return transfers queued, running or waiting for a retry
+     */
+    int pendingCount() {
+        return pending.size();
+    }
+
+    private Instant timestampOf(String path) {
+        try {
+            return timestampOf.apply(path);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private void enqueue(Entry entry) {
+        queue.add(new Entry(entry.path(), entry.timestamp(), entry.attempt(), sequence++));
+        dispatch();
+    }
+
+    private void dispatch() {
+        while (inFlight < maxInFlight && !queue.isEmpty()) {
+            final Entry entry = queue.poll();
+            inFlight++;
+            runner.<Void>execute(() -> {
+                transfer.run(entry.path());
+                return null;
+            }, false).onComplete(ar -> {
+                inFlight--;
+                handleResult(entry, ar);
+                dispatch();
+            });
+        }
+    }
+
+    private void handleResult(Entry entry, AsyncResult<Void> ar) {
+        if (ar.failed() && entry.attempt() < maxAttempts) {
+            final long delayMs = retryBackoffMs << (entry.attempt() - 1);
+            LOGGER.warn("transfer attempt {} of {} failed, retrying in {} ms: {}",
+                entry.attempt(), maxAttempts, delayMs, ar.cause().getMessage());
+            final Entry retry = new Entry(entry.path(), entry.timestamp(), entry.attempt() + 1, 0);
+            if (delayMs > 0) {
+                vertx.setTimer(delayMs, id -> enqueue(retry));
+            } else {
+                enqueue(retry);
+            }
+            return;
+        }
+
+        final Promise<Void> promise = pending.remove(entry.path());
+        completionHandler.accept(entry.path(), ar);
+        promise.handle(ar);
+    }
+}
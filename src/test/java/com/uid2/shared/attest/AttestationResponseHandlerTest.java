@@ -8,7 +8,9 @@ import com.uid2.shared.IClock;
 import com.uid2.shared.audit.UidInstanceIdProvider;
 import com.uid2.shared.cloud.CloudUtils;
 import com.uid2.shared.util.URLConnectionHttpClient;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
 import io.vertx.junit5.VertxTestContext;
@@ -34,6 +36,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -176,6 +179,77 @@ public class AttestationResponseHandlerTest {
         testContext.completeNow();
     }
 
+    @Test
+    public void attestationExpirationCheck_exceptionDuringCheck_laterChecksStillReattest(Vertx vertx, VertxTestContext testContext) throws Exception {
+        attestationResponseHandler = getAttestationResponseHandler(vertx);
+
+        // attest() sees a ready provider, the first expiration check throws, and the next one re-attests
+        when(attestationProvider.isReady()).thenReturn(true).thenThrow(new IllegalStateException("provider failure")).thenReturn(true);
+        when(attestationProvider.getAttestationRequest(any(), any())).thenReturn(new byte[1]);
+
+        HttpResponse<String> mockHttpResponse = mock(HttpResponse.class);
+        String expectedResponseBody = "{\"body\": {\"attestation_token\": \"test\",\"expiresAt\": \"2023-08-01T00:00:00.111Z\",\"attestation_jwt_optout\": \"\",\"attestation_jwt_core\": \"\"},\"status\": \"success\"}";
+        when(mockHttpResponse.body()).thenReturn(expectedResponseBody);
+        when(mockHttpResponse.statusCode()).thenReturn(200);
+
+        when(mockHttpClient.post(eq(ATTESTATION_ENDPOINT), any(String.class), any(HashMap.class))).thenReturn(mockHttpResponse);
+        when(mockAttestationTokenDecryptor.decrypt(any(), any())).thenReturn("test_attestation_token".getBytes(StandardCharsets.UTF_8));
+
+        when(clock.now()).thenReturn(Instant.parse("2023-08-01T00:00:00.111Z").minusSeconds(100));
+
+        attestationResponseHandler.attest();
+        verify(mockHttpClient, timeout(5000).atLeast(2)).post(eq(ATTESTATION_ENDPOINT), any(String.class), any(HashMap.class));
+        testContext.completeNow();
+    }
+
+    @Test
+    public void attestAsync_concurrentCalls_singleAttestationRequest(Vertx vertx, VertxTestContext testContext) throws Exception {
+        attestationResponseHandler = getAttestationResponseHandler(vertx);
+
+        when(attestationProvider.isReady()).thenReturn(true);
+        when(attestationProvider.getAttestationRequest(any(), any())).thenReturn(new byte[1]);
+
+        HttpResponse<String> mockHttpResponse = mock(HttpResponse.class);
+        String expectedResponseBody = "{\"body\": {\"attestation_token\": \"test\",\"expiresAt\": \"2023-08-03T09:09:30.608597Z\",\"attestation_jwt_optout\": \"\",\"attestation_jwt_core\": \"\"},\"status\": \"success\"}";
+        when(mockHttpResponse.body()).thenReturn(expectedResponseBody);
+        when(mockHttpResponse.statusCode()).thenReturn(200);
+
+        // the first attestation holds its request open until the second caller has joined it
+        CountDownLatch requestSent = new CountDownLatch(1);
+        CountDownLatch releaseResponse = new CountDownLatch(1);
+        when(mockHttpClient.post(eq(ATTESTATION_ENDPOINT), any(String.class), any(HashMap.class))).thenAnswer(invocation -> {
+            requestSent.countDown();
+            assertTrue(releaseResponse.await(10, TimeUnit.SECONDS));
+            return mockHttpResponse;
+        });
+        when(mockAttestationTokenDecryptor.decrypt(any(), any())).thenReturn("test_attestation_token".getBytes(StandardCharsets.UTF_8));
+
+        when(clock.now()).thenReturn(Instant.parse("2023-08-01T00:00:00.111Z"));
+
+        Future<Void> first = attestationResponseHandler.attestAsync();
+        assertTrue(requestSent.await(10, TimeUnit.SECONDS));
+        Promise<Void> second = Promise.promise();
+        Thread joiner = new Thread(() -> {
+            try {
+                attestationResponseHandler.attest();
+                second.complete();
+            } catch (Exception e) {
+                second.fail(e);
+            }
+        });
+        joiner.start();
+        awaitWaitingIn(joiner, "awaitAttestation");
+        releaseResponse.countDown();
+
+        Future.all(first, second.future())
+                .onComplete(testContext.succeeding(v -> testContext.verify(() -> {
+                    assertEquals("test_attestation_token", attestationResponseHandler.getAttestationToken());
+                    verify(mockHttpClient, times(1)).post(eq(ATTESTATION_ENDPOINT), any(String.class), any(HashMap.class));
+                    verify(this.responseWatcher, times(1)).handle(Pair.of(AttestationResponseCode.Success, expectedResponseBody));
+                    testContext.completeNow();
+                })));
+    }
+
     @Test
     public void attest_responseBodyHasNoAttestationToken_exceptionThrown(Vertx vertx, VertxTestContext testContext) throws IOException, AttestationException, AttestationResponseHandlerException, InterruptedException {
         attestationResponseHandler = getAttestationResponseHandler(vertx);
@@ -423,4 +497,13 @@ public class AttestationResponseHandlerTest {
     private AttestationResponseHandler getAttestationResponseHandler(Vertx vertx) {
         return new AttestationResponseHandler(vertx, ATTESTATION_ENDPOINT, "testApiKey", OPERATOR_TYPE, APP_VERSION, attestationProvider, responseWatcher, proxy, clock, mockHttpClient, mockAttestationTokenDecryptor, 250, new UidInstanceIdProvider("test-instance", "id"));
     }
-}
\ No newline at end of file
+
+    private static void awaitWaitingIn(Thread thread, String methodName) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!(thread.getState() == Thread.State.WAITING
+                && Arrays.stream(thread.getStackTrace()).anyMatch(frame -> frame.getMethodName().equals(methodName)))) {
+            assertTrue(System.nanoTime() < deadline, "timed out waiting for " + thread.getName() + " to block in " + methodName);
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -11,9 +11,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.Proxy;
 import java.net.http.HttpResponse;
 import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.mockito.Mockito.*;
@@ -189,4 +192,58 @@ public class UidCoreClientTest {
                 "Expected documentation reference in message")
         );
     }
+
+    @Test
+    public void DownloadAsync_Attested_SendsWithoutBlockingClient() throws Exception {
+        HttpResponse<String> mockHttpResponse = mock(HttpResponse.class);
+        when(mockHttpResponse.statusCode()).thenReturn(200);
+        when(mockHttpResponse.body()).thenReturn("Hello, world!");
+        when(mockAttestationResponseHandler.attested()).thenReturn(true);
+        when(mockAttestationResponseHandler.getAttestationToken()).thenReturn("testAttestationToken");
+        when(mockAttestationResponseHandler.getCoreJWT()).thenReturn("testCoreJWT");
+        when(mockHttpClient.getAsync(eq("https://download"), any(HashMap.class))).thenReturn(CompletableFuture.completedFuture(mockHttpResponse));
+
+        InputStream result = uidCoreClient.downloadAsync("https://download").get();
+
+        assertEquals("Hello, world!", new String(result.readAllBytes()));
+        verify(mockAttestationResponseHandler, never()).attest();
+        verify(mockHttpClient, never()).get(anyString(), any());
+    }
+
+    @Test
+    public void DownloadAsync_NotAttested_AttestsFirst() throws Exception {
+        HttpResponse<String> mockHttpResponse = mock(HttpResponse.class);
+        when(mockHttpResponse.statusCode()).thenReturn(200);
+        when(mockHttpResponse.body()).thenReturn("Hello, world!");
+        when(mockHttpClient.get(eq("https://download"), any(HashMap.class))).thenReturn(mockHttpResponse);
+
+        InputStream result = uidCoreClient.downloadAsync("https://download").get();
+
+        assertEquals("Hello, world!", new String(result.readAllBytes()));
+        verify(mockAttestationResponseHandler, times(1)).attest();
+    }
+
+    @Test
+    public void DownloadAsync_Http403Error_CompletesWithCloudStorageException() throws Exception {
+        HttpResponse<String> mockHttpResponse = mock(HttpResponse.class);
+        when(mockHttpResponse.statusCode()).thenReturn(403);
+        when(mockAttestationResponseHandler.attested()).thenReturn(true);
+        when(mockHttpClient.getAsync(anyString(), any(HashMap.class))).thenReturn(CompletableFuture.completedFuture(mockHttpResponse));
+
+        ExecutionException result = assertThrows(ExecutionException.class, () -> uidCoreClient.downloadAsync("https://core-prod.uidapi.com/sites/refresh").get());
+
+        assertInstanceOf(CloudStorageException.class, result.getCause());
+        assertTrue(result.getCause().getMessage().contains("HTTP response code 403"));
+    }
+
+    @Test
+    public void DownloadAsync_NetworkError_CompletesWithCloudStorageException() throws Exception {
+        when(mockAttestationResponseHandler.attested()).thenReturn(true);
+        when(mockHttpClient.getAsync(anyString(), any(HashMap.class))).thenReturn(CompletableFuture.failedFuture(new IOException("Connection timeout")));
+
+        ExecutionException result = assertThrows(ExecutionException.class, () -> uidCoreClient.downloadAsync("https://core-prod.uidapi.com/sites/refresh").get());
+
+        assertInstanceOf(CloudStorageException.class, result.getCause());
+        assertTrue(result.getCause().getMessage().contains("exception: IOException"));
+    }
 }
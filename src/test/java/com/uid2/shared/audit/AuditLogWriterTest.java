@@ -0,0 +1,104 @@
+package com.uid2.shared.audit;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.ext.web.RequestBody;
+import io.vertx.ext.web.RoutingContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AuditLogWriterTest {
+    private RoutingContext mockCtx;
+    private Logger logger;
+    private ListAppender<ILoggingEvent> listAppender;
+
+    @BeforeEach
+    public void setUp() {
+        mockCtx = Mockito.mock(RoutingContext.class);
+        HttpServerRequest mockRequest = Mockito.mock(HttpServerRequest.class);
+        HttpServerResponse mockResponse = Mockito.mock(HttpServerResponse.class);
+        SocketAddress mockAddress = Mockito.mock(SocketAddress.class);
+
+        Mockito.when(mockCtx.request()).thenReturn(mockRequest);
+        Mockito.when(mockCtx.response()).thenReturn(mockResponse);
+        Mockito.when(mockRequest.method()).thenReturn(HttpMethod.POST);
+        Mockito.when(mockRequest.remoteAddress()).thenReturn(mockAddress);
+        Mockito.when(mockAddress.host()).thenReturn("127.0.0.1");
+        Mockito.when(mockResponse.getStatusCode()).thenReturn(200);
+
+        RequestBody mockBody = Mockito.mock(RequestBody.class);
+        JsonObject json = new JsonObject()
+                .put("name", new JsonObject().put("first", "uid2_user").put("last", "hidden"))
+                .put("location", "seattle")
+                .put("weather", "SELECT * FROM users");
+        Mockito.when(mockCtx.body()).thenReturn(mockBody);
+        Mockito.when(mockBody.buffer()).thenReturn(Buffer.buffer(json.toString()));
+
+        logger = (Logger) LoggerFactory.getLogger(Audit.class);
+        listAppender = new ListAppender<>();
+        listAppender.start();
+        logger.addAppender(listAppender);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        logger.detachAppender(listAppender);
+    }
+
+    @Test
+    public void recordsWrittenAfterClose() {
+        AuditLogWriter writer = new AuditLogWriter(100, 4).start();
+        Audit audit = new Audit("admin", writer);
+        AuditParams params = new AuditParams(null, List.of("name.first", "location", "weather"));
+
+        for (int i = 0; i < 10; i++) {
+            audit.log(mockCtx, params);
+        }
+        writer.close();
+
+        List<String> infoMessages = listAppender.list.stream()
+                .filter(event -> event.getLevel() == Level.INFO)
+                .map(ILoggingEvent::getFormattedMessage)
+                .toList();
+        assertThat(infoMessages).hasSize(10);
+        assertThat(infoMessages).allMatch(msg -> msg.contains("uid2_user") && msg.contains("seattle"));
+        assertThat(infoMessages).noneMatch(msg -> msg.contains("hidden") || msg.contains("SELECT"));
+        assertThat(writer.getQueueSize()).isZero();
+    }
+
+    @Test
+    public void fullQueueDropsRecordsWithoutBlocking() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AuditLogWriter writer = new AuditLogWriter(2, 4, registry);
+        Audit audit = new Audit("admin", writer);
+
+        for (int i = 0; i < 5; i++) {
+            audit.log(mockCtx, new AuditParams());
+        }
+
+        assertThat(writer.getQueueSize()).isEqualTo(2);
+        assertThat(writer.getDroppedCount()).isEqualTo(3);
+        assertThat(registry.get("uid2_audit_records_dropped_total").counter().count()).isEqualTo(3);
+        assertThat(listAppender.list).isEmpty();
+
+        writer.start();
+        writer.close();
+        assertThat(listAppender.list.stream().filter(event -> event.getLevel() == Level.INFO)).hasSize(2);
+    }
+}
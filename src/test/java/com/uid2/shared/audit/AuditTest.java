@@ -326,6 +326,75 @@ public class AuditTest {
         assertThat(messages).allMatch(msg -> msg.contains("config"));
     }
 
+    @Test
+    public void testBodyParamsAsInvalidJson() {
+        Mockito.when(mockRequest.method()).thenReturn(HttpMethod.POST);
+        AuditParams params = new AuditParams(null, Arrays.asList("partner_id"));
+
+        RequestBody mockBody = Mockito.mock(RequestBody.class);
+        Mockito.when(mockCtx.body()).thenReturn(mockBody);
+        Mockito.when(mockBody.buffer()).thenReturn(Buffer.buffer("{\"partner_id\": \"1\""));
+
+        new Audit("admin").log(mockCtx, params);
+
+        boolean errorLogged = listAppender.list.stream()
+                .anyMatch(event -> event.getLevel() == Level.ERROR && event.getFormattedMessage().contains("Audit log failure: The request body of audit log is Invalid JSON: "));
+
+        assertThat(errorLogged).isTrue();
+        assertThat(listAppender.list).noneMatch(event -> event.getLevel() == Level.INFO && event.getFormattedMessage().contains("request_body"));
+    }
+
+    @Test
+    public void testBodyParamsAsJsonArrayWithNonObjectElement() {
+        Mockito.when(mockRequest.method()).thenReturn(HttpMethod.POST);
+        AuditParams params = new AuditParams(null, Arrays.asList("partner_id"));
+
+        RequestBody mockBody = Mockito.mock(RequestBody.class);
+        JsonArray json = new JsonArray()
+                .add(new JsonObject().put("partner_id", "1"))
+                .add(UID_SECRET);
+
+        Mockito.when(mockCtx.body()).thenReturn(mockBody);
+        Mockito.when(mockBody.buffer()).thenReturn(Buffer.buffer(json.toString()));
+
+        new Audit("admin").log(mockCtx, params);
+
+        List<String> messages = listAppender.list.stream()
+                .map(ILoggingEvent::getFormattedMessage)
+                .toList();
+
+        assertThat(messages).allMatch(msg -> msg.contains("partner_id"));
+        assertThat(messages).noneMatch(msg -> msg.contains(UID_SECRET));
+
+        boolean errorLogged = listAppender.list.stream()
+                .anyMatch(event -> event.getLevel() == Level.ERROR && event.getFormattedMessage().contains("The request body is a JSON array, but one of its elements is not a JSON object"));
+
+        assertThat(errorLogged).isTrue();
+    }
+
+    @Test
+    public void testBodyParamsAsScalar() {
+        Mockito.when(mockRequest.method()).thenReturn(HttpMethod.POST);
+        AuditParams params = new AuditParams(null, Arrays.asList("partner_id"));
+
+        RequestBody mockBody = Mockito.mock(RequestBody.class);
+        Mockito.when(mockCtx.body()).thenReturn(mockBody);
+        Mockito.when(mockBody.buffer()).thenReturn(Buffer.buffer("\"" + UID_SECRET + "\""));
+
+        new Audit("admin").log(mockCtx, params);
+
+        List<String> messages = listAppender.list.stream()
+                .map(ILoggingEvent::getFormattedMessage)
+                .toList();
+
+        assertThat(messages).noneMatch(msg -> msg.contains(UID_SECRET));
+
+        boolean errorLogged = listAppender.list.stream()
+                .anyMatch(event -> event.getLevel() == Level.ERROR && event.getFormattedMessage().contains("The request body of audit log is not a JSON object or array"));
+
+        assertThat(errorLogged).isTrue();
+    }
+
     @Test
     public void testQueryParams() {
         Mockito.when(mockRequest.method()).thenReturn(HttpMethod.POST);
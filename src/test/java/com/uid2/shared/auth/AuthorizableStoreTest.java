@@ -3,6 +3,7 @@ package com.uid2.shared.auth;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.uid2.shared.secret.KeyHashResult;
 import com.uid2.shared.secret.KeyHasher;
+import com.uid2.shared.store.SnapshotDiff;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -184,6 +185,59 @@ public class AuthorizableStoreTest {
         );
     }
 
+    @Test
+    public void refreshWithDiff_appliesAddedRemovedAndChangedClients() {
+        // enough unchanged clients that the diff is applied incrementally rather than rebuilt
+        for (int i = 0; i < 5; i++) {
+            clients.add(createClientKey(KEY_HASHER.hashKey("UID2-C-L-15-abcde" + i + ".abcdefabcdefabcdefabcdefabcdefabcdefab"), "client15_" + i, 15, "UID2-C-L-15-abcd" + i));
+        }
+        clientKeyStore.refresh(clients);
+
+        String key = "UID2-C-L-14-abcdef.abcdefabcdefabcdefabcdefabcdefabcdefab";
+        assertNull(clientKeyStore.getAuthorizableByKey(key));
+
+        List<ClientKey> updated = new ArrayList<>(clients);
+        ClientKey removed = updated.remove(0);
+        ClientKey renamed = createClientKey(new KeyHashResult(clients.get(1).getKeyHash(), clients.get(1).getKeySalt()), "client12_1_renamed", 12, SITE_12_CLIENT_KEY_ID_1);
+        updated.set(0, renamed);
+        ClientKey added = createClientKey(KEY_HASHER.hashKey(key), "client14", 14, "UID2-C-L-14-abcde");
+        updated.add(added);
+
+        clientKeyStore.refresh(updated, SnapshotDiff.compute(clients, updated, ClientKey::getKeyHash));
+
+        assertAll(
+                "refresh with diff applies added, removed and changed clients",
+                () -> assertEquals("client14", clientKeyStore.getAuthorizableByKey(key).getName()),
+                () -> assertEquals("client12_1_renamed", clientKeyStore.getAuthorizableByKey(SITE_12_CLIENT_KEY_1).getName()),
+                () -> assertEquals("client12_2", clientKeyStore.getAuthorizableByKey(SITE_12_CLIENT_KEY_2).getName()),
+                () -> assertEquals("client13_legacy", clientKeyStore.getAuthorizableByKey(SITE_13_CLIENT_KEY_LEGACY).getName()),
+                () -> assertNull(clientKeyStore.getAuthorizableByKey(SITE_11_CLIENT_KEY)),
+                () -> assertNull(clientKeyStore.getAuthorizableByHash(removed.getKeyHash())),
+                () -> assertEquals(updated.size(), clientKeyStore.getAuthorizables().size())
+        );
+    }
+
+    @Test
+    public void refreshWithDiff_clientMovedToAnotherSite_invalidatesCachedMisses() {
+        for (int i = 0; i < 5; i++) {
+            clients.add(createClientKey(KEY_HASHER.hashKey("UID2-C-L-15-abcde" + i + ".abcdefabcdefabcdefabcdefabcdefabcdefab"), "client15_" + i, 15, "UID2-C-L-15-abcd" + i));
+        }
+        String key = "UID2-C-L-14-abcdef.abcdefabcdefabcdefabcdefabcdefabcdefab";
+        KeyHashResult keyHash = KEY_HASHER.hashKey(key);
+        ClientKey misfiled = createClientKey(keyHash, "client14", 15, "UID2-C-L-14-abcde");
+        clients.add(misfiled);
+        clientKeyStore.refresh(clients);
+
+        // the key names site 14, so only site 14 salts are tried and the miss is cached
+        assertNull(clientKeyStore.getAuthorizableByKey(key));
+
+        List<ClientKey> updated = new ArrayList<>(clients);
+        updated.set(updated.indexOf(misfiled), createClientKey(keyHash, "client14", 14, "UID2-C-L-14-abcde"));
+        clientKeyStore.refresh(updated, SnapshotDiff.compute(clients, updated, ClientKey::getKeyHash));
+
+        assertEquals("client14", clientKeyStore.getAuthorizableByKey(key).getName());
+    }
+
     private ClientKey createClientKey(KeyHashResult khr, String name, int siteId, String keyId) {
         return new ClientKey(khr.getHash(), khr.getSalt(), "", name, NOW, Set.of(), siteId, keyId);
     }
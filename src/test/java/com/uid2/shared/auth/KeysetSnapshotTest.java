@@ -0,0 +1,72 @@
+package com.uid2.shared.auth;
+
+import com.uid2.shared.model.KeysetKey;
+import com.uid2.shared.store.ACLMode.MissingAclMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeysetSnapshotTest {
+    private static KeysetKey key(int id, int keysetId) {
+        return new KeysetKey(id, null, null, null, null, keysetId);
+    }
+
+    private static KeysetSnapshot snapshot(Keyset... keysets) {
+        Map<Integer, Keyset> map = new HashMap<>();
+        for (Keyset keyset : keysets) {
+            map.put(keyset.getKeysetId(), keyset);
+        }
+        return new KeysetSnapshot(map);
+    }
+
+    @Test
+    public void getAccessibleKeysetIds_ownAllowedAndUnrestricted() {
+        KeysetSnapshot snapshot = snapshot(
+                new Keyset(1, 10, "own", Set.of(), 0, true, true),
+                new Keyset(2, 20, "shared", Set.of(10, 30), 0, true, true),
+                new Keyset(3, 30, "unrestricted", null, 0, true, true),
+                new Keyset(4, 40, "disabled", Set.of(10), 0, false, true),
+                new Keyset(5, 50, "not shared", Set.of(30), 0, true, true));
+
+        assertArrayEquals(new int[]{1, 2}, snapshot.getAccessibleKeysetIds(10, MissingAclMode.DENY_ALL));
+        assertArrayEquals(new int[]{1, 2, 3}, snapshot.getAccessibleKeysetIds(10, MissingAclMode.ALLOW_ALL));
+        assertArrayEquals(new int[]{3}, snapshot.getAccessibleKeysetIds(99, MissingAclMode.ALLOW_ALL));
+        assertArrayEquals(new int[0], snapshot.getAccessibleKeysetIds(99, MissingAclMode.DENY_ALL));
+
+        List<KeysetKey> keys = List.of(key(100, 5), key(101, 1), key(102, 3), key(103, 4), key(104, 2), key(105, 6));
+        assertEquals(List.of(keys.get(1), keys.get(2), keys.get(4)), snapshot.filterAccessibleKeys(10, keys, MissingAclMode.ALLOW_ALL));
+    }
+
+    @Test
+    public void canSiteAccessKeyset_matchesKeysetRules() {
+        Random random = new Random(7);
+        Map<Integer, Keyset> keysets = new HashMap<>();
+        for (int keysetId = 1; keysetId <= 200; keysetId++) {
+            Set<Integer> allowedSites = null;
+            if (random.nextInt(4) != 0) {
+                allowedSites = new HashSet<>();
+                for (int i = random.nextInt(6); i > 0; i--) {
+                    allowedSites.add(random.nextInt(50));
+                }
+            }
+            keysets.put(keysetId, new Keyset(keysetId, random.nextInt(50), "keyset", allowedSites, 0, random.nextInt(10) != 0, false));
+        }
+        KeysetSnapshot snapshot = new KeysetSnapshot(keysets);
+
+        for (MissingAclMode mode : MissingAclMode.values()) {
+            for (int siteId = 0; siteId < 50; siteId++) {
+                for (int keysetId = 0; keysetId <= 201; keysetId++) {
+                    Keyset keyset = keysets.get(keysetId);
+                    boolean expected = keyset != null && keyset.isEnabled()
+                            && (keyset.getSiteId() == siteId
+                            || (mode == MissingAclMode.ALLOW_ALL && keyset.getAllowedSites() == null)
+                            || keyset.canBeAccessedBySite(siteId));
+                    assertEquals(expected, snapshot.canSiteAccessKeyset(siteId, keysetId, mode));
+                    assertEquals(expected, Arrays.binarySearch(snapshot.getAccessibleKeysetIds(siteId, mode), keysetId) >= 0);
+                }
+            }
+        }
+    }
+}
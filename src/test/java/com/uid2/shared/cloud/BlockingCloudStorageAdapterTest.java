@@ -0,0 +1,76 @@
+package com.uid2.shared.cloud;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class BlockingCloudStorageAdapterTest {
+    private final InMemoryStorageMock storage = new InMemoryStorageMock();
+    private final AsyncCloudStorage async = AsyncCloudStorage.of(storage);
+
+    @Test
+    public void operationsRoundTrip() throws Exception {
+        async.uploadAsync(new ByteArrayInputStream("content".getBytes(StandardCharsets.UTF_8)), "salts/a").get();
+        async.uploadAsync(new ByteArrayInputStream("other".getBytes(StandardCharsets.UTF_8)), "salts/b").get();
+
+        try (InputStream in = async.downloadAsync("salts/a").get()) {
+            assertEquals("content", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(List.of("salts/a", "salts/b"), async.listAsync("salts/").get().stream().sorted().toList());
+
+        async.deleteAsync("salts/a").get();
+        async.deleteAsync(List.of("salts/b")).get();
+        assertEquals(List.of(), async.listAsync("salts/").get());
+    }
+
+    @Test
+    public void failureCompletesWithCloudStorageException() {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> async.downloadAsync("missing").get());
+        assertInstanceOf(CloudStorageException.class, e.getCause());
+    }
+
+    @Test
+    public void rejectedTaskCompletesExceptionally() {
+        AsyncCloudStorage rejecting = AsyncCloudStorage.of(storage, task -> {
+            throw new RejectedExecutionException();
+        });
+
+        assertTrue(rejecting.listAsync("").isCompletedExceptionally());
+    }
+
+    @Test
+    public void ofReturnsStorageThatIsAlreadyAsync() {
+        CloudStorageS3 s3 = new CloudStorageS3(new InMemoryS3Client(), null, null, "bucket", false);
+
+        assertSame(s3, AsyncCloudStorage.of(s3));
+        assertSame(s3, AsyncDownloadCloudStorage.of(s3));
+    }
+
+    @Test
+    public void downloadsUseStorageThatDownloadsAsync() throws Exception {
+        PreSignedURLStorage urlStorage = spy(new PreSignedURLStorage());
+        InputStream expected = InputStream.nullInputStream();
+        doReturn(CompletableFuture.completedFuture(expected)).when(urlStorage).downloadAsync("https://download");
+
+        assertSame(expected, AsyncCloudStorage.of(urlStorage).downloadAsync("https://download").get());
+        verify(urlStorage, never()).download(anyString());
+    }
+
+    @Test
+    public void downloadOnlyStorageIsAdapted() throws Exception {
+        DownloadCloudStorage download = path -> new ByteArrayInputStream(path.getBytes(StandardCharsets.UTF_8));
+
+        try (InputStream in = AsyncDownloadCloudStorage.of(download).downloadAsync("path").get()) {
+            assertEquals("path", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+}
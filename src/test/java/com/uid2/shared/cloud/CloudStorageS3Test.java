@@ -1,10 +1,43 @@
 package com.uid2.shared.cloud;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
-import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class CloudStorageS3Test {
+    private static final int PART_SIZE = CloudStorageS3.MIN_PART_SIZE_BYTES;
+
+    @TempDir
+    Path tempDir;
+
+    private final InMemoryS3Client s3 = new InMemoryS3Client();
+    private final CloudStorageS3 storage = new CloudStorageS3(s3, null, null, "test-bucket", false);
+
+    private static byte[] content(int length) {
+        byte[] content = new byte[length];
+        new Random(length).nextBytes(content);
+        return content;
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        try (in) {
+            return in.readAllBytes();
+        }
+    }
+
+    private long count(String request) {
+        return s3.requests.stream().filter(r -> r.startsWith(request)).count();
+    }
 
     @Test
     void constructorDoesNotNpeWhenCredentialEnvVarsAbsent() {
@@ -12,4 +45,215 @@ public class CloudStorageS3Test {
         // which NPE'd when the env var was unset. DefaultCredentialsProvider must not throw at construction time.
         assertDoesNotThrow(() -> new CloudStorageS3("us-east-1", "test-bucket", "http://localhost:9999"));
     }
+
+    @Test
+    void uploadStream_singlePutWhenSmallerThanPart() throws Exception {
+        storage.setTransferOptions(PART_SIZE, 4);
+        byte[] content = content(1000);
+
+        storage.upload(new ByteArrayInputStream(content), "salts/small");
+
+        assertArrayEquals(content, s3.getContent("salts/small"));
+        assertEquals(List.of("putObject"), s3.requests);
+    }
+
+    @Test
+    void uploadStream_multipartInOrder() throws Exception {
+        storage.setTransferOptions(PART_SIZE, 3);
+        byte[] content = content(PART_SIZE * 4 + 17);
+
+        storage.upload(new ByteArrayInputStream(content), "optout/partition");
+
+        assertArrayEquals(content, s3.getContent("optout/partition"));
+        assertEquals(5, count("uploadPart"));
+        assertEquals(1, count("completeMultipartUpload"));
+        assertEquals(0, s3.getOpenUploadCount());
+    }
+
+    @Test
+    void uploadStream_multipartOfExactPartMultiple() throws Exception {
+        storage.setTransferOptions(PART_SIZE, 2);
+        byte[] content = content(PART_SIZE * 2);
+
+        storage.upload(new ByteArrayInputStream(content), "exact");
+
+        assertArrayEquals(content, s3.getContent("exact"));
+        assertEquals(2, count("uploadPart"));
+    }
+
+    @Test
+    void uploadStream_retriesFailedPart() throws Exception {
+        storage.setTransferOptions(PART_SIZE, 2);
+        byte[] content = content(PART_SIZE * 3);
+        s3.failNext("uploadPart 2", 2);
+
+        storage.upload(new ByteArrayInputStream(content), "retried");
+
+        assertArrayEquals(content, s3.getContent("retried"));
+        assertEquals(3, count("uploadPart 2"));
+        assertEquals(1, count("uploadPart 1"));
+    }
+
+    @Test
+    void uploadStream_abortsWhenPartKeepsFailing() {
+        storage.setTransferOptions(PART_SIZE, 2);
+        s3.failNext("uploadPart 1", 10);
+
+        assertThrows(CloudStorageException.class, () -> storage.upload(new ByteArrayInputStream(content(PART_SIZE * 3)), "failed"));
+
+        assertNull(s3.getContent("failed"));
+        assertEquals(1, count("abortMultipartUpload"));
+        assertEquals(0, s3.getOpenUploadCount());
+    }
+
+    @Test
+    void uploadStream_multipartWithTags() throws Exception {
+        storage.setTransferOptions(PART_SIZE, 2);
+
+        storage.upload(new ByteArrayInputStream(content(PART_SIZE + 1)), "tagged", Map.of("status", "pending delete"));
+
+        assertEquals("status=pending%20delete", s3.getTagging("tagged"));
+    }
+
+    @Test
+    void uploadFile_multipartWhenLargerThanPart() throws Exception {
+        storage.setTransferOptions(PART_SIZE, 2);
+        byte[] content = content(PART_SIZE * 2 + 5);
+        Path file = tempDir.resolve("salts.txt");
+        Files.write(file, content);
+
+        storage.upload(file.toString(), "salts/large");
+
+        assertArrayEquals(content, s3.getContent("salts/large"));
+        assertEquals(3, count("uploadPart"));
+    }
+
+    @Test
+    void download_singleRequestWhenSmallerThanPart() throws Exception {
+        storage.setTransferOptions(PART_SIZE, 4);
+        byte[] content = content(1000);
+        s3.put("small", content);
+
+        assertArrayEquals(content, read(storage.download("small")));
+        assertEquals(1, count("getObject"));
+    }
+
+    @Test
+    void download_emptyObject() throws Exception {
+        s3.put("empty", new byte[0]);
+
+        assertEquals(0, read(storage.download("empty")).length);
+    }
+
+    @Test
+    void download_rangesInOrder() throws Exception {
+        storage.setTransferOptions(PART_SIZE, 3);
+        byte[] content = content(PART_SIZE * 6 + 123);
+        s3.put("large", content);
+
+        assertArrayEquals(content, read(storage.download("large")));
+        assertEquals(7, count("getObject bytes="));
+    }
+
+    @Test
+    void download_retriesFailedRange() throws Exception {
+        storage.setTransferOptions(PART_SIZE, 2);
+        byte[] content = content(PART_SIZE * 3);
+        s3.put("large", content);
+        s3.failNext("getObject bytes=" + PART_SIZE + "-" + (2 * PART_SIZE - 1), 1);
+
+        assertArrayEquals(content, read(storage.download("large")));
+    }
+
+    @Test
+    void download_retriesFailedFirstRequest() throws Exception {
+        storage.setTransferOptions(PART_SIZE, 2);
+        byte[] content = content(PART_SIZE * 2);
+        s3.put("large", content);
+        s3.failNext("getObject bytes=0-" + (PART_SIZE - 1), 1);
+
+        assertArrayEquals(content, read(storage.download("large")));
+    }
+
+    @Test
+    void download_resumesFirstRangeFailingPartway() throws Exception {
+        storage.setTransferOptions(PART_SIZE, 2);
+        byte[] content = content(PART_SIZE * 2 + 5);
+        s3.put("large", content);
+        s3.breakNextBody("bytes=0-" + (PART_SIZE - 1), 1000);
+
+        assertArrayEquals(content, read(storage.download("large")));
+        assertEquals(1, count("getObject bytes=1000-" + (PART_SIZE - 1)));
+    }
+
+    @Test
+    void download_resumesSinglePartObjectFailingPartway() throws Exception {
+        storage.setTransferOptions(PART_SIZE, 2);
+        byte[] content = content(5000);
+        s3.put("small", content);
+        s3.breakNextBody("bytes=0-" + (PART_SIZE - 1), 1000);
+
+        assertArrayEquals(content, read(storage.download("small")));
+        assertEquals(1, count("getObject bytes=1000-4999"));
+    }
+
+    @Test
+    void download_concurrentDownloadsProgressBeyondBufferCap() throws Exception {
+        // the cap allows a single part read ahead across both downloads
+        storage.setTransferOptions(PART_SIZE, 2, PART_SIZE);
+        byte[] first = content(PART_SIZE * 4);
+        byte[] second = content(PART_SIZE * 4 + 1);
+        s3.put("first", first);
+        s3.put("second", second);
+
+        try (InputStream a = storage.download("first"); InputStream b = storage.download("second")) {
+            assertArrayEquals(second, b.readAllBytes());
+            assertArrayEquals(first, a.readAllBytes());
+        }
+    }
+
+    @Test
+    void download_failsWhenObjectChangesDuringDownload() throws Exception {
+        storage.setTransferOptions(PART_SIZE, 1);
+        s3.put("large", content(PART_SIZE * 3));
+
+        try (InputStream in = storage.download("large")) {
+            s3.put("large", content(PART_SIZE * 3 + 1));
+            assertThrows(IOException.class, in::readAllBytes);
+        }
+    }
+
+    @Test
+    void download_missingKey() {
+        assertThrows(CloudStorageException.class, () -> storage.download("missing"));
+    }
+
+    @Test
+    void transparentCompression_compressesOnUploadAndDecompressesOnDownload() throws Exception {
+        storage.setTransparentCompression(true);
+        byte[] content = new byte[PART_SIZE * 2];
+
+        storage.upload(new ByteArrayInputStream(content), "salts/salts.txt.zst");
+
+        byte[] stored = s3.getContent("salts/salts.txt.zst");
+        assertTrue(stored.length < content.length / 100);
+        assertEquals(List.of("putObject"), s3.requests);
+        assertArrayEquals(content, read(storage.download("salts/salts.txt.zst")));
+    }
+
+    @Test
+    void transparentCompression_leavesUncompressedKeysAlone() throws Exception {
+        storage.setTransparentCompression(true);
+        byte[] content = content(1000);
+
+        storage.upload(new ByteArrayInputStream(content), "salts/salts.txt");
+
+        assertArrayEquals(content, s3.getContent("salts/salts.txt"));
+    }
+
+    @Test
+    void setTransferOptions_rejectsPartsSmallerThanS3Minimum() {
+        assertThrows(IllegalArgumentException.class, () -> storage.setTransferOptions(PART_SIZE - 1, 4));
+        assertThrows(IllegalArgumentException.class, () -> storage.setTransferOptions(PART_SIZE, 0));
+    }
 }
@@ -0,0 +1,161 @@
+package com.uid2.shared.cloud;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressionFormatTest {
+    private static byte[] content(int length) {
+        // repetitive, like salt and store files, so that it compresses
+        final StringBuilder sb = new StringBuilder();
+        final Random random = new Random(length);
+        while (sb.length() < length) {
+            sb.append(random.nextInt(1_000_000)).append(",1614556800000,salt,1756252800000,,,,,,,\n");
+        }
+        return sb.substring(0, length).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        try (in) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] compress(CompressionFormat format, byte[] content) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream compressor = format.compress(out)) {
+            compressor.write(content);
+        }
+        return out.toByteArray();
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = CompressionFormat.class, names = {"GZIP", "ZSTD"})
+    void compressing_roundTripsThroughDecompressing(CompressionFormat format) throws IOException {
+        final byte[] content = content(1_000_000);
+
+        final byte[] compressed = read(format.compressing(new ByteArrayInputStream(content)));
+
+        assertTrue(compressed.length < content.length / 4);
+        assertArrayEquals(content, read(format.decompress(new ByteArrayInputStream(compressed))));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = CompressionFormat.class, names = {"GZIP", "ZSTD"})
+    void compressing_matchesCompress(CompressionFormat format) throws IOException {
+        final byte[] content = content(1000);
+
+        assertArrayEquals(compress(format, content), read(format.compressing(new ByteArrayInputStream(content))));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = CompressionFormat.class, names = {"GZIP", "ZSTD"})
+    void compressing_doesNotCompressTwice(CompressionFormat format) throws IOException {
+        final byte[] content = content(1000);
+
+        final InputStream compressing = format.compressing(new ByteArrayInputStream(content));
+
+        assertSame(compressing, format.compressing(compressing));
+        assertArrayEquals(content, read(format.decompress(compressing)));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = CompressionFormat.class, names = {"GZIP", "ZSTD"})
+    void compressing_closedBeforeEnd_closesSource(CompressionFormat format) throws IOException {
+        final boolean[] sourceClosed = {false};
+        final InputStream source = new ByteArrayInputStream(content(1_000_000)) {
+            @Override
+            public void close() {
+                sourceClosed[0] = true;
+            }
+        };
+        final InputStream compressing = format.compressing(source);
+        assertTrue(compressing.read(new byte[100]) > 0);
+
+        compressing.close();
+        compressing.close();
+
+        assertTrue(sourceClosed[0]);
+    }
+
+    @Test
+    void compressing_compressesContentThatLooksCompressed() throws IOException {
+        // plain binary content, such as an opt-out file, may happen to start with a magic number
+        final byte[] content = {(byte) 0x1f, (byte) 0x8b, (byte) 0x28, (byte) 0xb5, (byte) 0x2f, (byte) 0xfd, 1, 2, 3};
+
+        final byte[] compressed = read(CompressionFormat.ZSTD.compressing(new ByteArrayInputStream(content)));
+
+        assertArrayEquals(content, read(CompressionFormat.ZSTD.decompress(new ByteArrayInputStream(compressed))));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = CompressionFormat.class, names = {"GZIP", "ZSTD"})
+    void compressing_emptyContent(CompressionFormat format) throws IOException {
+        final byte[] compressed = read(format.compressing(new ByteArrayInputStream(new byte[0])));
+
+        assertEquals(0, read(format.decompress(new ByteArrayInputStream(compressed))).length);
+    }
+
+    @Test
+    void decompressing_usesExtensionOfPath() throws IOException {
+        final byte[] content = {(byte) 0x1f, (byte) 0x8b, 1, 2, 3};
+        final DownloadCloudStorage storage = path -> new ByteArrayInputStream(content);
+
+        assertArrayEquals(content, read(CompressionFormat.decompressing(new ByteArrayInputStream(content), "optout/delta/d.dat", storage)));
+        final byte[] compressed = compress(CompressionFormat.GZIP, content);
+        assertArrayEquals(content, read(CompressionFormat.decompressing(new ByteArrayInputStream(compressed), "optout/delta/d.dat.gz", storage)));
+    }
+
+    @Test
+    void decompressing_skipsContentTheStorageDecompressed() throws IOException {
+        final byte[] content = content(1000);
+        final DownloadCloudStorage storage = new DownloadCloudStorage() {
+            @Override
+            public InputStream download(String cloudPath) {
+                return new ByteArrayInputStream(content);
+            }
+
+            @Override
+            public CompressionFormat getTransparentCompression(String cloudPath) {
+                return CompressionFormat.fromPath(cloudPath);
+            }
+        };
+
+        assertArrayEquals(content, read(CompressionFormat.decompressing(new ByteArrayInputStream(content), "salts/salts.txt.zst", storage)));
+    }
+
+    @Test
+    void fromPath_usesExtensionIgnoringQuery() {
+        assertEquals(CompressionFormat.GZIP, CompressionFormat.fromPath("salts/salts.txt.gz"));
+        assertEquals(CompressionFormat.ZSTD, CompressionFormat.fromPath("https://bucket.s3.amazonaws.com/optout/partition/p.dat.zst?X-Amz-Signature=abc.gz1"));
+        assertEquals(CompressionFormat.NONE, CompressionFormat.fromPath("optout/delta/d.dat"));
+        assertEquals(CompressionFormat.NONE, CompressionFormat.fromPath(null));
+    }
+
+    @Test
+    void extensions() {
+        assertEquals("optout/delta/d.dat", CompressionFormat.stripExtension("optout/delta/d.dat.zst"));
+        assertEquals("optout/delta/d.dat", CompressionFormat.stripExtension("optout/delta/d.dat"));
+        assertEquals("optout/delta/d.dat.gz", CompressionFormat.GZIP.appendExtension("optout/delta/d.dat"));
+        assertEquals("optout/delta/d.dat.gz", CompressionFormat.GZIP.appendExtension("optout/delta/d.dat.gz"));
+        assertEquals("optout/delta/d.dat", CompressionFormat.NONE.appendExtension("optout/delta/d.dat"));
+    }
+
+    @Test
+    void fromName() {
+        assertEquals(CompressionFormat.NONE, CompressionFormat.fromName(null));
+        assertEquals(CompressionFormat.GZIP, CompressionFormat.fromName("gzip"));
+        assertEquals(CompressionFormat.ZSTD, CompressionFormat.fromName("ZSTD"));
+        assertThrows(IllegalArgumentException.class, () -> CompressionFormat.fromName("lz4"));
+    }
+}
@@ -0,0 +1,158 @@
+package com.uid2.shared.cloud;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class DiskCachedDownloadStorageTest {
+    @TempDir
+    Path cacheDir;
+
+    private final DownloadCloudStorage backend = mock(DownloadCloudStorage.class);
+
+    private void givenContent(String path, String content) throws CloudStorageException {
+        when(backend.download(path)).thenAnswer(i -> new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void download_servesRepeatsFromDisk() throws Exception {
+        givenContent("salts/salts.txt.1", "salt content");
+        DiskCachedDownloadStorage storage = new DiskCachedDownloadStorage(backend, cacheDir, 1024);
+
+        assertEquals("salt content", read(storage.download("salts/salts.txt.1")));
+        assertEquals("salt content", read(storage.download("salts/salts.txt.1")));
+
+        verify(backend, times(1)).download("salts/salts.txt.1");
+        assertEquals(1, storage.getEntryCount());
+        assertEquals(12, storage.getSizeBytes());
+    }
+
+    @Test
+    public void download_cachedContentIsFileBacked() throws Exception {
+        givenContent("salts/salts.bin.1", "salt content");
+        DiskCachedDownloadStorage storage = new DiskCachedDownloadStorage(backend, cacheDir, 1024);
+
+        // file-backed streams let the salt provider memory-map the entry
+        try (InputStream filled = storage.download("salts/salts.bin.1"); InputStream hit = storage.download("salts/salts.bin.1")) {
+            assertInstanceOf(FileInputStream.class, filled);
+            assertInstanceOf(FileInputStream.class, hit);
+        }
+    }
+
+    @Test
+    public void download_survivesRestart() throws Exception {
+        givenContent("keysets/keysets.json.1", "[]");
+        read(new DiskCachedDownloadStorage(backend, cacheDir, 1024).download("keysets/keysets.json.1"));
+
+        DiskCachedDownloadStorage restarted = new DiskCachedDownloadStorage(backend, cacheDir, 1024);
+
+        assertEquals("[]", read(restarted.download("keysets/keysets.json.1")));
+        verify(backend, times(1)).download(anyString());
+    }
+
+    @Test
+    public void download_metadataGoesToBackend() throws Exception {
+        givenContent("salts/metadata.json", "{}");
+        DiskCachedDownloadStorage storage = new DiskCachedDownloadStorage(backend, cacheDir, 1024);
+
+        read(storage.download("salts/metadata.json"));
+        read(storage.download("salts/metadata.json"));
+
+        verify(backend, times(2)).download("salts/metadata.json");
+        assertEquals(0, storage.getEntryCount());
+    }
+
+    @Test
+    public void download_preSignedUrlsShareEntry() throws Exception {
+        givenContent("https://core/salts.txt.1?signature=a", "content");
+        DiskCachedDownloadStorage storage = new DiskCachedDownloadStorage(backend, cacheDir, 1024);
+
+        read(storage.download("https://core/salts.txt.1?signature=a"));
+
+        assertEquals("content", read(storage.download("https://core/salts.txt.1?signature=b")));
+        verify(backend, never()).download("https://core/salts.txt.1?signature=b");
+    }
+
+    @Test
+    public void download_corruptEntryDownloadedAgain() throws Exception {
+        givenContent("clients/clients.json.1", "original");
+        DiskCachedDownloadStorage storage = new DiskCachedDownloadStorage(backend, cacheDir, 1024);
+        read(storage.download("clients/clients.json.1"));
+
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            Path data = files.filter(p -> p.toString().endsWith(".data")).findFirst().orElseThrow();
+            Files.writeString(data, "tampered");
+        }
+
+        assertEquals("original", read(storage.download("clients/clients.json.1")));
+        verify(backend, times(2)).download("clients/clients.json.1");
+    }
+
+    @Test
+    public void download_evictsLeastRecentlyUsed() throws Exception {
+        givenContent("a", "0123456789");
+        givenContent("b", "0123456789");
+        givenContent("c", "0123456789");
+        DiskCachedDownloadStorage storage = new DiskCachedDownloadStorage(backend, cacheDir, 25);
+
+        read(storage.download("a"));
+        read(storage.download("b"));
+        read(storage.download("a"));
+        read(storage.download("c"));
+
+        assertEquals(2, storage.getEntryCount());
+        assertEquals(20, storage.getSizeBytes());
+        read(storage.download("a"));
+        read(storage.download("b"));
+        verify(backend, times(1)).download("a");
+        verify(backend, times(2)).download("b");
+    }
+
+    @Test
+    public void download_backendFailurePropagates() throws Exception {
+        when(backend.download("missing")).thenThrow(new CloudStorageException("not found"));
+        DiskCachedDownloadStorage storage = new DiskCachedDownloadStorage(backend, cacheDir, 1024);
+
+        assertThrows(CloudStorageException.class, () -> storage.download("missing"));
+        assertEquals(0, storage.getEntryCount());
+    }
+
+    @Test
+    public void download_failedFillNotRetriedImmediately() throws Exception {
+        InputStream broken = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+        when(backend.download("salts/salts.txt.1"))
+                .thenReturn(broken)
+                .thenAnswer(i -> new ByteArrayInputStream("salt content".getBytes(StandardCharsets.UTF_8)));
+        DiskCachedDownloadStorage storage = new DiskCachedDownloadStorage(backend, cacheDir, 1024);
+
+        assertEquals("salt content", read(storage.download("salts/salts.txt.1")));
+        assertEquals("salt content", read(storage.download("salts/salts.txt.1")));
+
+        // the failed fill and its direct fallback, then a direct download without another fill attempt
+        verify(backend, times(3)).download("salts/salts.txt.1");
+        assertEquals(0, storage.getEntryCount());
+    }
+}
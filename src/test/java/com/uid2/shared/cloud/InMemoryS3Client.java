@@ -0,0 +1,184 @@
+package com.uid2.shared.cloud;
+
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * S3-compatible stand-in for tests: objects, multipart uploads and ranged gets are kept in memory.
+ * Requests can be made to fail a number of times with {@link #failNext(String, int)}, and gets to fail partway
+ * through their body with {@link #breakNextBody(String, int)}.
+ */
+class InMemoryS3Client implements S3Client {
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, String> tags = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> failures = new ConcurrentHashMap<>();
+    private final Map<String, Integer> brokenBodies = new ConcurrentHashMap<>();
+    private final AtomicInteger uploadIds = new AtomicInteger();
+    final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+
+    byte[] getContent(String key) {
+        return objects.get(key);
+    }
+
+    String getTagging(String key) {
+        return tags.get(key);
+    }
+
+    int getOpenUploadCount() {
+        return uploads.size();
+    }
+
+    /**
+     * Makes the next {@code count} requests matching {@code request} fail with a 503, e.g. "uploadPart 2" or
+     * "getObject bytes=0-99".
+     */
+    void failNext(String request, int count) {
+        failures.put(request, new AtomicInteger(count));
+    }
+
+    /**
+     * Makes the body of the next get of {@code range}, e.g. "bytes=0-99", fail after {@code bytes} bytes have been read.
+     */
+    void breakNextBody(String range, int bytes) {
+        brokenBodies.put(range, bytes);
+    }
+
+    void put(String key, byte[] content) {
+        objects.put(key, content);
+    }
+
+    @Override
+    public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+        record("putObject");
+        objects.put(request.key(), readAll(body));
+        if (request.tagging() != null) {
+            tags.put(request.key(), request.tagging());
+        }
+        return PutObjectResponse.builder().versionId("1").build();
+    }
+
+    @Override
+    public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+        record("createMultipartUpload");
+        final String uploadId = request.key() + "#" + uploadIds.incrementAndGet();
+        uploads.put(uploadId, new ConcurrentHashMap<>());
+        if (request.tagging() != null) {
+            tags.put(request.key(), request.tagging());
+        }
+        return CreateMultipartUploadResponse.builder().uploadId(uploadId).build();
+    }
+
+    @Override
+    public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+        record("uploadPart " + request.partNumber());
+        final byte[] content = readAll(body);
+        uploads.get(request.uploadId()).put(request.partNumber(), content);
+        return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+    }
+
+    @Override
+    public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        record("completeMultipartUpload");
+        final Map<Integer, byte[]> parts = uploads.remove(request.uploadId());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int expectedPartNumber = 1;
+        for (CompletedPart part : request.multipartUpload().parts()) {
+            if (part.partNumber() != expectedPartNumber++ || !("etag-" + part.partNumber()).equals(part.eTag())) {
+                throw S3Exception.builder().statusCode(400).message("InvalidPartOrder").build();
+            }
+            out.writeBytes(parts.get(part.partNumber()));
+        }
+        objects.put(request.key(), out.toByteArray());
+        return CompleteMultipartUploadResponse.builder().versionId("1").build();
+    }
+
+    @Override
+    public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+        record("abortMultipartUpload");
+        uploads.remove(request.uploadId());
+        return AbortMultipartUploadResponse.builder().build();
+    }
+
+    @Override
+    public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+        record("getObject" + (request.range() == null ? "" : " " + request.range()));
+        final byte[] content = objects.get(request.key());
+        if (content == null) {
+            throw NoSuchKeyException.builder().statusCode(404).message("NoSuchKey").build();
+        }
+        final String eTag = "etag-" + Arrays.hashCode(content);
+        if (request.ifMatch() != null && !request.ifMatch().equals(eTag)) {
+            throw S3Exception.builder().statusCode(412).message("PreconditionFailed").build();
+        }
+
+        final GetObjectResponse.Builder response = GetObjectResponse.builder().eTag(eTag);
+        if (request.range() == null) {
+            return stream(response.contentLength((long) content.length).build(), content, 0, content.length);
+        }
+        final String[] range = request.range().substring("bytes=".length()).split("-");
+        final int start = Integer.parseInt(range[0]);
+        if (start >= content.length) {
+            throw S3Exception.builder().statusCode(416).message("InvalidRange").build();
+        }
+        final int end = Math.min(Integer.parseInt(range[1]), content.length - 1);
+        response.contentLength((long) (end - start + 1)).contentRange("bytes " + start + "-" + end + "/" + content.length);
+        final Integer breakAfter = brokenBodies.remove(request.range());
+        if (breakAfter != null) {
+            return brokenStream(response.build(), content, start, breakAfter);
+        }
+        return stream(response.build(), content, start, end - start + 1);
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void record(String request) {
+        requests.add(request);
+        final AtomicInteger remaining = failures.get(request);
+        if (remaining != null && remaining.getAndDecrement() > 0) {
+            throw S3Exception.builder().statusCode(503).message("SlowDown").build();
+        }
+    }
+
+    private static ResponseInputStream<GetObjectResponse> stream(GetObjectResponse response, byte[] content, int offset, int length) {
+        return new ResponseInputStream<>(response, AbortableInputStream.create(new ByteArrayInputStream(content, offset, length)));
+    }
+
+    private static ResponseInputStream<GetObjectResponse> brokenStream(GetObjectResponse response, byte[] content, int offset, int length) {
+        final InputStream broken = new SequenceInputStream(new ByteArrayInputStream(content, offset, length), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        });
+        return new ResponseInputStream<>(response, AbortableInputStream.create(broken));
+    }
+
+    private static byte[] readAll(RequestBody body) {
+        try (InputStream in = body.contentStreamProvider().newStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.uid2.shared.cloud;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MemCachedStorageTest {
+    private static void upload(MemCachedStorage storage, String path, byte[] content) throws CloudStorageException {
+        storage.upload(new ByteArrayInputStream(content), path);
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        try (in) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Test
+    public void uploadAndDownload_roundTrips() throws Exception {
+        MemCachedStorage storage = new MemCachedStorage();
+        byte[] content = new byte[200_000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+
+        upload(storage, "keys/keys.json", content);
+
+        assertArrayEquals(content, read(storage.download("keys/keys.json")));
+        assertArrayEquals(content, read(storage.download("keys/keys.json")));
+        assertArrayEquals(content, storage.getBytes("keys/keys.json"));
+        assertEquals(content.length, storage.getSizeBytes());
+    }
+
+    @Test
+    public void uploadEmpty_roundTrips() throws Exception {
+        MemCachedStorage storage = new MemCachedStorage();
+        upload(storage, "empty", new byte[0]);
+
+        assertEquals(0, read(storage.download("empty")).length);
+        assertEquals(0, storage.getByteBuffer("empty").remaining());
+    }
+
+    @Test
+    public void getByteBuffer_returnsReadOnlyView() throws Exception {
+        MemCachedStorage storage = new MemCachedStorage();
+        upload(storage, "path", "content".getBytes(StandardCharsets.UTF_8));
+
+        ByteBuffer view = storage.getByteBuffer("path");
+        assertTrue(view.isReadOnly());
+        assertThrows(ReadOnlyBufferException.class, () -> view.put(0, (byte) 0));
+
+        view.position(3);
+        assertEquals("content", StandardCharsets.UTF_8.decode(storage.getByteBuffer("path")).toString());
+    }
+
+    @Test
+    public void missingPath() {
+        MemCachedStorage storage = new MemCachedStorage();
+
+        assertNull(storage.getByteBuffer("missing"));
+        assertNull(storage.getBytes("missing"));
+        assertThrows(CloudStorageException.class, () -> storage.download("missing"));
+    }
+
+    @Test
+    public void upload_evictsToStayWithinMaxBytes() throws Exception {
+        MemCachedStorage storage = new MemCachedStorage(1000);
+        for (int i = 0; i < 10; i++) {
+            upload(storage, "file" + i, new byte[300]);
+        }
+
+        assertTrue(storage.getSizeBytes() <= 1000);
+        List<String> listed = storage.list("file");
+        assertTrue(listed.size() <= 3);
+        for (String path : listed) {
+            assertNotNull(storage.getByteBuffer(path));
+        }
+    }
+
+    @Test
+    public void list_staysConsistentWithContentUnderConcurrentEviction() throws Exception {
+        MemCachedStorage storage = new MemCachedStorage(1000);
+        List<Thread> uploaders = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread uploader = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 2000; i++) {
+                        upload(storage, "file" + (i % 8), new byte[100 + i % 200]);
+                    }
+                } catch (CloudStorageException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            uploaders.add(uploader);
+            uploader.start();
+        }
+        for (Thread uploader : uploaders) {
+            uploader.join();
+        }
+
+        for (int i = 0; i < 8; i++) {
+            String path = "file" + i;
+            assertEquals(storage.getByteBuffer(path) != null, storage.list(path).contains(path), path);
+        }
+    }
+
+    @Test
+    public void list_returnsPathsWithPrefixInOrder() throws Exception {
+        MemCachedStorage storage = new MemCachedStorage();
+        for (String path : List.of("salts/b", "keys/a", "salts/a", "salts", "saltz/a")) {
+            upload(storage, path, new byte[1]);
+        }
+
+        assertEquals(List.of("salts/a", "salts/b"), storage.list("salts/"));
+        assertEquals(List.of("salts", "salts/a", "salts/b"), storage.list("salts"));
+        assertEquals(List.of(), storage.list("tokens/"));
+        assertEquals(5, storage.list("").size());
+    }
+
+    @Test
+    public void delete_removesContentAndListing() throws Exception {
+        MemCachedStorage storage = new MemCachedStorage();
+        upload(storage, "a/1", new byte[10]);
+        upload(storage, "a/2", new byte[10]);
+        upload(storage, "a/3", new byte[10]);
+
+        storage.delete("a/1");
+        storage.delete(List.of("a/2"));
+
+        assertEquals(List.of("a/3"), storage.list("a/"));
+        assertNull(storage.getByteBuffer("a/1"));
+        assertEquals(10, storage.getSizeBytes());
+    }
+
+    @Test
+    public void download_streamIsIndependentOfOtherReaders() throws Exception {
+        MemCachedStorage storage = new MemCachedStorage();
+        upload(storage, "path", "0123456789".getBytes(StandardCharsets.UTF_8));
+
+        InputStream first = storage.download("path");
+        assertEquals(5, first.skip(5));
+        assertEquals("0123456789", new String(read(storage.download("path")), StandardCharsets.UTF_8));
+        assertEquals("56789", new String(read(first), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,94 @@
+package com.uid2.shared.encryption;
+
+import com.uid2.shared.model.KeysetKey;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AesEngineTest {
+    private static KeysetKey key(int id) {
+        return new KeysetKey(id, Random.getRandomKeyBytes(), Instant.now(), Instant.now(), Instant.now(), 123);
+    }
+
+    @Test
+    public void secretKey_cachedWhileKeyBytesUnchanged() {
+        KeysetKey key = key(1);
+        SecretKey secretKey = AesEngine.secretKey(key);
+
+        assertSame(secretKey, AesEngine.secretKey(key));
+        assertArrayEquals(key.getKeyBytes(), secretKey.getEncoded());
+
+        KeysetKey reloaded = key(1);
+        assertNotSame(secretKey, AesEngine.secretKey(reloaded));
+        assertArrayEquals(reloaded.getKeyBytes(), AesEngine.secretKey(reloaded).getEncoded());
+    }
+
+    @Test
+    public void gcm_roundTripAtOffsets() {
+        SecretKey key = AesEngine.secretKey(key(2));
+        byte[] plaintext = "hello world".getBytes(StandardCharsets.UTF_8);
+        byte[] encrypted = new byte[5 + AesEngine.gcmEncryptedLength(plaintext.length)];
+
+        assertEquals(encrypted.length - 5, AesEngine.encryptGcm(key, plaintext, 0, plaintext.length, encrypted, 5));
+        assertArrayEquals(plaintext, AesGcm.decrypt(encrypted, 5, key));
+
+        byte[] decrypted = new byte[3 + plaintext.length];
+        assertEquals(plaintext.length, AesEngine.decryptGcm(key, encrypted, 5, encrypted.length - 5, decrypted, 3));
+        assertArrayEquals(plaintext, Arrays.copyOfRange(decrypted, 3, decrypted.length));
+    }
+
+    @Test
+    public void gcm_roundTripDirectBuffers() {
+        KeysetKey keysetKey = key(3);
+        SecretKey key = AesEngine.secretKey(keysetKey);
+        byte[] plaintext = new byte[1000];
+        new java.util.Random(1).nextBytes(plaintext);
+
+        ByteBuffer encrypted = ByteBuffer.allocateDirect(AesEngine.gcmEncryptedLength(plaintext.length));
+        assertEquals(encrypted.capacity(), AesEngine.encryptGcm(key, ByteBuffer.wrap(plaintext), encrypted));
+        encrypted.flip();
+
+        byte[] encryptedBytes = new byte[encrypted.remaining()];
+        encrypted.duplicate().get(encryptedBytes);
+        assertArrayEquals(plaintext, AesGcm.decrypt(encryptedBytes, 0, keysetKey));
+
+        ByteBuffer decrypted = ByteBuffer.allocate(plaintext.length);
+        assertEquals(plaintext.length, AesEngine.decryptGcm(key, encrypted, decrypted));
+        assertArrayEquals(plaintext, decrypted.array());
+    }
+
+    @Test
+    public void gcm_tamperedPayloadFails() {
+        SecretKey key = AesEngine.secretKey(key(4));
+        byte[] encrypted = AesGcm.encrypt("hello world".getBytes(StandardCharsets.UTF_8), key);
+        encrypted[encrypted.length - 1] ^= 1;
+
+        assertThrows(RuntimeException.class, () -> AesGcm.decrypt(encrypted, 0, key));
+        assertThrows(RuntimeException.class, () -> AesGcm.decrypt(new byte[10], 0, key));
+    }
+
+    @Test
+    public void cbc_roundTripBuffersAndOffsets() {
+        KeysetKey keysetKey = key(5);
+        SecretKey key = AesEngine.secretKey(keysetKey);
+        byte[] plaintext = "foo@bar.comasdadsjahjhafjhjkfhakjhfkjshdkjfhaskdjfh".getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer encrypted = ByteBuffer.allocate(AesEngine.cbcEncryptedLength(plaintext.length));
+        assertEquals(encrypted.capacity(), AesEngine.encryptCbc(key, ByteBuffer.wrap(plaintext), encrypted));
+        assertArrayEquals(plaintext, AesCbc.decrypt(encrypted.array(), keysetKey));
+
+        byte[] decrypted = new byte[encrypted.capacity()];
+        int length = AesEngine.decryptCbc(key, encrypted.array(), 0, encrypted.capacity(), decrypted, 0);
+        assertArrayEquals(plaintext, Arrays.copyOf(decrypted, length));
+
+        encrypted.flip();
+        ByteBuffer decryptedBuffer = ByteBuffer.allocate(encrypted.remaining());
+        assertEquals(plaintext.length, AesEngine.decryptCbc(key, encrypted, decryptedBuffer));
+    }
+}
@@ -0,0 +1,71 @@
+package com.uid2.shared.encryption;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Base64CodecTest {
+    @Test
+    public void encodeAndDecode_matchJdkForAllTailLengths() {
+        java.util.Random random = new java.util.Random(3);
+        for (int length = 0; length < 100; length++) {
+            byte[] bytes = new byte[length];
+            random.nextBytes(bytes);
+
+            String standard = Base64.getEncoder().encodeToString(bytes);
+            String url = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+            assertEquals(standard, Base64Codec.STANDARD.encodeToString(bytes));
+            assertEquals(url, Base64Codec.URL.encodeToStringNoPadding(bytes));
+
+            byte[] encoded = new byte[2 + Base64Codec.encodedLength(length, true)];
+            int written = Base64Codec.STANDARD.encode(bytes, 0, length, encoded, 2, true);
+            assertEquals(standard, new String(encoded, 2, written, StandardCharsets.US_ASCII));
+            written = Base64Codec.URL.encode(bytes, 0, length, encoded, 2, false);
+            assertEquals(url, new String(encoded, 2, written, StandardCharsets.US_ASCII));
+
+            assertArrayEquals(bytes, Base64Codec.STANDARD.decode(standard));
+            assertArrayEquals(bytes, Base64Codec.STANDARD.decode(standard.replace("=", "")));
+            assertArrayEquals(bytes, Base64Codec.URL.decode(url));
+            assertArrayEquals(bytes, Base64Codec.URL.decode(url.getBytes(StandardCharsets.US_ASCII)));
+        }
+    }
+
+    @Test
+    public void decode_intoOffsetsAndBuffers() {
+        byte[] bytes = "hello world".getBytes(StandardCharsets.UTF_8);
+        String encoded = Base64.getEncoder().encodeToString(bytes);
+
+        byte[] dst = new byte[3 + bytes.length];
+        assertEquals(bytes.length, Base64Codec.STANDARD.decode(encoded, dst, 3));
+        assertArrayEquals(bytes, Arrays.copyOfRange(dst, 3, dst.length));
+
+        byte[] src = ("xx" + encoded).getBytes(StandardCharsets.US_ASCII);
+        assertEquals(bytes.length, Base64Codec.STANDARD.decodedLength(src, 2, src.length - 2));
+        assertEquals(bytes.length, Base64Codec.STANDARD.decode(src, 2, src.length - 2, dst, 0));
+        assertArrayEquals(bytes, Arrays.copyOf(dst, bytes.length));
+
+        ByteBuffer out = ByteBuffer.allocate(bytes.length);
+        assertEquals(bytes.length, Base64Codec.STANDARD.decode(ByteBuffer.wrap(src, 2, src.length - 2), out));
+        assertArrayEquals(bytes, out.array());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(src.length - 2).put(src, 2, src.length - 2).flip();
+        out.clear();
+        assertEquals(bytes.length, Base64Codec.STANDARD.decode(direct, out));
+        assertArrayEquals(bytes, out.array());
+    }
+
+    @Test
+    public void decode_rejectsMalformedInputLikeJdk() {
+        for (String invalid : new String[]{"Q", "QQ=", "QUJD=", "Q===", "QU!D", "QUJDé", "QU-D", "=QUJ"}) {
+            assertThrows(IllegalArgumentException.class, () -> Base64.getDecoder().decode(invalid), invalid);
+            assertThrows(IllegalArgumentException.class, () -> Base64Codec.STANDARD.decode(invalid), invalid);
+            assertThrows(IllegalArgumentException.class, () -> Base64Codec.STANDARD.decode(invalid.getBytes(StandardCharsets.ISO_8859_1)), invalid);
+        }
+        assertThrows(IllegalArgumentException.class, () -> Base64Codec.URL.decode("QU+D"));
+    }
+}
@@ -3,6 +3,9 @@ package com.uid2.shared.encryption;
 import org.junit.jupiter.api.Test;
 
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -22,4 +25,45 @@ public class RandomTest {
         assertEquals(key1.length, 32);
         assertNotSame(key1, key2);
     }
+
+    @Test
+    public void nextBytes_fillsOnlyRequestedRange() {
+        byte[] bytes = new byte[32];
+        Arrays.fill(bytes, (byte) 0x55);
+
+        Random.nextBytes(bytes, 4, 12);
+
+        for (int i = 0; i < 4; i++) assertEquals(0x55, bytes[i]);
+        for (int i = 16; i < 32; i++) assertEquals(0x55, bytes[i]);
+        assertFalse(Arrays.equals(new byte[12], Arrays.copyOfRange(bytes, 4, 16)));
+    }
+
+    @Test
+    public void getBytes_distinctAcrossPoolRefills() {
+        Set<String> ivs = new HashSet<>();
+        int count = 3 * Random.POOL_SIZE / 12;
+        for (int i = 0; i < count; i++) {
+            ivs.add(Arrays.toString(Random.getBytes(12)));
+        }
+        assertEquals(count, ivs.size());
+        assertEquals(Random.POOL_SIZE * 2, Random.getBytes(Random.POOL_SIZE * 2).length);
+    }
+
+    @Test
+    public void nextBytes_largeRequestsFillRequestedRangeDirectly() {
+        byte[] whole = new byte[Random.POOL_SIZE];
+        Random.nextBytes(whole);
+        assertFalse(Arrays.equals(new byte[Random.POOL_SIZE], whole));
+
+        byte[] bytes = new byte[Random.POOL_SIZE + 8];
+        Arrays.fill(bytes, (byte) 0x55);
+        Random.nextBytes(bytes, 4, Random.POOL_SIZE);
+        for (int i = 0; i < 4; i++) assertEquals(0x55, bytes[i]);
+        for (int i = Random.POOL_SIZE + 4; i < bytes.length; i++) assertEquals(0x55, bytes[i]);
+    }
+
+    @Test
+    public void nextLong_varies() {
+        assertNotEquals(Random.nextLong(), Random.nextLong());
+    }
 }
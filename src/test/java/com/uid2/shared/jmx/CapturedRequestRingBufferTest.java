@@ -0,0 +1,91 @@
+package com.uid2.shared.jmx;
+
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpVersion;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CapturedRequestRingBufferTest {
+    private static CapturedRequest request(String uri) {
+        return new CapturedRequest("contact", "127.0.0.1", 0, HttpMethod.GET, uri, HttpVersion.HTTP_1_1, 500, 12, 3,
+                new String[]{"user-agent", "junit", "referer", "http://example.com"},
+                new String[]{"content-type", "application/json"});
+    }
+
+    @Test
+    public void snapshot_keepsMostRecentInOrder() {
+        CapturedRequestRingBuffer buffer = new CapturedRequestRingBuffer(3);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(request("/" + i));
+        }
+
+        List<String> uris = buffer.snapshot().stream().map(CapturedRequest::uri).toList();
+        assertEquals(List.of("/2", "/3", "/4"), uris);
+    }
+
+    @Test
+    public void add_concurrentWriters_keepsLastWritesOfEachThread() throws Exception {
+        final int threads = 4;
+        final int writes = 10_000;
+        CapturedRequestRingBuffer buffer = new CapturedRequestRingBuffer(64);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < writes; i++) {
+                        buffer.add(request("/" + thread + "/" + i));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<CapturedRequest> snapshot = buffer.snapshot();
+        assertEquals(64, snapshot.size());
+
+        // the snapshot holds the last 64 writes overall, so each thread contributes the tail of its own writes, in order
+        Map<Integer, List<Integer>> writesByThread = new HashMap<>();
+        for (CapturedRequest request : snapshot) {
+            assertNotNull(request);
+            String[] parts = request.uri().split("/");
+            writesByThread.computeIfAbsent(Integer.parseInt(parts[1]), k -> new ArrayList<>()).add(Integer.parseInt(parts[2]));
+        }
+        for (Map.Entry<Integer, List<Integer>> entry : writesByThread.entrySet()) {
+            List<Integer> indexes = entry.getValue();
+            for (int i = 0; i < indexes.size(); i++) {
+                assertEquals(writes - indexes.size() + i, indexes.get(i), "thread " + entry.getKey() + " writes " + indexes);
+            }
+        }
+    }
+
+    @Test
+    public void format_includesSummaryAndHeaders() {
+        String formatted = request("/v2/token/generate").format();
+
+        assertTrue(formatted.startsWith("-->[contact] 127.0.0.1 - - ["));
+        assertTrue(formatted.contains("\"GET /v2/token/generate HTTP/1.1\" 500 12 3 \"http://example.com\" \"junit\""));
+        assertTrue(formatted.contains("user-agent: junit\n"));
+        assertTrue(formatted.endsWith("<--\ncontent-type: application/json\n"));
+    }
+}
@@ -0,0 +1,58 @@
+package com.uid2.shared.store;
+
+import com.uid2.shared.auth.ClientKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClientKeyIndexTest {
+    private static ClientKey key(String keyId, int siteId, int serviceId, long created) {
+        return new ClientKey("hash-" + keyId, "salt-" + keyId, "", "name", "contact", created, Set.of(), siteId, false, serviceId, keyId);
+    }
+
+    @Test
+    public void build_indexesBySiteServiceAndKeyId() {
+        ClientKey newest = key("a", 10, 1, 300);
+        ClientKey oldest = key("b", 10, 2, 100);
+        ClientKey middle = key("c", 10, 1, 200);
+        ClientKey otherSite = key("d", 20, 0, 50);
+
+        ClientKeyIndex index = ClientKeyIndex.build(List.of(newest, oldest, middle, otherSite));
+
+        assertEquals(4, index.size());
+        assertEquals(List.of(oldest, middle, newest), index.getKeysBySiteId(10));
+        assertSame(oldest, index.getOldestKeyBySiteId(10));
+        assertSame(otherSite, index.getOldestKeyBySiteId(20));
+        assertEquals(List.of(newest, middle), index.getKeysByServiceId(1));
+        assertSame(middle, index.getKeyByKeyId("c"));
+    }
+
+    @Test
+    public void build_unknownIdsReturnEmpty() {
+        ClientKeyIndex index = ClientKeyIndex.build(List.of(key("a", 10, 1, 300)));
+
+        assertNull(index.getOldestKeyBySiteId(99));
+        assertTrue(index.getKeysBySiteId(99).isEmpty());
+        assertTrue(index.getKeysByServiceId(99).isEmpty());
+        assertNull(index.getKeyByKeyId("missing"));
+        assertNull(ClientKeyIndex.EMPTY.getOldestKeyBySiteId(10));
+    }
+
+    @Test
+    public void build_sameCreatedKeepsSnapshotOrder() {
+        ClientKey first = key("a", 10, 0, 100);
+        ClientKey second = key("b", 10, 0, 100);
+
+        assertSame(first, ClientKeyIndex.build(List.of(first, second)).getOldestKeyBySiteId(10));
+    }
+
+    @Test
+    public void build_listsAreUnmodifiable() {
+        ClientKeyIndex index = ClientKeyIndex.build(List.of(key("a", 10, 1, 300)));
+
+        assertThrows(UnsupportedOperationException.class, () -> index.getKeysBySiteId(10).clear());
+    }
+}
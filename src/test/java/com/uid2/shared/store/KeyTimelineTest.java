@@ -0,0 +1,88 @@
+package com.uid2.shared.store;
+
+import com.uid2.shared.model.KeysetKey;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeyTimelineTest {
+    private static KeysetKey key(int id, long activates, long expires) {
+        return new KeysetKey(id, null, Instant.ofEpochSecond(0), Instant.ofEpochSecond(activates), Instant.ofEpochSecond(expires), 1);
+    }
+
+    private static KeyTimeline<KeysetKey> timeline(List<KeysetKey> keys) {
+        return new KeyTimeline<>(keys, KeysetKey::getActivates, KeysetKey::getExpires);
+    }
+
+    // the previous lookup: latest activated key that has not expired, ties resolved by list order
+    private static KeysetKey expectedActiveKey(List<KeysetKey> keys, Instant now) {
+        List<KeysetKey> sorted = new ArrayList<>(keys);
+        sorted.sort(Comparator.comparing(KeysetKey::getActivates));
+        KeysetKey active = null;
+        for (KeysetKey key : sorted) {
+            if (!now.isBefore(key.getActivates()) && !key.isExpired(now)) {
+                active = key;
+            }
+        }
+        return active;
+    }
+
+    @Test
+    public void getActiveKey_followsActivationAndExpiryBoundaries() {
+        KeysetKey first = key(1, 100, 300);
+        KeysetKey second = key(2, 200, 250);
+        KeyTimeline<KeysetKey> timeline = timeline(List.of(second, first));
+
+        assertNull(timeline.getActiveKey(Instant.ofEpochSecond(99)));
+        assertSame(first, timeline.getActiveKey(Instant.ofEpochSecond(100)));
+        assertSame(first, timeline.getActiveKey(Instant.ofEpochSecond(199, 999_999_999)));
+        assertSame(second, timeline.getActiveKey(Instant.ofEpochSecond(200)));
+        assertSame(first, timeline.getActiveKey(Instant.ofEpochSecond(250)));
+        assertNull(timeline.getActiveKey(Instant.ofEpochSecond(300)));
+        assertSame(second, timeline.getActiveKey(Instant.ofEpochSecond(249)));
+    }
+
+    @Test
+    public void getActiveKey_sameActivationPicksLastListed() {
+        KeysetKey a = key(1, 100, 300);
+        KeysetKey b = key(2, 100, 300);
+
+        assertSame(b, timeline(List.of(a, b)).getActiveKey(Instant.ofEpochSecond(150)));
+        assertSame(a, timeline(List.of(b, a)).getActiveKey(Instant.ofEpochSecond(150)));
+    }
+
+    @Test
+    public void getActiveKey_matchesLinearScanForRandomTimes() {
+        Random random = new Random(11);
+        for (int round = 0; round < 50; round++) {
+            List<KeysetKey> keys = new ArrayList<>();
+            for (int i = random.nextInt(8); i >= 0; i--) {
+                long activates = random.nextInt(100);
+                keys.add(key(i, activates, activates + random.nextInt(60) - 10));
+            }
+            KeyTimeline<KeysetKey> timeline = timeline(keys);
+
+            for (int i = 0; i < 200; i++) {
+                Instant now = Instant.ofEpochSecond(random.nextInt(180) - 20, random.nextBoolean() ? 0 : 500);
+                assertSame(expectedActiveKey(keys, now), timeline.getActiveKey(now), "at " + now + " over " + keys.size() + " keys");
+            }
+        }
+    }
+
+    @Test
+    public void keysetSnapshot_lookupsByPrimitiveIds() {
+        KeysetKey key = new KeysetKey(7, null, Instant.ofEpochSecond(0), Instant.ofEpochSecond(100), Instant.ofEpochSecond(200), 3);
+        HashMap<Integer, KeysetKey> byId = new HashMap<>(Map.of(7, key));
+        HashMap<Integer, List<KeysetKey>> byKeyset = new HashMap<>(Map.of(3, new ArrayList<>(List.of(key))));
+        KeysetKeyStoreSnapshot snapshot = new KeysetKeyStoreSnapshot(byId, byKeyset);
+
+        assertSame(key, snapshot.getKey(7));
+        assertNull(snapshot.getKey(8));
+        assertSame(key, snapshot.getActiveKey(3, Instant.ofEpochSecond(150)));
+        assertNull(snapshot.getActiveKey(4, Instant.ofEpochSecond(150)));
+        assertEquals(List.of(key), snapshot.getAllKeysetKeys());
+    }
+}
@@ -1,20 +1,32 @@
 package com.uid2.shared.store;
 
+import com.uid2.shared.cloud.CompressionFormat;
 import com.uid2.shared.cloud.ICloudStorage;
+import com.uid2.shared.cloud.LocalStorageMock;
+import com.uid2.shared.model.SaltEntry;
+import com.uid2.shared.store.salt.BinarySaltFile;
+import com.uid2.shared.store.salt.IdHashingScheme;
 import com.uid2.shared.store.salt.ISaltProvider;
 import com.uid2.shared.store.salt.RotatingSaltProvider;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
@@ -250,4 +262,41 @@ class RotatingSaltProviderTest {
         assertEquals(1, snapshot.getModifiedSince(Instant.now().minus(49, ChronoUnit.HOURS)).size());
         assertEquals(1000002, snapshot.getModifiedSince(Instant.now().minus(49, ChronoUnit.HOURS)).get(0).id());
     }
+
+    @ParameterizedTest
+    @EnumSource(CompressionFormat.class)
+    void loadBinarySaltFileFromLocalStorage(CompressionFormat format, @TempDir Path dir) throws Exception {
+        final String idPrefix = "a";
+        final String idSecret = "m3yMIcbg9vCaFLJsn4m4PfruZnvAZ72OxmFG5QsGMOw=";
+        final IdHashingScheme hashingScheme = new IdHashingScheme(idPrefix, idSecret);
+        final Instant generatedTime = Instant.now().minus(1, ChronoUnit.DAYS);
+        final long lastUpdated = generatedTime.toEpochMilli();
+        final long refreshFrom = generatedTime.plus(30, ChronoUnit.DAYS).toEpochMilli();
+
+        final SaltEntry[] entries = new SaltEntry[]{
+                new SaltEntry(1000000, hashingScheme.encode(1000000), lastUpdated, "y5YitNf/KFtceipDz8nqsFVmBZsK3KY7s8bOVM4gMD4=", refreshFrom, null, null, null),
+                new SaltEntry(1000001, hashingScheme.encode(1000001), lastUpdated, "z1uBoGyyzgna9i0o/r5eiD/wAhDX/2Q/6zX1p6hsF7I=", refreshFrom, null,
+                        new SaltEntry.KeyMaterial(1, "key", "key_salt"), null)
+        };
+        final String location = format.appendExtension("salts.bin");
+        try (OutputStream out = format.compress(Files.newOutputStream(dir.resolve(location)))) {
+            BinarySaltFile.write(entries, out);
+        }
+
+        final JsonObject metadataJson = new JsonObject()
+                .put("version", 3)
+                .put("first_level", "first_level_salt_value")
+                .put("id_prefix", idPrefix)
+                .put("id_secret", idSecret)
+                .put("salts", new JsonArray().add(new JsonObject()
+                        .put("effective", lastUpdated)
+                        .put("location", location)
+                        .put("size", 2)));
+        Files.writeString(dir.resolve("metadata.json"), metadataJson.encode());
+
+        RotatingSaltProvider saltsProvider = new RotatingSaltProvider(new LocalStorageMock(dir.toString()), "metadata.json");
+        saltsProvider.loadContent();
+
+        assertArrayEquals(entries, saltsProvider.getSnapshot(Instant.now()).getAllRotatingSalts());
+    }
 }
@@ -1,7 +1,9 @@
 package com.uid2.shared.store;
 
 import com.google.common.collect.ImmutableList;
+import com.uid2.shared.cloud.CompressionFormat;
 import com.uid2.shared.cloud.InMemoryStorageMock;
+import com.uid2.shared.cloud.MemCachedStorage;
 import com.uid2.shared.store.parser.Parser;
 import com.uid2.shared.store.parser.ParsingResult;
 import com.uid2.shared.store.scope.GlobalScope;
@@ -81,6 +83,20 @@ class ScopedStoreReaderTest {
         assertThat(actual).isEqualTo(expected);
     }
 
+    @Test
+    void loadsGzipCompressedContent() throws Exception {
+        // InMemoryStorageMock keeps content as text, which does not survive compressed bytes
+        MemCachedStorage binaryStorage = new MemCachedStorage();
+        String compressedPath = CompressionFormat.GZIP.appendExtension(dataPath.toString());
+        binaryStorage.upload(CompressionFormat.GZIP.compressing(toInputStream("value1,value2")), compressedPath);
+        ScopedStoreReader<Collection<TestData>> reader = new ScopedStoreReader<>(binaryStorage, scope, parser, dataType);
+
+        long count = reader.loadContent(new JsonObject().put(dataType, new JsonObject().put("location", compressedPath)), dataType);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(reader.getSnapshot()).isEqualTo(ImmutableList.of(new TestData("value1"), new TestData("value2")));
+    }
+
     private static class TestData {
         private final String field1;
 
@@ -0,0 +1,44 @@
+package com.uid2.shared.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotDiffTest {
+    private record Entry(int id, String value) {
+    }
+
+    @Test
+    void compute_reportsAddedRemovedAndChanged() {
+        List<Entry> previous = List.of(new Entry(1, "a"), new Entry(2, "b"), new Entry(3, "c"));
+        List<Entry> current = List.of(new Entry(1, "a"), new Entry(2, "B"), new Entry(4, "d"));
+
+        SnapshotDiff<Entry> diff = SnapshotDiff.compute(previous, current, Entry::id);
+
+        assertEquals(List.of(new Entry(4, "d")), diff.getAdded());
+        assertEquals(List.of(new Entry(3, "c")), diff.getRemoved());
+        assertEquals(List.of(new SnapshotDiff.Change<>(new Entry(2, "b"), new Entry(2, "B"))), diff.getChanged());
+        assertEquals(3, diff.size());
+        assertFalse(diff.isEmpty());
+    }
+
+    @Test
+    void compute_identicalSnapshots_isEmpty() {
+        List<Entry> snapshot = List.of(new Entry(1, "a"), new Entry(2, "b"));
+
+        assertTrue(SnapshotDiff.compute(snapshot, List.copyOf(snapshot), Entry::id).isEmpty());
+    }
+
+    @Test
+    void compute_noPreviousSnapshot_allAdded() {
+        List<Entry> current = List.of(new Entry(1, "a"), new Entry(2, "b"));
+
+        SnapshotDiff<Entry> diff = SnapshotDiff.compute(null, current, Entry::id);
+
+        assertEquals(current, diff.getAdded());
+        assertTrue(diff.getRemoved().isEmpty());
+        assertTrue(diff.getChanged().isEmpty());
+    }
+}
@@ -0,0 +1,79 @@
+package com.uid2.shared.store.parser;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.uid2.shared.model.KeysetKey;
+import com.uid2.shared.store.KeysetKeyStoreSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeysetKeyParserTest {
+    private final KeysetKeyParser parser = new KeysetKeyParser();
+
+    private static InputStream toStream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void deserialize_readsAllKeys() throws Exception {
+        String json = """
+                [
+                    {
+                        "id": 1,
+                        "keyset_id": 10,
+                        "created": 1687635529,
+                        "activates": 1687635530,
+                        "expires": 1687635531,
+                        "secret": "c2VjcmV0MQ==",
+                        "unknown": {"nested": [1, 2, 3]}
+                    },
+                    {
+                        "id": 2,
+                        "keyset_id": 10,
+                        "created": 1687635529,
+                        "activates": 1687635530,
+                        "expires": 1687635531,
+                        "secret": "c2VjcmV0Mg"
+                    }
+                ]
+                """;
+
+        ParsingResult<KeysetKeyStoreSnapshot> result = parser.deserialize(toStream(json));
+
+        assertEquals(2, result.getCount());
+        KeysetKey key = result.getData().getKey(1);
+        assertEquals(10, key.getKeysetId());
+        assertEquals(Instant.ofEpochSecond(1687635530), key.getActivates());
+        assertArrayEquals("secret1".getBytes(StandardCharsets.UTF_8), key.getKeyBytes());
+        // padding is optional, as with java.util.Base64
+        assertArrayEquals("secret2".getBytes(StandardCharsets.UTF_8), result.getData().getKey(2).getKeyBytes());
+    }
+
+    @Test
+    void deserialize_emptyArray() throws Exception {
+        ParsingResult<KeysetKeyStoreSnapshot> result = parser.deserialize(toStream("[]"));
+
+        assertEquals(0, result.getCount());
+        assertNull(result.getData().getKey(1));
+    }
+
+    @Test
+    void deserialize_missingRequiredField_throws() {
+        String json = """
+                [{"id": 1, "created": 1687635529, "activates": 1687635530, "expires": 1687635531, "secret": "c2VjcmV0MQ=="}]
+                """;
+
+        JsonParseException e = assertThrows(JsonParseException.class, () -> parser.deserialize(toStream(json)));
+        assertTrue(e.getMessage().contains("keyset_id"));
+    }
+
+    @Test
+    void deserialize_notAnArray_throws() {
+        assertThrows(JsonParseException.class, () -> parser.deserialize(toStream("{}")));
+    }
+}
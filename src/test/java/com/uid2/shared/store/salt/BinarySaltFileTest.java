@@ -0,0 +1,113 @@
+package com.uid2.shared.store.salt;
+
+import com.uid2.shared.cloud.CompressionFormat;
+import com.uid2.shared.model.SaltEntry;
+import com.uid2.shared.model.SaltEntry.KeyMaterial;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinarySaltFileTest {
+    private final IdHashingScheme hashingScheme = new IdHashingScheme("id-prefix", "id secret");
+    private final SaltFileParser parser = new SaltFileParser(hashingScheme);
+
+    private final SaltEntry[] entries = new SaltEntry[]{
+            new SaltEntry(1, hashingScheme.encode(1), 100, "salt1", 1000L, "old_salt1",
+                    new KeyMaterial(10, "key_1", "key_salt_1"),
+                    new KeyMaterial(100, "old_key_1", "old_key_1_salt")),
+            new SaltEntry(2, hashingScheme.encode(2), 200, null, 2000L, null,
+                    new KeyMaterial(0, "key_2", "key_salt_2"),
+                    null),
+            new SaltEntry(3, hashingScheme.encode(3), 300, "salt3", 3000L, null, null, null)
+    };
+
+    private byte[] write(SaltEntry[] entries) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinarySaltFile.write(entries, out);
+        return out.toByteArray();
+    }
+
+    @Test
+    void roundTripsEntries() throws IOException {
+        SaltEntry[] actual = parser.parseBinary(ByteBuffer.wrap(write(entries)), 3);
+
+        assertThat(actual).isEqualTo(entries);
+    }
+
+    @Test
+    void readsFromDirectBuffer() throws IOException {
+        byte[] file = write(entries);
+        ByteBuffer direct = ByteBuffer.allocateDirect(file.length).put(file).flip();
+
+        assertThat(parser.parseBinary(direct, 3)).isEqualTo(entries);
+    }
+
+    @Test
+    void recordsAreFixedWidth() throws IOException {
+        byte[] file = write(entries);
+        int recordSize = ByteBuffer.wrap(file).getInt(12);
+
+        assertThat(file.length).isEqualTo(BinarySaltFile.HEADER_BYTES + 3 * recordSize);
+    }
+
+    @Test
+    void parseStreamDetectsBinaryFormat() throws IOException {
+        byte[] compressed = CompressionFormat.GZIP.compressing(new ByteArrayInputStream(write(entries))).readAllBytes();
+
+        assertThat(parser.parseStream(CompressionFormat.GZIP.decompress(new ByteArrayInputStream(compressed)), 3)).isEqualTo(entries);
+    }
+
+    @Test
+    void parseStreamFallsBackToCsv() throws IOException {
+        var file = "3,300,salt3,3000,,,,,,,\n";
+
+        SaltEntry[] actual = parser.parseStream(new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8)), 1);
+
+        assertThat(actual).isEqualTo(new SaltEntry[]{entries[2]});
+    }
+
+    @Test
+    void rejectsCorruptedRecords() throws IOException {
+        byte[] file = write(entries);
+        file[file.length - 1] ^= 1;
+
+        assertThatThrownBy(() -> parser.parseBinary(ByteBuffer.wrap(file), 3))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("checksum");
+    }
+
+    @Test
+    void rejectsTruncatedFile() throws IOException {
+        byte[] file = write(entries);
+
+        assertThatThrownBy(() -> parser.parseBinary(ByteBuffer.wrap(file, 0, file.length - 1), 3))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("truncated");
+    }
+
+    @Test
+    void rejectsUnsupportedVersion() throws IOException {
+        byte[] file = write(entries);
+        ByteBuffer.wrap(file).putShort(4, (short) 2);
+
+        assertThatThrownBy(() -> parser.parseBinary(ByteBuffer.wrap(file), 3))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("version 2");
+    }
+
+    @Test
+    void rejectsSizeMismatchWithMetadata() throws IOException {
+        byte[] file = write(entries);
+
+        assertThatThrownBy(() -> parser.parseBinary(ByteBuffer.wrap(file), 4))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("metadata expects 4");
+    }
+}
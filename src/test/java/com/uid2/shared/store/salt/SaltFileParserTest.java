@@ -1,9 +1,17 @@
 package com.uid2.shared.store.salt;
 
+import com.uid2.shared.cloud.CompressionFormat;
 import com.uid2.shared.model.SaltEntry;
 import com.uid2.shared.model.SaltEntry.KeyMaterial;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
 class SaltFileParserTest {
@@ -97,4 +105,59 @@ class SaltFileParserTest {
         };
         assertThat(actual).isEqualTo(expected);
     }
+
+    @Test
+    void parsesCompressedSaltStream() throws IOException {
+        var file = """
+1,100,salt1,1000,old_salt1,,,,,,
+2,200,salt2,2000,,,,,,,
+""";
+        InputStream compressed = CompressionFormat.ZSTD.compressing(new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8)));
+
+        SaltEntry[] actual = parser.parseStream(CompressionFormat.ZSTD.decompress(compressed), 2);
+
+        assertThat(actual).isEqualTo(parser.parseFile(file, 2));
+    }
+
+    @Test
+    void encodesHashedIdOnFirstUseOnly() {
+        var encoded = new AtomicInteger();
+        LongFunction<String> encoder = id -> {
+            encoded.incrementAndGet();
+            return hashingScheme.encode(id);
+        };
+
+        var entry = SaltEntry.withLazyHashedId(1, encoder, 100, "salt1", 1000L, null, null, null);
+        assertThat(encoded.get()).isEqualTo(0);
+
+        assertThat(entry.hashedId()).isEqualTo(hashed1);
+        assertThat(entry.hashedId()).isEqualTo(hashed1);
+        assertThat(encoded.get()).isEqualTo(1);
+    }
+
+    @Test
+    void lazyEntryEqualsEagerEntry() {
+        var encoded = new AtomicInteger();
+        LongFunction<String> encoder = id -> {
+            encoded.incrementAndGet();
+            return hashingScheme.encode(id);
+        };
+        var lazy = SaltEntry.withLazyHashedId(1, encoder, 100, "salt1", 1000L, null, null, null);
+        var eager = new SaltEntry(1, hashed1, 100, "salt1", 1000L, null, null, null);
+
+        assertThat(lazy).isEqualTo(eager);
+        assertThat(lazy.hashCode()).isEqualTo(eager.hashCode());
+        assertThat(lazy.toString()).isEqualTo(eager.toString());
+        assertThat(encoded.get()).isEqualTo(0);
+        assertThat(lazy.hashedId()).isEqualTo(eager.hashedId());
+    }
+
+    @Test
+    void lazyEntryDeconstructsWithHashedId() {
+        var lazy = SaltEntry.withLazyHashedId(1, hashingScheme::encode, 100, "salt1", 1000L, null, null, null);
+
+        assertThat(lazy instanceof SaltEntry(var id, var hashedId, var lastUpdated, var currentSalt, var refreshFrom,
+                var previousSalt, var currentKeySalt, var previousKeySalt, var lazyHashedId)
+                && hashedId.equals(hashed1)).isTrue();
+    }
 }
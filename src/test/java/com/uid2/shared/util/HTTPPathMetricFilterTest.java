@@ -1,9 +1,11 @@
 package com.uid2.shared.util;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.util.HashSet;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -100,4 +102,16 @@ public class HTTPPathMetricFilterTest {
         String filteredPath = HTTPPathMetricFilter.filterPathWithoutPathParameters(actualPath, pathSetWithoutParams);
         assertEquals(expectedFilteredPath, filteredPath);
     }
+
+    @Test
+    void testPathFiltering_NewRouteSetWithSameSize_UsesNewRoutes() {
+        Set<String> routes = new HashSet<>(Set.of("/v1/identity/map", "/list/:siteId"));
+        assertEquals("/list/:siteId", HTTPPathMetricFilter.filterPath("/list/123", routes));
+        assertEquals("/list/:siteId", HTTPPathMetricFilter.filterPath("/list/123", routes));
+
+        routes = new HashSet<>(Set.of("/v1/identity/map", "/keys/:keyId"));
+
+        assertEquals("/unknown", HTTPPathMetricFilter.filterPath("/list/123", routes));
+        assertEquals("/keys/:keyId", HTTPPathMetricFilter.filterPath("/keys/7", routes));
+    }
 }
@@ -0,0 +1,56 @@
+package com.uid2.shared.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class RouteTemplateMatcherTest {
+    private final RouteTemplateMatcher matcher = RouteTemplateMatcher.compile(List.of(
+            "/v1/identity/map",
+            "/list",
+            "/list/:siteId/:keyId",
+            "/list/:siteId/latest",
+            "/list/all/:keyId",
+            "/keys/key-:id"));
+
+    @ParameterizedTest
+    @CsvSource(value = {
+            "/v1/identity/map, /v1/identity/map",
+            "/list, /list",
+            "/list/123/key123, /list/:siteId/:keyId",
+            "/list/123/latest, /list/:siteId/latest",
+            "/list/all/5, /list/all/:keyId",
+            "/list/all/latest, /list/all/:keyId",
+            "/keys/key-abc, /keys/key-:id"
+    })
+    void match_knownPaths(String path, String expectedTemplate) {
+        assertEquals(expectedTemplate, matcher.match(path));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "/v1/identity",
+            "/v1/identity/map/extra",
+            "/list/123",
+            "/keys/key-",
+            "/keys/other"
+    })
+    void match_unknownPaths(String path) {
+        assertNull(matcher.match(path));
+    }
+
+    @Test
+    void match_backtracksWhenLiteralBranchFails() {
+        // the literal "all" branch only has a route ending in /info, so a three segment path falls back to :siteId
+        RouteTemplateMatcher m = RouteTemplateMatcher.compile(List.of("/list/all/:keyId/info", "/list/:siteId/:keyId"));
+        assertEquals("/list/:siteId/:keyId", m.match("/list/all/5"));
+        assertEquals("/list/all/:keyId/info", m.match("/list/all/5/info"));
+    }
+}
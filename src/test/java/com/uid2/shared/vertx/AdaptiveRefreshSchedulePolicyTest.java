@@ -0,0 +1,91 @@
+package com.uid2.shared.vertx;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.uid2.shared.vertx.IRefreshSchedulePolicy.RefreshOutcome.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveRefreshSchedulePolicyTest {
+    @Test
+    void noJitter_fixedInterval_unchangedByOutcome() {
+        AdaptiveRefreshSchedulePolicy policy = new AdaptiveRefreshSchedulePolicy(1000, 1000, 1000, 8000, 0);
+        assertEquals(1000, policy.initialDelayMs());
+        assertEquals(1000, policy.nextDelayMs(CHANGED));
+        assertEquals(1000, policy.nextDelayMs(UNCHANGED));
+    }
+
+    @Test
+    void failures_backOffExponentiallyUpToCap_resetOnSuccess() {
+        AdaptiveRefreshSchedulePolicy policy = new AdaptiveRefreshSchedulePolicy(1000, 1000, 1000, 5000, 0);
+        assertEquals(2000, policy.nextDelayMs(FAILED));
+        assertEquals(4000, policy.nextDelayMs(FAILED));
+        assertEquals(5000, policy.nextDelayMs(FAILED));
+        assertEquals(5000, policy.nextDelayMs(FAILED));
+        assertEquals(1000, policy.nextDelayMs(UNCHANGED));
+        assertEquals(2000, policy.nextDelayMs(FAILED));
+    }
+
+    @Test
+    void versionChanges_adaptIntervalWithinBounds() {
+        AdaptiveRefreshSchedulePolicy policy = new AdaptiveRefreshSchedulePolicy(1000, 400, 2000, 8000, 0);
+        assertEquals(500, policy.nextDelayMs(CHANGED));
+        assertEquals(400, policy.nextDelayMs(CHANGED));
+        assertEquals(600, policy.nextDelayMs(UNCHANGED));
+        assertEquals(900, policy.nextDelayMs(UNCHANGED));
+        assertEquals(1350, policy.nextDelayMs(UNCHANGED));
+        assertEquals(2000, policy.nextDelayMs(UNCHANGED));
+        assertEquals(2000, policy.nextDelayMs(UNCHANGED));
+    }
+
+    @Test
+    void jitter_staysWithinRatio() {
+        AdaptiveRefreshSchedulePolicy policy = new AdaptiveRefreshSchedulePolicy(10000, 10000, 10000, 80000, 0.1);
+        for (int i = 0; i < 1000; i++) {
+            long delay = policy.nextDelayMs(UNCHANGED);
+            assertTrue(delay >= 9000 && delay <= 11000, "delay out of range: " + delay);
+        }
+    }
+
+    @Test
+    void defaultPolicy_adaptsBetweenHalfAndTwiceTheInterval() {
+        AdaptiveRefreshSchedulePolicy policy = new AdaptiveRefreshSchedulePolicy(10000);
+        for (int i = 0; i < 10; i++) {
+            policy.nextDelayMs(CHANGED);
+        }
+        assertEquals(5000, policy.currentIntervalMs());
+        for (int i = 0; i < 10; i++) {
+            policy.nextDelayMs(UNCHANGED);
+        }
+        assertEquals(20000, policy.currentIntervalMs());
+    }
+
+    @Test
+    void initialDelay_keepsOnePhaseOffsetPerInstance() {
+        AdaptiveRefreshSchedulePolicy policy = new AdaptiveRefreshSchedulePolicy(10000, 10000, 10000, 80000, 0.1);
+        long minInitial = Long.MAX_VALUE;
+        long maxInitial = Long.MIN_VALUE;
+        for (int i = 0; i < 100; i++) {
+            long delay = policy.initialDelayMs();
+            assertTrue(delay >= 9000 && delay <= 21000, "delay out of range: " + delay);
+            minInitial = Math.min(minInitial, delay);
+            maxInitial = Math.max(maxInitial, delay);
+        }
+        // only the jitter varies between calls, the phase offset is drawn once
+        assertTrue(maxInitial - minInitial <= 2000, "phase offset changed between calls");
+
+        Set<Long> offsets = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            offsets.add(new AdaptiveRefreshSchedulePolicy(10000, 10000, 10000, 80000, 0.1).initialDelayMs() / 2000);
+        }
+        assertTrue(offsets.size() > 1, "instances share one phase");
+    }
+
+    @Test
+    void invalidIntervals_throw() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveRefreshSchedulePolicy(1000, 2000, 3000, 8000, 0.1));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveRefreshSchedulePolicy(1000, 1000, 1000, 8000, 1.5));
+    }
+}
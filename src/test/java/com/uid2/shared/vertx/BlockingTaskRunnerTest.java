@@ -0,0 +1,118 @@
+package com.uid2.shared.vertx;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(VertxExtension.class)
+public class BlockingTaskRunnerTest {
+    @Test
+    public void virtualThreads_runOffContextAndCompleteOnIt(Vertx vertx, VertxTestContext testContext) {
+        vertx.runOnContext(v -> {
+            Context context = vertx.getOrCreateContext();
+            BlockingTaskRunner runner = new BlockingTaskRunner(vertx, "test-virtual", 0, true);
+            runner.execute(() -> Thread.currentThread().isVirtual(), false)
+                    .onComplete(testContext.succeeding(isVirtual -> testContext.verify(() -> {
+                        assertTrue(isVirtual);
+                        assertSame(context, Vertx.currentContext());
+                        testContext.completeNow();
+                    })));
+        });
+    }
+
+    @Test
+    public void virtualThreads_capConcurrentTasks(Vertx vertx, VertxTestContext testContext) {
+        BlockingTaskRunner runner = new BlockingTaskRunner(vertx, "test-capped", 2, true);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(runner.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(20);
+                running.decrementAndGet();
+                return null;
+            }, false));
+        }
+
+        Future.all(futures).onComplete(testContext.succeeding(v -> testContext.verify(() -> {
+            assertTrue(maxRunning.get() <= 2);
+            testContext.completeNow();
+        })));
+    }
+
+    @Test
+    public void virtualThreads_orderedTasksDoNotOverlap(Vertx vertx, VertxTestContext testContext) {
+        BlockingTaskRunner runner = new BlockingTaskRunner(vertx, "test-ordered", 0, true);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(runner.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(10);
+                running.decrementAndGet();
+                return null;
+            }, true));
+        }
+
+        Future.all(futures).onComplete(testContext.succeeding(v -> testContext.verify(() -> {
+            assertEquals(1, maxRunning.get());
+            testContext.completeNow();
+        })));
+    }
+
+    @Test
+    public void virtualThreads_failurePropagates(Vertx vertx, VertxTestContext testContext) {
+        BlockingTaskRunner runner = new BlockingTaskRunner(vertx, "test-failure", 1, true);
+
+        runner.execute(() -> {
+            throw new IllegalStateException("download failed");
+        }, false).onComplete(testContext.failing(t -> testContext.verify(() -> {
+            assertEquals("download failed", t.getMessage());
+            testContext.completeNow();
+        })));
+    }
+
+    @Test
+    public void workerPool_runsOnWorkerThread(Vertx vertx, VertxTestContext testContext) {
+        BlockingTaskRunner runner = new BlockingTaskRunner(vertx, "test-worker", 2, false);
+
+        runner.execute(() -> Thread.currentThread().isVirtual() || Context.isOnEventLoopThread(), false)
+                .onComplete(testContext.succeeding(offWorker -> testContext.verify(() -> {
+                    assertFalse(offWorker);
+                    runner.close();
+                    testContext.completeNow();
+                })));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    public void tasksSubmittedOffContext_completeOnRunnerContext(boolean virtualThreads, Vertx vertx, VertxTestContext testContext) {
+        vertx.runOnContext(v -> {
+            Context context = vertx.getOrCreateContext();
+            BlockingTaskRunner runner = new BlockingTaskRunner(vertx, "test-off-context-" + virtualThreads, 2, virtualThreads);
+            // as a refresh running on the runner submits its downloads
+            Thread.ofVirtual().start(() -> runner.execute(() -> null, false)
+                    .onComplete(testContext.succeeding(r -> testContext.verify(() -> {
+                        assertSame(context, Vertx.currentContext());
+                        runner.close();
+                        testContext.completeNow();
+                    }))));
+        });
+    }
+}
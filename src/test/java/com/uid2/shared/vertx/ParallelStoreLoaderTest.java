@@ -0,0 +1,122 @@
+package com.uid2.shared.vertx;
+
+import com.uid2.shared.store.reader.IMetadataVersionedStore;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(VertxExtension.class)
+public class ParallelStoreLoaderTest {
+    private final List<String> loadOrder = new CopyOnWriteArrayList<>();
+
+    private IMetadataVersionedStore mockStore(String name, long version, long entryCount) throws Exception {
+        return mockStore(name, version, entryCount, () -> null);
+    }
+
+    private IMetadataVersionedStore mockStore(String name, long version, long entryCount, Callable<?> beforeLoad) throws Exception {
+        IMetadataVersionedStore store = mock(IMetadataVersionedStore.class);
+        JsonObject metadata = new JsonObject().put("version", version);
+        when(store.getMetadata()).thenReturn(metadata);
+        when(store.getVersion(metadata)).thenReturn(version);
+        when(store.loadContent(metadata)).thenAnswer(invocation -> {
+            beforeLoad.call();
+            loadOrder.add(name);
+            return entryCount;
+        });
+        return store;
+    }
+
+    private static Callable<?> await(CountDownLatch latch) {
+        return () -> {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            return null;
+        };
+    }
+
+    @Test
+    public void loadAll_dependentStoreLoadedAfterDependency(Vertx vertx, VertxTestContext testContext) throws Exception {
+        // keys only finishes once services has loaded, which can only happen if services does not wait for keys
+        CountDownLatch servicesLoaded = new CountDownLatch(1);
+        IMetadataVersionedStore keys = mockStore("keys", 3, 10, await(servicesLoaded));
+        IMetadataVersionedStore sites = mockStore("sites", 5, 20);
+        IMetadataVersionedStore services = mockStore("services", 7, 30, () -> {
+            servicesLoaded.countDown();
+            return null;
+        });
+
+        new ParallelStoreLoader(vertx, 4)
+                .addStore("keys", keys)
+                .addStore("sites", sites, "keys")
+                .addStore("services", services)
+                .loadAll()
+                .onComplete(testContext.succeeding(results -> testContext.verify(() -> {
+                    assertEquals(3, results.size());
+                    assertEquals(5, results.get("sites").version());
+                    assertEquals(20, results.get("sites").entryCount());
+                    assertEquals(List.of("services", "keys", "sites"), loadOrder);
+                    testContext.completeNow();
+                })));
+    }
+
+    @Test
+    public void loadAll_dependencyFails_dependentNotLoaded(Vertx vertx, VertxTestContext testContext) throws Exception {
+        IMetadataVersionedStore keys = mock(IMetadataVersionedStore.class);
+        when(keys.getMetadata()).thenThrow(new RuntimeException("download failed"));
+        IMetadataVersionedStore sites = mockStore("sites", 5, 20);
+
+        new ParallelStoreLoader(vertx, 2)
+                .addStore("keys", keys)
+                .addStore("sites", sites, "keys")
+                .loadAll()
+                .onComplete(testContext.failing(e -> testContext.verify(() -> {
+                    verify(sites, never()).loadContent(any());
+                    testContext.completeNow();
+                })));
+    }
+
+    @Test
+    public void loadAll_storeFails_waitsForRunningLoads(Vertx vertx, VertxTestContext testContext) throws Exception {
+        CountDownLatch keysFailed = new CountDownLatch(1);
+        IMetadataVersionedStore keys = mock(IMetadataVersionedStore.class);
+        when(keys.getMetadata()).thenAnswer(invocation -> {
+            keysFailed.countDown();
+            throw new RuntimeException("download failed");
+        });
+        IMetadataVersionedStore services = mockStore("services", 7, 30, await(keysFailed));
+
+        new ParallelStoreLoader(vertx, 2)
+                .addStore("keys", keys)
+                .addStore("services", services)
+                .loadAll()
+                .onComplete(testContext.failing(e -> testContext.verify(() -> {
+                    assertEquals("download failed", e.getMessage());
+                    assertEquals(List.of("services"), loadOrder);
+                    testContext.completeNow();
+                })));
+    }
+
+    @Test
+    public void loadAll_dependencyCycle_fails(Vertx vertx, VertxTestContext testContext) throws Exception {
+        new ParallelStoreLoader(vertx, 2)
+                .addStore("a", mockStore("a", 1, 1), "b")
+                .addStore("b", mockStore("b", 1, 1), "a")
+                .loadAll()
+                .onComplete(testContext.failing(e -> testContext.verify(() -> {
+                    assertInstanceOf(IllegalStateException.class, e);
+                    testContext.completeNow();
+                })));
+    }
+}
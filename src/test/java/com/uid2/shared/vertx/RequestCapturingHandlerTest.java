@@ -173,6 +173,57 @@ public class RequestCapturingHandlerTest {
         }));
     }
 
+    @Test
+    public void metricSeriesBeyondLimitCountedAsOverflow() {
+        RequestCapturingHandler handler = new RequestCapturingHandler(siteStore, 2);
+        handler.incrementMetricCounter("contact", 100, "localhost", 200, HttpMethod.GET, "/a");
+        handler.incrementMetricCounter("contact", 100, "localhost", 200, HttpMethod.GET, "/a");
+        handler.incrementMetricCounter("contact", 200, "localhost", 200, HttpMethod.GET, "/b");
+        handler.incrementMetricCounter("contact", 200, "localhost", 200, HttpMethod.GET, "/c");
+        handler.incrementMetricCounter("contact", 200, "localhost", 500, HttpMethod.GET, "/d");
+
+        Assertions.assertEquals(2, Metrics.globalRegistry.get("uid2_http_requests_total").tag("path", "/a").tag("site_name", "test-100").counter().count());
+        Assertions.assertEquals(1, Metrics.globalRegistry.get("uid2_http_requests_total").tag("path", "/b").tag("site_name", "test-200").counter().count());
+        Assertions.assertEquals(2, Metrics.globalRegistry.get("uid2_http_requests_total").tag("path", "overflow").counter().count());
+        Assertions.assertTrue(Metrics.globalRegistry.find("uid2_http_requests_total").tag("path", "/c").counters().isEmpty());
+    }
+
+    @Test
+    public void siteNameResolvedOnceSiteStoreLoads() {
+        RequestCapturingHandler handler = new RequestCapturingHandler(siteStore);
+        handler.incrementMetricCounter("contact", 300, "localhost", 200, HttpMethod.GET, "/a");
+
+        when(siteStore.getSite(300)).thenReturn(new Site(300, "test-300", true));
+        when(siteStore.getSnapshotId()).thenReturn(new Object());
+        handler.incrementMetricCounter("contact", 300, "localhost", 200, HttpMethod.GET, "/a");
+        handler.incrementMetricCounter("contact", 300, "localhost", 200, HttpMethod.GET, "/a");
+
+        Assertions.assertEquals(1, Metrics.globalRegistry.get("uid2_http_requests_total").tag("site_id", "300").tag("site_name", "unknown").counter().count());
+        Assertions.assertEquals(2, Metrics.globalRegistry.get("uid2_http_requests_total").tag("site_id", "300").tag("site_name", "test-300").counter().count());
+    }
+
+    @Test
+    public void siteNameLookedUpOnlyWhenCounterIsRegistered() {
+        RequestCapturingHandler handler = new RequestCapturingHandler(siteStore);
+        for (int i = 0; i < 5; i++) {
+            handler.incrementMetricCounter("contact", 100, "localhost", 200, HttpMethod.GET, "/a");
+        }
+
+        Mockito.verify(siteStore, Mockito.times(1)).getSite(100);
+        Assertions.assertEquals(5, Metrics.globalRegistry.get("uid2_http_requests_total").tag("site_name", "test-100").counter().count());
+    }
+
+    @Test
+    public void appVersionHeaderVariationsShareSeries() {
+        RequestCapturingHandler handler = new RequestCapturingHandler(siteStore, 1);
+        handler.incrementAppVersionCounter("contact", "uid2-sdk=1.0.0");
+        handler.incrementAppVersionCounter("contact", "uid2-sdk=1.0.0;other=2.0");
+        handler.incrementAppVersionCounter("contact", "uid2-sdk=1.0.0;other=3.0");
+
+        Assertions.assertEquals(3, Metrics.globalRegistry.get("uid2_client_versions_total").tag("client_name", "uid2-sdk").tag("client_version", "1.0.0").counter().count());
+        Assertions.assertTrue(Metrics.globalRegistry.find("uid2_client_versions_total").tag("client_name", "overflow").counters().isEmpty());
+    }
+
     @ParameterizedTest
     @MethodSource("siteIdRoutingContextData")
     public void getSiteIdFromRoutingContextData(String key, Object value, String siteId, String siteName, Vertx vertx, VertxTestContext testContext) {
@@ -0,0 +1,134 @@
+package com.uid2.shared.vertx;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(VertxExtension.class)
+public class TransferSchedulerTest {
+    private final List<String> transferred = new CopyOnWriteArrayList<>();
+    private final List<String> completed = new CopyOnWriteArrayList<>();
+
+    private TransferScheduler scheduler(Vertx vertx, int maxInFlight, int maxAttempts, Map<String, Instant> timestamps,
+                                        TransferScheduler.Transfer transfer) {
+        BlockingTaskRunner runner = new BlockingTaskRunner(vertx, "test-transfers", 0, true);
+        return new TransferScheduler(vertx, runner, maxInFlight, maxAttempts, 1, timestamps::get,
+            path -> {
+                transferred.add(path);
+                transfer.run(path);
+            },
+            (path, ar) -> completed.add(path));
+    }
+
+    @Test
+    public void submit_samePathSharesTransfer(Vertx vertx, VertxTestContext testContext) {
+        CountDownLatch release = new CountDownLatch(1);
+        TransferScheduler scheduler = scheduler(vertx, 2, 1, Map.of(), path -> release.await());
+
+        Future<Void> first = scheduler.submit("optout/delta/a.dat");
+        Future<Void> second = scheduler.submit("optout/delta/a.dat");
+        assertSame(first, second);
+        assertEquals(1, scheduler.pendingCount());
+        release.countDown();
+
+        first.onComplete(testContext.succeeding(v -> testContext.verify(() -> {
+            assertEquals(List.of("optout/delta/a.dat"), transferred);
+            assertEquals(List.of("optout/delta/a.dat"), completed);
+            assertEquals(0, scheduler.pendingCount());
+            testContext.completeNow();
+        })));
+    }
+
+    @Test
+    public void submit_queuedTransfersStartNewestFirst(Vertx vertx, VertxTestContext testContext) {
+        CountDownLatch release = new CountDownLatch(1);
+        Map<String, Instant> timestamps = Map.of(
+            "old", Instant.parse("2024-01-01T00:00:00Z"),
+            "newest", Instant.parse("2024-01-03T00:00:00Z"),
+            "middle", Instant.parse("2024-01-02T00:00:00Z"));
+        TransferScheduler scheduler = scheduler(vertx, 1, 1, timestamps, path -> {
+            if (path.equals("blocker")) {
+                release.await();
+            }
+        });
+
+        List<Future<Void>> futures = new ArrayList<>();
+        futures.add(scheduler.submit("blocker"));
+        futures.add(scheduler.submit("untimestamped"));
+        futures.add(scheduler.submit("old"));
+        futures.add(scheduler.submit("newest"));
+        futures.add(scheduler.submit("middle"));
+        vertx.setTimer(50, id -> release.countDown());
+
+        Future.all(futures).onComplete(testContext.succeeding(v -> testContext.verify(() -> {
+            assertEquals(List.of("blocker", "newest", "middle", "old", "untimestamped"), transferred);
+            testContext.completeNow();
+        })));
+    }
+
+    @Test
+    public void submit_capsTransfersInFlight(Vertx vertx, VertxTestContext testContext) {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        TransferScheduler scheduler = scheduler(vertx, 2, 1, Map.of(), path -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+        });
+
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(scheduler.submit("file-" + i));
+        }
+
+        Future.all(futures).onComplete(testContext.succeeding(v -> testContext.verify(() -> {
+            assertTrue(maxRunning.get() <= 2);
+            assertEquals(8, completed.size());
+            testContext.completeNow();
+        })));
+    }
+
+    @Test
+    public void submit_retriesFailedTransfer(Vertx vertx, VertxTestContext testContext) {
+        AtomicInteger failures = new AtomicInteger(2);
+        TransferScheduler scheduler = scheduler(vertx, 1, 3, Map.of(), path -> {
+            if (failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("transient failure");
+            }
+        });
+
+        scheduler.submit("flaky").onComplete(testContext.succeeding(v -> testContext.verify(() -> {
+            assertEquals(List.of("flaky", "flaky", "flaky"), transferred);
+            assertEquals(List.of("flaky"), completed);
+            testContext.completeNow();
+        })));
+    }
+
+    @Test
+    public void submit_failsAfterLastAttempt(Vertx vertx, VertxTestContext testContext) {
+        TransferScheduler scheduler = scheduler(vertx, 1, 2, Map.of(), path -> {
+            throw new IllegalStateException("download failed");
+        });
+
+        scheduler.submit("broken").onComplete(testContext.failing(t -> testContext.verify(() -> {
+            assertEquals("download failed", t.getMessage());
+            assertEquals(2, transferred.size());
+            assertEquals(List.of("broken"), completed);
+            assertEquals(0, scheduler.pendingCount());
+            testContext.completeNow();
+        })));
+    }
+}